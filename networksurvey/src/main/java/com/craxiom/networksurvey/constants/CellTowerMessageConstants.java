@@ -0,0 +1,30 @@
+package com.craxiom.networksurvey.constants;
+
+/**
+ * The constants associated with the cell tower estimate table in the GeoPackage file. Each row in the table is the
+ * estimated position of one cell (or one LTE eNodeB) calculated from the signal strength weighted centroid of the
+ * records where it was seen.
+ *
+ * @since 1.5.0
+ */
+public class CellTowerMessageConstants extends MessageConstants
+{
+    private CellTowerMessageConstants()
+    {
+    }
+
+    public static final String CELL_TOWER_ESTIMATES_TABLE_NAME = "CELL_TOWER_ESTIMATES";
+
+    public static final String TECHNOLOGY_COLUMN = "Technology";
+    public static final String MCC_COLUMN = "MCC";
+    public static final String MNC_COLUMN = "MNC";
+    public static final String CELL_ID_COLUMN = "Cell Identity";
+    public static final String ENODEB_ID_COLUMN = "eNodeB ID";
+    public static final String SPREAD_COLUMN = "Spread (m)";
+    public static final String SAMPLE_COUNT_COLUMN = "Sample Count";
+
+    public static final String TECHNOLOGY_GSM = "GSM";
+    public static final String TECHNOLOGY_UMTS = "UMTS";
+    public static final String TECHNOLOGY_LTE = "LTE";
+    public static final String TECHNOLOGY_LTE_ENODEB = "LTE eNodeB";
+}
@@ -0,0 +1,24 @@
+package com.craxiom.networksurvey.constants;
+
+/**
+ * The constants associated with the coverage tile table in the GeoPackage file. Each row in the table is the signal
+ * statistics for one emitter (e.g. a cell or a BSSID) in one tile of the coverage grid, and the geometry of the row is
+ * the tile polygon, so the table can be displayed as a coverage layer.
+ *
+ * @since 1.5.0
+ */
+public class CoverageMessageConstants extends MessageConstants
+{
+    private CoverageMessageConstants()
+    {
+    }
+
+    public static final String COVERAGE_TILES_TABLE_NAME = "COVERAGE_TILES";
+
+    public static final String EMITTER_COLUMN = "Emitter";
+    public static final String SAMPLE_COUNT_COLUMN = "Sample Count";
+    public static final String MEAN_COLUMN = "Mean (dBm)";
+    public static final String MIN_COLUMN = "Min (dBm)";
+    public static final String MAX_COLUMN = "Max (dBm)";
+    public static final String STD_DEV_COLUMN = "Standard Deviation (dB)";
+}
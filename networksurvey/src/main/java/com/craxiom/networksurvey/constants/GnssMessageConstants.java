@@ -27,6 +27,7 @@ public class GnssMessageConstants extends MessageConstants
     public static final String CONSTELLATION = "Constellation";
     public static final String SPACE_VEHICLE_ID = "Space Vehicle Id";
     public static final String CARRIER_FREQUENCY_HZ = "Carrier Frequency Hz";
+    public static final String CARRIER_FREQUENCY_BAND = "Carrier Frequency Band";
     public static final String CLOCK_OFFSET = "Clock Offset";
     public static final String USED_IN_SOLUTION = "Used in Solution";
     public static final String UNDULATION_M = "Undulation (m)";
@@ -38,6 +39,19 @@ public class GnssMessageConstants extends MessageConstants
     public static final String HDOP = "HDOP";
     public static final String VDOP = "VDOP";
 
+    public static final String NMEA_RECORDS_TABLE_NAME = "NMEA_MESSAGE";
+    public static final String NMEA_TALKER_ID = "Talker ID";
+    public static final String NMEA_SENTENCE_TYPE = "Sentence Type";
+    public static final String NMEA_FIX_QUALITY = "Fix Quality";
+    public static final String NMEA_SATELLITES_USED = "Satellites Used";
+    public static final String NMEA_SATELLITES_IN_VIEW = "Satellites in View";
+    public static final String PDOP = "PDOP";
+    public static final String NMEA_ALTITUDE_MSL_M = "Altitude MSL (m)";
+    public static final String NMEA_GEOID_SEPARATION_M = "Geoid Separation (m)";
+    public static final String NMEA_SPEED_KNOTS = "Speed (knots)";
+    public static final String NMEA_COURSE_DEGREES = "Course (degrees)";
+    public static final String NMEA_SENTENCE = "Sentence";
+
     /**
      * Given an Android OS defined {@link android.location.GnssStatus}, return the Protobuf representation of the GNSS
      * Constellation.
@@ -116,6 +130,43 @@ public class GnssMessageConstants extends MessageConstants
         }
     }
 
+    /**
+     * Given a Protobuf representation of the GNSS Constellation, return the locally defined {@link GnssType}.
+     *
+     * @param constellation The protobuf defined GNSS Constellation to convert.
+     * @return The GnssType enum, or {@link GnssType#UNKNOWN} if the constellation could not be converted.
+     * @since 1.5.0
+     */
+    public static GnssType getGnssType(Constellation constellation)
+    {
+        switch (constellation)
+        {
+            case GPS:
+                return GnssType.NAVSTAR;
+
+            case GLONASS:
+                return GnssType.GLONASS;
+
+            case GALILEO:
+                return GnssType.GALILEO;
+
+            case QZSS:
+                return GnssType.QZSS;
+
+            case BEIDOU:
+                return GnssType.BEIDOU;
+
+            case IRNSS:
+                return GnssType.IRNSS;
+
+            case SBAS:
+                return GnssType.SBAS;
+
+            default:
+                return GnssType.UNKNOWN;
+        }
+    }
+
     /**
      * Given a Protocol Buffer defined GNSS Constellation, return a user friendly string representation that follows
      * the ICD used for the GeoPackage logging.
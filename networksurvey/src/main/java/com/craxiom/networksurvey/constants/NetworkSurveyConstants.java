@@ -60,6 +60,40 @@ public class NetworkSurveyConstants
      */
     public static final String EXTRA_STARTED_AT_BOOT = "com.craxiom.networksurvey.extra.STARTED_AT_BOOT";
 
+    /**
+     * The Intent action that starts replaying recorded GeoPackage files through the survey record processor and its
+     * sinks. This is only handled in debug builds, for example:
+     * {@code adb shell am startservice -a com.craxiom.networksurvey.action.REPLAY_SURVEY
+     * --esa com.craxiom.networksurvey.extra.REPLAY_FILES /sdcard/survey.gpkg
+     * --ef com.craxiom.networksurvey.extra.REPLAY_SPEED 10 com.craxiom.networksurvey/.services.NetworkSurveyService}
+     *
+     * @since 1.5.0
+     */
+    public static final String ACTION_REPLAY_SURVEY = "com.craxiom.networksurvey.action.REPLAY_SURVEY";
+    public static final String ACTION_STOP_SURVEY_REPLAY = "com.craxiom.networksurvey.action.STOP_SURVEY_REPLAY";
+    public static final String EXTRA_REPLAY_FILES = "com.craxiom.networksurvey.extra.REPLAY_FILES";
+
+    /**
+     * How many times faster than real time to replay the files. A value of 0 or less replays them as fast as possible.
+     *
+     * @since 1.5.0
+     */
+    public static final String EXTRA_REPLAY_SPEED = "com.craxiom.networksurvey.extra.REPLAY_SPEED";
+
+    /**
+     * The Intent action that starts feeding a synthetic stadium sized radio environment through the survey record
+     * processor in place of the radios, for load and soak testing. This is only handled in debug builds, for example:
+     * {@code adb shell am startservice -a com.craxiom.networksurvey.action.SYNTHETIC_SURVEY
+     * --ei com.craxiom.networksurvey.extra.SYNTHETIC_SURVEY_MINUTES 120
+     * --ef com.craxiom.networksurvey.extra.REPLAY_SPEED 0 com.craxiom.networksurvey/.services.NetworkSurveyService}
+     * <p>
+     * It is stopped with {@link #ACTION_STOP_SURVEY_REPLAY}.
+     *
+     * @since 1.5.0
+     */
+    public static final String ACTION_SYNTHETIC_SURVEY = "com.craxiom.networksurvey.action.SYNTHETIC_SURVEY";
+    public static final String EXTRA_SYNTHETIC_SURVEY_MINUTES = "com.craxiom.networksurvey.extra.SYNTHETIC_SURVEY_MINUTES";
+
     public static final int DEFAULT_CELLULAR_SCAN_INTERVAL_SECONDS = 5;
     public static final int DEFAULT_WIFI_SCAN_INTERVAL_SECONDS = 5;
     public static final int DEFAULT_BLUETOOTH_SCAN_INTERVAL_SECONDS = 30;
@@ -67,6 +101,28 @@ public class NetworkSurveyConstants
     public static final int DEFAULT_DEVICE_STATUS_SCAN_INTERVAL_SECONDS = 120;
 
     public static final String DEFAULT_ROLLOVER_SIZE_MB = "5";
+    public static final int DEFAULT_MQTT_OFFLINE_REPLAY_RATE = 20;
+    public static final boolean DEFAULT_MQTT_BATCH_PUBLISHING_SETTING = false;
+    public static final boolean DEFAULT_MQTT_BATCH_COMPRESSION_SETTING = false;
+    public static final int DEFAULT_MQTT_RATE_LIMIT = 0;
+    public static final String DEFAULT_MQTT_RATE_LIMIT_POLICY = "drop";
+    public static final int DEFAULT_MQTT_RATE_LIMIT_SAMPLE_RATE = 10;
+    public static final int DEFAULT_MQTT_MAX_IN_FLIGHT = 500;
+
+    // The signal history that is shown in the sparklines for each Wi-Fi network and Bluetooth device
+    public static final int SIGNAL_HISTORY_LENGTH = 60;
+    public static final long SIGNAL_HISTORY_MAX_BYTES = 2L * 1024 * 1024;
+    public static final long SIGNAL_HISTORY_IDLE_MS = 10 * 60 * 1000;
+
+    // The on-device coverage grid that is written to the COVERAGE_TILES table of the cellular and Wi-Fi log files
+    public static final double COVERAGE_TILE_SIZE_DEGREES = 0.0005;
+    public static final long COVERAGE_GRID_MAX_BYTES = 4L * 1024 * 1024;
+
+    // The max number of cells (and eNodeBs) that position estimates are kept for
+    public static final int CELL_TOWER_ESTIMATOR_MAX_CELLS = 2048;
+
+    // The HyperLogLog precision of the unique emitter counters, which is 4 KB per counter and about a 1.6% error
+    public static final int UNIQUE_EMITTER_COUNTER_PRECISION = 12;
 
     public static final String PROPERTY_MDM_OVERRIDE_KEY = "mdm_override";
 
@@ -93,10 +149,32 @@ public class NetworkSurveyConstants
     public static final String PROPERTY_MQTT_GNSS_STREAM_ENABLED = "gnss_stream_enabled";
     public static final String PROPERTY_MQTT_DEVICE_STATUS_STREAM_ENABLED = "device_status_stream_enabled";
 
+    // The maximum number of messages per second to publish when sending the messages that were queued while the MQTT
+    // broker connection was down.
+    public static final String PROPERTY_MQTT_OFFLINE_REPLAY_RATE = "mqtt_offline_replay_rate";
+
+    // When enabled, each Wi-Fi and Bluetooth scan is published as a single batch message on its own MQTT topic instead
+    // of as one message per record.
+    public static final String PROPERTY_MQTT_BATCH_PUBLISHING_ENABLED = "mqtt_batch_publishing_enabled";
+    public static final String PROPERTY_MQTT_BATCH_COMPRESSION_ENABLED = "mqtt_batch_compression_enabled";
+
+    // The per topic MQTT rate limit in messages per second (0 for no limit), what to do with the messages over the limit
+    // (drop, sample, or latest), the N for 1-in-N sampling, and any per topic overrides (topic=rate[:policy[:n]],...)
+    public static final String PROPERTY_MQTT_RATE_LIMIT = "mqtt_rate_limit";
+    public static final String PROPERTY_MQTT_RATE_LIMIT_POLICY = "mqtt_rate_limit_policy";
+    public static final String PROPERTY_MQTT_RATE_LIMIT_SAMPLE_RATE = "mqtt_rate_limit_sample_rate";
+    public static final String PROPERTY_MQTT_RATE_LIMIT_TOPIC_OVERRIDES = "mqtt_rate_limit_topic_overrides";
+
+    // The maximum number of MQTT messages that can be waiting to be sent before the oldest ones are dropped
+    public static final String PROPERTY_MQTT_MAX_IN_FLIGHT = "mqtt_max_in_flight";
+
     // Stored Preferences not exposed via the Settings UI
     public static final String PROPERTY_NETWORK_SURVEY_CONNECTION_HOST = "connection_host";
     public static final String PROPERTY_NETWORK_SURVEY_CONNECTION_PORT = "connection_port";
     public static final String PROPERTY_NETWORK_SURVEY_DEVICE_NAME = "device_name";
+    public static final String PROPERTY_GRPC_BLUETOOTH_STREAM_ENABLED = "grpc_bluetooth_stream_enabled";
+    public static final String PROPERTY_GRPC_GNSS_STREAM_ENABLED = "grpc_gnss_stream_enabled";
+    public static final String PROPERTY_GRPC_DEVICE_STATUS_STREAM_ENABLED = "grpc_device_status_stream_enabled";
 
     public static final String PROPERTY_WIFI_NETWORKS_SORT_ORDER = "wifi_networks_sort_order";
     public static final String PROPERTY_BLUETOOTH_DEVICES_SORT_ORDER = "bluetooth_devices_sort_order";
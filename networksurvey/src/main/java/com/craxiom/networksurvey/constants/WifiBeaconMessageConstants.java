@@ -2,6 +2,7 @@ package com.craxiom.networksurvey.constants;
 
 import com.craxiom.messaging.wifi.CipherSuite;
 import com.craxiom.messaging.wifi.EncryptionType;
+import com.craxiom.networksurvey.util.WifiChannelUtils;
 
 /**
  * The constants associated with the Wi-Fi table in the GeoPackage file.
@@ -44,46 +45,15 @@ public class WifiBeaconMessageConstants extends MessageConstants
 
     /**
      * Takes a frequency in MHz and converts it to an 802.11 channel number.  For example, a frequency of 2417 would
-     * return a channel number of 2.  This method was developed using IEEE Std 802.11-2012.
+     * return a channel number of 2.  The 2.4, 5, and 6 GHz bands are supported, so the channel number alone does not
+     * identify the frequency; use {@link WifiChannelUtils#getChannel(int)} to also get the band.
      *
      * @param frequency The frequency in MHz.
      * @return The corresponding channel number. If the corresponding channel number was not found, -1 is returned.
      */
     public static short convertFrequencyToChannelNumber(int frequency)
     {
-        // For 2.4 GHz channels 1 to 13
-        if (frequency >= 2412 && frequency <= 2472)
-        {
-            if ((frequency - 2407) % 5 != 0)
-            {
-                return -1;
-            }
-
-            return (short) ((frequency - 2407) / 5);
-        }
-
-        // For 2.4 GHz channel 14
-        if (frequency == 2484)
-        {
-            return 14;
-        }
-
-        // Technically the following formula does not cover all the possible operating bands defined in the 802.11
-        // specification.  However, it covers the most commonly utilized frequencies, and by returning -1, the operator
-        // will have an indication that they need to do the conversion themselves.
-
-        // For some of the 5 GHz channels
-        if (frequency >= 5170 && frequency <= 5825) // Might want to use 5920 instead of 5825, but 5825 is more conservative
-        {
-            if (frequency % 5 != 0)
-            {
-                return -1;
-            }
-
-            return (short) ((frequency - 5000) / 5);
-        }
-
-        return -1;
+        return (short) WifiChannelUtils.getChannelNumber(frequency);
     }
 
     /**
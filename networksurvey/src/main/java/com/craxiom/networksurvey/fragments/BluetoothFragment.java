@@ -25,9 +25,9 @@ import androidx.fragment.app.FragmentActivity;
 import androidx.preference.PreferenceManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import androidx.recyclerview.widget.SortedList;
 
 import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.BluetoothMessageConstants;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
@@ -36,9 +36,11 @@ import com.craxiom.networksurvey.model.SortedSet;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
 import com.craxiom.networksurvey.util.IOUtils;
 import com.craxiom.networksurvey.util.PreferenceUtils;
+import com.craxiom.networksurvey.util.SignalHistoryStore;
+import com.craxiom.networksurvey.util.TimingWheel;
+import com.craxiom.networksurvey.util.UniqueEmitterCounters;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
@@ -51,7 +53,22 @@ import timber.log.Timber;
  */
 public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecordListener
 {
+    private static final long STALE_CHECK_TICK_MS = 1_000;
+    private static final int STALE_CHECK_SLOT_COUNT = 64;
+
     private final SortedSet<BluetoothRecord> bluetoothRecordSortedSet = new SortedSet<>(BluetoothRecord.class, new RecordSortedListCallback());
+
+    /**
+     * Tracks when each Bluetooth device (by source address) becomes stale so that the stale check only has to look at
+     * the devices that are about to expire instead of the entire list.
+     */
+    private final TimingWheel<String> staleDeviceWheel = new TimingWheel<>(STALE_CHECK_TICK_MS, STALE_CHECK_SLOT_COUNT);
+
+    /**
+     * The recent signal strength values for each source address, which are shown in the sparkline for each device.
+     */
+    private final SignalHistoryStore signalHistory = new SignalHistoryStore(NetworkSurveyConstants.SIGNAL_HISTORY_LENGTH,
+            NetworkSurveyConstants.SIGNAL_HISTORY_MAX_BYTES);
     private Handler uiThreadHandler;
 
     private Context applicationContext;
@@ -59,6 +76,7 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
     private BluetoothRecyclerViewAdapter bluetoothRecyclerViewAdapter;
     private TextView scanStatusView;
     private TextView devicesInScanView;
+    private TextView uniqueDevicesView;
 
     private volatile boolean updatesPaused = false;
 
@@ -97,7 +115,7 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
 
         RecyclerView recyclerView = view.findViewById(R.id.bluetooth_device_list);
         recyclerView.setLayoutManager(new LinearLayoutManager(view.getContext()));
-        bluetoothRecyclerViewAdapter = new BluetoothRecyclerViewAdapter(bluetoothRecordSortedSet, getContext());
+        bluetoothRecyclerViewAdapter = new BluetoothRecyclerViewAdapter(bluetoothRecordSortedSet, signalHistory, getContext());
         recyclerView.setAdapter(bluetoothRecyclerViewAdapter);
 
         final ImageButton pauseButton = view.findViewById(R.id.pause_button);
@@ -114,6 +132,9 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
         devicesInScanView = view.findViewById(R.id.bt_devices_in_scan);
         devicesInScanView.setText(context.getString(R.string.bluetooth_devices_in_scan, 0));
 
+        uniqueDevicesView = view.findViewById(R.id.bt_unique_devices);
+        uniqueDevicesView.setText(context.getString(R.string.bluetooth_unique_devices, 0));
+
         return view;
     }
 
@@ -145,12 +166,17 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
     @Override
     public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
     {
+        // Keep recording the signal history while paused so that there is no gap in it when the updates are resumed
+        final long now = System.currentTimeMillis();
+        recordSignalHistory(bluetoothRecord, now);
+        signalHistory.evictIdle(now - NetworkSurveyConstants.SIGNAL_HISTORY_IDLE_MS);
+
         if (updatesPaused) return;
 
         uiThreadHandler.post(() -> {
             synchronized (bluetoothRecordSortedSet)
             {
-                bluetoothRecordSortedSet.add(bluetoothRecord);
+                addBluetoothRecord(bluetoothRecord);
 
                 checkAndRemoveStaleRecords();
 
@@ -160,6 +186,7 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
                 }
 
                 devicesInScanView.setText(getString(R.string.bluetooth_devices_in_scan, bluetoothRecordSortedSet.size()));
+                updateUniqueDevicesView();
             }
         });
     }
@@ -167,6 +194,10 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
     @Override
     public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
     {
+        final long now = System.currentTimeMillis();
+        bluetoothRecords.forEach(bluetoothRecord -> recordSignalHistory(bluetoothRecord, now));
+        signalHistory.evictIdle(now - NetworkSurveyConstants.SIGNAL_HISTORY_IDLE_MS);
+
         if (updatesPaused) return;
 
         // Move this back to the UI thread since we are updating the UI
@@ -175,7 +206,7 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
             {
                 // We can't use the SortedList#addAll method because we have not overridden that method in our custom
                 // SortedSet implementation of SortedList.
-                bluetoothRecords.forEach(bluetoothRecordSortedSet::add);
+                bluetoothRecords.forEach(this::addBluetoothRecord);
 
                 checkAndRemoveStaleRecords();
 
@@ -185,41 +216,65 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
                 }
 
                 devicesInScanView.setText(requireContext().getString(R.string.bluetooth_devices_in_scan, bluetoothRecordSortedSet.size()));
+                updateUniqueDevicesView();
             }
         });
     }
 
     /**
-     * Runs through the records in the current view, and removes any that have timestamps that are older than n seconds.
+     * Adds the signal strength of the device to its signal history.
+     */
+    private void recordSignalHistory(BluetoothRecord bluetoothRecord, long timestampMs)
+    {
+        final BluetoothRecordData data = bluetoothRecord.getData();
+        if (data.hasSignalStrength())
+        {
+            signalHistory.record(data.getSourceAddress(), timestampMs, data.getSignalStrength().getValue());
+        }
+    }
+
+    /**
+     * Adds the record to the sorted set (replacing any old record for the same device), and updates the time when the
+     * device will be considered stale.
+     */
+    private void addBluetoothRecord(BluetoothRecord bluetoothRecord)
+    {
+        bluetoothRecordSortedSet.add(bluetoothRecord);
+
+        // Adding 5_000 ms so that we have plenty of time for the next scan to return its results
+        final BluetoothRecordData data = bluetoothRecord.getData();
+        staleDeviceWheel.touch(data.getSourceAddress(), IOUtils.getEpochFromRfc3339(data.getDeviceTime()) + bluetoothScanRateMs + 5_000);
+    }
+
+    /**
+     * Removes any records in the current view that have timestamps that are older than n seconds.
+     * <p>
+     * Only the devices that have become stale since the last check are looked at, so the work done here is
+     * proportional to the number of devices that are removed rather than the number of devices in the list.
      * <p>
      * This method does NOT call a notify method to trigger an update to the UI. The caller must handle that on its own.
      */
     private void checkAndRemoveStaleRecords()
     {
-        Timber.d("Removing any stale Bluetooth records");
-
         synchronized (bluetoothRecordSortedSet)
         {
-            final long currentTimeMillis = System.currentTimeMillis();
+            final List<String> staleSourceAddresses = staleDeviceWheel.advance(System.currentTimeMillis());
+            if (staleSourceAddresses.isEmpty()) return;
 
-            final LinkedList<BluetoothRecord> itemsToRemove = new LinkedList<>();
+            Timber.d("Removing %d stale Bluetooth records", staleSourceAddresses.size());
+            staleSourceAddresses.forEach(bluetoothRecordSortedSet::removeByKey);
+        }
+    }
 
-            final int sortedListSize = bluetoothRecordSortedSet.size();
-            for (int i = 0; i < sortedListSize; ++i)
-            {
-                final BluetoothRecord bluetoothRecord = bluetoothRecordSortedSet.get(i);
-                // Adding 5_000 ms so that we have plenty of time for the next scan to return its results
-                if (IOUtils.getEpochFromRfc3339(bluetoothRecord.getData().getDeviceTime()) + bluetoothScanRateMs + 5_000 < currentTimeMillis)
-                {
-                    itemsToRemove.add(bluetoothRecord);
-                }
-            }
+    /**
+     * Updates the count of the unique Bluetooth devices seen during the current mission.
+     */
+    private void updateUniqueDevicesView()
+    {
+        final UniqueEmitterCounters uniqueEmitterCounters = surveyService == null ? null : surveyService.getUniqueEmitterCounters();
+        if (uniqueEmitterCounters == null || uniqueDevicesView == null) return;
 
-            if (!itemsToRemove.isEmpty())
-            {
-                itemsToRemove.forEach(bluetoothRecordSortedSet::remove);
-            }
-        }
+        uniqueDevicesView.setText(getString(R.string.bluetooth_unique_devices, uniqueEmitterCounters.getBluetoothAddressCount()));
     }
 
     /**
@@ -422,7 +477,7 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
     /**
      * A Sorted list callback for controlling the behavior of the Bluetooth records sorted list.
      */
-    public class RecordSortedListCallback extends SortedList.Callback<BluetoothRecord>
+    public class RecordSortedListCallback extends SortedSet.KeyedCallback<BluetoothRecord>
     {
         @Override
         public int compare(BluetoothRecord record1, BluetoothRecord record2)
@@ -466,6 +521,12 @@ public class BluetoothFragment extends Fragment implements IBluetoothSurveyRecor
             return Objects.equals(record1.getData().getSourceAddress(), record2.getData().getSourceAddress());
         }
 
+        @Override
+        public Object getItemKey(BluetoothRecord record)
+        {
+            return record.getData().getSourceAddress();
+        }
+
         @Override
         public void onInserted(int position, int count)
         {
@@ -15,6 +15,8 @@ import com.craxiom.messaging.BluetoothRecord;
 import com.craxiom.messaging.BluetoothRecordData;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.BluetoothMessageConstants;
+import com.craxiom.networksurvey.util.SignalHistoryStore;
+import com.craxiom.networksurvey.view.SparklineView;
 
 /**
  * The recycler view for the list of Bluetooth devices displayed in the UI.
@@ -24,12 +26,21 @@ import com.craxiom.networksurvey.constants.BluetoothMessageConstants;
 public class BluetoothRecyclerViewAdapter extends RecyclerView.Adapter<BluetoothRecyclerViewAdapter.ViewHolder>
 {
     private final SortedList<BluetoothRecord> bluetoothRecords;
+    private final SignalHistoryStore signalHistory;
     private final Context context;
 
-    BluetoothRecyclerViewAdapter(SortedList<BluetoothRecord> items, Context context)
+    /**
+     * A buffer for copying the signal history of each row, which is reused for every row since binding happens on the
+     * UI thread.
+     */
+    private final float[] signalHistoryBuffer;
+
+    BluetoothRecyclerViewAdapter(SortedList<BluetoothRecord> items, SignalHistoryStore signalHistory, Context context)
     {
         bluetoothRecords = items;
+        this.signalHistory = signalHistory;
         this.context = context;
+        signalHistoryBuffer = new float[signalHistory.getHistoryLength()];
     }
 
     @NonNull
@@ -74,6 +85,9 @@ public class BluetoothRecyclerViewAdapter extends RecyclerView.Adapter<Bluetooth
         }
 
         holder.supportedTechnologies.setText(BluetoothMessageConstants.getSupportedTechString(data.getSupportedTechnologies()));
+
+        final int historyCount = signalHistory.getHistory(sourceAddress, signalHistoryBuffer, null);
+        holder.signalHistory.setValues(signalHistoryBuffer, historyCount);
     }
 
     @Override
@@ -120,6 +134,7 @@ public class BluetoothRecyclerViewAdapter extends RecyclerView.Adapter<Bluetooth
         final TextView signalStrength;
         final TextView otaDeviceName;
         final TextView supportedTechnologies;
+        final SparklineView signalHistory;
 
         ViewHolder(View view)
         {
@@ -129,6 +144,7 @@ public class BluetoothRecyclerViewAdapter extends RecyclerView.Adapter<Bluetooth
             signalStrength = view.findViewById(R.id.bluetooth_signal_strength);
             otaDeviceName = view.findViewById(R.id.otaDeviceName);
             supportedTechnologies = view.findViewById(R.id.supportedTechnologies);
+            signalHistory = view.findViewById(R.id.bluetooth_signal_history);
         }
     }
 }
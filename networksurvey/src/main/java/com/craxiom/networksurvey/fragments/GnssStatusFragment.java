@@ -27,6 +27,7 @@ import android.location.GnssStatus;
 import android.location.Location;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Debug;
 import android.text.format.DateFormat;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -43,23 +44,26 @@ import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.craxiom.networksurvey.Application;
+import com.craxiom.networksurvey.BuildConfig;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.listeners.IGnssListener;
+import com.craxiom.networksurvey.listeners.INmeaListener;
 import com.craxiom.networksurvey.model.ConstellationType;
-import com.craxiom.networksurvey.model.DilutionOfPrecision;
 import com.craxiom.networksurvey.model.GnssType;
 import com.craxiom.networksurvey.model.SatelliteStatus;
+import com.craxiom.networksurvey.model.SatelliteStatusList;
 import com.craxiom.networksurvey.util.CarrierFreqUtils;
 import com.craxiom.networksurvey.util.GpsTestUtil;
 import com.craxiom.networksurvey.util.IOUtils;
+import com.craxiom.networksurvey.util.LatencyHistogram;
 import com.craxiom.networksurvey.util.MathUtils;
-import com.craxiom.networksurvey.util.NmeaUtils;
+import com.craxiom.networksurvey.util.NmeaParser;
 import com.craxiom.networksurvey.util.PreferenceUtils;
-import com.craxiom.networksurvey.util.SortUtil;
 import com.craxiom.networksurvey.util.UIUtils;
 
 import java.text.SimpleDateFormat;
@@ -86,6 +90,7 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
     static final String TITLE = "Details";
 
     private static final String EMPTY_LAT_LONG = "             ";
+    private static final int CPU_TIME_LOG_INTERVAL = 60;
 
     /*TODO We either need to fix everything to a specific unit of measurement, or update the Settings UI to allow the user to control it.
     private static final String METERS = Application.get().getResources().getStringArray(R.array.preferred_distance_units_values)[0];
@@ -116,9 +121,38 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
     private SatelliteStatusAdapter gnssAdapter;
     private SatelliteStatusAdapter sbasAdapter;
 
-    private List<SatelliteStatus> gnssStatus = new ArrayList<>();
+    private final SatelliteStatusList gnssStatus = new SatelliteStatusList(false);
 
-    private List<SatelliteStatus> sbasStatus = new ArrayList<>();
+    private final SatelliteStatusList sbasStatus = new SatelliteStatusList(true);
+
+    /**
+     * The main thread CPU time spent on each GNSS status update, which is logged periodically in debug builds.
+     */
+    private final LatencyHistogram gnssUpdateCpuTime = new LatencyHistogram();
+
+    /**
+     * Parses the NMEA sentences, which are all delivered on the main thread, for the altitude and dilution of precision.
+     */
+    private final NmeaParser nmeaParser = new NmeaParser(new INmeaListener()
+    {
+        @Override
+        public void onGga(NmeaParser.GgaEvent event)
+        {
+            showAltitudeMsl(event.getAltitudeMsl());
+        }
+
+        @Override
+        public void onGns(NmeaParser.GnsEvent event)
+        {
+            showAltitudeMsl(event.getAltitudeMsl());
+        }
+
+        @Override
+        public void onGsa(NmeaParser.GsaEvent event)
+        {
+            showDop(event);
+        }
+    });
 
     private int svCount;
 
@@ -225,6 +259,8 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
 
         gnssStatusList = v.findViewById(R.id.gnss_status_list);
         gnssAdapter = new SatelliteStatusAdapter(GNSS);
+        // Offset the positions by one for the header row
+        gnssStatus.setListUpdateCallback(new SatelliteStatusList.OffsetListUpdateCallback(new AdapterListUpdateCallback(gnssAdapter), 1));
         gnssStatusList.setAdapter(gnssAdapter);
         gnssStatusList.setFocusable(false);
         gnssStatusList.setFocusableInTouchMode(false);
@@ -237,6 +273,7 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
 
         sbasStatusList = v.findViewById(R.id.sbas_status_list);
         sbasAdapter = new SatelliteStatusAdapter(SBAS);
+        sbasStatus.setListUpdateCallback(new SatelliteStatusList.OffsetListUpdateCallback(new AdapterListUpdateCallback(sbasAdapter), 1));
         sbasStatusList.setAdapter(sbasAdapter);
         sbasStatusList.setFocusable(false);
         sbasStatusList.setFocusableInTouchMode(false);
@@ -337,32 +374,39 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
             // Do nothing if the Fragment isn't added
             return;
         }
-        if (message.startsWith("$GPGGA") || message.startsWith("$GNGNS") || message.startsWith("$GNGGA"))
+
+        nmeaParser.parse(message, timestamp);
+    }
+
+    /**
+     * Shows the altitude above mean sea level from a GGA or GNS NMEA sentence.
+     */
+    private void showAltitudeMsl(double altitudeMsl)
+    {
+        if (Double.isNaN(altitudeMsl) || !navigating) return;
+
+        if (prefDistanceUnits.equalsIgnoreCase(METERS))
         {
-            Double altitudeMsl = NmeaUtils.getAltitudeMeanSeaLevel(message);
-            if (altitudeMsl != null && navigating)
-            {
-                if (prefDistanceUnits.equalsIgnoreCase(METERS))
-                {
-                    altitudeMslView.setText(resources.getString(R.string.gps_altitude_msl_value_meters, altitudeMsl));
-                } else
-                {
-                    altitudeMslView.setText(resources.getString(R.string.gps_altitude_msl_value_feet, UIUtils.toFeet(altitudeMsl)));
-                }
-            }
+            altitudeMslView.setText(resources.getString(R.string.gps_altitude_msl_value_meters, altitudeMsl));
+        } else
+        {
+            altitudeMslView.setText(resources.getString(R.string.gps_altitude_msl_value_feet, UIUtils.toFeet(altitudeMsl)));
         }
-        if (message.startsWith("$GNGSA") || message.startsWith("$GPGSA"))
+    }
+
+    /**
+     * Shows the dilution of precision from a GSA NMEA sentence.
+     */
+    private void showDop(NmeaParser.GsaEvent event)
+    {
+        if (Double.isNaN(event.getPdop()) || Double.isNaN(event.getHdop()) || Double.isNaN(event.getVdop()) || !navigating)
         {
-            DilutionOfPrecision dop = NmeaUtils.getDop(message);
-            if (dop != null && navigating)
-            {
-                showDopViews();
-                pdopView.setText(resources.getString(R.string.pdop_value, dop.getPositionDop()));
-                hvdopView.setText(
-                        resources.getString(R.string.hvdop_value, dop.getHorizontalDop(),
-                                dop.getVerticalDop()));
-            }
+            return;
         }
+
+        showDopViews();
+        pdopView.setText(resources.getString(R.string.pdop_value, event.getPdop()));
+        hvdopView.setText(resources.getString(R.string.hvdop_value, event.getHdop(), event.getVdop()));
     }
 
     @Override
@@ -484,10 +528,9 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
                 hvdopView.setText("");
 
                 svCount = 0;
+                // The list update callbacks notify the adapters of the removed rows
                 gnssStatus.clear();
                 sbasStatus.clear();
-                gnssAdapter.notifyDataSetChanged();
-                sbasAdapter.notifyDataSetChanged();
             }
             this.navigating = navigating;
         }
@@ -599,13 +642,21 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
             return;
         }
 
-        snrCn0Title = resources.getString(R.string.gps_cn0_column_label);
+        final long startCpuNanos = BuildConfig.DEBUG ? Debug.threadCpuTimeNanos() : 0;
+
+        if (snrCn0Title == null)
+        {
+            // The rows are only rebound when they change, so the header rows need to be updated with the title
+            snrCn0Title = resources.getString(R.string.gps_cn0_column_label);
+            gnssAdapter.notifyItemChanged(0);
+            sbasAdapter.notifyItemChanged(0);
+        }
 
         final int length = status.getSatelliteCount();
         svCount = 0;
         int usedInFixCount = 0;
-        gnssStatus.clear();
-        sbasStatus.clear();
+        final List<SatelliteStatus> newGnssStatus = new ArrayList<>(length);
+        final List<SatelliteStatus> newSbasStatus = new ArrayList<>();
         while (svCount < length)
         {
             SatelliteStatus satStatus = new SatelliteStatus(status.getSvid(svCount), GpsTestUtil.getGnssConstellationType(status.getConstellationType(svCount)),
@@ -627,10 +678,10 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
             if (satStatus.getGnssType() == GnssType.SBAS)
             {
                 satStatus.setSbasType(GpsTestUtil.getSbasConstellationType(satStatus.getSvid()));
-                sbasStatus.add(satStatus);
+                newSbasStatus.add(satStatus);
             } else
             {
-                gnssStatus.add(satStatus);
+                newGnssStatus.add(satStatus);
             }
 
             if (satStatus.getUsedInFix())
@@ -643,60 +694,43 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
 
         numSats.setText(resources.getString(R.string.gps_num_sats_value, usedInFixCount, svCount));
 
-        refreshViews();
+        refreshViews(newGnssStatus, newSbasStatus);
+
+        if (BuildConfig.DEBUG) recordGnssUpdateCpuTime(Debug.threadCpuTimeNanos() - startCpuNanos);
     }
 
-    private void refreshViews()
+    /**
+     * Records the CPU time of a GNSS status update, and every {@link #CPU_TIME_LOG_INTERVAL} updates logs the
+     * distribution so that the cost of the incremental satellite list updates can be checked on a device.
+     *
+     * @param cpuTimeNanos The main thread CPU time spent on the update.
+     * @since 1.5.0
+     */
+    private void recordGnssUpdateCpuTime(long cpuTimeNanos)
     {
-        sortLists();
-
-        updateListVisibility();
-        gnssAdapter.notifyDataSetChanged();
-        sbasAdapter.notifyDataSetChanged();
+        gnssUpdateCpuTime.record(cpuTimeNanos);
+        if (gnssUpdateCpuTime.getCount() % CPU_TIME_LOG_INTERVAL == 0)
+        {
+            Timber.v("GNSS status update CPU time over %d updates: mean=%.3fms, p99=%.3fms, max=%.3fms",
+                    gnssUpdateCpuTime.getCount(), gnssUpdateCpuTime.getMeanMs(),
+                    gnssUpdateCpuTime.getPercentileMs(99), gnssUpdateCpuTime.getMaxMs());
+        }
     }
 
-    private void sortLists()
+    /**
+     * Applies the latest satellites to the lists. Only the satellites that were added, removed, or changed are
+     * dispatched to the adapters, instead of re-sorting the whole list and refreshing every row.
+     */
+    private void refreshViews(List<SatelliteStatus> newGnssStatus, List<SatelliteStatus> newSbasStatus)
     {
         final int sortBy = PreferenceUtils.getSatSortOrderFromPreferences();
-        // Below switch statement order must match arrays.xml sort_sats order
-        switch (sortBy)
-        {
-            case 0:
-                // Sort by Constellation
-                gnssStatus = SortUtil.Companion.sortByGnssThenId(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortBySbasThenId(sbasStatus);
-                break;
-            case 1:
-                // Sort by Carrier Frequency
-                gnssStatus = SortUtil.Companion.sortByCarrierFrequencyThenId(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortByCarrierFrequencyThenId(sbasStatus);
-                break;
-            case 2:
-                // Sort by Signal Strength
-                gnssStatus = SortUtil.Companion.sortByCn0(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortByCn0(sbasStatus);
-                break;
-            case 3:
-                // Sort by Used in Fix
-                gnssStatus = SortUtil.Companion.sortByUsedThenId(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortByUsedThenId(sbasStatus);
-                break;
-            case 4:
-                // Sort by Constellation, Carrier Frequency
-                gnssStatus = SortUtil.Companion.sortByGnssThenCarrierFrequencyThenId(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortBySbasThenCarrierFrequencyThenId(sbasStatus);
-                break;
-            case 5:
-                // Sort by Constellation, Signal Strength
-                gnssStatus = SortUtil.Companion.sortByGnssThenCn0ThenId(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortBySbasThenCn0ThenId(sbasStatus);
-                break;
-            case 6:
-                // Sort by Constellation, Used in Fix
-                gnssStatus = SortUtil.Companion.sortByGnssThenUsedThenId(gnssStatus);
-                sbasStatus = SortUtil.Companion.sortBySbasThenUsedThenId(sbasStatus);
-                break;
-        }
+        gnssStatus.setSortOrder(sortBy);
+        sbasStatus.setSortOrder(sortBy);
+
+        gnssStatus.update(newGnssStatus);
+        sbasStatus.update(newSbasStatus);
+
+        updateListVisibility();
     }
 
     private void setupUnitPreferences()
@@ -921,7 +955,7 @@ public class GnssStatusFragment extends Fragment implements IGnssListener
                 // There is a header at 0, so the first data row will be at position - 1, etc.
                 int dataRow = position - 1;
 
-                List<SatelliteStatus> sats;
+                SatelliteStatusList sats;
                 if (mConstellationType == GNSS)
                 {
                     sats = gnssStatus;
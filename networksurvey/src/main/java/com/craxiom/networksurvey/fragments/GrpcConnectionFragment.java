@@ -61,12 +61,18 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
     private EditText grpcHostAddressEdit;
     private EditText grpcPortNumberEdit;
     private EditText deviceNameEdit;
+    private SwitchCompat bluetoothStreamToggleSwitch;
+    private SwitchCompat gnssStreamToggleSwitch;
+    private SwitchCompat deviceStatusStreamToggleSwitch;
 
     private GrpcConnectionService grpcConnectionService;
 
     private String host = "";
     private Integer portNumber = NetworkSurveyConstants.DEFAULT_GRPC_PORT;
     private String deviceName = "";
+    private boolean bluetoothStreamEnabled = false;
+    private boolean gnssStreamEnabled = false;
+    private boolean deviceStatusStreamEnabled = false;
 
     public GrpcConnectionFragment()
     {
@@ -92,6 +98,9 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
         grpcHostAddressEdit = view.findViewById(R.id.grpcHostAddress);
         grpcPortNumberEdit = view.findViewById(R.id.grpcPortNumber);
         deviceNameEdit = view.findViewById(R.id.deviceName);
+        bluetoothStreamToggleSwitch = view.findViewById(R.id.grpcStreamBluetoothToggleSwitch);
+        gnssStreamToggleSwitch = view.findViewById(R.id.grpcStreamGnssToggleSwitch);
+        deviceStatusStreamToggleSwitch = view.findViewById(R.id.grpcStreamDeviceStatusToggleSwitch);
 
         final CardView helpCardView = view.findViewById(R.id.help_card_view);
         helpCardView.setOnClickListener(new HelpCardListener(view, R.string.grpc_connection_description));
@@ -100,6 +109,9 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
         grpcHostAddressEdit.setText(host);
         grpcPortNumberEdit.setText(String.valueOf(portNumber));
         deviceNameEdit.setText(deviceName);
+        bluetoothStreamToggleSwitch.setChecked(bluetoothStreamEnabled);
+        gnssStreamToggleSwitch.setChecked(gnssStreamEnabled);
+        deviceStatusStreamToggleSwitch.setChecked(deviceStatusStreamEnabled);
 
         // Adding the OnTouchListener as well so that we can reject drag events since those are much harder to deal with
         // Also checking for buttonView.isPressed() so that we don't trigger the onConnectionSwitchToggled call when we
@@ -280,6 +292,9 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
             final String portString = grpcPortNumberEdit.getText().toString();
             portNumber = Integer.valueOf(portString);
             deviceName = deviceNameEdit.getText().toString();
+            bluetoothStreamEnabled = bluetoothStreamToggleSwitch.isChecked();
+            gnssStreamEnabled = gnssStreamToggleSwitch.isChecked();
+            deviceStatusStreamEnabled = deviceStatusStreamToggleSwitch.isChecked();
 
             storeConnectionParameters();
 
@@ -350,7 +365,7 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
     }
 
     /**
-     * Store the connection host address and port number so they can be used on app restart.
+     * Store the connection host address, port number, and enabled streams so they can be used on app restart.
      */
     private void storeConnectionParameters()
     {
@@ -365,6 +380,9 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
         {
             edit.putString(NetworkSurveyConstants.PROPERTY_NETWORK_SURVEY_DEVICE_NAME, deviceName);
         }
+        edit.putBoolean(NetworkSurveyConstants.PROPERTY_GRPC_BLUETOOTH_STREAM_ENABLED, bluetoothStreamEnabled);
+        edit.putBoolean(NetworkSurveyConstants.PROPERTY_GRPC_GNSS_STREAM_ENABLED, gnssStreamEnabled);
+        edit.putBoolean(NetworkSurveyConstants.PROPERTY_GRPC_DEVICE_STATUS_STREAM_ENABLED, deviceStatusStreamEnabled);
         edit.apply();
     }
 
@@ -383,6 +401,10 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
 
         final String restoredDeviceName = preferences.getString(NetworkSurveyConstants.PROPERTY_NETWORK_SURVEY_DEVICE_NAME, "");
         if (!restoredDeviceName.isEmpty()) deviceName = restoredDeviceName;
+
+        bluetoothStreamEnabled = preferences.getBoolean(NetworkSurveyConstants.PROPERTY_GRPC_BLUETOOTH_STREAM_ENABLED, false);
+        gnssStreamEnabled = preferences.getBoolean(NetworkSurveyConstants.PROPERTY_GRPC_GNSS_STREAM_ENABLED, false);
+        deviceStatusStreamEnabled = preferences.getBoolean(NetworkSurveyConstants.PROPERTY_GRPC_DEVICE_STATUS_STREAM_ENABLED, false);
     }
 
     /**
@@ -403,6 +425,9 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
         grpcHostAddressEdit.setEnabled(editable);
         grpcPortNumberEdit.setEnabled(editable);
         deviceNameEdit.setEnabled(editable);
+        bluetoothStreamToggleSwitch.setEnabled(editable);
+        gnssStreamToggleSwitch.setEnabled(editable);
+        deviceStatusStreamToggleSwitch.setEnabled(editable);
     }
 
     /**
@@ -470,7 +495,8 @@ public class GrpcConnectionFragment extends Fragment implements IConnectionState
 
             if (connect)
             {
-                GrpcConnectionService.connectToGrpcServer(applicationContext, host, portNumber, deviceName);
+                GrpcConnectionService.connectToGrpcServer(applicationContext, host, portNumber, deviceName,
+                        bluetoothStreamEnabled, gnssStreamEnabled, deviceStatusStreamEnabled);
             } else
             {
                 // Update the UI state just in case the static variable had become stale in the GrpcConnectionService
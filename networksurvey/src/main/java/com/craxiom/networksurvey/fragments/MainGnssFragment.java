@@ -8,7 +8,10 @@ import android.location.GnssStatus;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
+import android.location.OnNmeaMessageListener;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -43,6 +46,7 @@ public class MainGnssFragment extends Fragment
 
     private LocationListener locationListener;
     private GnssStatus.Callback gnssStatusListener;
+    private OnNmeaMessageListener nmeaListener;
     private final Set<IGnssListener> gnssListeners = new CopyOnWriteArraySet<>();
     private LocationManager locationManager;
 
@@ -92,6 +96,7 @@ public class MainGnssFragment extends Fragment
 
         addLocationListener();
         addGnssStatusListener();
+        addNmeaListener();
     }
 
     @Override
@@ -99,6 +104,7 @@ public class MainGnssFragment extends Fragment
     {
         removeLocationListener();
         removeGnssStatusListener();
+        removeNmeaListener();
 
         super.onPause();
     }
@@ -272,6 +278,46 @@ public class MainGnssFragment extends Fragment
         locationManager.unregisterGnssStatusCallback(gnssStatusListener);
     }
 
+    /**
+     * Registers the NMEA listener with the Android System so that the NMEA sentences are passed on to the child
+     * fragments on the main thread.
+     *
+     * @since 1.5.0
+     */
+    @SuppressLint("MissingPermission")
+    private void addNmeaListener()
+    {
+        if (locationManager == null)
+        {
+            Timber.e("The location manager is null.  Unable to register an NMEA listener");
+            return;
+        }
+
+        if (nmeaListener == null)
+        {
+            nmeaListener = (message, timestamp) -> {
+                for (IGnssListener listener : gnssListeners)
+                {
+                    listener.onNmeaMessage(message, timestamp);
+                }
+            };
+        }
+
+        locationManager.addNmeaListener(nmeaListener, new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Unregisters the NMEA listener with the Android system.
+     *
+     * @since 1.5.0
+     */
+    private void removeNmeaListener()
+    {
+        if (locationManager == null || nmeaListener == null) return;
+
+        locationManager.removeNmeaListener(nmeaListener);
+    }
+
     /**
      * Given the tab position, return the title that should be applied to the tab.
      *
@@ -1,11 +1,19 @@
 package com.craxiom.networksurvey.fragments;
 
+import android.app.Activity;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewStub;
+import android.widget.TextView;
 
 import androidx.appcompat.widget.SwitchCompat;
 
@@ -13,22 +21,38 @@ import com.craxiom.mqttlibrary.connection.BrokerConnectionInfo;
 import com.craxiom.mqttlibrary.ui.AConnectionFragment;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
+import com.craxiom.networksurvey.listeners.IMqttOfflineQueueListener;
 import com.craxiom.networksurvey.mqtt.MqttConnectionInfo;
+import com.craxiom.networksurvey.mqtt.MqttPublisher;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
 
+import java.util.Map;
+
+import timber.log.Timber;
+
 /**
  * A fragment for allowing the user to connect to an MQTT broker. This fragment handles
  * the UI portion of the connection and delegates the actual connection logic to {@link NetworkSurveyService}.
  *
  * @since 0.1.1
  */
-public class MqttFragment extends AConnectionFragment<NetworkSurveyService.SurveyServiceBinder>
+public class MqttFragment extends AConnectionFragment<NetworkSurveyService.SurveyServiceBinder> implements IMqttOfflineQueueListener
 {
+    private static final long PUBLISH_METRICS_UPDATE_INTERVAL_MS = 1_000;
+
     private SwitchCompat cellularStreamToggleSwitch;
     private SwitchCompat wifiStreamToggleSwitch;
     private SwitchCompat bluetoothStreamToggleSwitch;
     private SwitchCompat gnssStreamToggleSwitch;
     private SwitchCompat deviceStatusStreamToggleSwitch;
+    private TextView offlineQueueStatusTextView;
+    private TextView publishMetricsTextView;
+
+    private final Handler uiThreadHandler = new Handler(Looper.getMainLooper());
+    private final Runnable updatePublishMetricsRunnable = this::updatePublishMetrics;
+
+    private NetworkSurveyService surveyService;
+    private ServiceConnection surveyServiceConnection;
 
     private boolean cellularStreamEnabled = true;
     private boolean wifiStreamEnabled = true;
@@ -47,6 +71,54 @@ public class MqttFragment extends AConnectionFragment<NetworkSurveyService.Surve
         bluetoothStreamToggleSwitch = inflatedStub.findViewById(R.id.streamBluetoothToggleSwitch);
         gnssStreamToggleSwitch = inflatedStub.findViewById(R.id.streamGnssToggleSwitch);
         deviceStatusStreamToggleSwitch = inflatedStub.findViewById(R.id.streamDeviceStatusToggleSwitch);
+        offlineQueueStatusTextView = inflatedStub.findViewById(R.id.mqttOfflineQueueStatusTextView);
+        publishMetricsTextView = inflatedStub.findViewById(R.id.mqttPublishMetricsTextView);
+    }
+
+    @Override
+    public void onResume()
+    {
+        super.onResume();
+
+        bindToNetworkSurveyService();
+        uiThreadHandler.post(updatePublishMetricsRunnable);
+    }
+
+    @Override
+    public void onPause()
+    {
+        uiThreadHandler.removeCallbacks(updatePublishMetricsRunnable);
+
+        if (surveyService != null) surveyService.unregisterMqttOfflineQueueListener(this);
+        surveyService = null;
+
+        if (surveyServiceConnection != null)
+        {
+            getApplicationContext().unbindService(surveyServiceConnection);
+            surveyServiceConnection = null;
+        }
+
+        super.onPause();
+    }
+
+    @Override
+    public void onOfflineQueueProgress(int pendingMessages, int replayedMessages)
+    {
+        final Activity activity = getActivity();
+        if (activity == null) return;
+
+        activity.runOnUiThread(() -> {
+            if (offlineQueueStatusTextView == null) return;
+
+            if (pendingMessages == 0)
+            {
+                offlineQueueStatusTextView.setVisibility(View.GONE);
+            } else
+            {
+                offlineQueueStatusTextView.setText(getString(R.string.mqtt_offline_queue_status, pendingMessages, replayedMessages));
+                offlineQueueStatusTextView.setVisibility(View.VISIBLE);
+            }
+        });
     }
 
     @Override
@@ -145,4 +217,78 @@ public class MqttFragment extends AConnectionFragment<NetworkSurveyService.Surve
                 gnssStreamEnabled,
                 deviceStatusStreamEnabled);
     }
+
+    /**
+     * Shows the in flight, sent, and offline queue counts for each MQTT topic, and then schedules the next update.
+     *
+     * @since 1.5.0
+     */
+    private void updatePublishMetrics()
+    {
+        uiThreadHandler.postDelayed(updatePublishMetricsRunnable, PUBLISH_METRICS_UPDATE_INTERVAL_MS);
+
+        if (publishMetricsTextView == null) return;
+
+        final Map<String, MqttPublisher.TopicMetrics> publishMetrics = surveyService == null ? null : surveyService.getMqttPublishMetrics();
+        if (publishMetrics == null || publishMetrics.isEmpty())
+        {
+            publishMetricsTextView.setVisibility(View.GONE);
+            return;
+        }
+
+        final StringBuilder metricsText = new StringBuilder(getString(R.string.mqtt_publish_metrics_title));
+        for (Map.Entry<String, MqttPublisher.TopicMetrics> entry : publishMetrics.entrySet())
+        {
+            final MqttPublisher.TopicMetrics metrics = entry.getValue();
+            metricsText.append('\n').append(getString(R.string.mqtt_topic_publish_metrics, entry.getKey(),
+                    metrics.getInFlight(), metrics.getPublished(), metrics.getOverflowed()));
+        }
+
+        publishMetricsTextView.setText(metricsText);
+        publishMetricsTextView.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Binds to the Network Survey Service so that this fragment can show the MQTT offline queue progress and publish
+     * metrics.
+     *
+     * @since 1.5.0
+     */
+    private void bindToNetworkSurveyService()
+    {
+        final Context applicationContext = getApplicationContext();
+        final Intent serviceIntent = new Intent(applicationContext, NetworkSurveyService.class);
+
+        surveyServiceConnection = new SurveyServiceConnection();
+        final boolean bound = applicationContext.bindService(serviceIntent, surveyServiceConnection, Context.BIND_ABOVE_CLIENT);
+        Timber.i("NetworkSurveyService bound in the MqttFragment: %s", bound);
+    }
+
+    /**
+     * A {@link ServiceConnection} implementation for binding to the {@link NetworkSurveyService}.
+     * <p>
+     * We need to bind to the {@link NetworkSurveyService} so that we can get notified about the progress of sending
+     * the MQTT messages that were queued while the MQTT broker connection was down, and so that we can show the publish
+     * metrics.
+     *
+     * @since 1.5.0
+     */
+    private class SurveyServiceConnection implements ServiceConnection
+    {
+        @Override
+        public void onServiceConnected(final ComponentName name, final IBinder binder)
+        {
+            Timber.i("%s service connected", name);
+            NetworkSurveyService.SurveyServiceBinder serviceBinder = (NetworkSurveyService.SurveyServiceBinder) binder;
+            surveyService = (NetworkSurveyService) serviceBinder.getService();
+            surveyService.registerMqttOfflineQueueListener(MqttFragment.this);
+        }
+
+        @Override
+        public void onServiceDisconnected(final ComponentName name)
+        {
+            Timber.i("%s service disconnected", name);
+            surveyService = null;
+        }
+    }
 }
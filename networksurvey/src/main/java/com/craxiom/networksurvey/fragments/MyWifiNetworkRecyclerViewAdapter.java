@@ -15,7 +15,13 @@ import com.craxiom.messaging.WifiBeaconRecord;
 import com.craxiom.messaging.WifiBeaconRecordData;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.WifiBeaconMessageConstants;
+import com.craxiom.networksurvey.model.WifiChannel;
 import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.util.SignalHistoryStore;
+import com.craxiom.networksurvey.util.WifiChannelUtils;
+import com.craxiom.networksurvey.view.SparklineView;
+
+import java.util.List;
 
 /**
  * The recycler view for the list of Wi-Fi networks displayed in the UI.
@@ -24,13 +30,29 @@ import com.craxiom.networksurvey.model.WifiRecordWrapper;
  */
 public class MyWifiNetworkRecyclerViewAdapter extends RecyclerView.Adapter<MyWifiNetworkRecyclerViewAdapter.ViewHolder>
 {
+    /**
+     * The payload for a row that only needs its signal history updated.
+     *
+     * @since 1.5.0
+     */
+    static final Object SIGNAL_HISTORY_PAYLOAD = new Object();
+
     private final SortedList<WifiRecordWrapper> wifiRecords;
+    private final SignalHistoryStore signalHistory;
     private final Context context;
 
-    MyWifiNetworkRecyclerViewAdapter(SortedList<WifiRecordWrapper> items, Context context)
+    /**
+     * A buffer for copying the signal history of each row, which is reused for every row since binding happens on the
+     * UI thread.
+     */
+    private final float[] signalHistoryBuffer;
+
+    MyWifiNetworkRecyclerViewAdapter(SortedList<WifiRecordWrapper> items, SignalHistoryStore signalHistory, Context context)
     {
         wifiRecords = items;
+        this.signalHistory = signalHistory;
         this.context = context;
+        signalHistoryBuffer = new float[signalHistory.getHistoryLength()];
     }
 
     @NonNull
@@ -42,6 +64,18 @@ public class MyWifiNetworkRecyclerViewAdapter extends RecyclerView.Adapter<MyWif
         return new ViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads)
+    {
+        if (payloads.isEmpty() || !payloads.stream().allMatch(payload -> payload == SIGNAL_HISTORY_PAYLOAD))
+        {
+            onBindViewHolder(holder, position);
+            return;
+        }
+
+        bindSignalHistory(holder, wifiRecords.get(position).getWifiBeaconRecord().getData());
+    }
+
     @SuppressLint("SetTextI18n")
     @Override
     public void onBindViewHolder(final ViewHolder holder, int position)
@@ -74,9 +108,32 @@ public class MyWifiNetworkRecyclerViewAdapter extends RecyclerView.Adapter<MyWif
 
         holder.bssid.setText(context.getString(R.string.bssid_value, data.getBssid()));
         holder.encryptionType.setText(WifiBeaconMessageConstants.getEncryptionTypeString(data.getEncryptionType()));
-        holder.frequency.setText(data.hasFrequencyMhz() ? context.getString(R.string.wifi_frequency_value, data.getFrequencyMhz().getValue()) : "");
+        holder.frequency.setText(data.hasFrequencyMhz() ? getFrequencyString(data.getFrequencyMhz().getValue()) : "");
         holder.channel.setText(data.hasChannel() ? context.getString(R.string.wifi_channel_value, data.getChannel().getValue()) : "");
         holder.capabilities.setText(wifiRecordWrapper.getCapabilitiesString());
+
+        bindSignalHistory(holder, data);
+    }
+
+    /**
+     * Updates the sparkline in the provided row with the signal history for its BSSID.
+     */
+    private void bindSignalHistory(ViewHolder holder, WifiBeaconRecordData data)
+    {
+        final int count = signalHistory.getHistory(data.getBssid(), signalHistoryBuffer, null);
+        holder.signalHistory.setValues(signalHistoryBuffer, count);
+    }
+
+    /**
+     * @return The frequency along with its band (e.g. "5955 MHz (6 GHz)"), since the same channel number can be in
+     * more than one band.
+     */
+    private String getFrequencyString(int frequencyMhz)
+    {
+        final WifiChannel.Band band = WifiChannelUtils.getBand(frequencyMhz);
+        if (band == null) return context.getString(R.string.wifi_frequency_value, frequencyMhz);
+
+        return context.getString(R.string.wifi_frequency_band_value, frequencyMhz, band.getLabel());
     }
 
     @Override
@@ -126,6 +183,7 @@ public class MyWifiNetworkRecyclerViewAdapter extends RecyclerView.Adapter<MyWif
         final TextView frequency;
         final TextView channel;
         final TextView capabilities;
+        final SparklineView signalHistory;
         WifiBeaconRecord wifiRecord;
 
         ViewHolder(View view)
@@ -139,6 +197,7 @@ public class MyWifiNetworkRecyclerViewAdapter extends RecyclerView.Adapter<MyWif
             frequency = view.findViewById(R.id.wifi_frequency);
             channel = view.findViewById(R.id.wifi_channel);
             capabilities = view.findViewById(R.id.wifi_capabilities);
+            signalHistory = view.findViewById(R.id.wifi_signal_history);
         }
     }
 }
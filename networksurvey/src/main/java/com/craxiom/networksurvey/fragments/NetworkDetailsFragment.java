@@ -1,20 +1,48 @@
 package com.craxiom.networksurvey.fragments;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.TextView;
+
 import androidx.fragment.app.Fragment;
 
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.networksurvey.CalculationUtils;
 import com.craxiom.networksurvey.NetworkSurveyActivity;
 import com.craxiom.networksurvey.R;
+import com.craxiom.networksurvey.constants.LteMessageConstants;
+import com.craxiom.networksurvey.model.CellularDetailsState;
+import com.craxiom.networksurvey.util.CellTowerEstimator;
+import com.craxiom.networksurvey.view.SparklineView;
 
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A fragment for displaying the latest cellular network details to the user.
+ * <p>
+ * The survey record processor writes the latest values to {@link #detailsState} on every scan, and this fragment pulls
+ * them at most once per frame while it is visible. This way the UI cost does not depend on the scan rate.
  */
 public class NetworkDetailsFragment extends Fragment
 {
     public static final AtomicBoolean visible = new AtomicBoolean(false);
     static final String TITLE = "Details";
 
+    /**
+     * The latest cellular details to display, which are written by the survey record processor.
+     *
+     * @since 1.5.0
+     */
+    public static final CellularDetailsState detailsState = new CellularDetailsState();
+
+    private final Handler uiThreadHandler = new Handler(Looper.getMainLooper());
+    private final Choreographer.FrameCallback detailsFrameCallback = frameTimeNanos -> onDetailsFrame();
+    private final Runnable scheduleFrameRunnable = this::scheduleFrame;
+    private final float[] rsrpHistoryBuffer = new float[CellularDetailsState.SERVING_CELL_HISTORY_LENGTH];
+
     public NetworkDetailsFragment()
     {
         super(R.layout.fragment_network_details);
@@ -27,6 +55,10 @@ public class NetworkDetailsFragment extends Fragment
 
         visible.set(true);
 
+        detailsState.setChangeListener(() -> uiThreadHandler.post(scheduleFrameRunnable));
+        // Show the latest values, which might have changed while this fragment was hidden
+        scheduleFrame();
+
         final NetworkSurveyActivity activity = (NetworkSurveyActivity) getActivity();
         if (activity != null) activity.runSingleScan();
     }
@@ -36,6 +68,172 @@ public class NetworkDetailsFragment extends Fragment
     {
         visible.set(false);
 
+        detailsState.setChangeListener(null);
+        uiThreadHandler.removeCallbacks(scheduleFrameRunnable);
+        Choreographer.getInstance().removeFrameCallback(detailsFrameCallback);
+
         super.onPause();
     }
+
+    /**
+     * Schedules the details to be updated at the start of the next frame. Must be called on the UI thread.
+     */
+    private void scheduleFrame()
+    {
+        final Choreographer choreographer = Choreographer.getInstance();
+        choreographer.removeFrameCallback(detailsFrameCallback);
+        choreographer.postFrameCallback(detailsFrameCallback);
+    }
+
+    /**
+     * Called on the UI thread at the start of a frame to show the latest cellular details.
+     */
+    private void onDetailsFrame()
+    {
+        if (!visible.get() || getView() == null) return;
+
+        // Consume the change before reading the values so that a change made while updating the UI schedules another frame
+        detailsState.consumeChange();
+
+        final String currentTechnology = detailsState.getCurrentTechnology();
+        if (currentTechnology != null) setText(R.id.current_technology, R.string.current_technology_label, currentTechnology);
+
+        final LteRecordData lteRecord = detailsState.getServingLteRecord();
+        if (lteRecord != null) updateLteDetails(lteRecord);
+    }
+
+    /**
+     * Updates the UI with the information from the latest survey record.
+     *
+     * @param lteSurveyRecord The latest LTE serving cell record.
+     */
+    private void updateLteDetails(LteRecordData lteSurveyRecord)
+    {
+        final String provider = lteSurveyRecord.getProvider();
+        setText(R.id.carrier, R.string.carrier_label, provider != null ? provider : "");
+
+        setText(R.id.mcc, R.string.mcc_label, lteSurveyRecord.hasMcc() ? String.valueOf(lteSurveyRecord.getMcc().getValue()) : "");
+        setText(R.id.mnc, R.string.mnc_label, lteSurveyRecord.hasMnc() ? String.valueOf(lteSurveyRecord.getMnc().getValue()) : "");
+        setText(R.id.unique_cells, R.string.unique_cells_label, String.valueOf(detailsState.getUniqueCellCount()));
+        setText(R.id.tac, R.string.tac_label, lteSurveyRecord.hasTac() ? String.valueOf(lteSurveyRecord.getTac().getValue()) : "");
+
+        if (lteSurveyRecord.hasEci())
+        {
+            final int ci = lteSurveyRecord.getEci().getValue();
+            setText(R.id.cid, R.string.cid_label, String.valueOf(ci));
+
+            // The Cell Identity is 28 bits long. The first 20 bits represent the Macro eNodeB ID. The last 8 bits
+            // represent the sector.  Strip off the last 8 bits to get the Macro eNodeB ID.
+            int eNodebId = CalculationUtils.getEnodebIdFromCellId(ci);
+            setText(R.id.enbId, R.string.enb_id_label, String.valueOf(eNodebId));
+
+            int sectorId = CalculationUtils.getSectorIdFromCellId(ci);
+            setText(R.id.sectorId, R.string.sector_id_label, String.valueOf(sectorId));
+        } else
+        {
+            setText(R.id.cid, R.string.cid_label, "");
+            setText(R.id.enbId, R.string.enb_id_label, "");
+            setText(R.id.sectorId, R.string.sector_id_label, "");
+        }
+
+        setText(R.id.earfcn, R.string.earfcn_label, lteSurveyRecord.hasEarfcn() ? String.valueOf(lteSurveyRecord.getEarfcn().getValue()) : "");
+
+        if (lteSurveyRecord.hasPci())
+        {
+            final int pci = lteSurveyRecord.getPci().getValue();
+            int primarySyncSequence = CalculationUtils.getPrimarySyncSequence(pci);
+            int secondarySyncSequence = CalculationUtils.getSecondarySyncSequence(pci);
+            setText(R.id.pci, R.string.pci_label, pci + " (" + primarySyncSequence + "/" + secondarySyncSequence + ")");
+        } else
+        {
+            setText(R.id.pci, R.string.pci_label, "");
+        }
+
+        setText(R.id.bandwidth, R.string.bandwidth_label, LteMessageConstants.getLteBandwidth(lteSurveyRecord.getLteBandwidth()));
+
+        checkAndSetLocation(lteSurveyRecord);
+        setEstimateText(R.id.cell_position_estimate, R.string.cell_position_estimate_label, detailsState.getServingCellEstimate());
+        setEstimateText(R.id.enb_position_estimate, R.string.enb_position_estimate_label, detailsState.getServingEnodebEstimate());
+
+        setText(R.id.rsrp, R.string.rsrp_label, lteSurveyRecord.hasRsrp() ? String.valueOf(lteSurveyRecord.getRsrp().getValue()) : "");
+        setText(R.id.rsrq, R.string.rsrq_label, lteSurveyRecord.hasRsrq() ? String.valueOf(lteSurveyRecord.getRsrq().getValue()) : "");
+        setText(R.id.ta, R.string.ta_label, lteSurveyRecord.hasTa() ? String.valueOf(lteSurveyRecord.getTa().getValue()) : "");
+
+        updateRsrpHistory(lteSurveyRecord);
+    }
+
+    /**
+     * Updates the sparkline with the RSRP history of the current serving cell.
+     */
+    private void updateRsrpHistory(LteRecordData lteSurveyRecord)
+    {
+        final View view = getView();
+        if (view == null) return;
+
+        final SparklineView rsrpHistoryView = view.findViewById(R.id.rsrp_history);
+        if (rsrpHistoryView == null) return;
+
+        final String cellKey = CellularDetailsState.getCellKey(lteSurveyRecord);
+        if (cellKey == null)
+        {
+            rsrpHistoryView.clear();
+            return;
+        }
+
+        final int count = detailsState.getServingCellRsrpHistory().getHistory(cellKey, rsrpHistoryBuffer, null);
+        rsrpHistoryView.setValues(rsrpHistoryBuffer, count);
+    }
+
+    /**
+     * Checks to make sure the location is not null, and then updates the appropriate UI elements.
+     *
+     * @param lteRecord The LTE Record to check and see if it has a valid location.
+     */
+    private void checkAndSetLocation(LteRecordData lteRecord)
+    {
+        final double latitude = lteRecord.getLatitude();
+        final double longitude = lteRecord.getLongitude();
+        if (latitude == 0 && longitude == 0)
+        {
+            setText(R.id.latitude, R.string.latitude_label, "");
+            setText(R.id.longitude, R.string.longitude_label, "");
+        } else
+        {
+            setText(R.id.latitude, R.string.latitude_label, String.format(Locale.US, "%.7f", latitude));
+            setText(R.id.longitude, R.string.longitude_label, String.format(Locale.US, "%.7f", longitude));
+        }
+    }
+
+    /**
+     * Sets the estimated position and spread of a cell (or eNodeB) on the TextView with the provided ID.
+     *
+     * @param estimate The estimate to display, or null to clear the text.
+     */
+    private void setEstimateText(int textViewId, int stringResourceId, CellTowerEstimator.Estimate estimate)
+    {
+        if (estimate == null)
+        {
+            setText(textViewId, stringResourceId, "");
+        } else
+        {
+            setText(textViewId, stringResourceId, getString(R.string.position_estimate_value, estimate.getLatitude(),
+                    estimate.getLongitude(), estimate.getSpreadMeters(), estimate.getSampleCount()));
+        }
+    }
+
+    /**
+     * Sets the provided text on the TextView with the provided Text View ID.
+     *
+     * @param textViewId       The ID that is used to lookup the TextView.
+     * @param stringResourceId The resource ID for the String to populate.
+     * @param text             The text to set on the text view.
+     */
+    private void setText(int textViewId, int stringResourceId, String text)
+    {
+        final View view = getView();
+        if (view == null) return;
+
+        final View viewById = view.findViewById(textViewId);
+        if (viewById != null) ((TextView) viewById).setText(getString(stringResourceId, text));
+    }
 }
@@ -14,6 +14,7 @@ import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
 import android.provider.Settings;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -29,16 +30,23 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.SortedList;
 
+import com.craxiom.messaging.WifiBeaconRecordData;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
 import com.craxiom.networksurvey.constants.WifiBeaconMessageConstants;
 import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
 import com.craxiom.networksurvey.model.WifiRecordWrapper;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
+import com.craxiom.networksurvey.util.SignalHistoryStore;
+import com.craxiom.networksurvey.util.UniqueEmitterCounters;
 import com.google.android.material.snackbar.Snackbar;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import timber.log.Timber;
 
@@ -52,12 +60,28 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
     private final SortedList<WifiRecordWrapper> wifiRecordSortedList = new SortedList<>(WifiRecordWrapper.class, new WifiRecordSortedListCallback());
     private final Handler uiThreadHandler;
 
+    /**
+     * The latest Wi-Fi scan results that have not been shown yet. If several scans come in between frames then only
+     * the latest one is shown.
+     */
+    private final AtomicReference<List<WifiRecordWrapper>> pendingWifiRecords = new AtomicReference<>();
+    private final AtomicInteger pendingScanCount = new AtomicInteger();
+    private final AtomicBoolean frameUpdateScheduled = new AtomicBoolean(false);
+    private final Choreographer.FrameCallback wifiFrameCallback = frameTimeNanos -> onWifiFrame();
+
+    /**
+     * The recent signal strength values for each BSSID, which are shown in the sparkline for each Wi-Fi network.
+     */
+    private final SignalHistoryStore signalHistory = new SignalHistoryStore(NetworkSurveyConstants.SIGNAL_HISTORY_LENGTH,
+            NetworkSurveyConstants.SIGNAL_HISTORY_MAX_BYTES);
+
     private Context applicationContext;
     private NetworkSurveyService surveyService;
     private MyWifiNetworkRecyclerViewAdapter wifiNetworkRecyclerViewAdapter;
     private TextView scanStatusView;
     private TextView scanNumberView;
     private TextView apsInScanView;
+    private TextView uniqueApsView;
 
     private volatile boolean updatesPaused = false;
 
@@ -98,7 +122,7 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
 
         RecyclerView recyclerView = view.findViewById(R.id.wifi_network_list);
         recyclerView.setLayoutManager(new LinearLayoutManager(view.getContext()));
-        wifiNetworkRecyclerViewAdapter = new MyWifiNetworkRecyclerViewAdapter(wifiRecordSortedList, getContext());
+        wifiNetworkRecyclerViewAdapter = new MyWifiNetworkRecyclerViewAdapter(wifiRecordSortedList, signalHistory, getContext());
         recyclerView.setAdapter(wifiNetworkRecyclerViewAdapter);
 
         final ImageButton pauseButton = view.findViewById(R.id.pause_button);
@@ -118,6 +142,9 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
         apsInScanView = view.findViewById(R.id.aps_in_scan);
         apsInScanView.setText(context.getString(R.string.wifi_aps_in_scan, 0));
 
+        uniqueApsView = view.findViewById(R.id.unique_aps);
+        uniqueApsView.setText(context.getString(R.string.wifi_unique_aps, 0));
+
         return view;
     }
 
@@ -142,41 +169,90 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
 
         if (surveyService != null) surveyService.unregisterWifiSurveyRecordListener(this);
 
+        Choreographer.getInstance().removeFrameCallback(wifiFrameCallback);
+        frameUpdateScheduled.set(false);
+
         super.onPause();
     }
 
     @Override
     public void onWifiBeaconSurveyRecords(List<WifiRecordWrapper> wifiBeaconRecords)
     {
+        // Keep recording the signal history while paused so that there is no gap in it when the updates are resumed
+        recordSignalHistory(wifiBeaconRecords);
+
         if (updatesPaused) return;
 
-        // Move this back to the UI thread since we are updating the UI
-        uiThreadHandler.post(() -> {
-            try
-            {
-                checkForScanThrottling();
+        pendingWifiRecords.set(wifiBeaconRecords);
+        pendingScanCount.incrementAndGet();
 
-                final Context context = requireContext();
-                scanNumberView.setText(context.getString(R.string.scan_number, ++scanNumber));
-                apsInScanView.setText(requireContext().getString(R.string.wifi_aps_in_scan, wifiBeaconRecords.size()));
+        // Apply the update on the next frame so that back to back scans only result in one update of the list
+        if (frameUpdateScheduled.compareAndSet(false, true))
+        {
+            uiThreadHandler.post(() -> Choreographer.getInstance().postFrameCallback(wifiFrameCallback));
+        }
+    }
 
-                synchronized (wifiRecordSortedList)
-                {
-                    wifiRecordSortedList.clear();
-                    wifiRecordSortedList.addAll(wifiBeaconRecords);
-                    if (wifiNetworkRecyclerViewAdapter != null)
-                    {
-                        wifiNetworkRecyclerViewAdapter.notifyDataSetChanged();
-                    }
-                }
-            } catch (Exception e)
+    /**
+     * Called on the UI thread at the start of a frame to show the latest Wi-Fi scan results.
+     * <p>
+     * The sorted list is updated in place using {@link SortedList#replaceAll(java.util.Collection)}, which matches the
+     * old and new records by BSSID and dispatches only the granular insert, remove, and change notifications to the
+     * recycler view adapter. This way only the rows that changed are rebound, and the row animations are kept.
+     */
+    private void onWifiFrame()
+    {
+        frameUpdateScheduled.set(false);
+
+        final List<WifiRecordWrapper> wifiBeaconRecords = pendingWifiRecords.getAndSet(null);
+        if (wifiBeaconRecords == null) return;
+
+        try
+        {
+            checkForScanThrottling();
+
+            final Context context = requireContext();
+            scanNumber += pendingScanCount.getAndSet(0);
+            scanNumberView.setText(context.getString(R.string.scan_number, scanNumber));
+            apsInScanView.setText(context.getString(R.string.wifi_aps_in_scan, wifiBeaconRecords.size()));
+
+            final UniqueEmitterCounters uniqueEmitterCounters = surveyService == null ? null : surveyService.getUniqueEmitterCounters();
+            if (uniqueEmitterCounters != null)
             {
-                // IllegalStateExceptions are happening because of the requireContext call. I am guessing this is due
-                // to the fact that the wifi results are coming back after the user has switched away from the fragment
-                // but the listener has not been removed yet. Basically a race condition. We can ignore these.
-                Timber.e(e, "Could not update the Wi-Fi Fragment UI due to an exception");
+                uniqueApsView.setText(context.getString(R.string.wifi_unique_aps, uniqueEmitterCounters.getWifiBssidCount()));
             }
-        });
+
+            synchronized (wifiRecordSortedList)
+            {
+                wifiRecordSortedList.replaceAll(wifiBeaconRecords);
+            }
+
+            // Every network has a new value in its signal history, even if nothing else about it changed
+            wifiNetworkRecyclerViewAdapter.notifyItemRangeChanged(0, wifiRecordSortedList.size(),
+                    MyWifiNetworkRecyclerViewAdapter.SIGNAL_HISTORY_PAYLOAD);
+        } catch (Exception e)
+        {
+            // IllegalStateExceptions are happening because of the requireContext call. I am guessing this is due
+            // to the fact that the wifi results are coming back after the user has switched away from the fragment
+            // but the listener has not been removed yet. Basically a race condition. We can ignore these.
+            Timber.e(e, "Could not update the Wi-Fi Fragment UI due to an exception");
+        }
+    }
+
+    /**
+     * Adds the signal strength of each Wi-Fi network to its signal history, and evicts the history of the networks that
+     * have not been seen in a while.
+     */
+    private void recordSignalHistory(List<WifiRecordWrapper> wifiBeaconRecords)
+    {
+        final long now = System.currentTimeMillis();
+        for (WifiRecordWrapper wifiRecordWrapper : wifiBeaconRecords)
+        {
+            final WifiBeaconRecordData data = wifiRecordWrapper.getWifiBeaconRecord().getData();
+            if (data.hasSignalStrength()) signalHistory.record(data.getBssid(), now, data.getSignalStrength().getValue());
+        }
+
+        signalHistory.evictIdle(now - NetworkSurveyConstants.SIGNAL_HISTORY_IDLE_MS);
     }
 
     /**
@@ -248,8 +324,8 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
     }
 
     /**
-     * Saves the new sort by index in the shared preferences, triggers a resort of the Wi-Fi networks sorted list, and
-     * then notifies the recycler view that the data has changed.
+     * Saves the new sort by index in the shared preferences, and then triggers a resort of the Wi-Fi networks sorted
+     * list. The sorted list callback notifies the recycler view of the changes.
      *
      * @param preferences   The SharedPreferences to store the sort by index in.
      * @param selectedIndex The newly selected sort by index (from arrays.xml)
@@ -275,11 +351,6 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
             tempWifiNetworkList.clear();
 
             wifiRecordSortedList.endBatchedUpdates();
-
-            if (wifiNetworkRecyclerViewAdapter != null)
-            {
-                wifiNetworkRecyclerViewAdapter.notifyDataSetChanged();
-            }
         }
     }
 
@@ -528,37 +599,57 @@ public class WifiNetworksFragment extends Fragment implements IWifiSurveyRecordL
         @Override
         public void onChanged(int position, int count)
         {
-
+            if (wifiNetworkRecyclerViewAdapter != null)
+            {
+                wifiNetworkRecyclerViewAdapter.notifyItemRangeChanged(position, count);
+            }
         }
 
         @Override
         public boolean areContentsTheSame(WifiRecordWrapper oldRecord, WifiRecordWrapper newRecord)
         {
-            return false;
+            // Only compare the fields that are displayed so that rows are not rebound when nothing visible changed
+            final WifiBeaconRecordData oldData = oldRecord.getWifiBeaconRecord().getData();
+            final WifiBeaconRecordData newData = newRecord.getWifiBeaconRecord().getData();
+            return oldData.getSsid().equals(newData.getSsid())
+                    && oldData.getSignalStrength().equals(newData.getSignalStrength())
+                    && oldData.getEncryptionType() == newData.getEncryptionType()
+                    && oldData.getFrequencyMhz().equals(newData.getFrequencyMhz())
+                    && oldData.getChannel().equals(newData.getChannel())
+                    && Objects.equals(oldRecord.getCapabilitiesString(), newRecord.getCapabilitiesString());
         }
 
         @Override
         public boolean areItemsTheSame(WifiRecordWrapper record1, WifiRecordWrapper record2)
         {
-            return false;
+            return record1.getWifiBeaconRecord().getData().getBssid().equals(record2.getWifiBeaconRecord().getData().getBssid());
         }
 
         @Override
         public void onInserted(int position, int count)
         {
-
+            if (wifiNetworkRecyclerViewAdapter != null)
+            {
+                wifiNetworkRecyclerViewAdapter.notifyItemRangeInserted(position, count);
+            }
         }
 
         @Override
         public void onRemoved(int position, int count)
         {
-
+            if (wifiNetworkRecyclerViewAdapter != null)
+            {
+                wifiNetworkRecyclerViewAdapter.notifyItemRangeRemoved(position, count);
+            }
         }
 
         @Override
         public void onMoved(int fromPosition, int toPosition)
         {
-
+            if (wifiNetworkRecyclerViewAdapter != null)
+            {
+                wifiNetworkRecyclerViewAdapter.notifyItemMoved(fromPosition, toPosition);
+            }
         }
     }
 
@@ -0,0 +1,18 @@
+package com.craxiom.networksurvey.listeners;
+
+/**
+ * Listener interface for those interested in the progress of sending the MQTT messages that were queued while the
+ * connection to the MQTT broker was down.
+ *
+ * @since 1.5.0
+ */
+public interface IMqttOfflineQueueListener
+{
+    /**
+     * Called when the number of queued or replayed messages changes. This is called from a background thread.
+     *
+     * @param pendingMessages  The number of messages that are still waiting to be sent to the MQTT broker.
+     * @param replayedMessages The number of queued messages that have been sent since the queue was last empty.
+     */
+    void onOfflineQueueProgress(int pendingMessages, int replayedMessages);
+}
@@ -0,0 +1,37 @@
+package com.craxiom.networksurvey.listeners;
+
+import com.craxiom.networksurvey.util.NmeaParser;
+
+/**
+ * Listener interface for those interested in the typed NMEA sentence events produced by the {@link NmeaParser}.
+ * <p>
+ * The events are reused by the parser, so they are only valid for the duration of the callback.
+ *
+ * @since 1.5.0
+ */
+public interface INmeaListener
+{
+    default void onGga(NmeaParser.GgaEvent event)
+    {
+    }
+
+    default void onGns(NmeaParser.GnsEvent event)
+    {
+    }
+
+    default void onGsa(NmeaParser.GsaEvent event)
+    {
+    }
+
+    default void onRmc(NmeaParser.RmcEvent event)
+    {
+    }
+
+    default void onGsv(NmeaParser.GsvEvent event)
+    {
+    }
+
+    default void onVtg(NmeaParser.VtgEvent event)
+    {
+    }
+}
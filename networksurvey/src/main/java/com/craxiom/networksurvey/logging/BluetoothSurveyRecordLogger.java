@@ -147,6 +147,7 @@ public class BluetoothSurveyRecordLogger extends SurveyRecordLogger implements I
                         }
 
                         featureDao.insert(row);
+                        if (!sourceAddress.isEmpty()) countUniqueEmitter(sourceAddress);
 
                         checkIfRolloverNeeded();
                     }
@@ -10,16 +10,20 @@ import com.craxiom.messaging.LteRecord;
 import com.craxiom.messaging.LteRecordData;
 import com.craxiom.messaging.UmtsRecord;
 import com.craxiom.messaging.UmtsRecordData;
+import com.craxiom.networksurvey.CalculationUtils;
 import com.craxiom.networksurvey.constants.CdmaMessageConstants;
+import com.craxiom.networksurvey.constants.CellTowerMessageConstants;
 import com.craxiom.networksurvey.constants.GsmMessageConstants;
 import com.craxiom.networksurvey.constants.LteMessageConstants;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
 import com.craxiom.networksurvey.constants.UmtsMessageConstants;
 import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
+import com.craxiom.networksurvey.util.CellTowerEstimator;
 import com.craxiom.networksurvey.util.IOUtils;
 
 import java.sql.SQLException;
+import java.util.List;
 
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.core.srs.SpatialReferenceSystem;
@@ -38,6 +42,14 @@ import timber.log.Timber;
  */
 public class CellularSurveyRecordLogger extends SurveyRecordLogger implements ICellularSurveyRecordListener
 {
+    /**
+     * The estimator whose cell tower positions are written to each log file when it is closed, or null if the cell
+     * tower estimates should not be written.
+     *
+     * @since 1.5.0
+     */
+    private volatile CellTowerEstimator cellTowerEstimator;
+
     /**
      * Constructs a Logger that writes Cellular Survey records to a GeoPackage SQLite database.
      *
@@ -47,6 +59,18 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
     public CellularSurveyRecordLogger(NetworkSurveyService networkSurveyService, Looper serviceLooper)
     {
         super(networkSurveyService, serviceLooper, NetworkSurveyConstants.LOG_DIRECTORY_NAME, NetworkSurveyConstants.CELLULAR_FILE_NAME_PREFIX);
+        enableCoverageGrid();
+    }
+
+    /**
+     * Sets the estimator that is used to write the estimated cell tower positions to each log file when it is closed.
+     *
+     * @param cellTowerEstimator The estimator that is fed by the survey record processor.
+     * @since 1.5.0
+     */
+    public void setCellTowerEstimator(CellTowerEstimator cellTowerEstimator)
+    {
+        this.cellTowerEstimator = cellTowerEstimator;
     }
 
     @Override
@@ -80,6 +104,14 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
         createCdmaRecordTable(geoPackage, srs);
         createUmtsRecordTable(geoPackage, srs);
         createLteRecordTable(geoPackage, srs);
+        createCellTowerEstimateTable(geoPackage, srs);
+    }
+
+    @Override
+    void writeSummaryTables()
+    {
+        super.writeSummaryTables();
+        writeCellTowerEstimateTable();
     }
 
     /**
@@ -249,6 +281,7 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
                         }
 
                         featureDao.insert(row);
+                        updateGsmEmitterStatistics(data);
 
                         checkIfRolloverNeeded();
                     }
@@ -328,6 +361,7 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
                         }
 
                         featureDao.insert(row);
+                        updateCdmaEmitterStatistics(data);
 
                         checkIfRolloverNeeded();
                     }
@@ -415,6 +449,7 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
                         }
 
                         featureDao.insert(row);
+                        updateUmtsEmitterStatistics(data);
 
                         checkIfRolloverNeeded();
                     }
@@ -509,6 +544,7 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
                         setLteBandwidth(row, data.getLteBandwidth());
 
                         featureDao.insert(row);
+                        updateLteEmitterStatistics(data);
 
                         checkIfRolloverNeeded();
                     }
@@ -519,4 +555,218 @@ public class CellularSurveyRecordLogger extends SurveyRecordLogger implements IC
             }
         });
     }
+
+    /**
+     * Creates the table that the estimated cell tower positions are written to.
+     *
+     * @since 1.5.0
+     */
+    private void createCellTowerEstimateTable(GeoPackage geoPackage, SpatialReferenceSystem srs) throws SQLException
+    {
+        createTable(CellTowerMessageConstants.CELL_TOWER_ESTIMATES_TABLE_NAME, geoPackage, srs, false, (tableColumns, columnNumber) -> {
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.TECHNOLOGY_COLUMN, GeoPackageDataType.TEXT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.MCC_COLUMN, GeoPackageDataType.SMALLINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.MNC_COLUMN, GeoPackageDataType.SMALLINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.CELL_ID_COLUMN, GeoPackageDataType.INT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.ENODEB_ID_COLUMN, GeoPackageDataType.MEDIUMINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.SPREAD_COLUMN, GeoPackageDataType.FLOAT, false, null));
+            //noinspection UnusedAssignment
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CellTowerMessageConstants.SAMPLE_COUNT_COLUMN, GeoPackageDataType.MEDIUMINT, false, null));
+        });
+    }
+
+    /**
+     * Writes the current cell tower position estimates to the log file. The estimates cover the whole survey and not
+     * just the current log file, so each log file has the best estimates as of when it was closed. This method is NOT
+     * thread safe and it is assumed the caller has already gotten a lock on the {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    private void writeCellTowerEstimateTable()
+    {
+        final CellTowerEstimator estimator = cellTowerEstimator;
+        if (estimator == null || geoPackage == null) return;
+
+        try
+        {
+            final FeatureDao featureDao = geoPackage.getFeatureDao(CellTowerMessageConstants.CELL_TOWER_ESTIMATES_TABLE_NAME);
+            final long time = System.currentTimeMillis();
+            // Copy the estimates first so the survey record threads are not blocked while the rows are inserted
+            final List<CellTowerEstimator.Estimate> estimates = estimator.getEstimates();
+            int recordNumber = 0;
+
+            for (CellTowerEstimator.Estimate estimate : estimates)
+            {
+                final FeatureRow row = featureDao.newRow();
+
+                final GeoPackageGeometryData geomData = new GeoPackageGeometryData(WGS84_SRS);
+                geomData.setGeometry(new Point(estimate.getLongitude(), estimate.getLatitude()));
+                row.setGeometry(geomData);
+
+                row.setValue(CellTowerMessageConstants.TIME_COLUMN, time);
+                row.setValue(CellTowerMessageConstants.RECORD_NUMBER_COLUMN, recordNumber++);
+                row.setValue(CellTowerMessageConstants.TECHNOLOGY_COLUMN, getTechnologyName(estimate.getTechnology()));
+                setShortValue(row, CellTowerMessageConstants.MCC_COLUMN, estimate.getMcc());
+                setShortValue(row, CellTowerMessageConstants.MNC_COLUMN, estimate.getMnc());
+                row.setValue(CellTowerMessageConstants.CELL_ID_COLUMN, estimate.getCellId() & 0xFFFFFFFFL);
+
+                final int technology = estimate.getTechnology();
+                if (technology == CellTowerEstimator.TECHNOLOGY_LTE)
+                {
+                    setIntValue(row, CellTowerMessageConstants.ENODEB_ID_COLUMN, CalculationUtils.getEnodebIdFromCellId(estimate.getCellId()));
+                } else if (technology == CellTowerEstimator.TECHNOLOGY_LTE_ENODEB)
+                {
+                    setIntValue(row, CellTowerMessageConstants.ENODEB_ID_COLUMN, estimate.getCellId());
+                }
+
+                row.setValue(CellTowerMessageConstants.SPREAD_COLUMN, (float) estimate.getSpreadMeters());
+                setIntValue(row, CellTowerMessageConstants.SAMPLE_COUNT_COLUMN, estimate.getSampleCount());
+
+                featureDao.insert(row);
+            }
+
+            Timber.i("Wrote %d cell tower estimates", recordNumber);
+        } catch (Exception e)
+        {
+            Timber.e(e, "Something went wrong when trying to write the cell tower estimates");
+        }
+    }
+
+    /**
+     * @return The name of the provided {@link CellTowerEstimator} technology for the estimates table.
+     * @since 1.5.0
+     */
+    private static String getTechnologyName(int technology)
+    {
+        switch (technology)
+        {
+            case CellTowerEstimator.TECHNOLOGY_GSM:
+                return CellTowerMessageConstants.TECHNOLOGY_GSM;
+            case CellTowerEstimator.TECHNOLOGY_UMTS:
+                return CellTowerMessageConstants.TECHNOLOGY_UMTS;
+            case CellTowerEstimator.TECHNOLOGY_LTE_ENODEB:
+                return CellTowerMessageConstants.TECHNOLOGY_LTE_ENODEB;
+            default:
+                return CellTowerMessageConstants.TECHNOLOGY_LTE;
+        }
+    }
+
+    /**
+     * Counts the GSM cell as a unique emitter in the log file, and adds its signal strength to the coverage grid. The
+     * cell is identified by its global cell identity if it is known, otherwise by its ARFCN and BSIC (e.g. for a
+     * neighbor cell).
+     *
+     * @since 1.5.0
+     */
+    private void updateGsmEmitterStatistics(GsmRecordData data)
+    {
+        final String emitterId;
+        if (data.hasMcc() && data.hasMnc() && data.hasLac() && data.hasCi())
+        {
+            emitterId = "GSM " + data.getMcc().getValue() + "-" + data.getMnc().getValue() + "-"
+                    + data.getLac().getValue() + "-" + data.getCi().getValue();
+        } else if (data.hasArfcn() && data.hasBsic())
+        {
+            emitterId = "GSM ARFCN " + data.getArfcn().getValue() + " BSIC " + data.getBsic().getValue();
+        } else
+        {
+            return;
+        }
+
+        countUniqueEmitter(emitterId);
+        if (!data.hasSignalStrength()) return;
+
+        addCoverageSample(emitterId, data.getLatitude(), data.getLongitude(), data.getSignalStrength().getValue());
+    }
+
+    /**
+     * Counts the CDMA cell as a unique emitter in the log file, and adds its signal strength to the coverage grid. The
+     * cell is identified by its SID, NID, and BSID if they are known, otherwise by its PN offset.
+     *
+     * @since 1.5.0
+     */
+    private void updateCdmaEmitterStatistics(CdmaRecordData data)
+    {
+        final String emitterId;
+        if (data.hasSid() && data.hasNid() && data.hasBsid())
+        {
+            emitterId = "CDMA " + data.getSid().getValue() + "-" + data.getNid().getValue() + "-" + data.getBsid().getValue();
+        } else if (data.hasPnOffset())
+        {
+            emitterId = "CDMA PN " + data.getPnOffset().getValue();
+        } else
+        {
+            return;
+        }
+
+        countUniqueEmitter(emitterId);
+        if (!data.hasSignalStrength()) return;
+
+        addCoverageSample(emitterId, data.getLatitude(), data.getLongitude(), data.getSignalStrength().getValue());
+    }
+
+    /**
+     * Counts the UMTS cell as a unique emitter in the log file, and adds its RSCP (or the signal strength if the RSCP
+     * is not known) to the coverage grid. The cell is identified by its global cell identity if it is known, otherwise
+     * by its UARFCN and PSC.
+     *
+     * @since 1.5.0
+     */
+    private void updateUmtsEmitterStatistics(UmtsRecordData data)
+    {
+        final String emitterId;
+        if (data.hasMcc() && data.hasMnc() && data.hasLac() && data.hasCid())
+        {
+            emitterId = "UMTS " + data.getMcc().getValue() + "-" + data.getMnc().getValue() + "-"
+                    + data.getLac().getValue() + "-" + data.getCid().getValue();
+        } else if (data.hasUarfcn() && data.hasPsc())
+        {
+            emitterId = "UMTS UARFCN " + data.getUarfcn().getValue() + " PSC " + data.getPsc().getValue();
+        } else
+        {
+            return;
+        }
+
+        countUniqueEmitter(emitterId);
+
+        final float signal;
+        if (data.hasRscp())
+        {
+            signal = data.getRscp().getValue();
+        } else if (data.hasSignalStrength())
+        {
+            signal = data.getSignalStrength().getValue();
+        } else
+        {
+            return;
+        }
+
+        addCoverageSample(emitterId, data.getLatitude(), data.getLongitude(), signal);
+    }
+
+    /**
+     * Counts the LTE cell as a unique emitter in the log file, and adds its RSRP to the coverage grid. The cell is
+     * identified by its PLMN and ECI if they are known, otherwise by its EARFCN and PCI (e.g. for a neighbor cell).
+     *
+     * @since 1.5.0
+     */
+    private void updateLteEmitterStatistics(LteRecordData data)
+    {
+        final String emitterId;
+        if (data.hasMcc() && data.hasMnc() && data.hasEci())
+        {
+            emitterId = "LTE " + data.getMcc().getValue() + "-" + data.getMnc().getValue() + "-" + data.getEci().getValue();
+        } else if (data.hasEarfcn() && data.hasPci())
+        {
+            emitterId = "LTE EARFCN " + data.getEarfcn().getValue() + " PCI " + data.getPci().getValue();
+        } else
+        {
+            return;
+        }
+
+        countUniqueEmitter(emitterId);
+        if (!data.hasRsrp()) return;
+
+        addCoverageSample(emitterId, data.getLatitude(), data.getLongitude(), data.getRsrp().getValue());
+    }
 }
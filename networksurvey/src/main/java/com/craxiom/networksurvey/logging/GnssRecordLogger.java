@@ -8,10 +8,14 @@ import com.craxiom.messaging.gnss.Constellation;
 import com.craxiom.networksurvey.constants.GnssMessageConstants;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
 import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.INmeaListener;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
+import com.craxiom.networksurvey.util.CarrierFreqUtils;
 import com.craxiom.networksurvey.util.IOUtils;
+import com.craxiom.networksurvey.util.NmeaParser;
 
 import java.sql.SQLException;
+import java.util.function.Consumer;
 
 import mil.nga.geopackage.GeoPackage;
 import mil.nga.geopackage.core.srs.SpatialReferenceSystem;
@@ -25,26 +29,49 @@ import timber.log.Timber;
 
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.AGC_DB;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.ALTITUDE_STD_DEV_M;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.CARRIER_FREQUENCY_BAND;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.CARRIER_FREQUENCY_HZ;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.CARRIER_TO_NOISE_DENSITY_DB_HZ;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.CONSTELLATION;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.DEVICE_MODEL_COLUMN;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.GNSS_RECORDS_TABLE_NAME;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.GROUP_NUMBER_COLUMN;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.HDOP;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.LATITUDE_STD_DEV_M;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.LONGITUDE_STD_DEV_M;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_ALTITUDE_MSL_M;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_COURSE_DEGREES;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_FIX_QUALITY;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_GEOID_SEPARATION_M;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_RECORDS_TABLE_NAME;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_SATELLITES_IN_VIEW;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_SATELLITES_USED;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_SENTENCE;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_SENTENCE_TYPE;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_SPEED_KNOTS;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.NMEA_TALKER_ID;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.PDOP;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.RECORD_NUMBER_COLUMN;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.SPACE_VEHICLE_ID;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.TIME_COLUMN;
+import static com.craxiom.networksurvey.constants.GnssMessageConstants.VDOP;
 import static com.craxiom.networksurvey.constants.GnssMessageConstants.getConstellationString;
 
 /**
  * Responsible for taking GNSS survey records, and writing them to the GeoPackage log file.
+ * <p>
+ * The NMEA sentences reported by the GNSS chip are also parsed and written to a separate table in the same file.
  *
  * @since 0.3.0
  */
-public class GnssRecordLogger extends SurveyRecordLogger implements IGnssSurveyRecordListener
+public class GnssRecordLogger extends SurveyRecordLogger implements IGnssSurveyRecordListener, INmeaListener
 {
+    /**
+     * Only accessed from the handler thread while holding the GeoPackage lock.
+     */
+    private final NmeaParser nmeaParser = new NmeaParser(this);
+    private int nmeaRecordNumber = 0;
+
     /**
      * Constructs a Logger that writes GNSS Survey records to a GeoPackage SQLite database.
      *
@@ -62,10 +89,97 @@ public class GnssRecordLogger extends SurveyRecordLogger implements IGnssSurveyR
         writeGnssRecordToLogFile(gnssRecord);
     }
 
+    /**
+     * Parses the provided NMEA sentence and writes it to the NMEA table in the GeoPackage log file.
+     *
+     * @param message   The NMEA sentence.
+     * @param timestamp The timestamp of the sentence in milliseconds since the epoch.
+     * @since 1.5.0
+     */
+    public void onNmeaMessage(String message, long timestamp)
+    {
+        if (!loggingEnabled) return;
+
+        handler.post(() -> {
+            synchronized (geoPackageLock)
+            {
+                try
+                {
+                    // The parser calls back into the typed NMEA event methods below, which write the rows
+                    if (geoPackage != null) nmeaParser.parse(message, timestamp);
+                } catch (Exception e)
+                {
+                    Timber.e(e, "Something went wrong when trying to write an NMEA record");
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onGga(NmeaParser.GgaEvent event)
+    {
+        writeNmeaRow(event, event.getLatitude(), event.getLongitude(), event.getAltitudeMsl(), row -> {
+            setIfPresent(row, NMEA_FIX_QUALITY, event.getFixQuality());
+            setIfPresent(row, NMEA_SATELLITES_USED, event.getSatellitesUsed());
+            setIfPresent(row, HDOP, event.getHdop());
+            setIfPresent(row, NMEA_ALTITUDE_MSL_M, event.getAltitudeMsl());
+            setIfPresent(row, NMEA_GEOID_SEPARATION_M, event.getGeoidSeparation());
+        });
+    }
+
+    @Override
+    public void onGns(NmeaParser.GnsEvent event)
+    {
+        writeNmeaRow(event, event.getLatitude(), event.getLongitude(), event.getAltitudeMsl(), row -> {
+            setIfPresent(row, NMEA_SATELLITES_USED, event.getSatellitesUsed());
+            setIfPresent(row, HDOP, event.getHdop());
+            setIfPresent(row, NMEA_ALTITUDE_MSL_M, event.getAltitudeMsl());
+            setIfPresent(row, NMEA_GEOID_SEPARATION_M, event.getGeoidSeparation());
+        });
+    }
+
+    @Override
+    public void onGsa(NmeaParser.GsaEvent event)
+    {
+        writeNmeaRow(event, Double.NaN, Double.NaN, Double.NaN, row -> {
+            setIfPresent(row, NMEA_FIX_QUALITY, event.getFixType());
+            row.setValue(NMEA_SATELLITES_USED, event.getSatelliteCount());
+            setIfPresent(row, PDOP, event.getPdop());
+            setIfPresent(row, HDOP, event.getHdop());
+            setIfPresent(row, VDOP, event.getVdop());
+        });
+    }
+
+    @Override
+    public void onRmc(NmeaParser.RmcEvent event)
+    {
+        writeNmeaRow(event, event.getLatitude(), event.getLongitude(), Double.NaN, row -> {
+            setIfPresent(row, NMEA_SPEED_KNOTS, event.getSpeedKnots());
+            setIfPresent(row, NMEA_COURSE_DEGREES, event.getCourseDegrees());
+        });
+    }
+
+    @Override
+    public void onGsv(NmeaParser.GsvEvent event)
+    {
+        writeNmeaRow(event, Double.NaN, Double.NaN, Double.NaN,
+                row -> setIfPresent(row, NMEA_SATELLITES_IN_VIEW, event.getSatellitesInView()));
+    }
+
+    @Override
+    public void onVtg(NmeaParser.VtgEvent event)
+    {
+        writeNmeaRow(event, Double.NaN, Double.NaN, Double.NaN, row -> {
+            setIfPresent(row, NMEA_SPEED_KNOTS, event.getSpeedKnots());
+            setIfPresent(row, NMEA_COURSE_DEGREES, event.getCourseTrue());
+        });
+    }
+
     @Override
     void createTables(GeoPackage geoPackage, SpatialReferenceSystem srs) throws SQLException
     {
         createGnssRecordTable(geoPackage, srs);
+        createNmeaRecordTable(geoPackage, srs);
     }
 
     /**
@@ -83,6 +197,7 @@ public class GnssRecordLogger extends SurveyRecordLogger implements IGnssSurveyR
             tableColumns.add(FeatureColumn.createColumn(columnNumber++, CONSTELLATION, GeoPackageDataType.TEXT, false, null));
             tableColumns.add(FeatureColumn.createColumn(columnNumber++, SPACE_VEHICLE_ID, GeoPackageDataType.MEDIUMINT, false, null));
             tableColumns.add(FeatureColumn.createColumn(columnNumber++, CARRIER_FREQUENCY_HZ, GeoPackageDataType.INT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CARRIER_FREQUENCY_BAND, GeoPackageDataType.TEXT, false, null));
             tableColumns.add(FeatureColumn.createColumn(columnNumber++, LATITUDE_STD_DEV_M, GeoPackageDataType.FLOAT, false, null));
             tableColumns.add(FeatureColumn.createColumn(columnNumber++, LONGITUDE_STD_DEV_M, GeoPackageDataType.FLOAT, false, null));
             tableColumns.add(FeatureColumn.createColumn(columnNumber++, ALTITUDE_STD_DEV_M, GeoPackageDataType.FLOAT, false, null));
@@ -93,6 +208,86 @@ public class GnssRecordLogger extends SurveyRecordLogger implements IGnssSurveyR
         });
     }
 
+    /**
+     * Creates an GeoPackage Table that can be populated with the parsed NMEA sentences.
+     *
+     * @param geoPackage The GeoPackage to create the table in.
+     * @param srs        The SRS to use for the table coordinates.
+     * @throws SQLException If there is a problem working with the GeoPackage SQLite DB.
+     * @since 1.5.0
+     */
+    private void createNmeaRecordTable(GeoPackage geoPackage, SpatialReferenceSystem srs) throws SQLException
+    {
+        createTable(NMEA_RECORDS_TABLE_NAME, geoPackage, srs, false, (tableColumns, columnNumber) -> {
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_TALKER_ID, GeoPackageDataType.TEXT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_SENTENCE_TYPE, GeoPackageDataType.TEXT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_FIX_QUALITY, GeoPackageDataType.MEDIUMINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_SATELLITES_USED, GeoPackageDataType.MEDIUMINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_SATELLITES_IN_VIEW, GeoPackageDataType.MEDIUMINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, PDOP, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, HDOP, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, VDOP, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_ALTITUDE_MSL_M, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_GEOID_SEPARATION_M, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_SPEED_KNOTS, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_COURSE_DEGREES, GeoPackageDataType.FLOAT, false, null));
+            //noinspection UnusedAssignment
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, NMEA_SENTENCE, GeoPackageDataType.TEXT, false, null));
+        });
+    }
+
+    /**
+     * Writes a row for the provided NMEA event to the NMEA table. Must be called on the handler thread while holding
+     * the GeoPackage lock.
+     *
+     * @param event          The parsed NMEA sentence.
+     * @param latitude       The latitude for the row geometry, or NaN if the sentence does not have a position.
+     * @param longitude      The longitude for the row geometry, or NaN if the sentence does not have a position.
+     * @param altitude       The altitude for the row geometry, or NaN if the sentence does not have an altitude.
+     * @param columnSupplier Sets the sentence specific columns on the row.
+     */
+    private void writeNmeaRow(NmeaParser.NmeaEvent event, double latitude, double longitude, double altitude,
+                              Consumer<FeatureRow> columnSupplier)
+    {
+        if (geoPackage == null) return;
+
+        final FeatureDao featureDao = geoPackage.getFeatureDao(NMEA_RECORDS_TABLE_NAME);
+        final FeatureRow row = featureDao.newRow();
+
+        if (!Double.isNaN(latitude) && !Double.isNaN(longitude))
+        {
+            final Point fix = Double.isNaN(altitude) ? new Point(longitude, latitude) : new Point(longitude, latitude, altitude);
+
+            final GeoPackageGeometryData geomData = new GeoPackageGeometryData(WGS84_SRS);
+            geomData.setGeometry(fix);
+
+            row.setGeometry(geomData);
+        }
+
+        row.setValue(TIME_COLUMN, event.getTimestamp());
+        row.setValue(RECORD_NUMBER_COLUMN, nmeaRecordNumber++);
+        row.setValue(NMEA_TALKER_ID, event.getTalkerId());
+        row.setValue(NMEA_SENTENCE_TYPE, event.getSentenceType());
+        row.setValue(NMEA_SENTENCE, event.getSentence().toString());
+
+        columnSupplier.accept(row);
+
+        featureDao.insert(row);
+
+        checkIfRolloverNeeded();
+    }
+
+    private static void setIfPresent(FeatureRow row, String column, int value)
+    {
+        if (value != -1) row.setValue(column, value);
+    }
+
+    private static void setIfPresent(FeatureRow row, String column, double value)
+    {
+        // The FLOAT columns hold float values
+        if (!Double.isNaN(value)) row.setValue(column, (float) value);
+    }
+
     /**
      * Given a GNSS Record, write it to the GeoPackage log file.
      *
@@ -139,7 +334,13 @@ public class GnssRecordLogger extends SurveyRecordLogger implements IGnssSurveyR
 
                         if (data.hasCarrierFreqHz())
                         {
-                            row.setValue(CARRIER_FREQUENCY_HZ, data.getCarrierFreqHz().getValue());
+                            final long carrierFrequencyHz = data.getCarrierFreqHz().getValue();
+                            row.setValue(CARRIER_FREQUENCY_HZ, carrierFrequencyHz);
+
+                            final String band = CarrierFreqUtils.getCarrierFrequencyLabelFromHz(
+                                    GnssMessageConstants.getGnssType(constellation),
+                                    data.getSpaceVehicleId().getValue(), carrierFrequencyHz);
+                            if (band != null) row.setValue(CARRIER_FREQUENCY_BAND, band);
                         }
 
                         if (data.hasLatitudeStdDevM())
@@ -8,11 +8,14 @@ import android.widget.Toast;
 
 import com.craxiom.messaging.LteBandwidth;
 import com.craxiom.networksurvey.constants.CellularMessageConstants;
+import com.craxiom.networksurvey.constants.CoverageMessageConstants;
 import com.craxiom.networksurvey.constants.LteMessageConstants;
 import com.craxiom.networksurvey.constants.MessageConstants;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
 import com.craxiom.networksurvey.services.SurveyRecordProcessor;
+import com.craxiom.networksurvey.util.CoverageGrid;
+import com.craxiom.networksurvey.util.HyperLogLog;
 import com.craxiom.networksurvey.util.PreferenceUtils;
 
 import java.io.File;
@@ -34,9 +37,14 @@ import mil.nga.geopackage.factory.GeoPackageFactory;
 import mil.nga.geopackage.features.columns.GeometryColumns;
 import mil.nga.geopackage.features.columns.GeometryColumnsDao;
 import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureDao;
 import mil.nga.geopackage.features.user.FeatureRow;
 import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
 import mil.nga.sf.GeometryType;
+import mil.nga.sf.LineString;
+import mil.nga.sf.Point;
+import mil.nga.sf.Polygon;
 import mil.nga.sf.proj.ProjectionConstants;
 import timber.log.Timber;
 
@@ -65,6 +73,24 @@ public abstract class SurveyRecordLogger
     volatile boolean loggingEnabled;
     private String logFileDirectoryPath;
 
+    /**
+     * The coverage grid that summarizes the records in the current log file, or null if this logger does not keep one.
+     * Only accessed while holding the {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    private CoverageGrid coverageGrid;
+
+    /**
+     * The unique emitters (e.g. BSSIDs) written to the current log file, and to all the log files since logging was
+     * turned on. The current file's counter is merged into the session counter when the file is closed. Only accessed
+     * while holding the {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    private final HyperLogLog fileEmitterCounter = new HyperLogLog(NetworkSurveyConstants.UNIQUE_EMITTER_COUNTER_PRECISION);
+    private final HyperLogLog sessionEmitterCounter = new HyperLogLog(NetworkSurveyConstants.UNIQUE_EMITTER_COUNTER_PRECISION);
+
     /**
      * A lock to synchronize the writing of single records and the creation of a new GeoPackage file
      * during rollover.
@@ -119,6 +145,8 @@ public abstract class SurveyRecordLogger
                     if (loggingEnabled)
                     {
                         loggingEnabled = false;
+                        writeSummaryTablesInTransaction();
+                        closeEmitterCounter();
                         geoPackage.close();
                         geoPackage = null;
                         removeTempFiles();
@@ -131,6 +159,9 @@ public abstract class SurveyRecordLogger
 
                 if (!isExternalStorageWritable()) return false;
 
+                fileEmitterCounter.clear();
+                sessionEmitterCounter.clear();
+
                 boolean fileCreated = prepareGeoPackageForLogging();
 
                 updateRolloverWorker();
@@ -190,6 +221,12 @@ public abstract class SurveyRecordLogger
         geoPackage.createGeometryColumnsTable();
         createTables(geoPackage, spatialReferenceSystem);
 
+        if (coverageGrid != null)
+        {
+            coverageGrid.clear();
+            createCoverageTable(geoPackage, spatialReferenceSystem);
+        }
+
         return true;
     }
 
@@ -248,6 +285,18 @@ public abstract class SurveyRecordLogger
      */
     void createTable(String tableName, GeoPackage geoPackage, SpatialReferenceSystem srs, boolean addCellularColumns,
                      BiConsumer<List<FeatureColumn>, Integer> customColumnAddition) throws SQLException
+    {
+        createTable(tableName, geoPackage, srs, GeometryType.POINT, addCellularColumns, customColumnAddition);
+    }
+
+    /**
+     * Same as {@link #createTable(String, GeoPackage, SpatialReferenceSystem, boolean, BiConsumer)}, but with the
+     * provided geometry type instead of a point.
+     *
+     * @since 1.5.0
+     */
+    private void createTable(String tableName, GeoPackage geoPackage, SpatialReferenceSystem srs, GeometryType geometryType,
+                             boolean addCellularColumns, BiConsumer<List<FeatureColumn>, Integer> customColumnAddition) throws SQLException
     {
         ContentsDao contentsDao = geoPackage.getContentsDao();
 
@@ -261,7 +310,7 @@ public abstract class SurveyRecordLogger
         int columnNumber = 0;
         List<FeatureColumn> tableColumns = new LinkedList<>();
         tableColumns.add(FeatureColumn.createPrimaryKeyColumn(columnNumber++, MessageConstants.ID_COLUMN));
-        tableColumns.add(FeatureColumn.createGeometryColumn(columnNumber++, MessageConstants.GEOMETRY_COLUMN, GeometryType.POINT, false, null));
+        tableColumns.add(FeatureColumn.createGeometryColumn(columnNumber++, MessageConstants.GEOMETRY_COLUMN, geometryType, false, null));
         tableColumns.add(FeatureColumn.createColumn(columnNumber++, MessageConstants.TIME_COLUMN, GeoPackageDataType.INT, false, null));
         tableColumns.add(FeatureColumn.createColumn(columnNumber++, MessageConstants.MISSION_ID_COLUMN, GeoPackageDataType.TEXT, false, null));
         tableColumns.add(FeatureColumn.createColumn(columnNumber++, MessageConstants.RECORD_NUMBER_COLUMN, GeoPackageDataType.MEDIUMINT, true, -1));
@@ -285,13 +334,175 @@ public abstract class SurveyRecordLogger
         GeometryColumns geometryColumns = new GeometryColumns();
         geometryColumns.setContents(contents);
         geometryColumns.setColumnName(MessageConstants.GEOMETRY_COLUMN);
-        geometryColumns.setGeometryType(GeometryType.POINT);
+        geometryColumns.setGeometryType(geometryType);
         geometryColumns.setSrs(srs);
         geometryColumns.setZ((byte) 0); // TODO I am not sure if all of this is right
         geometryColumns.setM((byte) 0);
         geometryColumnsDao.create(geometryColumns);
     }
 
+    /**
+     * Turns on the coverage grid for this logger, so that a table of the per tile signal statistics for each emitter is
+     * written to each log file when it is closed (see {@link CoverageMessageConstants}). Subclasses that call this in
+     * their constructor should then call {@link #addCoverageSample(String, double, double, float)} for each record.
+     *
+     * @since 1.5.0
+     */
+    void enableCoverageGrid()
+    {
+        synchronized (geoPackageLock)
+        {
+            coverageGrid = new CoverageGrid(NetworkSurveyConstants.COVERAGE_TILE_SIZE_DEGREES,
+                    (int) (NetworkSurveyConstants.COVERAGE_GRID_MAX_BYTES / CoverageGrid.BYTES_PER_TILE));
+        }
+    }
+
+    /**
+     * Adds a signal sample to the coverage grid for the current log file. This must be called while holding the
+     * {@link #geoPackageLock}.
+     *
+     * @param emitterId The identifier of the emitter (e.g. the BSSID, or the cell identity).
+     * @param latitude  The latitude of the record.
+     * @param longitude The longitude of the record.
+     * @param signalDbm The signal strength of the emitter.
+     * @since 1.5.0
+     */
+    void addCoverageSample(String emitterId, double latitude, double longitude, float signalDbm)
+    {
+        if (coverageGrid != null) coverageGrid.add(emitterId, latitude, longitude, signalDbm);
+    }
+
+    /**
+     * Creates the table that the coverage grid tiles are written to. The geometry of each row is the tile polygon.
+     *
+     * @since 1.5.0
+     */
+    private void createCoverageTable(GeoPackage geoPackage, SpatialReferenceSystem srs) throws SQLException
+    {
+        createTable(CoverageMessageConstants.COVERAGE_TILES_TABLE_NAME, geoPackage, srs, GeometryType.POLYGON, false, (tableColumns, columnNumber) -> {
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CoverageMessageConstants.EMITTER_COLUMN, GeoPackageDataType.TEXT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CoverageMessageConstants.SAMPLE_COUNT_COLUMN, GeoPackageDataType.MEDIUMINT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CoverageMessageConstants.MEAN_COLUMN, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CoverageMessageConstants.MIN_COLUMN, GeoPackageDataType.FLOAT, false, null));
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CoverageMessageConstants.MAX_COLUMN, GeoPackageDataType.FLOAT, false, null));
+            //noinspection UnusedAssignment
+            tableColumns.add(FeatureColumn.createColumn(columnNumber++, CoverageMessageConstants.STD_DEV_COLUMN, GeoPackageDataType.FLOAT, false, null));
+        });
+    }
+
+    /**
+     * Writes the tables that summarize the whole log file, which is done right before the file is closed. Subclasses
+     * that override this to write their own summary tables must call this super method. This method is NOT thread
+     * safe and it is assumed the caller has already gotten a lock on the {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    void writeSummaryTables()
+    {
+        writeCoverageTable();
+    }
+
+    /**
+     * Writes the summary tables in a single SQLite transaction. The summary tables can have tens of thousands of rows
+     * (e.g. one per coverage tile), and without the transaction each row insert would be its own transaction and
+     * journal sync. This method is NOT thread safe and it is assumed the caller has already gotten a lock on the
+     * {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    private void writeSummaryTablesInTransaction()
+    {
+        geoPackage.beginTransaction();
+        try
+        {
+            writeSummaryTables();
+        } finally
+        {
+            geoPackage.endTransaction();
+        }
+    }
+
+    /**
+     * Counts the provided emitter as seen in the current log file. This must be called while holding the
+     * {@link #geoPackageLock}.
+     *
+     * @param emitterId The identifier of the emitter (e.g. the BSSID, or the cell identity).
+     * @since 1.5.0
+     */
+    void countUniqueEmitter(CharSequence emitterId)
+    {
+        fileEmitterCounter.add(emitterId);
+    }
+
+    /**
+     * Merges the unique emitters of the log file that is being closed into the logging session count, and resets the
+     * count for the next file. This method is NOT thread safe and it is assumed the caller has already gotten a lock
+     * on the {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    private void closeEmitterCounter()
+    {
+        sessionEmitterCounter.merge(fileEmitterCounter);
+        Timber.i("The log file had about %d unique emitters, and there were about %d across all the log files since logging was turned on",
+                fileEmitterCounter.estimate(), sessionEmitterCounter.estimate());
+        fileEmitterCounter.clear();
+    }
+
+    /**
+     * Writes the coverage grid tiles to the current log file, which is done right before the file is closed. This
+     * method is NOT thread safe and it is assumed the caller has already gotten a lock on the {@link #geoPackageLock}.
+     *
+     * @since 1.5.0
+     */
+    private void writeCoverageTable()
+    {
+        if (coverageGrid == null || geoPackage == null || coverageGrid.getTileCount() == 0) return;
+
+        try
+        {
+            final FeatureDao featureDao = geoPackage.getFeatureDao(CoverageMessageConstants.COVERAGE_TILES_TABLE_NAME);
+            final long time = System.currentTimeMillis();
+            final int[] recordNumber = {0};
+
+            coverageGrid.forEachTile(tile -> {
+                final FeatureRow row = featureDao.newRow();
+
+                final LineString ring = new LineString();
+                ring.addPoint(new Point(tile.getMinLongitude(), tile.getMinLatitude()));
+                ring.addPoint(new Point(tile.getMaxLongitude(), tile.getMinLatitude()));
+                ring.addPoint(new Point(tile.getMaxLongitude(), tile.getMaxLatitude()));
+                ring.addPoint(new Point(tile.getMinLongitude(), tile.getMaxLatitude()));
+                ring.addPoint(new Point(tile.getMinLongitude(), tile.getMinLatitude()));
+                final Polygon polygon = new Polygon();
+                polygon.addRing(ring);
+
+                final GeoPackageGeometryData geomData = new GeoPackageGeometryData(WGS84_SRS);
+                geomData.setGeometry(polygon);
+                row.setGeometry(geomData);
+
+                row.setValue(CoverageMessageConstants.TIME_COLUMN, time);
+                row.setValue(CoverageMessageConstants.RECORD_NUMBER_COLUMN, recordNumber[0]++);
+                row.setValue(CoverageMessageConstants.EMITTER_COLUMN, tile.getEmitterId());
+                row.setValue(CoverageMessageConstants.SAMPLE_COUNT_COLUMN, tile.getCount());
+                row.setValue(CoverageMessageConstants.MEAN_COLUMN, (float) tile.getMean());
+                row.setValue(CoverageMessageConstants.MIN_COLUMN, tile.getMin());
+                row.setValue(CoverageMessageConstants.MAX_COLUMN, tile.getMax());
+                row.setValue(CoverageMessageConstants.STD_DEV_COLUMN, (float) tile.getStandardDeviation());
+
+                featureDao.insert(row);
+            });
+
+            Timber.i("Wrote %d coverage tiles for %d emitters (%d samples dropped because the grid was full)",
+                    coverageGrid.getTileCount(), coverageGrid.getEmitterCount(), coverageGrid.getDroppedSampleCount());
+        } catch (Exception e)
+        {
+            Timber.e(e, "Something went wrong when trying to write the coverage tiles");
+        }
+
+        coverageGrid.clear();
+    }
+
     /**
      * Converts the LTE Bandwidth to a float and sets it on the provided row.
      *
@@ -484,6 +695,8 @@ public abstract class SurveyRecordLogger
                         {
                             try
                             {
+                                writeSummaryTablesInTransaction();
+                                closeEmitterCounter();
                                 geoPackage.close();
 
                                 boolean fileCreated = prepareGeoPackageForLogging();
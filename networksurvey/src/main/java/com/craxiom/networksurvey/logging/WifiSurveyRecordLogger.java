@@ -11,6 +11,7 @@ import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
 import com.craxiom.networksurvey.model.WifiRecordWrapper;
 import com.craxiom.networksurvey.services.NetworkSurveyService;
 import com.craxiom.networksurvey.util.IOUtils;
+import com.craxiom.networksurvey.util.WifiCapabilitiesUtils;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -42,6 +43,7 @@ public class WifiSurveyRecordLogger extends SurveyRecordLogger implements IWifiS
     public WifiSurveyRecordLogger(NetworkSurveyService networkSurveyService, Looper serviceLooper)
     {
         super(networkSurveyService, serviceLooper, NetworkSurveyConstants.LOG_DIRECTORY_NAME, NetworkSurveyConstants.WIFI_FILE_NAME_PREFIX);
+        enableCoverageGrid();
     }
 
     @Override
@@ -162,8 +164,24 @@ public class WifiSurveyRecordLogger extends SurveyRecordLogger implements IWifiS
                                             .collect(Collectors.joining(";")));
                         }
 
+                        final String capabilities = wifiRecordWrapper.getCapabilitiesString();
+                        if (capabilities != null && !capabilities.isEmpty())
+                        {
+                            final String akmSuites = WifiCapabilitiesUtils.parseCapabilities(capabilities).getAkmSuitesString();
+                            if (!akmSuites.isEmpty()) row.setValue(WifiBeaconMessageConstants.AKM_SUITES_COLUMN, akmSuites);
+                        }
+
                         featureDao.insert(row);
 
+                        if (!bssid.isEmpty())
+                        {
+                            countUniqueEmitter(bssid);
+                            if (data.hasSignalStrength())
+                            {
+                                addCoverageSample(bssid, data.getLatitude(), data.getLongitude(), data.getSignalStrength().getValue());
+                            }
+                        }
+
                         checkIfRolloverNeeded();
                     }
                 } catch (Exception e)
@@ -0,0 +1,183 @@
+package com.craxiom.networksurvey.model;
+
+import androidx.annotation.Nullable;
+
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.networksurvey.util.CellTowerEstimator;
+import com.craxiom.networksurvey.util.SignalHistoryStore;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the latest values to display on the cellular details screen.
+ * <p>
+ * The survey record processor writes to this state from its scanning thread on every cell info scan, and the UI reads
+ * it on the main thread. Neither side takes a lock, and each value is simply replaced, so the UI always sees the latest
+ * value and older values that were never displayed are dropped. The change listener is only notified for the first
+ * change after the UI last consumed the state, so the UI is asked to redraw at most once no matter how many scans come
+ * in before it gets a chance to do so.
+ *
+ * @since 1.5.0
+ */
+public class CellularDetailsState
+{
+    public static final int SERVING_CELL_HISTORY_LENGTH = 120;
+    private static final long SERVING_CELL_HISTORY_MAX_BYTES = 64 * 1024;
+
+    private final AtomicReference<String> currentTechnology = new AtomicReference<>();
+    private final AtomicReference<LteRecordData> servingLteRecord = new AtomicReference<>();
+    private final AtomicReference<CellTowerEstimator.Estimate> servingCellEstimate = new AtomicReference<>();
+    private final AtomicReference<CellTowerEstimator.Estimate> servingEnodebEstimate = new AtomicReference<>();
+    private final AtomicLong uniqueCellCount = new AtomicLong();
+    private final AtomicBoolean changed = new AtomicBoolean(false);
+
+    /**
+     * The recent RSRP values for each serving cell, keyed by the cell identity.
+     */
+    private final SignalHistoryStore servingCellRsrpHistory = new SignalHistoryStore(SERVING_CELL_HISTORY_LENGTH,
+            SERVING_CELL_HISTORY_MAX_BYTES);
+
+    private volatile Runnable changeListener;
+
+    /**
+     * @param currentTechnology The current technology of the serving cell (e.g. LTE).
+     */
+    public void setCurrentTechnology(String currentTechnology)
+    {
+        this.currentTechnology.set(currentTechnology);
+        onChanged();
+    }
+
+    /**
+     * Sets the latest LTE serving cell record, and adds its RSRP to the signal history of the cell.
+     *
+     * @param servingLteRecord The data from the latest LTE serving cell record, or the default instance to clear it.
+     */
+    public void setServingLteRecord(LteRecordData servingLteRecord)
+    {
+        if (servingLteRecord.hasEci() && servingLteRecord.hasRsrp())
+        {
+            servingCellRsrpHistory.record(getCellKey(servingLteRecord), System.currentTimeMillis(),
+                    servingLteRecord.getRsrp().getValue());
+        }
+
+        this.servingLteRecord.set(servingLteRecord);
+        onChanged();
+    }
+
+    /**
+     * Sets the estimated positions of the LTE serving cell and its eNodeB. These should be set before the serving cell
+     * record they go with so that the UI does not show the estimates of the previous serving cell with the new record.
+     *
+     * @param cellEstimate   The estimated position of the serving cell, or null if there is not one.
+     * @param enodebEstimate The estimated position of the serving cell's eNodeB, or null if there is not one.
+     */
+    public void setServingCellEstimates(@Nullable CellTowerEstimator.Estimate cellEstimate,
+                                        @Nullable CellTowerEstimator.Estimate enodebEstimate)
+    {
+        servingCellEstimate.set(cellEstimate);
+        servingEnodebEstimate.set(enodebEstimate);
+        onChanged();
+    }
+
+    /**
+     * @param uniqueCellCount The estimated number of unique cells seen during the current mission.
+     */
+    public void setUniqueCellCount(long uniqueCellCount)
+    {
+        if (this.uniqueCellCount.getAndSet(uniqueCellCount) != uniqueCellCount) onChanged();
+    }
+
+    /**
+     * @return The current technology of the serving cell, or null if it has not been set yet.
+     */
+    @Nullable
+    public String getCurrentTechnology()
+    {
+        return currentTechnology.get();
+    }
+
+    /**
+     * @return The latest LTE serving cell record data, or null if it has not been set yet.
+     */
+    @Nullable
+    public LteRecordData getServingLteRecord()
+    {
+        return servingLteRecord.get();
+    }
+
+    /**
+     * @return The estimated position of the LTE serving cell, or null if there is not one.
+     */
+    @Nullable
+    public CellTowerEstimator.Estimate getServingCellEstimate()
+    {
+        return servingCellEstimate.get();
+    }
+
+    /**
+     * @return The estimated position of the LTE serving cell's eNodeB, or null if there is not one.
+     */
+    @Nullable
+    public CellTowerEstimator.Estimate getServingEnodebEstimate()
+    {
+        return servingEnodebEstimate.get();
+    }
+
+    public long getUniqueCellCount()
+    {
+        return uniqueCellCount.get();
+    }
+
+    /**
+     * @return The recent RSRP values for each serving cell, which are keyed using {@link #getCellKey(LteRecordData)}.
+     */
+    public SignalHistoryStore getServingCellRsrpHistory()
+    {
+        return servingCellRsrpHistory;
+    }
+
+    /**
+     * @return The key that identifies the cell in the serving cell history, or null if the record does not have a
+     * cell identity.
+     */
+    @Nullable
+    public static String getCellKey(LteRecordData lteRecord)
+    {
+        return lteRecord.hasEci() ? String.valueOf(lteRecord.getEci().getValue()) : null;
+    }
+
+    /**
+     * Sets the listener that is notified when this state changes. The listener is called on the thread that made the
+     * change, and it is not called again until {@link #consumeChange()} is called.
+     *
+     * @param changeListener The listener to notify, or null to stop notifying.
+     */
+    public void setChangeListener(@Nullable Runnable changeListener)
+    {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Marks the current values as consumed so that the next change notifies the listener again. This must be called
+     * before reading the values, so that a change made while they are being read is not missed.
+     *
+     * @return True if the state changed since it was last consumed.
+     */
+    public boolean consumeChange()
+    {
+        return changed.getAndSet(false);
+    }
+
+    private void onChanged()
+    {
+        // The value is always set before the flag, so whoever clears the flag is guaranteed to see the new value
+        if (changed.compareAndSet(false, true))
+        {
+            final Runnable listener = changeListener;
+            if (listener != null) listener.run();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.craxiom.networksurvey.model;
+
+import com.google.protobuf.Message;
+
+/**
+ * Wraps a survey record protobuf message so that its protobuf binary encoding is computed at most once, no matter how
+ * many times the record is queued, replayed, and queued again on its way to a sink.
+ * <p>
+ * The encoding is memoized without a lock, the same way {@link String#hashCode()} is. Two threads can race to compute
+ * it, but they compute the same bytes and either result can be kept, so the envelope can be shared between threads
+ * without any synchronization.
+ *
+ * @param <T> The type of protobuf message in this envelope.
+ * @since 1.5.0
+ */
+public final class RecordEnvelope<T extends Message>
+{
+    private final T record;
+    private volatile byte[] serializedBytes;
+
+    /**
+     * @param record The survey record.
+     */
+    public RecordEnvelope(T record)
+    {
+        this(record, null);
+    }
+
+    /**
+     * @param record          The survey record.
+     * @param serializedBytes The protobuf binary encoding of the record if it is already known (e.g. because the record
+     *                        was just parsed from it), or null to encode the record the first time the bytes are needed.
+     */
+    public RecordEnvelope(T record, byte[] serializedBytes)
+    {
+        this.record = record;
+        this.serializedBytes = serializedBytes;
+    }
+
+    public T getRecord()
+    {
+        return record;
+    }
+
+    /**
+     * @return The protobuf binary encoding of the record. The returned array is shared and must not be modified.
+     */
+    public byte[] toByteArray()
+    {
+        byte[] bytes = serializedBytes;
+        if (bytes == null)
+        {
+            bytes = record.toByteArray();
+            serializedBytes = bytes;
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return record.toString();
+    }
+}
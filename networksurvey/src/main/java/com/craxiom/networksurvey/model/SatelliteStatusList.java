@@ -0,0 +1,325 @@
+package com.craxiom.networksurvey.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.SortedList;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sorted list of satellites that is updated in place as each new GNSS status comes in.
+ * <p>
+ * Each satellite is identified by an int key packed from its constellation, SVID, and carrier frequency (a satellite
+ * can show up once per frequency band), and the satellites are indexed by that key in a {@link SatelliteStatusMap}. When a new status is applied, satellites that are already in the list are
+ * updated in place and only moved if their sort position changed, new satellites are inserted at their sorted
+ * position, and satellites that are no longer present are removed. The granular insert, remove, move, and change
+ * events are sent to the {@link ListUpdateCallback} so that only the rows that changed are rebound.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @since 1.5.0
+ */
+public class SatelliteStatusList extends SortedSet<SatelliteStatus>
+{
+    // Below sort order values must match arrays.xml sort_sats order
+    public static final int SORT_BY_CONSTELLATION = 0;
+    public static final int SORT_BY_CARRIER_FREQUENCY = 1;
+    public static final int SORT_BY_SIGNAL_STRENGTH = 2;
+    public static final int SORT_BY_USED_IN_FIX = 3;
+    public static final int SORT_BY_CONSTELLATION_CARRIER_FREQUENCY = 4;
+    public static final int SORT_BY_CONSTELLATION_SIGNAL_STRENGTH = 5;
+    public static final int SORT_BY_CONSTELLATION_USED_IN_FIX = 6;
+
+    private final SatelliteStatusCallback statusCallback;
+    private final boolean sbas;
+
+    private final SatelliteStatusMap statusesByKey = new SatelliteStatusMap();
+
+    /**
+     * The satellites in the status that is being applied by {@link #update(List)}, reused between updates.
+     */
+    private final SatelliteStatusMap currentStatuses = new SatelliteStatusMap();
+
+    private int sortOrder = SORT_BY_CONSTELLATION;
+
+    /**
+     * @param sbas True if this list holds SBAS satellites, in which case the constellation sort orders use the SBAS
+     *             type instead of the GNSS type.
+     */
+    public SatelliteStatusList(boolean sbas)
+    {
+        this(new SatelliteStatusCallback(), sbas);
+    }
+
+    private SatelliteStatusList(SatelliteStatusCallback statusCallback, boolean sbas)
+    {
+        super(SatelliteStatus.class, statusCallback);
+        this.statusCallback = statusCallback;
+        this.sbas = sbas;
+        statusCallback.comparator = getComparator(sortOrder, sbas);
+    }
+
+    /**
+     * @param listUpdateCallback The callback to notify of the changes to this list, or null to stop notifying.
+     */
+    public void setListUpdateCallback(@Nullable ListUpdateCallback listUpdateCallback)
+    {
+        statusCallback.listUpdateCallback = listUpdateCallback;
+    }
+
+    /**
+     * Sets the sort order, and re-sorts the list if the order changed.
+     *
+     * @param sortOrder One of the SORT_BY constants.
+     */
+    public void setSortOrder(int sortOrder)
+    {
+        if (sortOrder == this.sortOrder) return;
+
+        this.sortOrder = sortOrder;
+
+        final SatelliteStatus[] statuses = new SatelliteStatus[size()];
+        for (int i = 0; i < statuses.length; i++)
+        {
+            statuses[i] = get(i);
+        }
+
+        beginBatchedUpdates();
+        clear();
+        statusCallback.comparator = getComparator(sortOrder, sbas);
+        addAll(statuses, true);
+        endBatchedUpdates();
+    }
+
+    /**
+     * Updates this list so that it contains exactly the provided satellites, in sorted order.
+     *
+     * @param statuses The satellites from the latest GNSS status.
+     */
+    public void update(List<SatelliteStatus> statuses)
+    {
+        currentStatuses.clear();
+
+        beginBatchedUpdates();
+        try
+        {
+            for (SatelliteStatus status : statuses)
+            {
+                final int key = getSatelliteKey(status);
+                currentStatuses.put(key, status);
+
+                final SatelliteStatus existingStatus = statusesByKey.get(key);
+                final int index = existingStatus == null ? INVALID_POSITION : indexOf(existingStatus);
+                if (index == INVALID_POSITION)
+                {
+                    add(status);
+                } else
+                {
+                    // Only dispatches a change if the contents changed, and a move if the sort position changed
+                    updateItemAt(index, status);
+                }
+            }
+
+            for (int i = size() - 1; i >= 0; i--)
+            {
+                if (!currentStatuses.containsKey(getSatelliteKey(get(i)))) removeItemAt(i);
+            }
+        } finally
+        {
+            endBatchedUpdates();
+            currentStatuses.clear();
+        }
+    }
+
+    /**
+     * @param key The key from {@link #getSatelliteKey(SatelliteStatus)}.
+     * @return The satellite with the provided key, or null if it is not in this list.
+     */
+    @Nullable
+    public SatelliteStatus getByKey(int key)
+    {
+        return statusesByKey.get(key);
+    }
+
+    @Override
+    protected boolean isIndexed()
+    {
+        return true;
+    }
+
+    @Override
+    protected SatelliteStatus getIndexedItem(SatelliteStatus status)
+    {
+        return statusesByKey.get(getSatelliteKey(status));
+    }
+
+    @Override
+    protected void indexItem(SatelliteStatus status)
+    {
+        statusesByKey.put(getSatelliteKey(status), status);
+    }
+
+    @Override
+    protected void unindexItem(SatelliteStatus status)
+    {
+        statusesByKey.remove(getSatelliteKey(status));
+    }
+
+    @Override
+    protected void clearIndex()
+    {
+        statusesByKey.clear();
+    }
+
+    /**
+     * @return The key that identifies the satellite signal, packed from the constellation, SVID, and carrier frequency
+     * (to the nearest 0.1 MHz). See {@link SatelliteStatusMap#createKey(GnssType, int, float)}.
+     */
+    public static int getSatelliteKey(SatelliteStatus status)
+    {
+        return SatelliteStatusMap.createKey(status);
+    }
+
+    /**
+     * Returns the comparator for the provided sort order. The SVID and then the satellite key are added as tie breakers
+     * so that the order is stable between updates.
+     *
+     * @param sortOrder One of the SORT_BY constants.
+     * @param sbas      True to compare by the SBAS type instead of the GNSS type for the constellation sort orders.
+     */
+    static Comparator<SatelliteStatus> getComparator(int sortOrder, boolean sbas)
+    {
+        final Comparator<SatelliteStatus> constellation = sbas
+                ? Comparator.comparing(SatelliteStatus::getSbasType) : Comparator.comparing(SatelliteStatus::getGnssType);
+        final Comparator<SatelliteStatus> carrierFrequency = Comparator.comparingDouble(SatelliteStatus::getCarrierFrequencyHz);
+        final Comparator<SatelliteStatus> cn0Descending = Comparator.comparingDouble(SatelliteStatus::getCn0DbHz).reversed();
+        final Comparator<SatelliteStatus> usedDescending = Comparator.comparing(SatelliteStatus::getUsedInFix).reversed();
+
+        final Comparator<SatelliteStatus> comparator;
+        switch (sortOrder)
+        {
+            case SORT_BY_CARRIER_FREQUENCY:
+                comparator = carrierFrequency;
+                break;
+            case SORT_BY_SIGNAL_STRENGTH:
+                comparator = cn0Descending;
+                break;
+            case SORT_BY_USED_IN_FIX:
+                comparator = usedDescending;
+                break;
+            case SORT_BY_CONSTELLATION_CARRIER_FREQUENCY:
+                comparator = constellation.thenComparing(carrierFrequency);
+                break;
+            case SORT_BY_CONSTELLATION_SIGNAL_STRENGTH:
+                comparator = constellation.thenComparing(cn0Descending);
+                break;
+            case SORT_BY_CONSTELLATION_USED_IN_FIX:
+                comparator = constellation.thenComparing(usedDescending);
+                break;
+            case SORT_BY_CONSTELLATION:
+            default:
+                comparator = constellation;
+                break;
+        }
+
+        return comparator.thenComparingInt(SatelliteStatus::getSvid)
+                .thenComparingInt(SatelliteStatusList::getSatelliteKey);
+    }
+
+    /**
+     * The sorted list callback that compares the satellites using the current sort order, and forwards the list
+     * changes to the list update callback.
+     */
+    private static final class SatelliteStatusCallback extends SortedList.Callback<SatelliteStatus>
+    {
+        private Comparator<SatelliteStatus> comparator;
+        private ListUpdateCallback listUpdateCallback;
+
+        @Override
+        public int compare(SatelliteStatus status1, SatelliteStatus status2)
+        {
+            return comparator.compare(status1, status2);
+        }
+
+        @Override
+        public boolean areContentsTheSame(SatelliteStatus oldStatus, SatelliteStatus newStatus)
+        {
+            // The data class equals does not include the properties that are declared in the class body
+            return oldStatus.equals(newStatus)
+                    && oldStatus.getSbasType() == newStatus.getSbasType()
+                    && oldStatus.getCarrierFrequencyHz() == newStatus.getCarrierFrequencyHz();
+        }
+
+        @Override
+        public boolean areItemsTheSame(SatelliteStatus status1, SatelliteStatus status2)
+        {
+            return getSatelliteKey(status1) == getSatelliteKey(status2);
+        }
+
+        @Override
+        public void onChanged(int position, int count)
+        {
+            if (listUpdateCallback != null) listUpdateCallback.onChanged(position, count, null);
+        }
+
+        @Override
+        public void onInserted(int position, int count)
+        {
+            if (listUpdateCallback != null) listUpdateCallback.onInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count)
+        {
+            if (listUpdateCallback != null) listUpdateCallback.onRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition)
+        {
+            if (listUpdateCallback != null) listUpdateCallback.onMoved(fromPosition, toPosition);
+        }
+    }
+
+    /**
+     * A {@link ListUpdateCallback} that shifts all the positions by a fixed offset, for adapters that show header rows
+     * before the items in the list.
+     */
+    public static final class OffsetListUpdateCallback implements ListUpdateCallback
+    {
+        private final ListUpdateCallback delegate;
+        private final int offset;
+
+        public OffsetListUpdateCallback(@NonNull ListUpdateCallback delegate, int offset)
+        {
+            this.delegate = delegate;
+            this.offset = offset;
+        }
+
+        @Override
+        public void onInserted(int position, int count)
+        {
+            delegate.onInserted(position + offset, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count)
+        {
+            delegate.onRemoved(position + offset, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition)
+        {
+            delegate.onMoved(fromPosition + offset, toPosition + offset);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload)
+        {
+            delegate.onChanged(position + offset, count, payload);
+        }
+    }
+}
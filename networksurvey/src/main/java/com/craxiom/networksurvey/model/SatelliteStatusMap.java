@@ -0,0 +1,221 @@
+package com.craxiom.networksurvey.model;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from a packed satellite key to the {@link SatelliteStatus} of that satellite signal.
+ * <p>
+ * The key is an int packed from the constellation (in the high bits), the carrier frequency, and the SVID (in the low
+ * bits), so looking up a satellite never builds a String or boxes a key. See {@link #createKey(GnssType, int, float)}.
+ * Collisions are resolved with linear probing, and removals shift the following entries back so that no tombstones
+ * are needed. The map only allocates when it grows, and there are rarely more than a couple hundred satellite signals
+ * in view.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @since 1.5.0
+ */
+public class SatelliteStatusMap
+{
+    private static final int SVID_BITS = 12;
+    private static final int CARRIER_BITS = 16;
+    private static final int SVID_MASK = (1 << SVID_BITS) - 1;
+    private static final int CARRIER_MASK = (1 << CARRIER_BITS) - 1;
+    private static final int CONSTELLATION_SHIFT = SVID_BITS + CARRIER_BITS;
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private int[] keys;
+
+    /**
+     * The status for each slot, where a null value means the slot is empty (every int is a valid key).
+     */
+    private SatelliteStatus[] values;
+    private int mask;
+    private int size;
+
+    public SatelliteStatusMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of satellites the map should be able to hold without growing.
+     */
+    public SatelliteStatusMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new SatelliteStatus[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Packs the identity of a satellite signal into an int, with the constellation in the top bits, the carrier
+     * frequency (to the nearest 0.1 MHz) in the middle 16 bits, and the SVID in the low 12 bits. The carrier frequency
+     * is part of the key because a satellite shows up once per frequency band.
+     *
+     * @param gnssType           The constellation of the satellite.
+     * @param svid               The SVID of the satellite.
+     * @param carrierFrequencyHz The carrier frequency of the signal, or {@link SatelliteStatus#NO_DATA}.
+     * @return The packed key, which is never negative.
+     */
+    public static int createKey(GnssType gnssType, int svid, float carrierFrequencyHz)
+    {
+        final int carrierDeciMhz = (int) Math.round(carrierFrequencyHz / 100_000d) & CARRIER_MASK;
+        return (gnssType.ordinal() << CONSTELLATION_SHIFT) | (carrierDeciMhz << SVID_BITS) | (svid & SVID_MASK);
+    }
+
+    /**
+     * @return The key for the provided satellite signal.
+     */
+    public static int createKey(SatelliteStatus status)
+    {
+        return createKey(status.getGnssType(), status.getSvid(), status.getCarrierFrequencyHz());
+    }
+
+    /**
+     * @return The SVID that was packed into the provided key.
+     */
+    public static int getSvid(int key)
+    {
+        return key & SVID_MASK;
+    }
+
+    /**
+     * @return The constellation that was packed into the provided key.
+     */
+    public static GnssType getGnssType(int key)
+    {
+        return GNSS_TYPES[key >>> CONSTELLATION_SHIFT];
+    }
+
+    /**
+     * @return The status for the provided key, or null if there is not one.
+     */
+    @Nullable
+    public SatelliteStatus get(int key)
+    {
+        final int slot = findSlot(key);
+        return values[slot];
+    }
+
+    public boolean containsKey(int key)
+    {
+        return get(key) != null;
+    }
+
+    /**
+     * Sets the status for the provided key.
+     *
+     * @return The previous status for the key, or null if there was not one.
+     */
+    @Nullable
+    public SatelliteStatus put(int key, SatelliteStatus status)
+    {
+        if (status == null) throw new IllegalArgumentException("The satellite status must not be null");
+
+        final int slot = findSlot(key);
+        final SatelliteStatus previous = values[slot];
+        keys[slot] = key;
+        values[slot] = status;
+
+        if (previous == null && ++size > (mask + 1) >> 1) grow();
+
+        return previous;
+    }
+
+    /**
+     * Removes the status for the provided key.
+     *
+     * @return The removed status, or null if there was not one.
+     */
+    @Nullable
+    public SatelliteStatus remove(int key)
+    {
+        int slot = findSlot(key);
+        final SatelliteStatus removed = values[slot];
+        if (removed == null) return null;
+
+        // Shift back any of the following entries that would no longer be reachable with the slot empty
+        int next = (slot + 1) & mask;
+        while (values[next] != null)
+        {
+            final int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask))
+            {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        values[slot] = null;
+        size--;
+        return removed;
+    }
+
+    public void clear()
+    {
+        if (size == 0) return;
+
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return The slot that holds the key, or the empty slot where it would be inserted.
+     */
+    private int findSlot(int key)
+    {
+        int slot = hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key)
+        {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow()
+    {
+        final int[] oldKeys = keys;
+        final SatelliteStatus[] oldValues = values;
+
+        keys = new int[oldKeys.length << 1];
+        values = new SatelliteStatus[oldValues.length << 1];
+        mask = keys.length - 1;
+
+        for (int i = 0; i < oldValues.length; i++)
+        {
+            if (oldValues[i] != null)
+            {
+                final int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the packed key so that the SVIDs of the same constellation and band don't land in consecutive slots.
+     */
+    private static int hash(int key)
+    {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
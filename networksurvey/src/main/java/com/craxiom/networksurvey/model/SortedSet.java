@@ -3,12 +3,19 @@ package com.craxiom.networksurvey.model;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.SortedList;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Creating our own implementation for the {@link SortedList} because while the SortedList acts sort of like a set, it
  * depends on the current sort order on how it evicts old items (it uses the compare method too which means that the
  * current sorting option will change which records get added). Note that we have only implemented the {@link #add(Object)}
  * method, so don't use the addAll or any other add methods. from the parent class if you want to make sure to evict
  * old duplicate records.
+ * <p>
+ * If the callback is a {@link KeyedCallback} then a map from each item's key to the item is kept so that finding the
+ * old matching item is a hash lookup, and removing it is a binary search, instead of a linear scan of the whole list.
+ * Otherwise the list is scanned using {@link androidx.recyclerview.widget.SortedList.Callback#areItemsTheSame(Object, Object)}.
  *
  * @since 1.0.0
  */
@@ -17,10 +24,16 @@ public class SortedSet<T> extends SortedList<T>
     @NonNull
     private final Callback<T> callback;
 
+    /**
+     * The items in this list by their key, or null if the callback is not a {@link KeyedCallback}.
+     */
+    private final Map<Object, T> itemsByKey;
+
     public SortedSet(@NonNull Class<T> klass, @NonNull Callback<T> callback)
     {
         super(klass, callback);
         this.callback = callback;
+        itemsByKey = callback instanceof KeyedCallback ? new HashMap<>() : null;
     }
 
     /**
@@ -33,6 +46,112 @@ public class SortedSet<T> extends SortedList<T>
      */
     @Override
     public int add(T item)
+    {
+        if (!isIndexed())
+        {
+            removeMatchingItem(item);
+            return super.add(item);
+        }
+
+        final T existingItem = getIndexedItem(item);
+
+        // The existing item is found with a binary search, which only fails if the result of the compare method for the
+        // item has changed since it was added (e.g. the sort order changed without the list being rebuilt).
+        if (existingItem != null && !super.remove(existingItem))
+        {
+            removeMatchingItem(item);
+        }
+
+        final int index = super.add(item);
+        indexItem(item);
+        return index;
+    }
+
+    /**
+     * Returns the item with the provided key. This requires the callback to be a {@link KeyedCallback}.
+     *
+     * @param key The key of the item to get.
+     * @return The item, or null if there is no item with the provided key.
+     */
+    public T getByKey(Object key)
+    {
+        if (itemsByKey == null) throw new IllegalStateException("Getting by key requires a KeyedCallback");
+
+        return itemsByKey.get(key);
+    }
+
+    /**
+     * Removes the item with the provided key. This requires the callback to be a {@link KeyedCallback}.
+     *
+     * @param key The key of the item to remove.
+     * @return True if an item was removed, false if there is no item with the provided key.
+     */
+    public boolean removeByKey(Object key)
+    {
+        if (itemsByKey == null) throw new IllegalStateException("Removing by key requires a KeyedCallback");
+
+        final T existingItem = itemsByKey.get(key);
+        if (existingItem == null) return false;
+
+        // The binary search only fails if the result of the compare method for the item has changed since it was added
+        if (!remove(existingItem)) removeMatchingItem(existingItem);
+
+        return true;
+    }
+
+    @Override
+    public boolean remove(T item)
+    {
+        final boolean removed = super.remove(item);
+        if (removed && isIndexed()) unindexItem(item);
+        return removed;
+    }
+
+    @Override
+    public T removeItemAt(int index)
+    {
+        final T removedItem = super.removeItemAt(index);
+        if (isIndexed()) unindexItem(removedItem);
+        return removedItem;
+    }
+
+    @Override
+    public void updateItemAt(int index, T item)
+    {
+        final T oldItem = get(index);
+        super.updateItemAt(index, item);
+        if (isIndexed())
+        {
+            unindexItem(oldItem);
+            indexItem(item);
+        }
+    }
+
+    @Override
+    public void addAll(@NonNull T[] items, boolean mayModifyInput)
+    {
+        super.addAll(items, mayModifyInput);
+        rebuildIndex();
+    }
+
+    @Override
+    public void replaceAll(@NonNull T[] items, boolean mayModifyInput)
+    {
+        super.replaceAll(items, mayModifyInput);
+        rebuildIndex();
+    }
+
+    @Override
+    public void clear()
+    {
+        super.clear();
+        if (isIndexed()) clearIndex();
+    }
+
+    /**
+     * Removes the first item that matches the provided item using a linear scan of the list.
+     */
+    private void removeMatchingItem(T item)
     {
         final int sortedListSize = size();
         for (int i = 0; i < sortedListSize; ++i)
@@ -45,7 +164,88 @@ public class SortedSet<T> extends SortedList<T>
                 break;
             }
         }
+    }
+
+    /**
+     * The bulk add methods of the parent class can dedupe or replace any of the items, so it is simplest to rebuild the
+     * index from the resulting list.
+     */
+    private void rebuildIndex()
+    {
+        if (!isIndexed()) return;
+
+        clearIndex();
+        final int sortedListSize = size();
+        for (int i = 0; i < sortedListSize; ++i)
+        {
+            indexItem(get(i));
+        }
+    }
 
-        return super.add(item);
+    /**
+     * The methods below maintain the index of the items by their key. A subclass can override all of them to use a
+     * more specialized index than the map of {@link KeyedCallback} keys (e.g. one that is keyed by a primitive).
+     *
+     * @return True if the items are indexed by key, in which case the other index methods can be called.
+     * @since 1.5.0
+     */
+    protected boolean isIndexed()
+    {
+        return itemsByKey != null;
+    }
+
+    /**
+     * @return The indexed item with the same key as the provided item, or null if there is not one.
+     * @since 1.5.0
+     */
+    protected T getIndexedItem(T item)
+    {
+        return itemsByKey.get(getItemKey(item));
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    protected void indexItem(T item)
+    {
+        itemsByKey.put(getItemKey(item), item);
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    protected void unindexItem(T item)
+    {
+        itemsByKey.remove(getItemKey(item));
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    protected void clearIndex()
+    {
+        itemsByKey.clear();
+    }
+
+    private Object getItemKey(T item)
+    {
+        return ((KeyedCallback<T>) callback).getItemKey(item);
+    }
+
+    /**
+     * A {@link SortedList.Callback} that also provides the identity of each item so that the {@link SortedSet} can
+     * find the old matching item without scanning the list. Two items must have equal keys if and only if
+     * {@link #areItemsTheSame(Object, Object)} returns true for them.
+     *
+     * @since 1.5.0
+     */
+    public abstract static class KeyedCallback<T2> extends SortedList.Callback<T2>
+    {
+        /**
+         * @param item The item to get the key for.
+         * @return The key that identifies the item (e.g. the source address of a Bluetooth record). The key must not
+         * change for the lifetime of the item, and it must have proper equals and hashCode implementations.
+         */
+        public abstract Object getItemKey(T2 item);
     }
 }
@@ -0,0 +1,69 @@
+package com.craxiom.networksurvey.model;
+
+import com.craxiom.messaging.wifi.CipherSuite;
+import com.craxiom.messaging.wifi.EncryptionType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The security details that were parsed out of a {@link android.net.wifi.ScanResult#capabilities} string.
+ * <p>
+ * Instances are immutable, so the same instance can be shared by every access point that advertises the same
+ * capabilities string.
+ *
+ * @since 1.5.0
+ */
+public class WifiCapabilities
+{
+    private final EncryptionType encryptionType;
+    private final boolean wps;
+    private final List<CipherSuite> cipherSuites;
+    private final List<String> akmSuites;
+    private final String akmSuitesString;
+
+    /**
+     * @param encryptionType The encryption type of the network.
+     * @param wps            True if the network supports WPS.
+     * @param cipherSuites   The distinct cipher suites, in the order they first appear in the capabilities string.
+     * @param akmSuites      The distinct Authentication and Key Management (AKM) suites (e.g. PSK, SAE, or EAP), in the
+     *                       order they first appear in the capabilities string.
+     */
+    public WifiCapabilities(EncryptionType encryptionType, boolean wps, List<CipherSuite> cipherSuites, List<String> akmSuites)
+    {
+        this.encryptionType = encryptionType;
+        this.wps = wps;
+        this.cipherSuites = Collections.unmodifiableList(cipherSuites);
+        this.akmSuites = Collections.unmodifiableList(akmSuites);
+        akmSuitesString = String.join(";", akmSuites);
+    }
+
+    public EncryptionType getEncryptionType()
+    {
+        return encryptionType;
+    }
+
+    public boolean supportsWps()
+    {
+        return wps;
+    }
+
+    public List<CipherSuite> getCipherSuites()
+    {
+        return cipherSuites;
+    }
+
+    public List<String> getAkmSuites()
+    {
+        return akmSuites;
+    }
+
+    /**
+     * @return The AKM suites separated by semicolons, which is the format used for the GeoPackage logging, or an empty
+     * string if there are none.
+     */
+    public String getAkmSuitesString()
+    {
+        return akmSuitesString;
+    }
+}
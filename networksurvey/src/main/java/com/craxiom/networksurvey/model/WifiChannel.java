@@ -0,0 +1,89 @@
+package com.craxiom.networksurvey.model;
+
+/**
+ * An 802.11 channel, along with the band it is in and the widest channel width that is centered on it.
+ * <p>
+ * Instances are immutable and are shared by all the lookups for the same frequency, so they can be compared by
+ * reference.
+ *
+ * @since 1.5.0
+ */
+public class WifiChannel
+{
+    /**
+     * The Wi-Fi frequency bands.
+     */
+    public enum Band
+    {
+        BAND_2_4_GHZ("2.4 GHz"),
+        BAND_5_GHZ("5 GHz"),
+        BAND_6_GHZ("6 GHz");
+
+        private final String label;
+
+        Band(String label)
+        {
+            this.label = label;
+        }
+
+        /**
+         * @return A user friendly label for the band (e.g. "2.4 GHz").
+         */
+        public String getLabel()
+        {
+            return label;
+        }
+    }
+
+    private final int channelNumber;
+    private final int centerFrequencyMhz;
+    private final Band band;
+    private final int widthMhz;
+
+    /**
+     * @param channelNumber      The channel number within its band.
+     * @param centerFrequencyMhz The center frequency of the channel in MHz.
+     * @param band               The band that the channel is in.
+     * @param widthMhz           The widest channel width in MHz that is centered on this channel number (e.g. 80 for
+     *                           5 GHz channel 42). 20 MHz channels that are only used as primary channels have a width
+     *                           of 20.
+     */
+    public WifiChannel(int channelNumber, int centerFrequencyMhz, Band band, int widthMhz)
+    {
+        this.channelNumber = channelNumber;
+        this.centerFrequencyMhz = centerFrequencyMhz;
+        this.band = band;
+        this.widthMhz = widthMhz;
+    }
+
+    public int getChannelNumber()
+    {
+        return channelNumber;
+    }
+
+    public int getCenterFrequencyMhz()
+    {
+        return centerFrequencyMhz;
+    }
+
+    public Band getBand()
+    {
+        return band;
+    }
+
+    public int getWidthMhz()
+    {
+        return widthMhz;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "WifiChannel{" +
+                "channelNumber=" + channelNumber +
+                ", centerFrequencyMhz=" + centerFrequencyMhz +
+                ", band=" + band +
+                ", widthMhz=" + widthMhz +
+                '}';
+    }
+}
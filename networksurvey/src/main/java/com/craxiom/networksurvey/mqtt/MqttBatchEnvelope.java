@@ -0,0 +1,229 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.networksurvey.BuildConfig;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Builds the MQTT batch messages that hold all the records from a single Wi-Fi or Bluetooth scan, so that a scan can be
+ * published as one MQTT message instead of one message per access point or device.
+ * <p>
+ * The network survey messaging library does not define a batch message, so the batch types are defined here at
+ * runtime. They are plain protobuf messages (and so can be formatted as JSON by the MQTT library), with a repeated
+ * field that holds the records exactly as they would have been published on the per-record topics:
+ * <pre>
+ * message WifiBeaconRecordBatch {
+ *     string message_type = 1;
+ *     string version = 2;
+ *     repeated com.craxiom.messaging.WifiBeaconRecord records = 3;
+ * }
+ *
+ * message BluetoothRecordBatch {
+ *     string message_type = 1;
+ *     string version = 2;
+ *     repeated com.craxiom.messaging.BluetoothRecord records = 3;
+ * }
+ *
+ * message CompressedRecordBatch {
+ *     string message_type = 1;
+ *     string version = 2;
+ *     string batch_message_type = 3; // The type of batch in the payload (e.g. WifiBeaconRecordBatch)
+ *     string encoding = 4;           // Always "deflate"
+ *     int32 record_count = 5;
+ *     bytes payload = 6;             // The deflate compressed protobuf binary encoding of the batch
+ * }
+ * </pre>
+ *
+ * @since 1.5.0
+ */
+public final class MqttBatchEnvelope
+{
+    public static final String WIFI_BEACON_RECORD_BATCH_MESSAGE_TYPE = "WifiBeaconRecordBatch";
+    public static final String BLUETOOTH_RECORD_BATCH_MESSAGE_TYPE = "BluetoothRecordBatch";
+    public static final String COMPRESSED_RECORD_BATCH_MESSAGE_TYPE = "CompressedRecordBatch";
+    public static final String DEFLATE_ENCODING = "deflate";
+
+    private static final String PACKAGE_NAME = "com.craxiom.networksurvey.mqtt";
+
+    private static final int MESSAGE_TYPE_FIELD_NUMBER = 1;
+    private static final int VERSION_FIELD_NUMBER = 2;
+    private static final int RECORDS_FIELD_NUMBER = 3;
+    private static final int BATCH_MESSAGE_TYPE_FIELD_NUMBER = 3;
+    private static final int ENCODING_FIELD_NUMBER = 4;
+    private static final int RECORD_COUNT_FIELD_NUMBER = 5;
+    private static final int PAYLOAD_FIELD_NUMBER = 6;
+
+    private static final Descriptors.Descriptor WIFI_BEACON_RECORD_BATCH_DESCRIPTOR;
+    private static final Descriptors.Descriptor BLUETOOTH_RECORD_BATCH_DESCRIPTOR;
+    private static final Descriptors.Descriptor COMPRESSED_RECORD_BATCH_DESCRIPTOR;
+
+    static
+    {
+        final Descriptors.FileDescriptor wifiFile = WifiBeaconRecord.getDescriptor().getFile();
+        final Descriptors.FileDescriptor bluetoothFile = BluetoothRecord.getDescriptor().getFile();
+
+        // The records might or might not be defined in the same proto file, so only depend on each file once
+        final Descriptors.FileDescriptor[] dependencies = bluetoothFile.getName().equals(wifiFile.getName())
+                ? new Descriptors.FileDescriptor[]{wifiFile}
+                : new Descriptors.FileDescriptor[]{wifiFile, bluetoothFile};
+
+        final DescriptorProtos.FileDescriptorProto.Builder fileBuilder = DescriptorProtos.FileDescriptorProto.newBuilder()
+                .setName("network_survey_mqtt_batch.proto")
+                .setPackage(PACKAGE_NAME)
+                .setSyntax("proto3")
+                .addMessageType(createBatchType(WIFI_BEACON_RECORD_BATCH_MESSAGE_TYPE, WifiBeaconRecord.getDescriptor()))
+                .addMessageType(createBatchType(BLUETOOTH_RECORD_BATCH_MESSAGE_TYPE, BluetoothRecord.getDescriptor()))
+                .addMessageType(createCompressedBatchType());
+        for (Descriptors.FileDescriptor dependency : dependencies)
+        {
+            fileBuilder.addDependency(dependency.getName());
+        }
+
+        try
+        {
+            final Descriptors.FileDescriptor batchFile = Descriptors.FileDescriptor.buildFrom(fileBuilder.build(), dependencies);
+            WIFI_BEACON_RECORD_BATCH_DESCRIPTOR = batchFile.findMessageTypeByName(WIFI_BEACON_RECORD_BATCH_MESSAGE_TYPE);
+            BLUETOOTH_RECORD_BATCH_DESCRIPTOR = batchFile.findMessageTypeByName(BLUETOOTH_RECORD_BATCH_MESSAGE_TYPE);
+            COMPRESSED_RECORD_BATCH_DESCRIPTOR = batchFile.findMessageTypeByName(COMPRESSED_RECORD_BATCH_MESSAGE_TYPE);
+        } catch (Descriptors.DescriptorValidationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private MqttBatchEnvelope()
+    {
+    }
+
+    /**
+     * @param wifiBeaconRecords The records from a single Wi-Fi scan.
+     * @param compress          True to deflate compress the batch.
+     * @return The message to publish on the Wi-Fi batch topic.
+     */
+    public static Message createWifiBeaconRecordBatch(List<WifiBeaconRecord> wifiBeaconRecords, boolean compress)
+    {
+        return createBatch(WIFI_BEACON_RECORD_BATCH_DESCRIPTOR, wifiBeaconRecords, compress);
+    }
+
+    /**
+     * @param bluetoothRecords The records from a single Bluetooth scan.
+     * @param compress         True to deflate compress the batch.
+     * @return The message to publish on the Bluetooth batch topic.
+     */
+    public static Message createBluetoothRecordBatch(List<BluetoothRecord> bluetoothRecords, boolean compress)
+    {
+        return createBatch(BLUETOOTH_RECORD_BATCH_DESCRIPTOR, bluetoothRecords, compress);
+    }
+
+    /**
+     * @return The descriptors for all the batch message types, so that queued batches can be parsed back in.
+     */
+    public static List<Descriptors.Descriptor> getBatchDescriptors()
+    {
+        return Arrays.asList(WIFI_BEACON_RECORD_BATCH_DESCRIPTOR, BLUETOOTH_RECORD_BATCH_DESCRIPTOR,
+                COMPRESSED_RECORD_BATCH_DESCRIPTOR);
+    }
+
+    /**
+     * @return A parser for the batch message type with the provided descriptor.
+     */
+    public static Parser<DynamicMessage> getParser(Descriptors.Descriptor batchDescriptor)
+    {
+        return DynamicMessage.getDefaultInstance(batchDescriptor).getParserForType();
+    }
+
+    private static Message createBatch(Descriptors.Descriptor batchDescriptor, List<? extends Message> records, boolean compress)
+    {
+        final DynamicMessage.Builder batchBuilder = DynamicMessage.newBuilder(batchDescriptor)
+                .setField(batchDescriptor.findFieldByNumber(MESSAGE_TYPE_FIELD_NUMBER), batchDescriptor.getName())
+                .setField(batchDescriptor.findFieldByNumber(VERSION_FIELD_NUMBER), BuildConfig.MESSAGING_API_VERSION);
+
+        final Descriptors.FieldDescriptor recordsField = batchDescriptor.findFieldByNumber(RECORDS_FIELD_NUMBER);
+        for (Message record : records)
+        {
+            batchBuilder.addRepeatedField(recordsField, record);
+        }
+
+        final DynamicMessage batch = batchBuilder.build();
+        if (!compress) return batch;
+
+        return DynamicMessage.newBuilder(COMPRESSED_RECORD_BATCH_DESCRIPTOR)
+                .setField(COMPRESSED_RECORD_BATCH_DESCRIPTOR.findFieldByNumber(MESSAGE_TYPE_FIELD_NUMBER), COMPRESSED_RECORD_BATCH_MESSAGE_TYPE)
+                .setField(COMPRESSED_RECORD_BATCH_DESCRIPTOR.findFieldByNumber(VERSION_FIELD_NUMBER), BuildConfig.MESSAGING_API_VERSION)
+                .setField(COMPRESSED_RECORD_BATCH_DESCRIPTOR.findFieldByNumber(BATCH_MESSAGE_TYPE_FIELD_NUMBER), batchDescriptor.getName())
+                .setField(COMPRESSED_RECORD_BATCH_DESCRIPTOR.findFieldByNumber(ENCODING_FIELD_NUMBER), DEFLATE_ENCODING)
+                .setField(COMPRESSED_RECORD_BATCH_DESCRIPTOR.findFieldByNumber(RECORD_COUNT_FIELD_NUMBER), records.size())
+                .setField(COMPRESSED_RECORD_BATCH_DESCRIPTOR.findFieldByNumber(PAYLOAD_FIELD_NUMBER), deflate(batch.toByteArray()))
+                .build();
+    }
+
+    private static ByteString deflate(byte[] bytes)
+    {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try
+        {
+            deflater.setInput(bytes);
+            deflater.finish();
+
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+            final byte[] buffer = new byte[4096];
+            while (!deflater.finished())
+            {
+                final int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+
+            return UnsafeByteOperations.unsafeWrap(outputStream.toByteArray());
+        } finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static DescriptorProtos.DescriptorProto createBatchType(String batchTypeName, Descriptors.Descriptor recordDescriptor)
+    {
+        return DescriptorProtos.DescriptorProto.newBuilder()
+                .setName(batchTypeName)
+                .addField(createField("message_type", MESSAGE_TYPE_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createField("version", VERSION_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createField("records", RECORDS_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE)
+                        .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED)
+                        .setTypeName("." + recordDescriptor.getFullName()))
+                .build();
+    }
+
+    private static DescriptorProtos.DescriptorProto createCompressedBatchType()
+    {
+        return DescriptorProtos.DescriptorProto.newBuilder()
+                .setName(COMPRESSED_RECORD_BATCH_MESSAGE_TYPE)
+                .addField(createField("message_type", MESSAGE_TYPE_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createField("version", VERSION_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createField("batch_message_type", BATCH_MESSAGE_TYPE_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createField("encoding", ENCODING_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(createField("record_count", RECORD_COUNT_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT32))
+                .addField(createField("payload", PAYLOAD_FIELD_NUMBER, DescriptorProtos.FieldDescriptorProto.Type.TYPE_BYTES))
+                .build();
+    }
+
+    private static DescriptorProtos.FieldDescriptorProto.Builder createField(String name, int number,
+                                                                             DescriptorProtos.FieldDescriptorProto.Type type)
+    {
+        return DescriptorProtos.FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL);
+    }
+}
@@ -1,5 +1,7 @@
 package com.craxiom.networksurvey.mqtt;
 
+import android.content.Context;
+
 import com.craxiom.messaging.BluetoothRecord;
 import com.craxiom.messaging.CdmaRecord;
 import com.craxiom.messaging.DeviceStatus;
@@ -8,16 +10,32 @@ import com.craxiom.messaging.GsmRecord;
 import com.craxiom.messaging.LteRecord;
 import com.craxiom.messaging.PhoneState;
 import com.craxiom.messaging.UmtsRecord;
-import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.mqttlibrary.connection.ConnectionState;
 import com.craxiom.mqttlibrary.connection.DefaultMqttConnection;
+import com.craxiom.networksurvey.BuildConfig;
+import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
 import com.craxiom.networksurvey.listeners.IBluetoothSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.IDeviceStatusListener;
 import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IMqttOfflineQueueListener;
 import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
+import com.craxiom.networksurvey.model.RecordEnvelope;
 import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.util.IOUtils;
+import com.craxiom.networksurvey.util.PreferenceUtils;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
 
+import java.io.File;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
 
 /**
  * Class for creating a connection to an MQTT server.
@@ -27,140 +45,325 @@ import java.util.List;
 public class MqttConnection extends DefaultMqttConnection implements ICellularSurveyRecordListener, IWifiSurveyRecordListener,
         IBluetoothSurveyRecordListener, IGnssSurveyRecordListener, IDeviceStatusListener
 {
-    private static final String MQTT_GSM_MESSAGE_TOPIC = "gsm_message";
-    private static final String MQTT_CDMA_MESSAGE_TOPIC = "cdma_message";
-    private static final String MQTT_UMTS_MESSAGE_TOPIC = "umts_message";
-    private static final String MQTT_LTE_MESSAGE_TOPIC = "lte_message";
-    private static final String MQTT_WIFI_BEACON_MESSAGE_TOPIC = "80211_beacon_message";
-    private static final String MQTT_BLUETOOTH_MESSAGE_TOPIC = "bluetooth_message";
-    private static final String MQTT_GNSS_MESSAGE_TOPIC = "gnss_message";
-    private static final String MQTT_DEVICE_STATUS_MESSAGE_TOPIC = "device_status_message";
+    private static final String MQTT_METRICS_MESSAGE_TOPIC = "mqtt_metrics_message";
+    private static final String MQTT_METRICS_MESSAGE_TYPE = "MqttMetrics";
+
+    private static final String OFFLINE_QUEUE_DIRECTORY_NAME = "mqtt_offline_queue";
+    private static final long RATE_LIMITER_DRAIN_INTERVAL_MS = 250;
+    private static final long RATE_LIMITER_LOG_INTERVAL_MS = 60_000;
+    private static final long METRICS_MESSAGE_INTERVAL_MS = 60_000;
+
+    private final MqttOfflineQueue offlineQueue;
+    private final MqttPublisher asyncPublisher;
+    private final MqttRateLimiter rateLimiter = new MqttRateLimiter();
+    private final MqttRecordRouter recordRouter;
+    private final ScheduledExecutorService maintenanceExecutor;
+    private long lastRateLimiterLogTime;
+
+    /**
+     * @param context The context used to find the directory for the offline queue and to read the MQTT preferences.
+     * @since 1.5.0
+     */
+    public MqttConnection(Context context)
+    {
+        final int maxReplayRate = PreferenceUtils.getPositiveIntPreference(NetworkSurveyConstants.PROPERTY_MQTT_OFFLINE_REPLAY_RATE,
+                NetworkSurveyConstants.DEFAULT_MQTT_OFFLINE_REPLAY_RATE, context);
+
+        offlineQueue = new MqttOfflineQueue(new File(context.getFilesDir(), OFFLINE_QUEUE_DIRECTORY_NAME), maxReplayRate,
+                this::isBrokerConnected, this::submitToPublisher);
+
+        final int maxInFlight = PreferenceUtils.getPositiveIntPreference(NetworkSurveyConstants.PROPERTY_MQTT_MAX_IN_FLIGHT,
+                NetworkSurveyConstants.DEFAULT_MQTT_MAX_IN_FLIGHT, context);
+        asyncPublisher = new MqttPublisher(maxInFlight, this::isBrokerConnected, this::publishMessage, offlineQueue::add);
+        recordRouter = new MqttRecordRouter(rateLimiter, asyncPublisher, offlineQueue, this::isBrokerConnected,
+                () -> mqttClientId);
+
+        setBatchPublishing(PreferenceUtils.getBooleanPreference(NetworkSurveyConstants.PROPERTY_MQTT_BATCH_PUBLISHING_ENABLED,
+                        NetworkSurveyConstants.DEFAULT_MQTT_BATCH_PUBLISHING_SETTING, context),
+                PreferenceUtils.getBooleanPreference(NetworkSurveyConstants.PROPERTY_MQTT_BATCH_COMPRESSION_ENABLED,
+                        NetworkSurveyConstants.DEFAULT_MQTT_BATCH_COMPRESSION_SETTING, context));
+
+        configureRateLimiter(context);
+
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "MQTT Maintenance"));
+
+        // Held messages need to be sent even if no new messages arrive on their topic
+        maintenanceExecutor.scheduleWithFixedDelay(this::onRateLimiterTick, RATE_LIMITER_DRAIN_INTERVAL_MS,
+                RATE_LIMITER_DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        maintenanceExecutor.scheduleWithFixedDelay(this::publishMetricsMessage, METRICS_MESSAGE_INTERVAL_MS,
+                METRICS_MESSAGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
 
     @Override
     public void onGsmSurveyRecord(GsmRecord gsmRecord)
     {
-        // Set the device name to the user entered value in the MQTT connection UI (or the value provided via MDM)
-        if (mqttClientId != null)
-        {
-            final GsmRecord.Builder recordBuilder = gsmRecord.toBuilder();
-            gsmRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_GSM_MESSAGE_TOPIC, gsmRecord);
+        recordRouter.onGsmSurveyRecord(gsmRecord);
     }
 
     @Override
     public void onCdmaSurveyRecord(CdmaRecord cdmaRecord)
     {
-        // Set the device name to the user entered value in the MQTT connection UI (or the value provided via MDM)
-        if (mqttClientId != null)
-        {
-            final CdmaRecord.Builder recordBuilder = cdmaRecord.toBuilder();
-            cdmaRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_CDMA_MESSAGE_TOPIC, cdmaRecord);
+        recordRouter.onCdmaSurveyRecord(cdmaRecord);
     }
 
     @Override
     public void onUmtsSurveyRecord(UmtsRecord umtsRecord)
     {
-        // Set the device name to the user entered value in the MQTT connection UI (or the value provided via MDM)
-        if (mqttClientId != null)
-        {
-            final UmtsRecord.Builder recordBuilder = umtsRecord.toBuilder();
-            umtsRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_UMTS_MESSAGE_TOPIC, umtsRecord);
+        recordRouter.onUmtsSurveyRecord(umtsRecord);
     }
 
     @Override
     public void onLteSurveyRecord(LteRecord lteRecord)
     {
-        // Set the device name to the user entered value in the MQTT connection UI (or the value provided via MDM)
-        if (mqttClientId != null)
-        {
-            final LteRecord.Builder recordBuilder = lteRecord.toBuilder();
-            lteRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_LTE_MESSAGE_TOPIC, lteRecord);
+        recordRouter.onLteSurveyRecord(lteRecord);
     }
 
     @Override
     public void onWifiBeaconSurveyRecords(List<WifiRecordWrapper> wifiBeaconRecords)
     {
-        wifiBeaconRecords.forEach(wifiRecord -> {
-            WifiBeaconRecord wifiBeaconRecord = wifiRecord.getWifiBeaconRecord();
-            if (mqttClientId != null)
-            {
-                final WifiBeaconRecord.Builder recordBuilder = wifiBeaconRecord.toBuilder();
-                wifiBeaconRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-            }
-            publishMessage(MQTT_WIFI_BEACON_MESSAGE_TOPIC, wifiBeaconRecord);
-        });
+        recordRouter.onWifiBeaconSurveyRecords(wifiBeaconRecords);
     }
 
     @Override
     public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
     {
-        // Set the device name to the user entered value in the MQTT connection UI (or the value provided via MDM)
-        if (mqttClientId != null)
-        {
-            final BluetoothRecord.Builder recordBuilder = bluetoothRecord.toBuilder();
-            bluetoothRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_BLUETOOTH_MESSAGE_TOPIC, bluetoothRecord);
+        recordRouter.onBluetoothSurveyRecord(bluetoothRecord);
     }
 
     @Override
     public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
     {
-        bluetoothRecords.forEach(bluetoothRecord -> {
-            if (mqttClientId != null)
-            {
-                final BluetoothRecord.Builder recordBuilder = bluetoothRecord.toBuilder();
-                bluetoothRecord = recordBuilder.setData(recordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-            }
-            publishMessage(MQTT_BLUETOOTH_MESSAGE_TOPIC, bluetoothRecord);
-        });
+        recordRouter.onBluetoothSurveyRecords(bluetoothRecords);
     }
 
     @Override
     public void onGnssSurveyRecord(GnssRecord gnssRecord)
     {
-        if (mqttClientId != null)
-        {
-            final GnssRecord.Builder gnssRecordBuilder = gnssRecord.toBuilder();
-            gnssRecord = gnssRecordBuilder.setData(gnssRecordBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_GNSS_MESSAGE_TOPIC, gnssRecord);
+        recordRouter.onGnssSurveyRecord(gnssRecord);
     }
 
     @Override
     public void onDeviceStatus(DeviceStatus deviceStatus)
     {
-        if (mqttClientId != null)
-        {
-            final DeviceStatus.Builder deviceStatusBuilder = deviceStatus.toBuilder();
-            deviceStatus = deviceStatusBuilder.setData(deviceStatusBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
-        }
-
-        publishMessage(MQTT_DEVICE_STATUS_MESSAGE_TOPIC, deviceStatus);
+        recordRouter.onDeviceStatus(deviceStatus);
     }
 
     @Override
     public void onPhoneState(PhoneState phoneState)
     {
-        if (mqttClientId != null)
+        recordRouter.onPhoneState(phoneState);
+    }
+
+    /**
+     * Sets how the Wi-Fi and Bluetooth scan results are published. By default each record is published as its own
+     * message on the per-record topic. When batch publishing is enabled all the records from a single scan are instead
+     * published as one message on the batch topic, which greatly reduces the number of MQTT messages for large scans.
+     *
+     * @param batchPublishingEnabled  True to publish each Wi-Fi and Bluetooth scan as a single batch message.
+     * @param batchCompressionEnabled True to deflate compress the batch messages.
+     * @since 1.5.0
+     */
+    public void setBatchPublishing(boolean batchPublishingEnabled, boolean batchCompressionEnabled)
+    {
+        recordRouter.setBatchPublishing(batchPublishingEnabled, batchCompressionEnabled);
+    }
+
+    /**
+     * Reads the per topic rate limit settings from MDM or the user preferences and applies them.
+     *
+     * @param context The context to use when reading the preferences.
+     * @since 1.5.0
+     */
+    public void configureRateLimiter(Context context)
+    {
+        final int messagesPerSecond = PreferenceUtils.getNonNegativeIntPreference(NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT,
+                NetworkSurveyConstants.DEFAULT_MQTT_RATE_LIMIT, context);
+        final MqttRateLimiter.OverflowPolicy policy = MqttRateLimiter.OverflowPolicy.fromPreferenceValue(
+                PreferenceUtils.getStringPreference(NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT_POLICY,
+                        NetworkSurveyConstants.DEFAULT_MQTT_RATE_LIMIT_POLICY, context),
+                MqttRateLimiter.OverflowPolicy.DROP);
+        final int sampleRate = PreferenceUtils.getPositiveIntPreference(NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT_SAMPLE_RATE,
+                NetworkSurveyConstants.DEFAULT_MQTT_RATE_LIMIT_SAMPLE_RATE, context);
+        final String topicOverrides = PreferenceUtils.getStringPreference(NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT_TOPIC_OVERRIDES,
+                "", context);
+
+        rateLimiter.configure(messagesPerSecond, policy, sampleRate, topicOverrides);
+    }
+
+    /**
+     * @return The number of messages published, dropped, sampled, and replaced by the rate limiter for each topic.
+     * @since 1.5.0
+     */
+    public Map<String, MqttRateLimiter.TopicStatistics> getRateLimiterStatistics()
+    {
+        return rateLimiter.getStatistics();
+    }
+
+    /**
+     * @param maxInFlight The maximum number of messages that can be waiting to be sent to the MQTT broker before the
+     *                    oldest ones are moved to the offline queue.
+     * @since 1.5.0
+     */
+    public void setMaxInFlight(int maxInFlight)
+    {
+        asyncPublisher.setMaxInFlight(maxInFlight);
+    }
+
+    /**
+     * @return The in flight, published, overflowed, and failed counts for each topic.
+     * @since 1.5.0
+     */
+    public Map<String, MqttPublisher.TopicMetrics> getPublishMetrics()
+    {
+        return asyncPublisher.getTopicMetrics();
+    }
+
+    /**
+     * Sets the maximum number of messages per second that are sent from the offline queue once the connection to the
+     * MQTT broker has been restored.
+     *
+     * @since 1.5.0
+     */
+    public void setMaxReplayRate(int maxReplayRatePerSecond)
+    {
+        offlineQueue.setMaxReplayRate(maxReplayRatePerSecond);
+    }
+
+    /**
+     * Sets the broker that the messages in the offline queue are meant for. Any messages queued for a different broker
+     * are deleted so that they are never replayed to the wrong broker. This is done in the background because it
+     * touches the disk.
+     *
+     * @param brokerId Identifies the broker being connected to, or null to clear the offline queue because the user
+     *                 disconnected.
+     * @since 1.5.0
+     */
+    public void setOfflineQueueBroker(String brokerId)
+    {
+        maintenanceExecutor.execute(() -> {
+            try
+            {
+                offlineQueue.setBroker(brokerId);
+            } catch (Throwable t)
+            {
+                Timber.e(t, "An exception occurred while setting the MQTT offline queue broker");
+            }
+        });
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void registerOfflineQueueListener(IMqttOfflineQueueListener listener)
+    {
+        offlineQueue.registerListener(listener);
+    }
+
+    /**
+     * @since 1.5.0
+     */
+    public void unregisterOfflineQueueListener(IMqttOfflineQueueListener listener)
+    {
+        offlineQueue.unregisterListener(listener);
+    }
+
+    /**
+     * Stops the background publishing threads, and writes any messages in the offline queue that have not been sent to
+     * disk so that they can be sent the next time the app is started.
+     *
+     * @since 1.5.0
+     */
+    public void shutdownPublishing()
+    {
+        maintenanceExecutor.shutdownNow();
+        asyncPublisher.shutdown(); // Must be before the offline queue so that any unsent messages are added to it
+        offlineQueue.shutdown();
+    }
+
+    private void submitToPublisher(String topic, RecordEnvelope<?> message)
+    {
+        asyncPublisher.submit(topic, message);
+    }
+
+    private boolean isBrokerConnected()
+    {
+        return getConnectionState() == ConnectionState.CONNECTED;
+    }
+
+    private void onRateLimiterTick()
+    {
+        try
+        {
+            recordRouter.drainHeld();
+
+            final long now = System.currentTimeMillis();
+            if (now - lastRateLimiterLogTime >= RATE_LIMITER_LOG_INTERVAL_MS)
+            {
+                lastRateLimiterLogTime = now;
+                rateLimiter.getStatistics().forEach((topic, statistics) -> {
+                    if (statistics.dropped > 0 || statistics.sampled > 0 || statistics.replaced > 0)
+                    {
+                        Timber.i("MQTT rate limiter for %s: %s", topic, statistics);
+                    }
+                });
+            }
+        } catch (Throwable t)
         {
-            final PhoneState.Builder messageBuilder = phoneState.toBuilder();
-            phoneState = messageBuilder.setData(messageBuilder.getDataBuilder().setDeviceName(mqttClientId)).build();
+            // Catch everything because an exception would silently cancel the scheduled task
+            Timber.e(t, "An exception occurred while draining the MQTT rate limiter");
         }
+    }
 
-        publishMessage(MQTT_DEVICE_STATUS_MESSAGE_TOPIC, phoneState);
+    /**
+     * Publishes the publish metrics and rate limiter counts for each topic so that the health of the MQTT connection
+     * can be monitored from the broker side.
+     */
+    private void publishMetricsMessage()
+    {
+        try
+        {
+            if (!isBrokerConnected()) return;
+
+            final Struct.Builder topicsBuilder = Struct.newBuilder();
+            final Map<String, MqttRateLimiter.TopicStatistics> rateLimiterStatistics = rateLimiter.getStatistics();
+            asyncPublisher.getTopicMetrics().forEach((topic, metrics) -> {
+                final Struct.Builder topicBuilder = Struct.newBuilder()
+                        .putFields("in_flight", numberValue(metrics.getInFlight()))
+                        .putFields("published", numberValue(metrics.getPublished()))
+                        .putFields("overflowed", numberValue(metrics.getOverflowed()))
+                        .putFields("failed", numberValue(metrics.getFailed()));
+
+                final MqttRateLimiter.TopicStatistics statistics = rateLimiterStatistics.get(topic);
+                if (statistics != null)
+                {
+                    topicBuilder.putFields("rate_limit_dropped", numberValue(statistics.dropped))
+                            .putFields("rate_limit_sampled", numberValue(statistics.sampled))
+                            .putFields("rate_limit_replaced", numberValue(statistics.replaced));
+                }
+
+                topicsBuilder.putFields(topic, Value.newBuilder().setStructValue(topicBuilder).build());
+            });
+
+            final Struct metricsMessage = Struct.newBuilder()
+                    .putFields("message_type", Value.newBuilder().setStringValue(MQTT_METRICS_MESSAGE_TYPE).build())
+                    .putFields("version", Value.newBuilder().setStringValue(BuildConfig.MESSAGING_API_VERSION).build())
+                    .putFields("device_name", Value.newBuilder().setStringValue(mqttClientId == null ? "" : mqttClientId).build())
+                    .putFields("device_time", Value.newBuilder().setStringValue(IOUtils.getRfc3339String(ZonedDateTime.now())).build())
+                    .putFields("offline_queue_pending", numberValue(offlineQueue.getPendingCount()))
+                    .putFields("total_in_flight", numberValue(asyncPublisher.getTotalInFlight()))
+                    .putFields("topics", Value.newBuilder().setStructValue(topicsBuilder).build())
+                    .build();
+
+            asyncPublisher.submit(MQTT_METRICS_MESSAGE_TOPIC, new RecordEnvelope<>(metricsMessage));
+        } catch (Throwable t)
+        {
+            // Catch everything because an exception would silently cancel the scheduled task
+            Timber.e(t, "An exception occurred while publishing the MQTT metrics message");
+        }
+    }
+
+    private static Value numberValue(double value)
+    {
+        return Value.newBuilder().setNumberValue(value).build();
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.craxiom.mqttlibrary.connection.BrokerConnectionInfo;
 
 public class MqttConnectionInfo extends BrokerConnectionInfo
 {
+    private final String brokerId;
     private final boolean isCellularStreamEnabled;
     private final boolean isWifiStreamEnabled;
     private final boolean isBluetoothStreamEnabled;
@@ -15,6 +16,7 @@ public class MqttConnectionInfo extends BrokerConnectionInfo
                               boolean isBluetoothStreamEnabled, boolean isGnssStreamEnabled, boolean isDeviceStatusStreamEnabled)
     {
         super(mqttBrokerHost, portNumber, tlsEnabled, mqttClientId, mqttUsername, mqttPassword);
+        brokerId = mqttBrokerHost + ":" + portNumber;
         this.isCellularStreamEnabled = isCellularStreamEnabled;
         this.isWifiStreamEnabled = isWifiStreamEnabled;
         this.isBluetoothStreamEnabled = isBluetoothStreamEnabled;
@@ -22,6 +24,15 @@ public class MqttConnectionInfo extends BrokerConnectionInfo
         this.isDeviceStatusStreamEnabled = isDeviceStatusStreamEnabled;
     }
 
+    /**
+     * @return An ID for the broker this connection is for, which is made up of the broker host and port.
+     * @since 1.5.0
+     */
+    public String getBrokerId()
+    {
+        return brokerId;
+    }
+
     public boolean isCellularStreamEnabled()
     {
         return isCellularStreamEnabled;
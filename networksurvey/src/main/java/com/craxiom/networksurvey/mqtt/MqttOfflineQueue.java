@@ -0,0 +1,444 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.CdmaRecord;
+import com.craxiom.messaging.DeviceStatus;
+import com.craxiom.messaging.GnssRecord;
+import com.craxiom.messaging.GsmRecord;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.PhoneState;
+import com.craxiom.messaging.UmtsRecord;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.networksurvey.listeners.IMqttOfflineQueueListener;
+import com.craxiom.networksurvey.model.RecordEnvelope;
+import com.google.protobuf.Any;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.google.protobuf.Struct;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import timber.log.Timber;
+
+/**
+ * Holds the MQTT messages that could not be published because the connection to the MQTT broker was down, and then
+ * replays them once the connection comes back.
+ * <p>
+ * Each topic has its own {@link PersistentMessageQueue} so that the messages survive an app restart and are replayed
+ * in the order they were created. The replay is rate limited to a configurable number of messages per second so that
+ * a large backlog does not flood the broker (or starve the live messages) when the connection is restored.
+ * <p>
+ * The queued messages belong to the broker they were meant for, so they are stored in a directory for that broker and
+ * are deleted when the user disconnects or switches to a different broker. Adding a message only writes it to memory;
+ * all the disk writes are done on the replay thread so that the threads creating the records never wait on the disk.
+ *
+ * @since 1.5.0
+ */
+public class MqttOfflineQueue
+{
+    private static final long REPLAY_TICK_MS = 100;
+    private static final int TICKS_PER_FLUSH = 10;
+    private static final int MAX_MESSAGES_PER_TOPIC = 100_000;
+    private static final String TYPE_URL_PREFIX = "type.googleapis.com/";
+
+    private static final Map<String, Parser<? extends Message>> PARSERS = new HashMap<>();
+
+    static
+    {
+        PARSERS.put(GsmRecord.getDescriptor().getFullName(), GsmRecord.parser());
+        PARSERS.put(CdmaRecord.getDescriptor().getFullName(), CdmaRecord.parser());
+        PARSERS.put(UmtsRecord.getDescriptor().getFullName(), UmtsRecord.parser());
+        PARSERS.put(LteRecord.getDescriptor().getFullName(), LteRecord.parser());
+        PARSERS.put(WifiBeaconRecord.getDescriptor().getFullName(), WifiBeaconRecord.parser());
+        PARSERS.put(BluetoothRecord.getDescriptor().getFullName(), BluetoothRecord.parser());
+        PARSERS.put(GnssRecord.getDescriptor().getFullName(), GnssRecord.parser());
+        PARSERS.put(DeviceStatus.getDescriptor().getFullName(), DeviceStatus.parser());
+        PARSERS.put(PhoneState.getDescriptor().getFullName(), PhoneState.parser());
+        PARSERS.put(Struct.getDescriptor().getFullName(), Struct.parser());
+        for (Descriptors.Descriptor batchDescriptor : MqttBatchEnvelope.getBatchDescriptors())
+        {
+            PARSERS.put(batchDescriptor.getFullName(), MqttBatchEnvelope.getParser(batchDescriptor));
+        }
+    }
+
+    private final File queueDirectory;
+    private final BooleanSupplier connectedSupplier;
+    private final BiConsumer<String, RecordEnvelope<?>> publisher;
+    private final Object brokerLock = new Object();
+    private final Set<IMqttOfflineQueueListener> listeners = new CopyOnWriteArraySet<>();
+    private final ScheduledExecutorService replayExecutor;
+
+    private volatile int maxReplayRatePerSecond;
+
+    /**
+     * The directory holding the topic queues for the current broker, or null if there is no broker set, in which case
+     * any messages that are added are dropped. The directory and the topic queues are only replaced together while
+     * holding the {@link #brokerLock}.
+     */
+    private volatile File brokerDirectory;
+    private volatile Map<String, PersistentMessageQueue> topicQueues = new ConcurrentHashMap<>();
+
+    // Only accessed from the replay thread
+    private double replayCredit;
+    private int replayedMessages;
+    private int tickCount;
+    private int lastNotifiedPending = -1;
+    private int lastNotifiedReplayed = -1;
+
+    /**
+     * @param queueDirectory         The directory to store the queued messages in. A sub-directory is created for
+     *                               each broker, and within that for each topic.
+     * @param maxReplayRatePerSecond The maximum number of queued messages to publish per second.
+     * @param connectedSupplier      Returns true when the MQTT broker connection is up and messages can be published.
+     * @param publisher              Publishes a message to the MQTT broker on the specified topic.
+     */
+    public MqttOfflineQueue(File queueDirectory, int maxReplayRatePerSecond, BooleanSupplier connectedSupplier,
+                            BiConsumer<String, RecordEnvelope<?>> publisher)
+    {
+        this.queueDirectory = queueDirectory;
+        this.maxReplayRatePerSecond = maxReplayRatePerSecond;
+        this.connectedSupplier = connectedSupplier;
+        this.publisher = publisher;
+
+        replayExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "MQTT Offline Replay"));
+        replayExecutor.scheduleWithFixedDelay(this::onReplayTick, REPLAY_TICK_MS, REPLAY_TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param topic The MQTT topic.
+     * @return True if there are messages for the topic waiting to be replayed. New messages for that topic need to be
+     * added to this queue as well so that they are published in order.
+     */
+    public boolean hasPending(String topic)
+    {
+        final PersistentMessageQueue queue = topicQueues.get(topic);
+        return queue != null && !queue.isEmpty();
+    }
+
+    /**
+     * Adds a message that could not be published to the end of the queue for its topic.
+     *
+     * @param topic   The MQTT topic the message should be published on.
+     * @param message The message to publish once the connection is restored.
+     */
+    public void add(String topic, RecordEnvelope<?> message)
+    {
+        final PersistentMessageQueue queue;
+        synchronized (brokerLock)
+        {
+            final File directory = brokerDirectory;
+            if (directory == null)
+            {
+                Timber.w("No MQTT broker is set for the offline queue, dropping the message for topic %s", topic);
+                return;
+            }
+
+            queue = topicQueues.computeIfAbsent(topic, key -> new PersistentMessageQueue(new File(directory, key)));
+        }
+
+        if (queue.size() >= MAX_MESSAGES_PER_TOPIC)
+        {
+            Timber.w("The MQTT offline queue for topic %s is full, dropping the message", topic);
+            return;
+        }
+
+        if (queue.add(encode(message)))
+        {
+            try
+            {
+                replayExecutor.execute(queue::flush);
+            } catch (RejectedExecutionException e)
+            {
+                // Shutting down, which flushes every queue anyway
+                Timber.d("The MQTT offline queue is shutting down, so the flush was not scheduled");
+            }
+        }
+    }
+
+    /**
+     * Sets the broker that the queued messages are meant for. If the broker has changed, any messages that were queued
+     * for the previous broker (including ones left on disk from a previous run) are deleted, and messages that are
+     * still on disk for the new broker are loaded so that they can be replayed.
+     *
+     * @param brokerId Identifies the broker (e.g. its host and port), or null to clear the queue because the user
+     *                 disconnected from the broker.
+     */
+    public void setBroker(String brokerId)
+    {
+        final File newBrokerDirectory = brokerId == null ? null : new File(queueDirectory, toDirectoryName(brokerId));
+
+        final Map<String, PersistentMessageQueue> oldTopicQueues;
+        synchronized (brokerLock)
+        {
+            if (newBrokerDirectory != null && newBrokerDirectory.equals(brokerDirectory)) return;
+
+            // Stop accepting messages while the old queues are deleted so none are written to a directory being deleted
+            oldTopicQueues = topicQueues;
+            brokerDirectory = null;
+            topicQueues = new ConcurrentHashMap<>();
+        }
+
+        for (PersistentMessageQueue queue : oldTopicQueues.values())
+        {
+            queue.clear();
+        }
+        deleteOtherBrokerDirectories(newBrokerDirectory);
+
+        if (newBrokerDirectory == null)
+        {
+            Timber.i("Cleared the MQTT offline queue");
+            return;
+        }
+
+        final Map<String, PersistentMessageQueue> newTopicQueues = loadExistingTopics(newBrokerDirectory);
+        synchronized (brokerLock)
+        {
+            brokerDirectory = newBrokerDirectory;
+            topicQueues = newTopicQueues;
+        }
+        lastNotifiedPending = -1; // Force a notification so the listeners see the new pending count
+    }
+
+    /**
+     * @return The total number of messages waiting to be published across all the topics.
+     */
+    public int getPendingCount()
+    {
+        int pending = 0;
+        for (PersistentMessageQueue queue : topicQueues.values())
+        {
+            pending += queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * @param maxReplayRatePerSecond The maximum number of queued messages to publish per second.
+     */
+    public void setMaxReplayRate(int maxReplayRatePerSecond)
+    {
+        this.maxReplayRatePerSecond = maxReplayRatePerSecond;
+    }
+
+    public void registerListener(IMqttOfflineQueueListener listener)
+    {
+        listeners.add(listener);
+        lastNotifiedPending = -1; // Force a notification on the next tick so the new listener gets the current state
+    }
+
+    public void unregisterListener(IMqttOfflineQueueListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops the replay and writes any messages still in memory to disk so that they are sent after the next restart.
+     */
+    public void shutdown()
+    {
+        replayExecutor.shutdownNow();
+        try
+        {
+            replayExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        for (PersistentMessageQueue queue : topicQueues.values())
+        {
+            queue.close();
+        }
+    }
+
+    /**
+     * Publishes queued messages while the connection is up, without exceeding the max replay rate. The topics are
+     * visited round robin so that one busy topic does not hold up the others.
+     */
+    private void onReplayTick()
+    {
+        try
+        {
+            if (connectedSupplier.getAsBoolean())
+            {
+                final int ratePerSecond = maxReplayRatePerSecond;
+                replayCredit = Math.min(replayCredit + ratePerSecond * REPLAY_TICK_MS / 1000d, ratePerSecond);
+
+                while (replayCredit >= 1)
+                {
+                    boolean publishedAny = false;
+                    for (Map.Entry<String, PersistentMessageQueue> entry : topicQueues.entrySet())
+                    {
+                        if (replayCredit < 1) break;
+
+                        final byte[] bytes = entry.getValue().poll();
+                        if (bytes == null) continue;
+
+                        final RecordEnvelope<?> message = decode(bytes);
+                        if (message != null) publisher.accept(entry.getKey(), message);
+
+                        replayCredit--;
+                        replayedMessages++;
+                        publishedAny = true;
+                    }
+
+                    if (!publishedAny)
+                    {
+                        // Nothing left to send, so don't build up credit for a burst later on
+                        replayCredit = 0;
+                        break;
+                    }
+                }
+            }
+
+            if (++tickCount % TICKS_PER_FLUSH == 0)
+            {
+                for (PersistentMessageQueue queue : topicQueues.values())
+                {
+                    queue.flush();
+                }
+            }
+
+            notifyListenersIfChanged();
+        } catch (Throwable t)
+        {
+            // Catch everything because an exception would silently cancel the scheduled replay task
+            Timber.e(t, "An exception occurred while replaying the MQTT offline queue");
+        }
+    }
+
+    private void notifyListenersIfChanged()
+    {
+        final int pending = getPendingCount();
+        if (pending == lastNotifiedPending && replayedMessages == lastNotifiedReplayed) return;
+
+        lastNotifiedPending = pending;
+        lastNotifiedReplayed = replayedMessages;
+
+        for (IMqttOfflineQueueListener listener : listeners)
+        {
+            try
+            {
+                listener.onOfflineQueueProgress(pending, replayedMessages);
+            } catch (Exception e)
+            {
+                Timber.e(e, "Unable to notify an MQTT Offline Queue Listener because of an exception");
+            }
+        }
+
+        if (pending == 0) replayedMessages = 0;
+    }
+
+    /**
+     * Creates the queues for any topics that still have messages on disk for the broker from a previous run.
+     */
+    private static Map<String, PersistentMessageQueue> loadExistingTopics(File brokerDirectory)
+    {
+        final Map<String, PersistentMessageQueue> topicQueues = new ConcurrentHashMap<>();
+
+        final File[] topicDirectories = brokerDirectory.listFiles(File::isDirectory);
+        if (topicDirectories == null) return topicQueues;
+
+        for (File topicDirectory : topicDirectories)
+        {
+            final PersistentMessageQueue queue = new PersistentMessageQueue(topicDirectory);
+            if (!queue.isEmpty())
+            {
+                Timber.i("Found %d MQTT messages queued for topic %s", queue.size(), topicDirectory.getName());
+            }
+            topicQueues.put(topicDirectory.getName(), queue);
+        }
+
+        return topicQueues;
+    }
+
+    /**
+     * Deletes the messages queued for any broker other than the one provided, including the ones left on disk from a
+     * previous run, so that they are never replayed to the wrong broker.
+     */
+    private void deleteOtherBrokerDirectories(File brokerDirectoryToKeep)
+    {
+        final File[] brokerDirectories = queueDirectory.listFiles(File::isDirectory);
+        if (brokerDirectories == null) return;
+
+        for (File directory : brokerDirectories)
+        {
+            if (!directory.equals(brokerDirectoryToKeep)) deleteRecursively(directory);
+        }
+    }
+
+    private static void deleteRecursively(File file)
+    {
+        final File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                deleteRecursively(child);
+            }
+        }
+
+        if (!file.delete()) Timber.w("Could not delete %s from the MQTT offline queue", file);
+    }
+
+    /**
+     * @return The broker ID with any characters that are not safe in a file name replaced.
+     */
+    private static String toDirectoryName(String brokerId)
+    {
+        return brokerId.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Wraps the encoded message in an {@link Any} so that the type is known when it is read back from disk. The
+     * envelope's memoized encoding is used, so a message that was already encoded (e.g. one that was replayed and then
+     * queued again because the connection dropped) is not encoded a second time.
+     */
+    private static byte[] encode(RecordEnvelope<?> message)
+    {
+        return Any.newBuilder()
+                .setTypeUrl(TYPE_URL_PREFIX + message.getRecord().getDescriptorForType().getFullName())
+                .setValue(UnsafeByteOperations.unsafeWrap(message.toByteArray()))
+                .build()
+                .toByteArray();
+    }
+
+    /**
+     * @return The envelope holding the parsed message and its encoding, or null if the message could not be parsed.
+     */
+    private static RecordEnvelope<?> decode(byte[] bytes)
+    {
+        try
+        {
+            final Any any = Any.parseFrom(bytes);
+            final String typeUrl = any.getTypeUrl();
+            final Parser<? extends Message> parser = PARSERS.get(typeUrl.substring(typeUrl.lastIndexOf('/') + 1));
+            if (parser == null)
+            {
+                Timber.e("Dropping a queued MQTT message with an unknown type: %s", typeUrl);
+                return null;
+            }
+
+            final byte[] messageBytes = any.getValue().toByteArray();
+            return new RecordEnvelope<>(parser.parseFrom(messageBytes), messageBytes);
+        } catch (InvalidProtocolBufferException e)
+        {
+            Timber.e(e, "Dropping a queued MQTT message that could not be parsed");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.networksurvey.model.RecordEnvelope;
+import com.google.protobuf.Message;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import timber.log.Timber;
+
+/**
+ * Publishes MQTT messages from a dedicated send thread so that a slow MQTT broker does not back-pressure into the
+ * threads that process the survey records.
+ * <p>
+ * A message is in flight from the time it is submitted until the publish call for it has returned. The number of
+ * messages in flight is capped by a configurable window. Because the survey record threads must never block, once the
+ * window is full the oldest message that has not been sent yet is handed to the overflow handler (the offline queue) to
+ * make room for the new one, so it is sent later instead of being lost.
+ * <p>
+ * The publish to acknowledgement latency is not measured. The MQTT library sends each QoS 1 message asynchronously
+ * inside its publish call and does not expose the delivery complete callback or the message token, so there is no
+ * point at which the acknowledgement can be matched back to the message.
+ *
+ * @since 1.5.0
+ */
+public class MqttPublisher
+{
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    /**
+     * The publish metrics for a single topic.
+     */
+    public static final class TopicMetrics
+    {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong overflowed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        public int getInFlight()
+        {
+            return inFlight.get();
+        }
+
+        public long getPublished()
+        {
+            return published.get();
+        }
+
+        /**
+         * @return The number of messages that were sent to the offline queue because the in flight window was full.
+         */
+        public long getOverflowed()
+        {
+            return overflowed.get();
+        }
+
+        public long getFailed()
+        {
+            return failed.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format(Locale.US, "in flight=%d, published=%d, overflowed=%d, failed=%d",
+                    getInFlight(), getPublished(), getOverflowed(), getFailed());
+        }
+    }
+
+    private static final class PendingMessage
+    {
+        final String topic;
+        final RecordEnvelope<?> message;
+
+        PendingMessage(String topic, RecordEnvelope<?> message)
+        {
+            this.topic = topic;
+            this.message = message;
+        }
+    }
+
+    private final BlockingQueue<PendingMessage> pendingMessages = new LinkedBlockingQueue<>();
+    private final Map<String, TopicMetrics> topicMetrics = new ConcurrentHashMap<>();
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+    private final BooleanSupplier connectedSupplier;
+    private final BiConsumer<String, Message> publisher;
+    private final BiConsumer<String, RecordEnvelope<?>> overflowHandler;
+    private final Thread sendThread;
+
+    private volatile int maxInFlight;
+    private volatile boolean running = true;
+
+    /**
+     * @param maxInFlight       The maximum number of messages that can be in flight.
+     * @param connectedSupplier Returns true when the MQTT broker connection is up and messages can be published.
+     * @param publisher         Publishes a message to the MQTT broker, called from the send thread.
+     * @param overflowHandler   Called with any message that can't be sent now, either because the in flight window was
+     *                          full (from the submitting thread) or because the connection went down after the message
+     *                          was submitted (from the send thread). It must not block.
+     */
+    public MqttPublisher(int maxInFlight, BooleanSupplier connectedSupplier, BiConsumer<String, Message> publisher,
+                         BiConsumer<String, RecordEnvelope<?>> overflowHandler)
+    {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.connectedSupplier = connectedSupplier;
+        this.publisher = publisher;
+        this.overflowHandler = overflowHandler;
+
+        sendThread = new Thread(this::runSendLoop, "MQTT Publisher");
+        sendThread.setDaemon(true);
+        sendThread.start();
+    }
+
+    /**
+     * Adds the message to the end of the send queue. This never blocks.
+     *
+     * @param topic   The MQTT topic to publish the message on.
+     * @param message The message to publish.
+     */
+    public void submit(String topic, RecordEnvelope<?> message)
+    {
+        if (!running) return;
+
+        getTopicMetrics(topic).inFlight.incrementAndGet();
+        totalInFlight.incrementAndGet();
+        pendingMessages.add(new PendingMessage(topic, message));
+
+        // If the window is full, move the oldest messages that have not been sent yet to the overflow handler
+        while (totalInFlight.get() > maxInFlight)
+        {
+            final PendingMessage oldest = pendingMessages.poll();
+            if (oldest == null) break;
+
+            onDone(oldest).overflowed.incrementAndGet();
+            overflowHandler.accept(oldest.topic, oldest.message);
+        }
+    }
+
+    /**
+     * @param maxInFlight The maximum number of messages that can be in flight.
+     */
+    public void setMaxInFlight(int maxInFlight)
+    {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * @return The total number of messages in flight across all the topics.
+     */
+    public int getTotalInFlight()
+    {
+        return totalInFlight.get();
+    }
+
+    /**
+     * @return The metrics for each topic that has had a message submitted, sorted by topic.
+     */
+    public Map<String, TopicMetrics> getTopicMetrics()
+    {
+        return new TreeMap<>(topicMetrics);
+    }
+
+    /**
+     * Stops the send thread. Any messages that have not been sent yet are passed to the overflow handler so they are
+     * not lost.
+     */
+    public void shutdown()
+    {
+        running = false;
+        sendThread.interrupt();
+        try
+        {
+            sendThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        PendingMessage pendingMessage;
+        while ((pendingMessage = pendingMessages.poll()) != null)
+        {
+            onDone(pendingMessage);
+            overflowHandler.accept(pendingMessage.topic, pendingMessage.message);
+        }
+    }
+
+    private TopicMetrics getTopicMetrics(String topic)
+    {
+        return topicMetrics.computeIfAbsent(topic, key -> new TopicMetrics());
+    }
+
+    private void runSendLoop()
+    {
+        while (running)
+        {
+            final PendingMessage pendingMessage;
+            try
+            {
+                pendingMessage = pendingMessages.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e)
+            {
+                break;
+            }
+            if (pendingMessage == null) continue;
+
+            final TopicMetrics metrics = getTopicMetrics(pendingMessage.topic);
+            try
+            {
+                if (connectedSupplier.getAsBoolean())
+                {
+                    publisher.accept(pendingMessage.topic, pendingMessage.message.getRecord());
+                    metrics.published.incrementAndGet();
+                } else
+                {
+                    overflowHandler.accept(pendingMessage.topic, pendingMessage.message);
+                }
+            } catch (Exception e)
+            {
+                metrics.failed.incrementAndGet();
+                Timber.e(e, "Could not publish an MQTT message on topic %s", pendingMessage.topic);
+            } finally
+            {
+                // The message is no longer in flight once the publish call has returned
+                onDone(pendingMessage);
+            }
+        }
+    }
+
+    /**
+     * Removes the message from the in flight counts.
+     */
+    private TopicMetrics onDone(PendingMessage pendingMessage)
+    {
+        final TopicMetrics metrics = getTopicMetrics(pendingMessage.topic);
+        metrics.inFlight.decrementAndGet();
+        totalInFlight.decrementAndGet();
+        return metrics;
+    }
+}
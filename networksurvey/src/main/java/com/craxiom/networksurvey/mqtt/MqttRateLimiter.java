@@ -0,0 +1,436 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.networksurvey.model.RecordEnvelope;
+import com.google.protobuf.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+import timber.log.Timber;
+
+/**
+ * Limits the rate that messages are published to each MQTT topic so that one busy topic (e.g. Bluetooth in a stadium)
+ * can't starve the other topics that share the same MQTT connection.
+ * <p>
+ * Each topic gets its own token bucket that refills at the configured number of messages per second, and can hold up
+ * to one second worth of tokens to allow for short bursts. When a topic runs out of tokens its overflow policy decides
+ * what happens to the message:
+ * <ul>
+ *     <li>{@link OverflowPolicy#DROP} - The message is dropped.</li>
+ *     <li>{@link OverflowPolicy#SAMPLE} - One in every N overflow messages is still published, the rest are dropped.</li>
+ *     <li>{@link OverflowPolicy#KEEP_LATEST} - The message is held until tokens are available, but only the latest
+ *     message for each key (e.g. BSSID for Wi-Fi or source address for Bluetooth) is kept.</li>
+ * </ul>
+ * <p>
+ * The configuration is a default rate and policy that applies to every topic, plus an optional list of per topic
+ * overrides in the form {@code topic=rate[:policy[:n]]}, separated by commas. For example
+ * {@code bluetooth_message=20:latest,80211_beacon_message=50:sample:5}. A rate of 0 means the topic is not limited.
+ * <p>
+ * This class is thread safe.
+ *
+ * @since 1.5.0
+ */
+public class MqttRateLimiter
+{
+    /**
+     * What to do with a message when its topic has used up all of its tokens.
+     */
+    public enum OverflowPolicy
+    {
+        DROP("drop"),
+        SAMPLE("sample"),
+        KEEP_LATEST("latest");
+
+        private final String preferenceValue;
+
+        OverflowPolicy(String preferenceValue)
+        {
+            this.preferenceValue = preferenceValue;
+        }
+
+        /**
+         * @return The policy for the provided preference value, or the default policy if the value is not recognized.
+         */
+        public static OverflowPolicy fromPreferenceValue(String value, OverflowPolicy defaultPolicy)
+        {
+            if (value == null) return defaultPolicy;
+
+            final String trimmedValue = value.trim();
+            for (OverflowPolicy policy : values())
+            {
+                if (policy.preferenceValue.equalsIgnoreCase(trimmedValue)) return policy;
+            }
+
+            Timber.w("Unknown MQTT rate limit overflow policy: %s", value);
+            return defaultPolicy;
+        }
+    }
+
+    /**
+     * The rate limit settings for a single topic.
+     */
+    static final class TopicConfig
+    {
+        final int messagesPerSecond;
+        final OverflowPolicy policy;
+        final int sampleRate;
+
+        TopicConfig(int messagesPerSecond, OverflowPolicy policy, int sampleRate)
+        {
+            this.messagesPerSecond = Math.max(0, messagesPerSecond);
+            this.policy = policy;
+            this.sampleRate = Math.max(1, sampleRate);
+        }
+    }
+
+    /**
+     * A snapshot of the message counts for a single topic.
+     */
+    public static final class TopicStatistics
+    {
+        public final long published;
+        public final long dropped;
+        public final long sampled;
+        public final long replaced;
+        public final int held;
+
+        TopicStatistics(long published, long dropped, long sampled, long replaced, int held)
+        {
+            this.published = published;
+            this.dropped = dropped;
+            this.sampled = sampled;
+            this.replaced = replaced;
+            this.held = held;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format(Locale.US, "published=%d, dropped=%d, sampled=%d, replaced=%d, held=%d",
+                    published, dropped, sampled, replaced, held);
+        }
+    }
+
+    private final Map<String, TopicBucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoTimeSource;
+
+    private volatile TopicConfig defaultConfig = new TopicConfig(0, OverflowPolicy.DROP, 1);
+    private volatile Map<String, TopicConfig> topicOverrides = Collections.emptyMap();
+
+    public MqttRateLimiter()
+    {
+        this(System::nanoTime);
+    }
+
+    /**
+     * @param nanoTimeSource Provides the current time in nanoseconds that is used to refill the token buckets.
+     */
+    MqttRateLimiter(LongSupplier nanoTimeSource)
+    {
+        this.nanoTimeSource = nanoTimeSource;
+    }
+
+    /**
+     * Updates the rate limit settings. Any counts and held messages are kept.
+     *
+     * @param messagesPerSecond The default max messages per second for each topic, or 0 to not limit the topics.
+     * @param policy            The default overflow policy.
+     * @param sampleRate        The N in 1-in-N for the sample policy.
+     * @param topicOverrides    The per topic settings that override the defaults, may be null or empty.
+     */
+    public void configure(int messagesPerSecond, OverflowPolicy policy, int sampleRate, String topicOverrides)
+    {
+        final TopicConfig newDefaultConfig = new TopicConfig(messagesPerSecond, policy, sampleRate);
+        final Map<String, TopicConfig> newTopicOverrides = parseTopicOverrides(topicOverrides, newDefaultConfig);
+
+        defaultConfig = newDefaultConfig;
+        this.topicOverrides = newTopicOverrides;
+
+        for (Map.Entry<String, TopicBucket> entry : buckets.entrySet())
+        {
+            entry.getValue().setConfig(getConfig(entry.getKey()));
+        }
+    }
+
+    /**
+     * Publishes the message right away if the topic has a token available, otherwise applies the topic's overflow
+     * policy.
+     *
+     * @param topic     The MQTT topic.
+     * @param message   The message to publish.
+     * @param publisher Called with any messages that should be published, which might include previously held messages.
+     */
+    public void submit(String topic, RecordEnvelope<?> message, BiConsumer<String, RecordEnvelope<?>> publisher)
+    {
+        buckets.computeIfAbsent(topic, key -> new TopicBucket(getConfig(key), nanoTimeSource))
+                .submit(topic, message, publisher);
+    }
+
+    /**
+     * Publishes any held messages for which tokens have become available. This should be called periodically so that
+     * held messages are still sent when no new messages arrive on their topic.
+     *
+     * @param publisher Called with the messages that should be published.
+     */
+    public void drainHeld(BiConsumer<String, RecordEnvelope<?>> publisher)
+    {
+        for (Map.Entry<String, TopicBucket> entry : buckets.entrySet())
+        {
+            entry.getValue().drainHeld(entry.getKey(), publisher);
+        }
+    }
+
+    /**
+     * @return The message counts for each topic that has had a message submitted, sorted by topic.
+     */
+    public Map<String, TopicStatistics> getStatistics()
+    {
+        final Map<String, TopicStatistics> statistics = new TreeMap<>();
+        for (Map.Entry<String, TopicBucket> entry : buckets.entrySet())
+        {
+            statistics.put(entry.getKey(), entry.getValue().getStatistics());
+        }
+        return statistics;
+    }
+
+    private TopicConfig getConfig(String topic)
+    {
+        final TopicConfig override = topicOverrides.get(topic);
+        return override != null ? override : defaultConfig;
+    }
+
+    /**
+     * Parses the per topic overrides, which are in the form {@code topic=rate[:policy[:n]]} separated by commas. Any
+     * part that is left off uses the default value, and any invalid entries are skipped.
+     */
+    static Map<String, TopicConfig> parseTopicOverrides(String topicOverrides, TopicConfig defaultConfig)
+    {
+        if (topicOverrides == null || topicOverrides.trim().isEmpty()) return Collections.emptyMap();
+
+        final Map<String, TopicConfig> overrides = new ConcurrentHashMap<>();
+        for (String override : topicOverrides.split(","))
+        {
+            final String[] topicAndSettings = override.split("=", 2);
+            if (topicAndSettings.length != 2 || topicAndSettings[0].trim().isEmpty())
+            {
+                Timber.w("Skipping an invalid MQTT rate limit topic override: %s", override);
+                continue;
+            }
+
+            final String[] settings = topicAndSettings[1].split(":");
+            try
+            {
+                final int messagesPerSecond = Integer.parseInt(settings[0].trim());
+                final OverflowPolicy policy = settings.length > 1
+                        ? OverflowPolicy.fromPreferenceValue(settings[1], defaultConfig.policy) : defaultConfig.policy;
+                final int sampleRate = settings.length > 2 ? Integer.parseInt(settings[2].trim()) : defaultConfig.sampleRate;
+
+                overrides.put(topicAndSettings[0].trim(), new TopicConfig(messagesPerSecond, policy, sampleRate));
+            } catch (NumberFormatException e)
+            {
+                Timber.w("Skipping an invalid MQTT rate limit topic override: %s", override);
+            }
+        }
+
+        return overrides;
+    }
+
+    /**
+     * @return The key used by the keep latest policy to decide which held message a new message replaces.
+     */
+    static Object getLatestKey(RecordEnvelope<?> envelope)
+    {
+        final Message message = envelope.getRecord();
+        if (message instanceof WifiBeaconRecord)
+        {
+            return ((WifiBeaconRecord) message).getData().getBssid();
+        } else if (message instanceof BluetoothRecord)
+        {
+            return ((BluetoothRecord) message).getData().getSourceAddress();
+        }
+
+        // For everything else just keep the latest message of each type
+        return message.getDescriptorForType().getFullName();
+    }
+
+    /**
+     * The token bucket, counts, and held messages for a single topic.
+     */
+    private static final class TopicBucket
+    {
+        private static final long NANOS_PER_SECOND = 1_000_000_000L;
+        private static final int MAX_HELD_MESSAGES = 10_000;
+
+        private final LinkedHashMap<Object, RecordEnvelope<?>> heldMessages = new LinkedHashMap<>();
+        private final LongSupplier nanoTimeSource;
+
+        private TopicConfig config;
+        private double tokens;
+        private long lastRefillNanos;
+        private int overflowCount;
+
+        private long published;
+        private long dropped;
+        private long sampled;
+        private long replaced;
+
+        TopicBucket(TopicConfig config, LongSupplier nanoTimeSource)
+        {
+            this.config = config;
+            this.nanoTimeSource = nanoTimeSource;
+            tokens = config.messagesPerSecond;
+            lastRefillNanos = nanoTimeSource.getAsLong();
+        }
+
+        synchronized void setConfig(TopicConfig config)
+        {
+            this.config = config;
+            tokens = Math.min(tokens, config.messagesPerSecond);
+        }
+
+        void submit(String topic, RecordEnvelope<?> message, BiConsumer<String, RecordEnvelope<?>> publisher)
+        {
+            final List<RecordEnvelope<?>> readyMessages;
+            final boolean publish;
+            synchronized (this)
+            {
+                if (config.messagesPerSecond == 0 && heldMessages.isEmpty())
+                {
+                    readyMessages = Collections.emptyList();
+                    publish = true;
+                } else
+                {
+                    refill();
+                    readyMessages = takeReadyHeldMessages();
+                    publish = onMessage(message);
+                }
+
+                if (publish) published++;
+            }
+
+            // Publish outside the lock so a slow publish doesn't hold up other threads using this topic. The held
+            // messages go first because they were submitted before the new one.
+            publishAll(topic, readyMessages, publisher);
+            if (publish) publisher.accept(topic, message);
+        }
+
+        void drainHeld(String topic, BiConsumer<String, RecordEnvelope<?>> publisher)
+        {
+            final List<RecordEnvelope<?>> readyMessages;
+            synchronized (this)
+            {
+                if (heldMessages.isEmpty()) return;
+
+                refill();
+                readyMessages = takeReadyHeldMessages();
+            }
+
+            publishAll(topic, readyMessages, publisher);
+        }
+
+        synchronized TopicStatistics getStatistics()
+        {
+            return new TopicStatistics(published, dropped, sampled, replaced, heldMessages.size());
+        }
+
+        /**
+         * @return True if the message should be published now.
+         */
+        private boolean onMessage(RecordEnvelope<?> message)
+        {
+            if (config.messagesPerSecond == 0 || (heldMessages.isEmpty() && tokens >= 1))
+            {
+                if (config.messagesPerSecond != 0) tokens--;
+                return true;
+            }
+
+            switch (config.policy)
+            {
+                case SAMPLE:
+                    if (++overflowCount >= config.sampleRate)
+                    {
+                        overflowCount = 0;
+                        sampled++;
+                        return true;
+                    }
+                    dropped++;
+                    return false;
+
+                case KEEP_LATEST:
+                    final Object key = getLatestKey(message);
+                    if (heldMessages.remove(key) != null)
+                    {
+                        replaced++;
+                    } else if (heldMessages.size() >= MAX_HELD_MESSAGES)
+                    {
+                        // Make room by dropping the message that has been held the longest
+                        final Iterator<RecordEnvelope<?>> oldest = heldMessages.values().iterator();
+                        oldest.next();
+                        oldest.remove();
+                        dropped++;
+                    }
+                    heldMessages.put(key, message); // Re-insert so the order reflects when the message last changed
+                    return false;
+
+                case DROP:
+                default:
+                    dropped++;
+                    return false;
+            }
+        }
+
+        /**
+         * Removes the held messages that there are tokens for. Must be called while holding the lock, and the returned
+         * messages published after releasing it.
+         *
+         * @return The messages to publish, in the order they were held.
+         */
+        private List<RecordEnvelope<?>> takeReadyHeldMessages()
+        {
+            if (heldMessages.isEmpty()) return Collections.emptyList();
+
+            final boolean unlimited = config.messagesPerSecond == 0;
+            final List<RecordEnvelope<?>> readyMessages = new ArrayList<>();
+            final Iterator<RecordEnvelope<?>> iterator = heldMessages.values().iterator();
+            while (iterator.hasNext() && (unlimited || tokens >= 1))
+            {
+                readyMessages.add(iterator.next());
+                iterator.remove();
+                if (!unlimited) tokens--;
+                published++;
+            }
+
+            return readyMessages;
+        }
+
+        private static void publishAll(String topic, List<RecordEnvelope<?>> messages,
+                                       BiConsumer<String, RecordEnvelope<?>> publisher)
+        {
+            for (RecordEnvelope<?> message : messages)
+            {
+                publisher.accept(topic, message);
+            }
+        }
+
+        private void refill()
+        {
+            final long now = nanoTimeSource.getAsLong();
+            final long elapsedNanos = now - lastRefillNanos;
+            lastRefillNanos = now;
+
+            tokens = Math.min(config.messagesPerSecond,
+                    tokens + config.messagesPerSecond * (double) elapsedNanos / NANOS_PER_SECOND);
+        }
+    }
+}
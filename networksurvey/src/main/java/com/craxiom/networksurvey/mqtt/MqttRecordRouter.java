@@ -0,0 +1,251 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.CdmaRecord;
+import com.craxiom.messaging.DeviceStatus;
+import com.craxiom.messaging.GnssRecord;
+import com.craxiom.messaging.GsmRecord;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.PhoneState;
+import com.craxiom.messaging.UmtsRecord;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.networksurvey.listeners.IBluetoothSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IDeviceStatusListener;
+import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
+import com.craxiom.networksurvey.model.RecordEnvelope;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Routes the survey records to their MQTT topics. Each record goes through the per topic {@link MqttRateLimiter}, and
+ * then to the {@link MqttPublisher} while the broker is connected, or to the {@link MqttOfflineQueue} while it is not.
+ * <p>
+ * This is kept separate from {@link MqttConnection} so that the publish path can be exercised without an MQTT client.
+ *
+ * @since 1.5.0
+ */
+class MqttRecordRouter implements ICellularSurveyRecordListener, IWifiSurveyRecordListener,
+        IBluetoothSurveyRecordListener, IGnssSurveyRecordListener, IDeviceStatusListener
+{
+    static final String MQTT_GSM_MESSAGE_TOPIC = "gsm_message";
+    static final String MQTT_CDMA_MESSAGE_TOPIC = "cdma_message";
+    static final String MQTT_UMTS_MESSAGE_TOPIC = "umts_message";
+    static final String MQTT_LTE_MESSAGE_TOPIC = "lte_message";
+    static final String MQTT_WIFI_BEACON_MESSAGE_TOPIC = "80211_beacon_message";
+    static final String MQTT_BLUETOOTH_MESSAGE_TOPIC = "bluetooth_message";
+    static final String MQTT_GNSS_MESSAGE_TOPIC = "gnss_message";
+    static final String MQTT_DEVICE_STATUS_MESSAGE_TOPIC = "device_status_message";
+    static final String MQTT_WIFI_BEACON_BATCH_MESSAGE_TOPIC = "80211_beacon_batch_message";
+    static final String MQTT_BLUETOOTH_BATCH_MESSAGE_TOPIC = "bluetooth_batch_message";
+
+    private static final String DATA_FIELD_NAME = "data";
+    private static final String DEVICE_NAME_FIELD_NAME = "device_name";
+
+    private final MqttRateLimiter rateLimiter;
+    private final MqttPublisher publisher;
+    private final MqttOfflineQueue offlineQueue;
+    private final BooleanSupplier connectedSupplier;
+    private final Supplier<String> deviceNameSupplier;
+
+    private volatile boolean batchPublishingEnabled;
+    private volatile boolean batchCompressionEnabled;
+
+    /**
+     * @param rateLimiter        The rate limiter that every record is passed through first.
+     * @param publisher          Sends the records to the MQTT broker while it is connected.
+     * @param offlineQueue       Holds the records while the MQTT broker is not connected.
+     * @param connectedSupplier  Returns true if the MQTT broker is currently connected.
+     * @param deviceNameSupplier Returns the device name to set on the records that are sent, or null to leave them as
+     *                           they are.
+     */
+    MqttRecordRouter(MqttRateLimiter rateLimiter, MqttPublisher publisher, MqttOfflineQueue offlineQueue,
+                     BooleanSupplier connectedSupplier, Supplier<String> deviceNameSupplier)
+    {
+        this.rateLimiter = rateLimiter;
+        this.publisher = publisher;
+        this.offlineQueue = offlineQueue;
+        this.connectedSupplier = connectedSupplier;
+        this.deviceNameSupplier = deviceNameSupplier;
+    }
+
+    @Override
+    public void onGsmSurveyRecord(GsmRecord gsmRecord)
+    {
+        publishRecord(MQTT_GSM_MESSAGE_TOPIC, gsmRecord);
+    }
+
+    @Override
+    public void onCdmaSurveyRecord(CdmaRecord cdmaRecord)
+    {
+        publishRecord(MQTT_CDMA_MESSAGE_TOPIC, cdmaRecord);
+    }
+
+    @Override
+    public void onUmtsSurveyRecord(UmtsRecord umtsRecord)
+    {
+        publishRecord(MQTT_UMTS_MESSAGE_TOPIC, umtsRecord);
+    }
+
+    @Override
+    public void onLteSurveyRecord(LteRecord lteRecord)
+    {
+        publishRecord(MQTT_LTE_MESSAGE_TOPIC, lteRecord);
+    }
+
+    @Override
+    public void onWifiBeaconSurveyRecords(List<WifiRecordWrapper> wifiBeaconRecords)
+    {
+        if (batchPublishingEnabled)
+        {
+            if (wifiBeaconRecords.isEmpty()) return;
+
+            // The rate limiter only sees the batch, so the device name is set on each record as the batch is built
+            final String deviceName = deviceNameSupplier.get();
+            final List<WifiBeaconRecord> records = wifiBeaconRecords.stream()
+                    .map(wifiRecord -> withDeviceName(wifiRecord.getWifiBeaconRecord(), deviceName))
+                    .collect(Collectors.toList());
+            publishRecord(MQTT_WIFI_BEACON_BATCH_MESSAGE_TOPIC, MqttBatchEnvelope.createWifiBeaconRecordBatch(records, batchCompressionEnabled));
+            return;
+        }
+
+        wifiBeaconRecords.forEach(wifiRecord ->
+                publishRecord(MQTT_WIFI_BEACON_MESSAGE_TOPIC, wifiRecord.getWifiBeaconRecord()));
+    }
+
+    @Override
+    public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
+    {
+        publishRecord(MQTT_BLUETOOTH_MESSAGE_TOPIC, bluetoothRecord);
+    }
+
+    @Override
+    public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
+    {
+        if (batchPublishingEnabled)
+        {
+            if (bluetoothRecords.isEmpty()) return;
+
+            // The rate limiter only sees the batch, so the device name is set on each record as the batch is built
+            final String deviceName = deviceNameSupplier.get();
+            final List<BluetoothRecord> records = bluetoothRecords.stream()
+                    .map(bluetoothRecord -> withDeviceName(bluetoothRecord, deviceName))
+                    .collect(Collectors.toList());
+            publishRecord(MQTT_BLUETOOTH_BATCH_MESSAGE_TOPIC, MqttBatchEnvelope.createBluetoothRecordBatch(records, batchCompressionEnabled));
+            return;
+        }
+
+        bluetoothRecords.forEach(bluetoothRecord -> publishRecord(MQTT_BLUETOOTH_MESSAGE_TOPIC, bluetoothRecord));
+    }
+
+    @Override
+    public void onGnssSurveyRecord(GnssRecord gnssRecord)
+    {
+        publishRecord(MQTT_GNSS_MESSAGE_TOPIC, gnssRecord);
+    }
+
+    @Override
+    public void onDeviceStatus(DeviceStatus deviceStatus)
+    {
+        publishRecord(MQTT_DEVICE_STATUS_MESSAGE_TOPIC, deviceStatus);
+    }
+
+    @Override
+    public void onPhoneState(PhoneState phoneState)
+    {
+        publishRecord(MQTT_DEVICE_STATUS_MESSAGE_TOPIC, phoneState);
+    }
+
+    /**
+     * @param batchPublishingEnabled  True to publish each Wi-Fi and Bluetooth scan as a single batch message.
+     * @param batchCompressionEnabled True to deflate compress the batch messages.
+     */
+    void setBatchPublishing(boolean batchPublishingEnabled, boolean batchCompressionEnabled)
+    {
+        this.batchPublishingEnabled = batchPublishingEnabled;
+        this.batchCompressionEnabled = batchCompressionEnabled;
+    }
+
+    /**
+     * Publishes the messages the rate limiter is holding whose topics have room in their rate again.
+     */
+    void drainHeld()
+    {
+        rateLimiter.drainHeld(this::publishOrQueue);
+    }
+
+    /**
+     * Passes the message through the per topic rate limiter before publishing it. The message is wrapped in a
+     * {@link RecordEnvelope} so that it is only encoded once even if it goes through the offline queue more than once.
+     */
+    private void publishRecord(String topic, Message message)
+    {
+        rateLimiter.submit(topic, new RecordEnvelope<>(message), this::publishOrQueue);
+    }
+
+    /**
+     * Publishes the message if the MQTT broker is connected, otherwise adds it to the offline queue. If there are
+     * still queued messages for the topic then the message is also queued so that the messages stay in order.
+     * <p>
+     * The device name is set here rather than when the record arrives so that the copy is only made for the records the
+     * rate limiter lets through. The named copy is then the one the publisher, the offline queue, and the replay of the
+     * offline queue all share, so it is made once for each record that this sink sends.
+     */
+    private void publishOrQueue(String topic, RecordEnvelope<?> message)
+    {
+        final RecordEnvelope<?> namedMessage = withDeviceName(message);
+
+        if (!connectedSupplier.getAsBoolean() || offlineQueue.hasPending(topic))
+        {
+            offlineQueue.add(topic, namedMessage);
+        } else
+        {
+            publisher.submit(topic, namedMessage);
+        }
+    }
+
+    /**
+     * @return The envelope with the device name set on its record, or the same envelope if there is no device name or
+     * the record already has it.
+     */
+    private RecordEnvelope<?> withDeviceName(RecordEnvelope<?> message)
+    {
+        final Message record = message.getRecord();
+        final Message namedRecord = withDeviceName(record, deviceNameSupplier.get());
+        return namedRecord == record ? message : new RecordEnvelope<>(namedRecord);
+    }
+
+    /**
+     * Sets the device name to the user entered value in the MQTT connection UI (or the value provided via MDM). The
+     * survey records all keep the device name in their data message, so this works for any record type. Messages
+     * without a data message, such as the batch messages, are returned as they are.
+     *
+     * @param record     The record to set the device name on. It is not modified.
+     * @param deviceName The device name, or null to leave the record as it is.
+     * @return A copy of the record with the device name set, or the same record if there is no device name or the record
+     * already has it.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Message> T withDeviceName(T record, String deviceName)
+    {
+        if (deviceName == null) return record;
+
+        final Descriptors.FieldDescriptor dataField = record.getDescriptorForType().findFieldByName(DATA_FIELD_NAME);
+        if (dataField == null || dataField.getJavaType() != Descriptors.FieldDescriptor.JavaType.MESSAGE) return record;
+
+        final Message data = (Message) record.getField(dataField);
+        final Descriptors.FieldDescriptor deviceNameField = data.getDescriptorForType().findFieldByName(DEVICE_NAME_FIELD_NAME);
+        if (deviceNameField == null || deviceName.equals(data.getField(deviceNameField))) return record;
+
+        final Message.Builder recordBuilder = record.toBuilder();
+        recordBuilder.getFieldBuilder(dataField).setField(deviceNameField, deviceName);
+        return (T) recordBuilder.build();
+    }
+}
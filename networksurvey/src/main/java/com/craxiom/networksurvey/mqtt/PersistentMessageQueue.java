@@ -0,0 +1,377 @@
+package com.craxiom.networksurvey.mqtt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import timber.log.Timber;
+
+/**
+ * A FIFO queue of opaque messages that survives app restarts.
+ * <p>
+ * New messages are first placed in an in memory front, and adding a message never touches the disk. When
+ * {@link #flush()} is called the messages in the front are appended to the current segment file on disk. The owner of
+ * the queue is expected to call flush from a background thread, at the latest when {@link #add(byte[])} reports that
+ * the front has reached its capacity. Segments are append only; once a segment
+ * reaches its maximum size a new one is started, and once every message in a segment has been read the file is
+ * deleted. This keeps the writes sequential and means we never have to rewrite a file to remove messages from it.
+ * <p>
+ * Messages are always read in the order they were added: first from the oldest segment on disk, and then from the
+ * in memory front. Delivery is at least once; if the app is killed part way through reading a segment then the
+ * messages in that segment that were already read will be read again the next time the queue is opened.
+ * <p>
+ * This class is thread safe.
+ *
+ * @since 1.5.0
+ */
+public class PersistentMessageQueue
+{
+    static final int DEFAULT_MEMORY_CAPACITY = 256;
+    static final int DEFAULT_SEGMENT_SIZE_BYTES = 1024 * 1024;
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".dat";
+
+    private final File directory;
+    private final int memoryCapacity;
+    private final int maxSegmentSizeBytes;
+
+    private final ArrayDeque<byte[]> memoryFront;
+    private final TreeMap<Long, Integer> segmentMessageCounts = new TreeMap<>();
+
+    private long nextSegmentNumber;
+    private DataOutputStream segmentWriter;
+    private long segmentWriterNumber = -1;
+    private long segmentWriterSizeBytes;
+
+    private DataInputStream segmentReader;
+    private long segmentReaderNumber = -1;
+
+    private int size;
+
+    /**
+     * Creates a queue with the default memory and segment sizes.
+     *
+     * @param directory The directory where the segments for this queue are stored. Each queue needs its own directory.
+     */
+    public PersistentMessageQueue(File directory)
+    {
+        this(directory, DEFAULT_MEMORY_CAPACITY, DEFAULT_SEGMENT_SIZE_BYTES);
+    }
+
+    /**
+     * @param directory           The directory where the segments for this queue are stored. Each queue needs its own
+     *                            directory.
+     * @param memoryCapacity      The number of messages held in memory after which {@link #add(byte[])} asks for a
+     *                            flush to disk.
+     * @param maxSegmentSizeBytes The size after which a new segment file is started.
+     */
+    public PersistentMessageQueue(File directory, int memoryCapacity, int maxSegmentSizeBytes)
+    {
+        this.directory = directory;
+        this.memoryCapacity = memoryCapacity;
+        this.maxSegmentSizeBytes = maxSegmentSizeBytes;
+        memoryFront = new ArrayDeque<>(memoryCapacity);
+
+        if (!directory.exists() && !directory.mkdirs())
+        {
+            Timber.e("Could not create the message queue directory %s", directory);
+        }
+
+        loadExistingSegments();
+    }
+
+    /**
+     * Adds a message to the end of the queue.
+     *
+     * @param message The message bytes. The array must not be modified after calling this method.
+     * @return True if this message filled the memory front, in which case {@link #flush()} should be called.
+     */
+    public synchronized boolean add(byte[] message)
+    {
+        memoryFront.addLast(message);
+        size++;
+
+        return memoryFront.size() == memoryCapacity;
+    }
+
+    /**
+     * Removes and returns the message at the head of the queue.
+     *
+     * @return The oldest message in the queue, or null if the queue is empty.
+     */
+    public synchronized byte[] poll()
+    {
+        while (!segmentMessageCounts.isEmpty())
+        {
+            final long oldestSegment = segmentMessageCounts.firstKey();
+
+            // Never read from the segment that is still being written to, instead start a new one for the writer
+            if (oldestSegment == segmentWriterNumber) closeSegmentWriter();
+
+            final byte[] message = readFromSegment(oldestSegment);
+            if (message != null)
+            {
+                size--;
+                return message;
+            }
+        }
+
+        final byte[] message = memoryFront.pollFirst();
+        if (message != null) size--;
+        return message;
+    }
+
+    /**
+     * @return The number of messages in the queue, both in memory and on disk.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Writes all the messages in the memory front to the current segment on disk.
+     */
+    public synchronized void flush()
+    {
+        if (memoryFront.isEmpty()) return;
+
+        try
+        {
+            while (!memoryFront.isEmpty())
+            {
+                final byte[] message = memoryFront.peekFirst();
+                if (segmentWriter == null || segmentWriterSizeBytes >= maxSegmentSizeBytes) openNewSegmentWriter();
+
+                segmentWriter.writeInt(message.length);
+                segmentWriter.write(message);
+                segmentWriterSizeBytes += Integer.BYTES + message.length;
+                segmentMessageCounts.merge(segmentWriterNumber, 1, Integer::sum);
+
+                memoryFront.pollFirst();
+            }
+
+            segmentWriter.flush();
+        } catch (IOException e)
+        {
+            // Leave whatever could not be written in memory so that it can still be sent
+            Timber.e(e, "Could not write the MQTT offline messages to disk");
+        }
+    }
+
+    /**
+     * Flushes the memory front to disk and closes any open files. The queue can still be used after calling this.
+     */
+    public synchronized void close()
+    {
+        flush();
+        closeSegmentWriter();
+        closeSegmentReader();
+    }
+
+    /**
+     * Removes all the messages from the queue, including the ones stored on disk.
+     */
+    public synchronized void clear()
+    {
+        closeSegmentWriter();
+        closeSegmentReader();
+        memoryFront.clear();
+
+        for (Long segmentNumber : segmentMessageCounts.keySet())
+        {
+            deleteSegment(segmentNumber);
+        }
+        segmentMessageCounts.clear();
+        size = 0;
+    }
+
+    /**
+     * Reads the next message from the specified segment. If the segment has been fully read it is deleted.
+     *
+     * @return The next message, or null if there are no more messages in the segment.
+     */
+    private byte[] readFromSegment(long segmentNumber)
+    {
+        try
+        {
+            if (segmentReaderNumber != segmentNumber)
+            {
+                closeSegmentReader();
+                segmentReader = new DataInputStream(new BufferedInputStream(new FileInputStream(getSegmentFile(segmentNumber))));
+                segmentReaderNumber = segmentNumber;
+            }
+
+            final Integer remaining = segmentMessageCounts.get(segmentNumber);
+            if (remaining != null && remaining > 0)
+            {
+                final byte[] message = new byte[segmentReader.readInt()];
+                segmentReader.readFully(message);
+
+                if (remaining == 1)
+                {
+                    finishSegment(segmentNumber);
+                } else
+                {
+                    segmentMessageCounts.put(segmentNumber, remaining - 1);
+                }
+
+                return message;
+            }
+        } catch (IOException e)
+        {
+            // A truncated or corrupt segment (e.g. the app was killed mid write), so drop what is left of it
+            Timber.e(e, "Could not read an MQTT offline message from segment %d, dropping the rest of it", segmentNumber);
+            final Integer remaining = segmentMessageCounts.get(segmentNumber);
+            if (remaining != null) size -= remaining;
+        }
+
+        finishSegment(segmentNumber);
+        return null;
+    }
+
+    private void finishSegment(long segmentNumber)
+    {
+        if (segmentReaderNumber == segmentNumber) closeSegmentReader();
+        segmentMessageCounts.remove(segmentNumber);
+        deleteSegment(segmentNumber);
+    }
+
+    private void openNewSegmentWriter() throws IOException
+    {
+        closeSegmentWriter();
+
+        segmentWriterNumber = nextSegmentNumber++;
+        segmentWriter = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getSegmentFile(segmentWriterNumber))));
+        segmentWriterSizeBytes = 0;
+    }
+
+    private void closeSegmentWriter()
+    {
+        if (segmentWriter == null) return;
+
+        try
+        {
+            segmentWriter.close();
+        } catch (IOException e)
+        {
+            Timber.w(e, "Could not close the MQTT offline queue segment writer");
+        }
+
+        segmentWriter = null;
+        segmentWriterNumber = -1;
+    }
+
+    private void closeSegmentReader()
+    {
+        if (segmentReader == null) return;
+
+        try
+        {
+            segmentReader.close();
+        } catch (IOException e)
+        {
+            Timber.w(e, "Could not close the MQTT offline queue segment reader");
+        }
+
+        segmentReader = null;
+        segmentReaderNumber = -1;
+    }
+
+    /**
+     * Scans the queue directory for segments left over from a previous run and counts the messages in each one.
+     */
+    private void loadExistingSegments()
+    {
+        final File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files == null) return;
+
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            final String name = file.getName();
+            final long segmentNumber;
+            try
+            {
+                segmentNumber = Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(), name.length() - SEGMENT_FILE_SUFFIX.length()));
+            } catch (NumberFormatException e)
+            {
+                Timber.w("Ignoring an unexpected file in the MQTT offline queue directory: %s", name);
+                continue;
+            }
+
+            final int messageCount = countMessages(file);
+            if (messageCount > 0)
+            {
+                segmentMessageCounts.put(segmentNumber, messageCount);
+                size += messageCount;
+            } else if (!file.delete())
+            {
+                Timber.w("Could not delete the empty MQTT offline queue segment %s", name);
+            }
+
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber + 1);
+        }
+    }
+
+    /**
+     * @return The number of complete messages in the segment file. A partially written message at the end is ignored.
+     */
+    private static int countMessages(File segmentFile)
+    {
+        int count = 0;
+        long remainingBytes = segmentFile.length();
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(segmentFile))))
+        {
+            while (remainingBytes >= Integer.BYTES)
+            {
+                final int length = inputStream.readInt();
+                remainingBytes -= Integer.BYTES;
+                if (length < 0 || length > remainingBytes) break;
+
+                inputStream.skipBytes(length);
+                remainingBytes -= length;
+                count++;
+            }
+        } catch (EOFException ignore)
+        {
+            // A partial message at the end of the file, so just use the count up to this point
+        } catch (IOException e)
+        {
+            Timber.e(e, "Could not read the MQTT offline queue segment %s", segmentFile);
+        }
+
+        return count;
+    }
+
+    private void deleteSegment(long segmentNumber)
+    {
+        final File segmentFile = getSegmentFile(segmentNumber);
+        if (segmentFile.exists() && !segmentFile.delete())
+        {
+            Timber.w("Could not delete the MQTT offline queue segment %s", segmentFile);
+        }
+    }
+
+    private File getSegmentFile(long segmentNumber)
+    {
+        // Zero pad the segment number so that the files sort in the order they were created
+        return new File(directory, String.format(Locale.US, "%s%019d%s", SEGMENT_FILE_PREFIX, segmentNumber, SEGMENT_FILE_SUFFIX));
+    }
+}
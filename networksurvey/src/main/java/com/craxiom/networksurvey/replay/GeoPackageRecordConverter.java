@@ -0,0 +1,505 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
+import com.craxiom.messaging.CdmaRecord;
+import com.craxiom.messaging.CdmaRecordData;
+import com.craxiom.messaging.GnssRecord;
+import com.craxiom.messaging.GnssRecordData;
+import com.craxiom.messaging.GsmRecord;
+import com.craxiom.messaging.GsmRecordData;
+import com.craxiom.messaging.LteBandwidth;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.messaging.UmtsRecord;
+import com.craxiom.messaging.UmtsRecordData;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.messaging.WifiBeaconRecordData;
+import com.craxiom.messaging.bluetooth.SupportedTechnologies;
+import com.craxiom.messaging.bluetooth.Technology;
+import com.craxiom.messaging.gnss.Constellation;
+import com.craxiom.messaging.wifi.CipherSuite;
+import com.craxiom.messaging.wifi.EncryptionType;
+import com.craxiom.networksurvey.BuildConfig;
+import com.craxiom.networksurvey.constants.BluetoothMessageConstants;
+import com.craxiom.networksurvey.constants.CdmaMessageConstants;
+import com.craxiom.networksurvey.constants.GnssMessageConstants;
+import com.craxiom.networksurvey.constants.GsmMessageConstants;
+import com.craxiom.networksurvey.constants.LteMessageConstants;
+import com.craxiom.networksurvey.constants.MessageConstants;
+import com.craxiom.networksurvey.constants.UmtsMessageConstants;
+import com.craxiom.networksurvey.constants.WifiBeaconMessageConstants;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.util.IOUtils;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.UInt32Value;
+import com.google.protobuf.UInt64Value;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.function.Function;
+
+/**
+ * Rebuilds the protobuf survey records from the rows that the survey record loggers wrote to the GeoPackage tables.
+ * This is the inverse of the loggers, so it uses the same column names and only restores the fields that the loggers
+ * write. For example, the device serial number and name are not logged, so they are set from the values passed to the
+ * constructor, and the Wi-Fi capabilities string is not logged, so the replayed Wi-Fi records don't have one.
+ * <p>
+ * The rows are read through a {@link ColumnValues} so that this class does not depend on the Android GeoPackage
+ * library and can be used by the JVM unit tests.
+ *
+ * @since 1.5.0
+ */
+public class GeoPackageRecordConverter
+{
+    /**
+     * Provides the value of each column in a row, which is null if the column was not set.
+     */
+    public interface ColumnValues
+    {
+        Object getValue(String columnName);
+    }
+
+    private final String deviceSerialNumber;
+    private final String deviceName;
+
+    /**
+     * @param deviceSerialNumber The device serial number to set on every record.
+     * @param deviceName         The device name to set on every record.
+     */
+    public GeoPackageRecordConverter(String deviceSerialNumber, String deviceName)
+    {
+        this.deviceSerialNumber = deviceSerialNumber;
+        this.deviceName = deviceName;
+    }
+
+    /**
+     * @return True if the rows in the table with the provided name can be converted to records.
+     */
+    public static boolean isReplayableTable(String tableName)
+    {
+        switch (tableName)
+        {
+            case GsmMessageConstants.GSM_RECORDS_TABLE_NAME:
+            case CdmaMessageConstants.CDMA_RECORDS_TABLE_NAME:
+            case UmtsMessageConstants.UMTS_RECORDS_TABLE_NAME:
+            case LteMessageConstants.LTE_RECORDS_TABLE_NAME:
+            case WifiBeaconMessageConstants.WIFI_BEACON_RECORDS_TABLE_NAME:
+            case BluetoothMessageConstants.BLUETOOTH_RECORDS_TABLE_NAME:
+            case GnssMessageConstants.GNSS_RECORDS_TABLE_NAME:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Converts one row of a GeoPackage table to a record.
+     *
+     * @param tableName The name of the table the row is from.
+     * @param row       The column values of the row.
+     * @param latitude  The latitude of the row's point geometry.
+     * @param longitude The longitude of the row's point geometry.
+     * @param altitude  The altitude of the row's point geometry, or 0 if it does not have one.
+     * @return The record, or null if the table is not one of the survey record tables.
+     */
+    public ReplayRecord convert(String tableName, ColumnValues row, double latitude, double longitude, float altitude)
+    {
+        final long timeMs = getLong(row, MessageConstants.TIME_COLUMN, 0);
+        final String deviceTime = IOUtils.getRfc3339String(ZonedDateTime.ofInstant(Instant.ofEpochMilli(timeMs), ZoneId.systemDefault()));
+
+        switch (tableName)
+        {
+            case GsmMessageConstants.GSM_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toGsmRecord(row, deviceTime, latitude, longitude, altitude));
+
+            case CdmaMessageConstants.CDMA_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toCdmaRecord(row, deviceTime, latitude, longitude, altitude));
+
+            case UmtsMessageConstants.UMTS_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toUmtsRecord(row, deviceTime, latitude, longitude, altitude));
+
+            case LteMessageConstants.LTE_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toLteRecord(row, deviceTime, latitude, longitude, altitude));
+
+            case WifiBeaconMessageConstants.WIFI_BEACON_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toWifiRecord(row, deviceTime, latitude, longitude, altitude));
+
+            case BluetoothMessageConstants.BLUETOOTH_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toBluetoothRecord(row, deviceTime, latitude, longitude, altitude));
+
+            case GnssMessageConstants.GNSS_RECORDS_TABLE_NAME:
+                return ReplayRecord.of(timeMs, toGnssRecord(row, deviceTime, latitude, longitude, altitude));
+
+            default:
+                return null;
+        }
+    }
+
+    private GsmRecord toGsmRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final GsmRecordData.Builder dataBuilder = GsmRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+        dataBuilder.setGroupNumber(getInt(row, GsmMessageConstants.GROUP_NUMBER_COLUMN));
+        dataBuilder.setProvider(getString(row, GsmMessageConstants.PROVIDER_COLUMN));
+
+        final BoolValue servingCell = getBoolValue(row, GsmMessageConstants.SERVING_CELL_COLUMN);
+        if (servingCell != null) dataBuilder.setServingCell(servingCell);
+        final Int32Value mcc = getInt32Value(row, GsmMessageConstants.MCC_COLUMN);
+        if (mcc != null) dataBuilder.setMcc(mcc);
+        final Int32Value mnc = getInt32Value(row, GsmMessageConstants.MNC_COLUMN);
+        if (mnc != null) dataBuilder.setMnc(mnc);
+        final Int32Value lac = getInt32Value(row, GsmMessageConstants.LAC_COLUMN);
+        if (lac != null) dataBuilder.setLac(lac);
+        final Int32Value ci = getInt32Value(row, GsmMessageConstants.CID_COLUMN);
+        if (ci != null) dataBuilder.setCi(ci);
+        final Int32Value arfcn = getInt32Value(row, GsmMessageConstants.ARFCN_COLUMN);
+        if (arfcn != null) dataBuilder.setArfcn(arfcn);
+        final Int32Value bsic = getInt32Value(row, GsmMessageConstants.BSIC_COLUMN);
+        if (bsic != null) dataBuilder.setBsic(bsic);
+        final FloatValue signalStrength = getFloatValue(row, GsmMessageConstants.SIGNAL_STRENGTH_COLUMN);
+        if (signalStrength != null) dataBuilder.setSignalStrength(signalStrength);
+        final Int32Value ta = getInt32Value(row, GsmMessageConstants.TA_COLUMN);
+        if (ta != null) dataBuilder.setTa(ta);
+
+        final GsmRecord.Builder recordBuilder = GsmRecord.newBuilder();
+        recordBuilder.setMessageType(GsmMessageConstants.GSM_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private CdmaRecord toCdmaRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final CdmaRecordData.Builder dataBuilder = CdmaRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+        dataBuilder.setGroupNumber(getInt(row, CdmaMessageConstants.GROUP_NUMBER_COLUMN));
+        dataBuilder.setProvider(getString(row, CdmaMessageConstants.PROVIDER_COLUMN));
+
+        final BoolValue servingCell = getBoolValue(row, CdmaMessageConstants.SERVING_CELL_COLUMN);
+        if (servingCell != null) dataBuilder.setServingCell(servingCell);
+        final Int32Value sid = getInt32Value(row, CdmaMessageConstants.SID_COLUMN);
+        if (sid != null) dataBuilder.setSid(sid);
+        final Int32Value nid = getInt32Value(row, CdmaMessageConstants.NID_COLUMN);
+        if (nid != null) dataBuilder.setNid(nid);
+        final Int32Value bsid = getInt32Value(row, CdmaMessageConstants.BSID_COLUMN);
+        if (bsid != null) dataBuilder.setBsid(bsid);
+        final Int32Value pnOffset = getInt32Value(row, CdmaMessageConstants.PN_OFFSET_COLUMN);
+        if (pnOffset != null) dataBuilder.setPnOffset(pnOffset);
+        final FloatValue signalStrength = getFloatValue(row, CdmaMessageConstants.SIGNAL_STRENGTH_COLUMN);
+        if (signalStrength != null) dataBuilder.setSignalStrength(signalStrength);
+        final FloatValue ecio = getFloatValue(row, CdmaMessageConstants.ECIO_COLUMN);
+        if (ecio != null) dataBuilder.setEcio(ecio);
+
+        final CdmaRecord.Builder recordBuilder = CdmaRecord.newBuilder();
+        recordBuilder.setMessageType(CdmaMessageConstants.CDMA_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private UmtsRecord toUmtsRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final UmtsRecordData.Builder dataBuilder = UmtsRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+        dataBuilder.setGroupNumber(getInt(row, UmtsMessageConstants.GROUP_NUMBER_COLUMN));
+        dataBuilder.setProvider(getString(row, UmtsMessageConstants.PROVIDER_COLUMN));
+
+        final BoolValue servingCell = getBoolValue(row, UmtsMessageConstants.SERVING_CELL_COLUMN);
+        if (servingCell != null) dataBuilder.setServingCell(servingCell);
+        final Int32Value mcc = getInt32Value(row, UmtsMessageConstants.MCC_COLUMN);
+        if (mcc != null) dataBuilder.setMcc(mcc);
+        final Int32Value mnc = getInt32Value(row, UmtsMessageConstants.MNC_COLUMN);
+        if (mnc != null) dataBuilder.setMnc(mnc);
+        final Int32Value lac = getInt32Value(row, UmtsMessageConstants.LAC_COLUMN);
+        if (lac != null) dataBuilder.setLac(lac);
+        final Int32Value cid = getInt32Value(row, UmtsMessageConstants.CELL_ID_COLUMN);
+        if (cid != null) dataBuilder.setCid(cid);
+        final Int32Value uarfcn = getInt32Value(row, UmtsMessageConstants.UARFCN_COLUMN);
+        if (uarfcn != null) dataBuilder.setUarfcn(uarfcn);
+        final Int32Value psc = getInt32Value(row, UmtsMessageConstants.PSC_COLUMN);
+        if (psc != null) dataBuilder.setPsc(psc);
+        final FloatValue signalStrength = getFloatValue(row, UmtsMessageConstants.SIGNAL_STRENGTH_COLUMN);
+        if (signalStrength != null) dataBuilder.setSignalStrength(signalStrength);
+        final FloatValue rscp = getFloatValue(row, UmtsMessageConstants.RSCP_COLUMN);
+        if (rscp != null) dataBuilder.setRscp(rscp);
+
+        final UmtsRecord.Builder recordBuilder = UmtsRecord.newBuilder();
+        recordBuilder.setMessageType(UmtsMessageConstants.UMTS_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private LteRecord toLteRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final LteRecordData.Builder dataBuilder = LteRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+        dataBuilder.setGroupNumber(getInt(row, LteMessageConstants.GROUP_NUMBER_COLUMN));
+        dataBuilder.setProvider(getString(row, LteMessageConstants.PROVIDER_COLUMN));
+
+        final BoolValue servingCell = getBoolValue(row, LteMessageConstants.SERVING_CELL_COLUMN);
+        if (servingCell != null) dataBuilder.setServingCell(servingCell);
+        final Int32Value mcc = getInt32Value(row, LteMessageConstants.MCC_COLUMN);
+        if (mcc != null) dataBuilder.setMcc(mcc);
+        final Int32Value mnc = getInt32Value(row, LteMessageConstants.MNC_COLUMN);
+        if (mnc != null) dataBuilder.setMnc(mnc);
+        final Int32Value tac = getInt32Value(row, LteMessageConstants.TAC_COLUMN);
+        if (tac != null) dataBuilder.setTac(tac);
+        final Int32Value eci = getInt32Value(row, LteMessageConstants.CI_COLUMN);
+        if (eci != null) dataBuilder.setEci(eci);
+        final Int32Value earfcn = getInt32Value(row, LteMessageConstants.EARFCN_COLUMN);
+        if (earfcn != null) dataBuilder.setEarfcn(earfcn);
+        final Int32Value pci = getInt32Value(row, LteMessageConstants.PCI_COLUMN);
+        if (pci != null) dataBuilder.setPci(pci);
+        final FloatValue rsrp = getFloatValue(row, LteMessageConstants.RSRP_COLUMN);
+        if (rsrp != null) dataBuilder.setRsrp(rsrp);
+        final FloatValue rsrq = getFloatValue(row, LteMessageConstants.RSRQ_COLUMN);
+        if (rsrq != null) dataBuilder.setRsrq(rsrq);
+        final Int32Value ta = getInt32Value(row, LteMessageConstants.TA_COLUMN);
+        if (ta != null) dataBuilder.setTa(ta);
+
+        final LteBandwidth bandwidth = fromString(LteBandwidth.values(), LteMessageConstants::getLteBandwidth,
+                getString(row, LteMessageConstants.BANDWIDTH_COLUMN), null);
+        if (bandwidth != null) dataBuilder.setLteBandwidth(bandwidth);
+
+        final LteRecord.Builder recordBuilder = LteRecord.newBuilder();
+        recordBuilder.setMessageType(LteMessageConstants.LTE_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private WifiRecordWrapper toWifiRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final WifiBeaconRecordData.Builder dataBuilder = WifiBeaconRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+
+        dataBuilder.setSourceAddress(getString(row, WifiBeaconMessageConstants.SOURCE_ADDRESS_COLUMN));
+        dataBuilder.setBssid(getString(row, WifiBeaconMessageConstants.BSSID_COLUMN));
+        dataBuilder.setSsid(getString(row, WifiBeaconMessageConstants.SSID_COLUMN));
+
+        final FloatValue signalStrength = getFloatValue(row, WifiBeaconMessageConstants.SIGNAL_STRENGTH_COLUMN);
+        if (signalStrength != null) dataBuilder.setSignalStrength(signalStrength);
+        final Int32Value channel = getInt32Value(row, WifiBeaconMessageConstants.CHANNEL_COLUMN);
+        if (channel != null) dataBuilder.setChannel(channel);
+        final Int32Value frequency = getInt32Value(row, WifiBeaconMessageConstants.FREQUENCY_MHZ_COLUMN);
+        if (frequency != null) dataBuilder.setFrequencyMhz(frequency);
+        final BoolValue wps = getBoolValue(row, WifiBeaconMessageConstants.WPS_COLUMN);
+        if (wps != null) dataBuilder.setWps(wps);
+
+        dataBuilder.setEncryptionType(fromString(EncryptionType.values(), WifiBeaconMessageConstants::getEncryptionTypeString,
+                getString(row, WifiBeaconMessageConstants.ENCRYPTION_TYPE_COLUMN), EncryptionType.UNKNOWN));
+
+        final String cipherSuites = getString(row, WifiBeaconMessageConstants.CIPHER_SUITES_COLUMN);
+        if (!cipherSuites.isEmpty())
+        {
+            for (String cipherSuite : cipherSuites.split(";"))
+            {
+                final CipherSuite suite = fromString(CipherSuite.values(), WifiBeaconMessageConstants::getCipherSuiteString,
+                        cipherSuite, null);
+                if (suite != null) dataBuilder.addCipherSuites(suite);
+            }
+        }
+
+        final WifiBeaconRecord.Builder recordBuilder = WifiBeaconRecord.newBuilder();
+        recordBuilder.setMessageType(WifiBeaconMessageConstants.WIFI_BEACON_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return new WifiRecordWrapper(recordBuilder.build(), null);
+    }
+
+    private BluetoothRecord toBluetoothRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final BluetoothRecordData.Builder dataBuilder = BluetoothRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+
+        dataBuilder.setSourceAddress(getString(row, BluetoothMessageConstants.SOURCE_ADDRESS_COLUMN));
+        dataBuilder.setOtaDeviceName(getString(row, BluetoothMessageConstants.OTA_DEVICE_NAME_COLUMN));
+
+        final FloatValue signalStrength = getFloatValue(row, BluetoothMessageConstants.SIGNAL_STRENGTH_COLUMN);
+        if (signalStrength != null) dataBuilder.setSignalStrength(signalStrength);
+        final FloatValue txPower = getFloatValue(row, BluetoothMessageConstants.TX_POWER_COLUMN);
+        if (txPower != null) dataBuilder.setTxPower(txPower);
+
+        dataBuilder.setTechnology(fromString(Technology.values(), BluetoothMessageConstants::getTechnologyString,
+                getString(row, BluetoothMessageConstants.TECHNOLOGY_COLUMN), Technology.UNKNOWN));
+        dataBuilder.setSupportedTechnologies(fromString(SupportedTechnologies.values(), BluetoothMessageConstants::getSupportedTechString,
+                getString(row, BluetoothMessageConstants.SUPPORTED_TECHNOLOGIES_COLUMN), SupportedTechnologies.UNKNOWN));
+
+        final BluetoothRecord.Builder recordBuilder = BluetoothRecord.newBuilder();
+        recordBuilder.setMessageType(BluetoothMessageConstants.BLUETOOTH_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private GnssRecord toGnssRecord(ColumnValues row, String deviceTime, double latitude, double longitude, float altitude)
+    {
+        final GnssRecordData.Builder dataBuilder = GnssRecordData.newBuilder();
+
+        dataBuilder.setDeviceSerialNumber(deviceSerialNumber);
+        dataBuilder.setDeviceName(deviceName);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+        dataBuilder.setAltitude(altitude);
+        dataBuilder.setMissionId(getString(row, MessageConstants.MISSION_ID_COLUMN));
+        dataBuilder.setRecordNumber(getInt(row, MessageConstants.RECORD_NUMBER_COLUMN));
+        dataBuilder.setGroupNumber(getInt(row, GnssMessageConstants.GROUP_NUMBER_COLUMN));
+        dataBuilder.setDeviceModel(getString(row, GnssMessageConstants.DEVICE_MODEL_COLUMN));
+
+        dataBuilder.setConstellation(fromString(Constellation.values(), GnssMessageConstants::getConstellationString,
+                getString(row, GnssMessageConstants.CONSTELLATION), Constellation.UNKNOWN));
+
+        final Object spaceVehicleId = row.getValue(GnssMessageConstants.SPACE_VEHICLE_ID);
+        if (spaceVehicleId instanceof Number)
+        {
+            dataBuilder.setSpaceVehicleId(UInt32Value.newBuilder().setValue(((Number) spaceVehicleId).intValue()));
+        }
+
+        final Object carrierFrequencyHz = row.getValue(GnssMessageConstants.CARRIER_FREQUENCY_HZ);
+        if (carrierFrequencyHz instanceof Number)
+        {
+            dataBuilder.setCarrierFreqHz(UInt64Value.newBuilder().setValue(((Number) carrierFrequencyHz).longValue()));
+        }
+
+        final FloatValue latitudeStdDev = getFloatValue(row, GnssMessageConstants.LATITUDE_STD_DEV_M);
+        if (latitudeStdDev != null) dataBuilder.setLatitudeStdDevM(latitudeStdDev);
+        final FloatValue longitudeStdDev = getFloatValue(row, GnssMessageConstants.LONGITUDE_STD_DEV_M);
+        if (longitudeStdDev != null) dataBuilder.setLongitudeStdDevM(longitudeStdDev);
+        final FloatValue altitudeStdDev = getFloatValue(row, GnssMessageConstants.ALTITUDE_STD_DEV_M);
+        if (altitudeStdDev != null) dataBuilder.setAltitudeStdDevM(altitudeStdDev);
+        final FloatValue agc = getFloatValue(row, GnssMessageConstants.AGC_DB);
+        if (agc != null) dataBuilder.setAgcDb(agc);
+        final FloatValue cn0 = getFloatValue(row, GnssMessageConstants.CARRIER_TO_NOISE_DENSITY_DB_HZ);
+        if (cn0 != null) dataBuilder.setCn0DbHz(cn0);
+
+        final GnssRecord.Builder recordBuilder = GnssRecord.newBuilder();
+        recordBuilder.setMessageType(GnssMessageConstants.GNSS_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private static String getString(ColumnValues row, String columnName)
+    {
+        final Object value = row.getValue(columnName);
+        return value == null ? "" : value.toString();
+    }
+
+    private static int getInt(ColumnValues row, String columnName)
+    {
+        return (int) getLong(row, columnName, 0);
+    }
+
+    private static long getLong(ColumnValues row, String columnName, long defaultValue)
+    {
+        final Object value = row.getValue(columnName);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    private static Int32Value getInt32Value(ColumnValues row, String columnName)
+    {
+        final Object value = row.getValue(columnName);
+        return value instanceof Number ? Int32Value.newBuilder().setValue(((Number) value).intValue()).build() : null;
+    }
+
+    private static FloatValue getFloatValue(ColumnValues row, String columnName)
+    {
+        final Object value = row.getValue(columnName);
+        return value instanceof Number ? FloatValue.newBuilder().setValue(((Number) value).floatValue()).build() : null;
+    }
+
+    /**
+     * SQLite does not have a boolean type, so depending on how the row was read the value is either a Boolean or a
+     * number where 0 is false.
+     */
+    private static BoolValue getBoolValue(ColumnValues row, String columnName)
+    {
+        final Object value = row.getValue(columnName);
+        if (value instanceof Boolean) return BoolValue.newBuilder().setValue((Boolean) value).build();
+        if (value instanceof Number) return BoolValue.newBuilder().setValue(((Number) value).intValue() != 0).build();
+        return null;
+    }
+
+    /**
+     * Finds the enum value that the loggers convert to the provided string.
+     *
+     * @param values       All the values of the enum.
+     * @param toString     The function the loggers use to convert the enum to the string in the GeoPackage table.
+     * @param string       The string from the GeoPackage table.
+     * @param defaultValue The value to return if the string is empty or does not match any value.
+     */
+    private static <E extends Enum<E>> E fromString(E[] values, Function<E, String> toString, String string, E defaultValue)
+    {
+        if (string == null || string.isEmpty()) return defaultValue;
+
+        for (E value : values)
+        {
+            if (value.name().equals("UNRECOGNIZED")) continue;
+            if (string.equals(toString.apply(value))) return value;
+        }
+
+        return defaultValue;
+    }
+}
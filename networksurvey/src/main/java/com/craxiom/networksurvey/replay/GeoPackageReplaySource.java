@@ -0,0 +1,140 @@
+package com.craxiom.networksurvey.replay;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.GeoPackageManager;
+import mil.nga.geopackage.factory.GeoPackageFactory;
+import mil.nga.geopackage.features.user.FeatureCursor;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.sf.Geometry;
+import mil.nga.sf.Point;
+import timber.log.Timber;
+
+/**
+ * Reads the survey records back out of a GeoPackage file written by the survey record loggers. Each record table is
+ * read with its own cursor in the order the rows were inserted (which is the order the records were captured), and
+ * the tables are merged by time, so the whole file is never loaded into memory.
+ *
+ * @since 1.5.0
+ */
+public class GeoPackageReplaySource implements IReplaySource
+{
+    private final GeoPackage geoPackage;
+    private final MergedReplaySource mergedSource;
+
+    /**
+     * @param context   The context used to get the GeoPackage manager.
+     * @param file      The GeoPackage file to replay.
+     * @param converter Converts the rows to records.
+     * @throws IOException If the file could not be opened.
+     */
+    public GeoPackageReplaySource(Context context, File file, GeoPackageRecordConverter converter) throws IOException
+    {
+        final GeoPackageManager geoPackageManager = GeoPackageFactory.getManager(context);
+        try
+        {
+            geoPackage = geoPackageManager.openExternal(file);
+        } catch (Exception e)
+        {
+            throw new IOException("Could not open the GeoPackage file " + file, e);
+        }
+        if (geoPackage == null) throw new IOException("Could not open the GeoPackage file " + file);
+
+        final List<TableSource> tableSources = new ArrayList<>();
+        for (String tableName : geoPackage.getFeatureTables())
+        {
+            if (!GeoPackageRecordConverter.isReplayableTable(tableName)) continue;
+
+            final FeatureDao featureDao = geoPackage.getFeatureDao(tableName);
+            tableSources.add(new TableSource(tableName, featureDao, converter));
+        }
+
+        Timber.i("Replaying %d record tables from %s", tableSources.size(), file);
+        mergedSource = new MergedReplaySource(tableSources);
+    }
+
+    @Override
+    public ReplayRecord next() throws IOException
+    {
+        return mergedSource.next();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            mergedSource.close();
+        } finally
+        {
+            geoPackage.close();
+        }
+    }
+
+    /**
+     * Reads the records from one table.
+     */
+    private static final class TableSource implements IReplaySource
+    {
+        private final String tableName;
+        private final Set<String> columnNames;
+        private final FeatureCursor cursor;
+        private final GeoPackageRecordConverter converter;
+
+        private TableSource(String tableName, FeatureDao featureDao, GeoPackageRecordConverter converter)
+        {
+            this.tableName = tableName;
+            this.converter = converter;
+
+            // Files written by older versions of the app don't have all the columns that are logged now
+            columnNames = new HashSet<>(Arrays.asList(featureDao.getTable().getColumnNames()));
+            cursor = featureDao.queryForAll();
+        }
+
+        @Override
+        public ReplayRecord next()
+        {
+            while (cursor.moveToNext())
+            {
+                final FeatureRow row = cursor.getRow();
+
+                double latitude = 0;
+                double longitude = 0;
+                float altitude = 0;
+                final GeoPackageGeometryData geometryData = row.getGeometry();
+                final Geometry geometry = geometryData == null ? null : geometryData.getGeometry();
+                if (geometry instanceof Point)
+                {
+                    final Point point = (Point) geometry;
+                    latitude = point.getY();
+                    longitude = point.getX();
+                    if (point.hasZ() && point.getZ() != null) altitude = point.getZ().floatValue();
+                }
+
+                final ReplayRecord record = converter.convert(tableName,
+                        columnName -> columnNames.contains(columnName) ? row.getValue(columnName) : null,
+                        latitude, longitude, altitude);
+                if (record != null) return record;
+            }
+
+            return null;
+        }
+
+        @Override
+        public void close()
+        {
+            cursor.close();
+        }
+    }
+}
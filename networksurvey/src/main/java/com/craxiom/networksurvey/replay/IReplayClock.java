@@ -0,0 +1,42 @@
+package com.craxiom.networksurvey.replay;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The source of time for the {@link SurveyReplayEngine}, so that the tests can replay a survey without waiting for it.
+ *
+ * @since 1.5.0
+ */
+public interface IReplayClock
+{
+    /**
+     * The clock that uses {@link System#nanoTime()} and really sleeps.
+     */
+    IReplayClock SYSTEM = new IReplayClock()
+    {
+        @Override
+        public long nanoTime()
+        {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleepNanos(long nanos) throws InterruptedException
+        {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    };
+
+    /**
+     * @return The current value of a monotonic clock in nanoseconds.
+     */
+    long nanoTime();
+
+    /**
+     * Waits for the provided amount of time.
+     *
+     * @param nanos The time to wait in nanoseconds.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    void sleepNanos(long nanos) throws InterruptedException;
+}
@@ -0,0 +1,19 @@
+package com.craxiom.networksurvey.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A source of recorded survey records for the {@link SurveyReplayEngine}.
+ *
+ * @since 1.5.0
+ */
+public interface IReplaySource extends Closeable
+{
+    /**
+     * @return The next record, or null if there are no more records. The records should be returned in the order
+     * they were captured, but a record that is earlier than the one before it is replayed right away.
+     * @throws IOException If the records could not be read.
+     */
+    ReplayRecord next() throws IOException;
+}
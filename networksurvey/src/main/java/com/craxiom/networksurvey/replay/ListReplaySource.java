@@ -0,0 +1,34 @@
+package com.craxiom.networksurvey.replay;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Replays records that are already in memory, such as records converted ahead of time so that a benchmark only
+ * measures the sinks, or records built by a test.
+ *
+ * @since 1.5.0
+ */
+public class ListReplaySource implements IReplaySource
+{
+    private final Iterator<ReplayRecord> iterator;
+
+    /**
+     * @param records The records to replay, in the order they were captured.
+     */
+    public ListReplaySource(List<ReplayRecord> records)
+    {
+        iterator = records.iterator();
+    }
+
+    @Override
+    public ReplayRecord next()
+    {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
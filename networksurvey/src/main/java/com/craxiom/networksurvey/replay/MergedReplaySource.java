@@ -0,0 +1,95 @@
+package com.craxiom.networksurvey.replay;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges several sources that are each in time order (e.g. one per GeoPackage table, or one per log file) into a
+ * single source in time order. Only the next record of each source is held in memory, so files of any size can be
+ * merged.
+ * <p>
+ * Records with the same time are returned in the order of the sources they came from, so the merge is stable.
+ *
+ * @since 1.5.0
+ */
+public class MergedReplaySource implements IReplaySource
+{
+    private final List<IReplaySource> sources;
+    private final PriorityQueue<Head> heads;
+
+    private boolean primed = false;
+
+    /**
+     * @param sources The sources to merge. They are closed when this source is closed.
+     */
+    public MergedReplaySource(List<? extends IReplaySource> sources)
+    {
+        this.sources = new ArrayList<>(sources);
+        heads = new PriorityQueue<>(Math.max(1, sources.size()), (first, second) -> {
+            final int timeComparison = Long.compare(first.record.getTimeMs(), second.record.getTimeMs());
+            return timeComparison != 0 ? timeComparison : Integer.compare(first.sourceIndex, second.sourceIndex);
+        });
+    }
+
+    @Override
+    public ReplayRecord next() throws IOException
+    {
+        if (!primed)
+        {
+            primed = true;
+            for (int i = 0; i < sources.size(); i++)
+            {
+                final ReplayRecord record = sources.get(i).next();
+                if (record != null) heads.add(new Head(record, i));
+            }
+        }
+
+        final Head head = heads.poll();
+        if (head == null) return null;
+
+        final ReplayRecord record = head.record;
+        final ReplayRecord nextRecord = sources.get(head.sourceIndex).next();
+        if (nextRecord != null)
+        {
+            head.record = nextRecord;
+            heads.add(head);
+        }
+
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        IOException closeException = null;
+        for (IReplaySource source : sources)
+        {
+            try
+            {
+                source.close();
+            } catch (IOException e)
+            {
+                if (closeException == null) closeException = e;
+            }
+        }
+
+        if (closeException != null) throw closeException;
+    }
+
+    /**
+     * The next record from one of the sources being merged.
+     */
+    private static final class Head
+    {
+        private ReplayRecord record;
+        private final int sourceIndex;
+
+        private Head(ReplayRecord record, int sourceIndex)
+        {
+            this.record = record;
+            this.sourceIndex = sourceIndex;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.CdmaRecord;
+import com.craxiom.messaging.GnssRecord;
+import com.craxiom.messaging.GsmRecord;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.UmtsRecord;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+
+/**
+ * One recorded survey record and the time it was originally captured, which is what the {@link SurveyReplayEngine}
+ * uses to pace the replay.
+ *
+ * @since 1.5.0
+ */
+public final class ReplayRecord
+{
+    /**
+     * The kinds of records that can be replayed, one for each of the survey record listener callbacks.
+     */
+    public enum Type
+    {
+        GSM, CDMA, UMTS, LTE, WIFI, BLUETOOTH, GNSS
+    }
+
+    private final long timeMs;
+    private final Type type;
+    private final Object record;
+
+    private ReplayRecord(long timeMs, Type type, Object record)
+    {
+        this.timeMs = timeMs;
+        this.type = type;
+        this.record = record;
+    }
+
+    public static ReplayRecord of(long timeMs, GsmRecord record)
+    {
+        return new ReplayRecord(timeMs, Type.GSM, record);
+    }
+
+    public static ReplayRecord of(long timeMs, CdmaRecord record)
+    {
+        return new ReplayRecord(timeMs, Type.CDMA, record);
+    }
+
+    public static ReplayRecord of(long timeMs, UmtsRecord record)
+    {
+        return new ReplayRecord(timeMs, Type.UMTS, record);
+    }
+
+    public static ReplayRecord of(long timeMs, LteRecord record)
+    {
+        return new ReplayRecord(timeMs, Type.LTE, record);
+    }
+
+    public static ReplayRecord of(long timeMs, WifiRecordWrapper record)
+    {
+        return new ReplayRecord(timeMs, Type.WIFI, record);
+    }
+
+    public static ReplayRecord of(long timeMs, BluetoothRecord record)
+    {
+        return new ReplayRecord(timeMs, Type.BLUETOOTH, record);
+    }
+
+    public static ReplayRecord of(long timeMs, GnssRecord record)
+    {
+        return new ReplayRecord(timeMs, Type.GNSS, record);
+    }
+
+    /**
+     * @return The time the record was captured, in milliseconds since the epoch.
+     */
+    public long getTimeMs()
+    {
+        return timeMs;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public GsmRecord getGsmRecord()
+    {
+        return (GsmRecord) record;
+    }
+
+    public CdmaRecord getCdmaRecord()
+    {
+        return (CdmaRecord) record;
+    }
+
+    public UmtsRecord getUmtsRecord()
+    {
+        return (UmtsRecord) record;
+    }
+
+    public LteRecord getLteRecord()
+    {
+        return (LteRecord) record;
+    }
+
+    public WifiRecordWrapper getWifiRecord()
+    {
+        return (WifiRecordWrapper) record;
+    }
+
+    public BluetoothRecord getBluetoothRecord()
+    {
+        return (BluetoothRecord) record;
+    }
+
+    public GnssRecord getGnssRecord()
+    {
+        return (GnssRecord) record;
+    }
+}
@@ -0,0 +1,146 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.networksurvey.util.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The results of a run of the {@link SurveyReplayEngine}: how many records were replayed, how fast, how far behind
+ * the schedule the replay fell, and how long each sink took to handle the records.
+ *
+ * @since 1.5.0
+ */
+public class ReplayStatistics
+{
+    private final long[] recordCounts;
+    private final long elapsedNanos;
+    private final LatencyHistogram scheduleLag;
+    private final List<SinkStatistics> sinkStatistics;
+
+    ReplayStatistics(long[] recordCounts, long elapsedNanos, LatencyHistogram scheduleLag, List<SinkStatistics> sinkStatistics)
+    {
+        this.recordCounts = recordCounts.clone();
+        this.elapsedNanos = elapsedNanos;
+        this.scheduleLag = scheduleLag;
+        this.sinkStatistics = Collections.unmodifiableList(sinkStatistics);
+    }
+
+    /**
+     * @return The total number of records replayed.
+     */
+    public long getRecordCount()
+    {
+        long total = 0;
+        for (long count : recordCounts)
+        {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return The number of records of the provided type that were replayed.
+     */
+    public long getRecordCount(ReplayRecord.Type type)
+    {
+        return recordCounts[type.ordinal()];
+    }
+
+    public double getElapsedMs()
+    {
+        return elapsedNanos / 1_000_000d;
+    }
+
+    /**
+     * @return The number of records replayed per second of wall clock time.
+     */
+    public double getRecordsPerSecond()
+    {
+        return elapsedNanos == 0 ? 0 : getRecordCount() * 1_000_000_000d / elapsedNanos;
+    }
+
+    /**
+     * @return How late each record was sent to the sinks compared to when it should have been sent at the replay
+     * speed. This grows when the sinks can't keep up with the replay speed.
+     */
+    public LatencyHistogram getScheduleLag()
+    {
+        return scheduleLag;
+    }
+
+    /**
+     * @return The statistics for each sink, in the order they were registered with the engine.
+     */
+    public List<SinkStatistics> getSinkStatistics()
+    {
+        return sinkStatistics;
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.US, "Replayed %d records in %.1f ms (%.1f records/s), schedule lag p50=%.1f ms p99=%.1f ms max=%.1f ms",
+                getRecordCount(), getElapsedMs(), getRecordsPerSecond(), scheduleLag.getPercentileMs(50),
+                scheduleLag.getPercentileMs(99), scheduleLag.getMaxMs()));
+
+        for (SinkStatistics sink : sinkStatistics)
+        {
+            builder.append('\n').append(sink);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * How long one sink took to handle the records sent to it. For the sinks that hand the records off to another
+     * thread (e.g. the GeoPackage loggers), this is only the time it took to hand them off.
+     */
+    public static class SinkStatistics
+    {
+        private final String name;
+        private final LatencyHistogram callLatency;
+        private final long errorCount;
+
+        SinkStatistics(String name, LatencyHistogram callLatency, long errorCount)
+        {
+            this.name = name;
+            this.callLatency = callLatency;
+            this.errorCount = errorCount;
+        }
+
+        /**
+         * @return The class name of the sink and the kind of listener it was registered as.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return The time each call to the sink took. A list of Wi-Fi or Bluetooth records is a single call.
+         */
+        public LatencyHistogram getCallLatency()
+        {
+            return callLatency;
+        }
+
+        /**
+         * @return The number of calls to the sink that threw an exception.
+         */
+        public long getErrorCount()
+        {
+            return errorCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format(Locale.US, "%s: %d calls, mean=%.3f ms p99=%.1f ms max=%.3f ms, %d errors",
+                    name, callLatency.getCount(), callLatency.getMeanMs(), callLatency.getPercentileMs(99),
+                    callLatency.getMaxMs(), errorCount);
+        }
+    }
+}
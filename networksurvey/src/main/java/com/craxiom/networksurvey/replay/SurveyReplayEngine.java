@@ -0,0 +1,289 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.networksurvey.listeners.IBluetoothSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import timber.log.Timber;
+
+/**
+ * Replays recorded survey records through the same listener interfaces that the
+ * {@link com.craxiom.networksurvey.services.SurveyRecordProcessor} uses to send new records to the sinks (the
+ * GeoPackage loggers, MQTT, the UI, etc), so that the sinks can be tested and benchmarked with real surveys without
+ * the radios.
+ * <p>
+ * The records are sent at the same pace they were captured ({@link #REAL_TIME}), N times faster, or as fast as the
+ * sinks can handle them ({@link #MAX_SPEED}). Wi-Fi and Bluetooth records captured within
+ * {@link #BATCH_WINDOW_MS} of each other are sent as a single list, like the results of a scan are.
+ * <p>
+ * The listeners should be registered before calling {@link #run()}, which blocks until the source is exhausted or
+ * {@link #stop()} is called.
+ *
+ * @since 1.5.0
+ */
+public class SurveyReplayEngine
+{
+    public static final double REAL_TIME = 1.0;
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    /**
+     * The records of a single Wi-Fi or Bluetooth scan are not all created in the same millisecond, so the records
+     * that are close together are grouped back into a scan.
+     */
+    static final long BATCH_WINDOW_MS = 100;
+
+    /**
+     * The longest the engine sleeps at a time, so that a call to {@link #stop()} does not have to wait for a long
+     * gap in the recording.
+     */
+    private static final long MAX_SLEEP_NANOS = 100_000_000L;
+
+    private final List<Sink<ICellularSurveyRecordListener>> cellularSinks = new CopyOnWriteArrayList<>();
+    private final List<Sink<IWifiSurveyRecordListener>> wifiSinks = new CopyOnWriteArrayList<>();
+    private final List<Sink<IBluetoothSurveyRecordListener>> bluetoothSinks = new CopyOnWriteArrayList<>();
+    private final List<Sink<IGnssSurveyRecordListener>> gnssSinks = new CopyOnWriteArrayList<>();
+
+    private final IReplaySource source;
+    private final double speed;
+    private final IReplayClock clock;
+
+    private volatile boolean stopped = false;
+
+    /**
+     * @param source The records to replay.
+     * @param speed  How many times faster than real time to replay the records, or {@link #MAX_SPEED}.
+     */
+    public SurveyReplayEngine(IReplaySource source, double speed)
+    {
+        this(source, speed, IReplayClock.SYSTEM);
+    }
+
+    /**
+     * @param source The records to replay.
+     * @param speed  How many times faster than real time to replay the records, or {@link #MAX_SPEED}.
+     * @param clock  The clock used to pace the replay and time the sinks.
+     */
+    public SurveyReplayEngine(IReplaySource source, double speed, IReplayClock clock)
+    {
+        if (!(speed > 0)) throw new IllegalArgumentException("The replay speed must be greater than 0: " + speed);
+
+        this.source = source;
+        this.speed = speed;
+        this.clock = clock;
+    }
+
+    public void registerCellularSurveyRecordListener(ICellularSurveyRecordListener listener)
+    {
+        cellularSinks.add(new Sink<>(listener, "Cellular"));
+    }
+
+    public void registerWifiSurveyRecordListener(IWifiSurveyRecordListener listener)
+    {
+        wifiSinks.add(new Sink<>(listener, "Wi-Fi"));
+    }
+
+    public void registerBluetoothSurveyRecordListener(IBluetoothSurveyRecordListener listener)
+    {
+        bluetoothSinks.add(new Sink<>(listener, "Bluetooth"));
+    }
+
+    public void registerGnssSurveyRecordListener(IGnssSurveyRecordListener listener)
+    {
+        gnssSinks.add(new Sink<>(listener, "GNSS"));
+    }
+
+    /**
+     * Stops the replay after the current record. This can be called from any thread.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Replays all the records from the source, and closes the source when done.
+     *
+     * @return The statistics for the replay.
+     * @throws IOException          If the records could not be read.
+     * @throws InterruptedException If the thread was interrupted while waiting to send a record.
+     */
+    public ReplayStatistics run() throws IOException, InterruptedException
+    {
+        final long[] recordCounts = new long[ReplayRecord.Type.values().length];
+        final LatencyHistogram scheduleLag = new LatencyHistogram();
+        final long startNanos = clock.nanoTime();
+
+        try
+        {
+            long firstRecordTimeMs = Long.MIN_VALUE;
+            ReplayRecord next = source.next();
+            while (next != null && !stopped)
+            {
+                final ReplayRecord record = next;
+                next = source.next();
+
+                if (firstRecordTimeMs == Long.MIN_VALUE) firstRecordTimeMs = record.getTimeMs();
+                waitForScheduledTime(startNanos, record.getTimeMs() - firstRecordTimeMs, scheduleLag);
+                if (stopped) break;
+
+                final ReplayRecord.Type type = record.getType();
+                switch (type)
+                {
+                    case GSM:
+                        notifySinks(cellularSinks, listener -> listener.onGsmSurveyRecord(record.getGsmRecord()));
+                        break;
+
+                    case CDMA:
+                        notifySinks(cellularSinks, listener -> listener.onCdmaSurveyRecord(record.getCdmaRecord()));
+                        break;
+
+                    case UMTS:
+                        notifySinks(cellularSinks, listener -> listener.onUmtsSurveyRecord(record.getUmtsRecord()));
+                        break;
+
+                    case LTE:
+                        notifySinks(cellularSinks, listener -> listener.onLteSurveyRecord(record.getLteRecord()));
+                        break;
+
+                    case WIFI:
+                    {
+                        final List<WifiRecordWrapper> wifiRecords = new ArrayList<>();
+                        wifiRecords.add(record.getWifiRecord());
+                        while (isInSameBatch(record, next))
+                        {
+                            wifiRecords.add(next.getWifiRecord());
+                            next = source.next();
+                        }
+
+                        recordCounts[type.ordinal()] += wifiRecords.size() - 1;
+                        notifySinks(wifiSinks, listener -> listener.onWifiBeaconSurveyRecords(wifiRecords));
+                        break;
+                    }
+
+                    case BLUETOOTH:
+                    {
+                        final List<BluetoothRecord> bluetoothRecords = new ArrayList<>();
+                        bluetoothRecords.add(record.getBluetoothRecord());
+                        while (isInSameBatch(record, next))
+                        {
+                            bluetoothRecords.add(next.getBluetoothRecord());
+                            next = source.next();
+                        }
+
+                        recordCounts[type.ordinal()] += bluetoothRecords.size() - 1;
+                        if (bluetoothRecords.size() == 1)
+                        {
+                            notifySinks(bluetoothSinks, listener -> listener.onBluetoothSurveyRecord(record.getBluetoothRecord()));
+                        } else
+                        {
+                            notifySinks(bluetoothSinks, listener -> listener.onBluetoothSurveyRecords(bluetoothRecords));
+                        }
+                        break;
+                    }
+
+                    case GNSS:
+                        notifySinks(gnssSinks, listener -> listener.onGnssSurveyRecord(record.getGnssRecord()));
+                        break;
+                }
+
+                recordCounts[type.ordinal()]++;
+            }
+        } finally
+        {
+            source.close();
+        }
+
+        final List<ReplayStatistics.SinkStatistics> sinkStatistics = new ArrayList<>();
+        addSinkStatistics(sinkStatistics, cellularSinks);
+        addSinkStatistics(sinkStatistics, wifiSinks);
+        addSinkStatistics(sinkStatistics, bluetoothSinks);
+        addSinkStatistics(sinkStatistics, gnssSinks);
+
+        return new ReplayStatistics(recordCounts, clock.nanoTime() - startNanos, scheduleLag, sinkStatistics);
+    }
+
+    /**
+     * Waits until it is time to send the record, and records how late it is sent.
+     *
+     * @param startNanos    The time the replay started.
+     * @param recordDelayMs How long after the first record the record was captured.
+     * @param scheduleLag   The histogram to record how late the record is in.
+     */
+    private void waitForScheduledTime(long startNanos, long recordDelayMs, LatencyHistogram scheduleLag) throws InterruptedException
+    {
+        if (speed == MAX_SPEED) return;
+
+        final long scheduledNanos = startNanos + (long) (Math.max(0, recordDelayMs) * 1_000_000d / speed);
+        long remainingNanos = scheduledNanos - clock.nanoTime();
+        while (remainingNanos > 0 && !stopped)
+        {
+            clock.sleepNanos(Math.min(remainingNanos, MAX_SLEEP_NANOS));
+            remainingNanos = scheduledNanos - clock.nanoTime();
+        }
+
+        scheduleLag.record(-remainingNanos);
+    }
+
+    private static boolean isInSameBatch(ReplayRecord first, ReplayRecord next)
+    {
+        return next != null && next.getType() == first.getType()
+                && next.getTimeMs() - first.getTimeMs() <= BATCH_WINDOW_MS;
+    }
+
+    /**
+     * Sends a record to each sink, timing each one separately.
+     */
+    private <L> void notifySinks(List<Sink<L>> sinks, Consumer<L> notification)
+    {
+        for (Sink<L> sink : sinks)
+        {
+            final long callStartNanos = clock.nanoTime();
+            try
+            {
+                notification.accept(sink.listener);
+            } catch (Exception e)
+            {
+                sink.errorCount.incrementAndGet();
+                Timber.e(e, "Unable to notify the %s of a replayed record because of an exception", sink.name);
+            }
+            sink.callLatency.record(clock.nanoTime() - callStartNanos);
+        }
+    }
+
+    private static <L> void addSinkStatistics(List<ReplayStatistics.SinkStatistics> statistics, List<Sink<L>> sinks)
+    {
+        for (Sink<L> sink : sinks)
+        {
+            statistics.add(new ReplayStatistics.SinkStatistics(sink.name, sink.callLatency, sink.errorCount.get()));
+        }
+    }
+
+    /**
+     * A listener registered with the engine and the timing of the calls to it.
+     */
+    private static final class Sink<L>
+    {
+        private final L listener;
+        private final String name;
+        private final LatencyHistogram callLatency = new LatencyHistogram();
+        private final AtomicLong errorCount = new AtomicLong();
+
+        private Sink(L listener, String listenerType)
+        {
+            this.listener = listener;
+            final String className = listener.getClass().getSimpleName();
+            name = (className.isEmpty() ? listener.getClass().getName() : className) + " (" + listenerType + ")";
+        }
+    }
+}
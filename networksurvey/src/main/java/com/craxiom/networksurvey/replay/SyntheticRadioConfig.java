@@ -0,0 +1,234 @@
+package com.craxiom.networksurvey.replay;
+
+/**
+ * The settings for a {@link SyntheticRadioEnvironment}: how many emitters of each kind there are, how often each radio
+ * is scanned, how quickly the emitters come and go, and how much their signals change between scans.
+ * <p>
+ * The setters return this object so that the settings can be chained, starting from one of the presets such as
+ * {@link #stadium()}.
+ *
+ * @since 1.5.0
+ */
+public class SyntheticRadioConfig
+{
+    private long seed = 1;
+    private long startTimeMs = 1_600_000_000_000L;
+    private long durationMs = 60 * 60_000L;
+    private double latitude = 35.1;
+    private double longitude = -80.8;
+
+    private int wifiAccessPointCount = 50;
+    private long wifiScanIntervalMs = 5_000;
+    private int bluetoothDeviceCount = 100;
+    private long bluetoothScanIntervalMs = 30_000;
+    private int lteCellCount = 6;
+    private long cellularScanIntervalMs = 5_000;
+
+    private double churnPerMinute = 0.05;
+    private float signalStepDb = 2f;
+    private int mcc = 310;
+    private int mnc = 260;
+
+    /**
+     * A crowded stadium: 500 Wi-Fi APs, 2,000 Bluetooth LE devices, and 20 LTE cells, with a fifth of the Wi-Fi APs and
+     * Bluetooth devices (mostly phones) replaced every minute as people come and go.
+     */
+    public static SyntheticRadioConfig stadium()
+    {
+        return new SyntheticRadioConfig()
+                .setWifiAccessPointCount(500)
+                .setBluetoothDeviceCount(2_000)
+                .setBluetoothScanIntervalMs(10_000)
+                .setLteCellCount(20)
+                .setChurnPerMinute(0.2);
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * @param seed The seed for the random number generator. The same seed and settings always generate the same
+     *             records.
+     */
+    public SyntheticRadioConfig setSeed(long seed)
+    {
+        this.seed = seed;
+        return this;
+    }
+
+    public long getStartTimeMs()
+    {
+        return startTimeMs;
+    }
+
+    /**
+     * @param startTimeMs The capture time of the first records, in milliseconds since the epoch.
+     */
+    public SyntheticRadioConfig setStartTimeMs(long startTimeMs)
+    {
+        this.startTimeMs = startTimeMs;
+        return this;
+    }
+
+    public long getDurationMs()
+    {
+        return durationMs;
+    }
+
+    /**
+     * @param durationMs How much survey time to generate records for.
+     */
+    public SyntheticRadioConfig setDurationMs(long durationMs)
+    {
+        this.durationMs = durationMs;
+        return this;
+    }
+
+    public double getLatitude()
+    {
+        return latitude;
+    }
+
+    public double getLongitude()
+    {
+        return longitude;
+    }
+
+    /**
+     * Sets where the survey starts. The device then walks slowly around this location.
+     */
+    public SyntheticRadioConfig setLocation(double latitude, double longitude)
+    {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        return this;
+    }
+
+    public int getWifiAccessPointCount()
+    {
+        return wifiAccessPointCount;
+    }
+
+    /**
+     * @param wifiAccessPointCount The number of Wi-Fi APs in view at any time, or 0 for no Wi-Fi records.
+     */
+    public SyntheticRadioConfig setWifiAccessPointCount(int wifiAccessPointCount)
+    {
+        this.wifiAccessPointCount = wifiAccessPointCount;
+        return this;
+    }
+
+    public long getWifiScanIntervalMs()
+    {
+        return wifiScanIntervalMs;
+    }
+
+    public SyntheticRadioConfig setWifiScanIntervalMs(long wifiScanIntervalMs)
+    {
+        this.wifiScanIntervalMs = wifiScanIntervalMs;
+        return this;
+    }
+
+    public int getBluetoothDeviceCount()
+    {
+        return bluetoothDeviceCount;
+    }
+
+    /**
+     * @param bluetoothDeviceCount The number of Bluetooth LE devices in view at any time, or 0 for no Bluetooth
+     *                             records.
+     */
+    public SyntheticRadioConfig setBluetoothDeviceCount(int bluetoothDeviceCount)
+    {
+        this.bluetoothDeviceCount = bluetoothDeviceCount;
+        return this;
+    }
+
+    public long getBluetoothScanIntervalMs()
+    {
+        return bluetoothScanIntervalMs;
+    }
+
+    public SyntheticRadioConfig setBluetoothScanIntervalMs(long bluetoothScanIntervalMs)
+    {
+        this.bluetoothScanIntervalMs = bluetoothScanIntervalMs;
+        return this;
+    }
+
+    public int getLteCellCount()
+    {
+        return lteCellCount;
+    }
+
+    /**
+     * @param lteCellCount The number of LTE cells in view (the serving cell and its neighbors), or 0 for no cellular
+     *                     records.
+     */
+    public SyntheticRadioConfig setLteCellCount(int lteCellCount)
+    {
+        this.lteCellCount = lteCellCount;
+        return this;
+    }
+
+    public long getCellularScanIntervalMs()
+    {
+        return cellularScanIntervalMs;
+    }
+
+    public SyntheticRadioConfig setCellularScanIntervalMs(long cellularScanIntervalMs)
+    {
+        this.cellularScanIntervalMs = cellularScanIntervalMs;
+        return this;
+    }
+
+    public double getChurnPerMinute()
+    {
+        return churnPerMinute;
+    }
+
+    /**
+     * @param churnPerMinute The fraction of the Wi-Fi APs and Bluetooth devices that are replaced by new ones each
+     *                       minute (e.g. 0.2 replaces a fifth of them). The LTE cells don't churn.
+     */
+    public SyntheticRadioConfig setChurnPerMinute(double churnPerMinute)
+    {
+        this.churnPerMinute = churnPerMinute;
+        return this;
+    }
+
+    public float getSignalStepDb()
+    {
+        return signalStepDb;
+    }
+
+    /**
+     * @param signalStepDb The most that the signal of an emitter can change between two scans.
+     */
+    public SyntheticRadioConfig setSignalStepDb(float signalStepDb)
+    {
+        this.signalStepDb = signalStepDb;
+        return this;
+    }
+
+    public int getMcc()
+    {
+        return mcc;
+    }
+
+    public int getMnc()
+    {
+        return mnc;
+    }
+
+    /**
+     * Sets the PLMN of the LTE cells.
+     */
+    public SyntheticRadioConfig setPlmn(int mcc, int mnc)
+    {
+        this.mcc = mcc;
+        this.mnc = mnc;
+        return this;
+    }
+}
@@ -0,0 +1,445 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.messaging.WifiBeaconRecordData;
+import com.craxiom.messaging.bluetooth.SupportedTechnologies;
+import com.craxiom.messaging.wifi.CipherSuite;
+import com.craxiom.messaging.wifi.EncryptionType;
+import com.craxiom.networksurvey.BuildConfig;
+import com.craxiom.networksurvey.constants.BluetoothMessageConstants;
+import com.craxiom.networksurvey.constants.LteMessageConstants;
+import com.craxiom.networksurvey.constants.WifiBeaconMessageConstants;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.util.IOUtils;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates the records that a survey would produce in a made up radio environment, so that the app can be load and
+ * soak tested with any number of emitters (e.g. a stadium full of phones) without the radios, and so that the tests
+ * are repeatable.
+ * <p>
+ * The records are the same as the ones the {@link com.craxiom.networksurvey.services.SurveyRecordProcessor} creates
+ * from the Android Wi-Fi scan results, Bluetooth LE scan results, and LTE cell info. Each radio is scanned at its
+ * own interval, and each scan contains every emitter of that kind that is in view. Between scans the signal of each
+ * emitter takes a bounded random walk, and some of the Wi-Fi APs and Bluetooth devices are replaced by new ones. The
+ * serving LTE cell is the strongest cell in each scan, and like on a real phone only the serving cell has the full
+ * cell identity.
+ * <p>
+ * The time is simulated, starting at {@link SyntheticRadioConfig#getStartTimeMs()}, so this source can be replayed at
+ * any speed with the {@link SurveyReplayEngine}. The same settings and seed always produce the same records.
+ *
+ * @since 1.5.0
+ */
+public class SyntheticRadioEnvironment implements IReplaySource
+{
+    static final float WIFI_MIN_DBM = -95f;
+    static final float WIFI_MAX_DBM = -30f;
+    static final float BLUETOOTH_MIN_DBM = -100f;
+    static final float BLUETOOTH_MAX_DBM = -40f;
+    static final float LTE_MIN_RSRP = -125f;
+    static final float LTE_MAX_RSRP = -70f;
+
+    private static final String DEVICE_SERIAL_NUMBER = "synthetic";
+    private static final int[] WIFI_FREQUENCIES_MHZ = {2412, 2437, 2462, 5180, 5200, 5220, 5240, 5745, 5765, 5785, 5805};
+    private static final String[] WIFI_SSIDS = {"Stadium Guest", "Stadium Staff", "Concessions", "Press Box", "Broadcast", ""};
+    private static final int LTE_EARFCN = 5230;
+    private static final int LTE_TAC = 12_345;
+
+    /**
+     * How far the device can wander from the starting location as it walks around.
+     */
+    private static final double MAX_WALK_RADIUS_M = 200;
+    private static final double WALKING_SPEED_MPS = 1.0;
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    private final SyntheticRadioConfig config;
+    private final Random random;
+    private final String missionId;
+    private final long endTimeMs;
+    private final ArrayDeque<ReplayRecord> pendingRecords = new ArrayDeque<>();
+
+    private final long[] wifiIds;
+    private final float[] wifiSignals;
+    private final long[] bluetoothIds;
+    private final float[] bluetoothSignals;
+    private final float[] lteSignals;
+
+    private long wifiAccessPointsCreated = 0;
+    private long bluetoothDevicesCreated = 0;
+
+    private long nextWifiScanMs;
+    private long nextBluetoothScanMs;
+    private long nextCellularScanMs;
+
+    private long locationTimeMs;
+    private double latitude;
+    private double longitude;
+    private double headingRadians = 0;
+
+    private int wifiRecordNumber = 1;
+    private int bluetoothRecordNumber = 1;
+    private int cellularRecordNumber = 1;
+    private int cellularGroupNumber = 0;
+
+    public SyntheticRadioEnvironment(SyntheticRadioConfig config)
+    {
+        this.config = config;
+        random = new Random(config.getSeed());
+        missionId = "NS Synthetic " + config.getSeed();
+
+        final long startTimeMs = config.getStartTimeMs();
+        endTimeMs = startTimeMs + config.getDurationMs();
+        nextWifiScanMs = startTimeMs;
+        nextBluetoothScanMs = startTimeMs;
+        nextCellularScanMs = startTimeMs;
+
+        locationTimeMs = startTimeMs;
+        latitude = config.getLatitude();
+        longitude = config.getLongitude();
+
+        wifiIds = new long[config.getWifiAccessPointCount()];
+        wifiSignals = new float[wifiIds.length];
+        for (int i = 0; i < wifiIds.length; i++)
+        {
+            wifiIds[i] = wifiAccessPointsCreated++;
+            wifiSignals[i] = randomSignal(WIFI_MIN_DBM, WIFI_MAX_DBM);
+        }
+
+        bluetoothIds = new long[config.getBluetoothDeviceCount()];
+        bluetoothSignals = new float[bluetoothIds.length];
+        for (int i = 0; i < bluetoothIds.length; i++)
+        {
+            bluetoothIds[i] = bluetoothDevicesCreated++;
+            bluetoothSignals[i] = randomSignal(BLUETOOTH_MIN_DBM, BLUETOOTH_MAX_DBM);
+        }
+
+        lteSignals = new float[config.getLteCellCount()];
+        for (int i = 0; i < lteSignals.length; i++)
+        {
+            lteSignals[i] = randomSignal(LTE_MIN_RSRP, LTE_MAX_RSRP);
+        }
+    }
+
+    @Override
+    public ReplayRecord next()
+    {
+        while (pendingRecords.isEmpty())
+        {
+            if (!generateNextScan()) return null;
+        }
+
+        return pendingRecords.poll();
+    }
+
+    @Override
+    public void close()
+    {
+        pendingRecords.clear();
+    }
+
+    /**
+     * @return The number of different Wi-Fi APs that have been in view so far, including the ones that churned out.
+     */
+    public long getWifiAccessPointsCreated()
+    {
+        return wifiAccessPointsCreated;
+    }
+
+    /**
+     * @return The number of different Bluetooth devices that have been in view so far, including the ones that churned
+     * out.
+     */
+    public long getBluetoothDevicesCreated()
+    {
+        return bluetoothDevicesCreated;
+    }
+
+    /**
+     * Generates the records of whichever radio is scanned next.
+     *
+     * @return False if the end of the survey has been reached.
+     */
+    private boolean generateNextScan()
+    {
+        final long wifiScanMs = wifiIds.length == 0 ? Long.MAX_VALUE : nextWifiScanMs;
+        final long bluetoothScanMs = bluetoothIds.length == 0 ? Long.MAX_VALUE : nextBluetoothScanMs;
+        final long cellularScanMs = lteSignals.length == 0 ? Long.MAX_VALUE : nextCellularScanMs;
+
+        final long scanTimeMs = Math.min(wifiScanMs, Math.min(bluetoothScanMs, cellularScanMs));
+        if (scanTimeMs >= endTimeMs) return false;
+
+        updateLocation(scanTimeMs);
+        final String deviceTime = IOUtils.getRfc3339String(ZonedDateTime.ofInstant(Instant.ofEpochMilli(scanTimeMs), ZoneOffset.UTC));
+
+        if (scanTimeMs == cellularScanMs)
+        {
+            generateCellularScan(scanTimeMs, deviceTime);
+            nextCellularScanMs += config.getCellularScanIntervalMs();
+        } else if (scanTimeMs == wifiScanMs)
+        {
+            generateWifiScan(scanTimeMs, deviceTime);
+            nextWifiScanMs += config.getWifiScanIntervalMs();
+        } else
+        {
+            generateBluetoothScan(scanTimeMs, deviceTime);
+            nextBluetoothScanMs += config.getBluetoothScanIntervalMs();
+        }
+
+        return true;
+    }
+
+    private void generateWifiScan(long scanTimeMs, String deviceTime)
+    {
+        final double churnProbability = getChurnProbability(config.getWifiScanIntervalMs());
+        for (int i = 0; i < wifiIds.length; i++)
+        {
+            if (scanTimeMs != config.getStartTimeMs() && random.nextDouble() < churnProbability)
+            {
+                wifiIds[i] = wifiAccessPointsCreated++;
+                wifiSignals[i] = randomSignal(WIFI_MIN_DBM, WIFI_MAX_DBM);
+            } else
+            {
+                wifiSignals[i] = walkSignal(wifiSignals[i], WIFI_MIN_DBM, WIFI_MAX_DBM);
+            }
+
+            pendingRecords.add(ReplayRecord.of(scanTimeMs, createWifiRecord(wifiIds[i], wifiSignals[i], deviceTime)));
+        }
+    }
+
+    private void generateBluetoothScan(long scanTimeMs, String deviceTime)
+    {
+        final double churnProbability = getChurnProbability(config.getBluetoothScanIntervalMs());
+        for (int i = 0; i < bluetoothIds.length; i++)
+        {
+            if (scanTimeMs != config.getStartTimeMs() && random.nextDouble() < churnProbability)
+            {
+                bluetoothIds[i] = bluetoothDevicesCreated++;
+                bluetoothSignals[i] = randomSignal(BLUETOOTH_MIN_DBM, BLUETOOTH_MAX_DBM);
+            } else
+            {
+                bluetoothSignals[i] = walkSignal(bluetoothSignals[i], BLUETOOTH_MIN_DBM, BLUETOOTH_MAX_DBM);
+            }
+
+            pendingRecords.add(ReplayRecord.of(scanTimeMs, createBluetoothRecord(bluetoothIds[i], bluetoothSignals[i], deviceTime)));
+        }
+    }
+
+    private void generateCellularScan(long scanTimeMs, String deviceTime)
+    {
+        int servingCell = 0;
+        for (int i = 0; i < lteSignals.length; i++)
+        {
+            lteSignals[i] = walkSignal(lteSignals[i], LTE_MIN_RSRP, LTE_MAX_RSRP);
+            if (lteSignals[i] > lteSignals[servingCell]) servingCell = i;
+        }
+
+        // Like the Android cell info, the serving cell is first
+        cellularGroupNumber++;
+        pendingRecords.add(ReplayRecord.of(scanTimeMs, createLteRecord(servingCell, true, deviceTime)));
+        for (int i = 0; i < lteSignals.length; i++)
+        {
+            if (i != servingCell) pendingRecords.add(ReplayRecord.of(scanTimeMs, createLteRecord(i, false, deviceTime)));
+        }
+    }
+
+    private WifiRecordWrapper createWifiRecord(long id, float signalStrength, String deviceTime)
+    {
+        final WifiBeaconRecordData.Builder dataBuilder = WifiBeaconRecordData.newBuilder();
+        setCommonFields(dataBuilder, deviceTime);
+        dataBuilder.setRecordNumber(wifiRecordNumber++);
+
+        dataBuilder.setBssid(getWifiBssid(id));
+        dataBuilder.setSignalStrength(FloatValue.newBuilder().setValue(Math.round(signalStrength)).build());
+
+        final String ssid = WIFI_SSIDS[(int) (id % WIFI_SSIDS.length)];
+        if (!ssid.isEmpty()) dataBuilder.setSsid(ssid);
+
+        final int frequency = WIFI_FREQUENCIES_MHZ[(int) (id % WIFI_FREQUENCIES_MHZ.length)];
+        dataBuilder.setFrequencyMhz(Int32Value.newBuilder().setValue(frequency).build());
+        dataBuilder.setChannel(Int32Value.newBuilder().setValue(frequency < 5000 ? (frequency - 2407) / 5 : (frequency - 5000) / 5).build());
+
+        // Most APs are secured, but one in four is open
+        final boolean open = id % 4 == 0;
+        dataBuilder.setEncryptionType(open ? EncryptionType.OPEN : EncryptionType.WPA2);
+        dataBuilder.setWps(BoolValue.newBuilder().setValue(false).build());
+        dataBuilder.addCipherSuites(open ? CipherSuite.OPEN : CipherSuite.CCMP);
+
+        final WifiBeaconRecord.Builder recordBuilder = WifiBeaconRecord.newBuilder();
+        recordBuilder.setMessageType(WifiBeaconMessageConstants.WIFI_BEACON_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return new WifiRecordWrapper(recordBuilder.build(), open ? "[ESS]" : "[WPA2-PSK-CCMP][ESS]");
+    }
+
+    private BluetoothRecord createBluetoothRecord(long id, float signalStrength, String deviceTime)
+    {
+        final BluetoothRecordData.Builder dataBuilder = BluetoothRecordData.newBuilder();
+        setCommonFields(dataBuilder, deviceTime);
+        dataBuilder.setRecordNumber(bluetoothRecordNumber++);
+
+        dataBuilder.setSourceAddress(getBluetoothAddress(id));
+        dataBuilder.setSignalStrength(FloatValue.newBuilder().setValue(Math.round(signalStrength)).build());
+        dataBuilder.setSupportedTechnologies(SupportedTechnologies.LE);
+
+        // Only some devices advertise a name
+        if (id % 3 == 0) dataBuilder.setOtaDeviceName("Device " + id);
+
+        final BluetoothRecord.Builder recordBuilder = BluetoothRecord.newBuilder();
+        recordBuilder.setMessageType(BluetoothMessageConstants.BLUETOOTH_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private LteRecord createLteRecord(int cellIndex, boolean servingCell, String deviceTime)
+    {
+        final LteRecordData.Builder dataBuilder = LteRecordData.newBuilder();
+        setCommonFields(dataBuilder, deviceTime);
+        dataBuilder.setRecordNumber(cellularRecordNumber++);
+        dataBuilder.setGroupNumber(cellularGroupNumber);
+        dataBuilder.setServingCell(BoolValue.newBuilder().setValue(servingCell).build());
+
+        if (servingCell)
+        {
+            // Three sectors per eNodeB
+            final int eci = ((1_000 + cellIndex / 3) << 8) | (cellIndex % 3 + 1);
+            dataBuilder.setMcc(Int32Value.newBuilder().setValue(config.getMcc()).build());
+            dataBuilder.setMnc(Int32Value.newBuilder().setValue(config.getMnc()).build());
+            dataBuilder.setTac(Int32Value.newBuilder().setValue(LTE_TAC).build());
+            dataBuilder.setEci(Int32Value.newBuilder().setValue(eci).build());
+        }
+
+        final float rsrp = lteSignals[cellIndex];
+        dataBuilder.setEarfcn(Int32Value.newBuilder().setValue(LTE_EARFCN).build());
+        dataBuilder.setPci(Int32Value.newBuilder().setValue(cellIndex * 3 % 504).build());
+        dataBuilder.setRsrp(FloatValue.newBuilder().setValue(Math.round(rsrp)).build());
+
+        // The quality follows the power, from -20 dB at the weakest to -3 dB at the strongest
+        final float rsrq = -20f + 17f * (rsrp - LTE_MIN_RSRP) / (LTE_MAX_RSRP - LTE_MIN_RSRP);
+        dataBuilder.setRsrq(FloatValue.newBuilder().setValue(Math.round(rsrq)).build());
+
+        final LteRecord.Builder recordBuilder = LteRecord.newBuilder();
+        recordBuilder.setMessageType(LteMessageConstants.LTE_RECORD_MESSAGE_TYPE);
+        recordBuilder.setVersion(BuildConfig.MESSAGING_API_VERSION);
+        recordBuilder.setData(dataBuilder);
+
+        return recordBuilder.build();
+    }
+
+    private void setCommonFields(WifiBeaconRecordData.Builder dataBuilder, String deviceTime)
+    {
+        dataBuilder.setDeviceSerialNumber(DEVICE_SERIAL_NUMBER);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setMissionId(missionId);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+    }
+
+    private void setCommonFields(BluetoothRecordData.Builder dataBuilder, String deviceTime)
+    {
+        dataBuilder.setDeviceSerialNumber(DEVICE_SERIAL_NUMBER);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setMissionId(missionId);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+    }
+
+    private void setCommonFields(LteRecordData.Builder dataBuilder, String deviceTime)
+    {
+        dataBuilder.setDeviceSerialNumber(DEVICE_SERIAL_NUMBER);
+        dataBuilder.setDeviceTime(deviceTime);
+        dataBuilder.setMissionId(missionId);
+        dataBuilder.setLatitude(latitude);
+        dataBuilder.setLongitude(longitude);
+    }
+
+    /**
+     * Walks the device at a constant speed in a slowly changing direction, turning back toward the starting location
+     * whenever it gets too far away.
+     */
+    private void updateLocation(long timeMs)
+    {
+        final double distanceM = (timeMs - locationTimeMs) / 1000d * WALKING_SPEED_MPS;
+        locationTimeMs = timeMs;
+        if (distanceM <= 0) return;
+
+        final double metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(config.getLatitude()));
+        final double northM = (latitude - config.getLatitude()) * METERS_PER_DEGREE;
+        final double eastM = (longitude - config.getLongitude()) * metersPerDegreeLongitude;
+
+        if (Math.hypot(northM, eastM) > MAX_WALK_RADIUS_M)
+        {
+            headingRadians = Math.atan2(-eastM, -northM);
+        } else
+        {
+            headingRadians += (random.nextDouble() - 0.5) * 0.5;
+        }
+
+        latitude += distanceM * Math.cos(headingRadians) / METERS_PER_DEGREE;
+        longitude += distanceM * Math.sin(headingRadians) / metersPerDegreeLongitude;
+    }
+
+    /**
+     * @return The probability that an emitter is replaced in a scan, such that the configured fraction is replaced
+     * each minute.
+     */
+    private double getChurnProbability(long scanIntervalMs)
+    {
+        final double churnPerMinute = Math.min(1, Math.max(0, config.getChurnPerMinute()));
+        return 1 - Math.pow(1 - churnPerMinute, scanIntervalMs / 60_000d);
+    }
+
+    private float randomSignal(float min, float max)
+    {
+        return min + random.nextFloat() * (max - min);
+    }
+
+    /**
+     * Takes one step of a random walk that is reflected back in to the provided range.
+     */
+    private float walkSignal(float signal, float min, float max)
+    {
+        float next = signal + (random.nextFloat() * 2 - 1) * config.getSignalStepDb();
+        if (next > max) next = 2 * max - next;
+        if (next < min) next = 2 * min - next;
+        return Math.max(min, Math.min(max, next));
+    }
+
+    /**
+     * @return A locally administered MAC address that is unique for the ID.
+     */
+    static String getWifiBssid(long id)
+    {
+        return formatAddress(0x02_00_00_00_00_00L | id);
+    }
+
+    /**
+     * @return A random static Bluetooth address (the two most significant bits are set) that is unique for the ID.
+     */
+    static String getBluetoothAddress(long id)
+    {
+        return formatAddress(0xC0_00_00_00_00_00L | id);
+    }
+
+    private static String formatAddress(long address)
+    {
+        return String.format(Locale.US, "%02X:%02X:%02X:%02X:%02X:%02X",
+                (address >> 40) & 0xFF, (address >> 32) & 0xFF, (address >> 24) & 0xFF,
+                (address >> 16) & 0xFF, (address >> 8) & 0xFF, address & 0xFF);
+    }
+}
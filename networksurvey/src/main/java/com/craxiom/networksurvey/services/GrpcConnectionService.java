@@ -24,19 +24,23 @@ import android.widget.Toast;
 import androidx.core.app.NotificationCompat;
 import androidx.navigation.NavDeepLinkBuilder;
 
+import com.craxiom.messaging.BluetoothRecord;
 import com.craxiom.messaging.CdmaRecord;
 import com.craxiom.messaging.DeviceStatus;
 import com.craxiom.messaging.DeviceStatusData;
+import com.craxiom.messaging.GnssRecord;
 import com.craxiom.messaging.GsmRecord;
 import com.craxiom.messaging.LteRecord;
 import com.craxiom.messaging.PhoneState;
 import com.craxiom.messaging.UmtsRecord;
 import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.messaging.grpc.BluetoothSurveyResponse;
 import com.craxiom.messaging.grpc.CdmaSurveyResponse;
 import com.craxiom.messaging.grpc.ConnectionHandshakeGrpc;
 import com.craxiom.messaging.grpc.ConnectionReply;
 import com.craxiom.messaging.grpc.ConnectionRequest;
 import com.craxiom.messaging.grpc.DeviceStatusGrpc;
+import com.craxiom.messaging.grpc.GnssSurveyResponse;
 import com.craxiom.messaging.grpc.GsmSurveyResponse;
 import com.craxiom.messaging.grpc.LteSurveyResponse;
 import com.craxiom.messaging.grpc.StatusUpdateReply;
@@ -50,12 +54,15 @@ import com.craxiom.networksurvey.GpsListener;
 import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.DeviceStatusMessageConstants;
 import com.craxiom.networksurvey.constants.NetworkSurveyConstants;
+import com.craxiom.networksurvey.listeners.IBluetoothSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.IDeviceStatusListener;
+import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
 import com.craxiom.networksurvey.messaging.NetworkSurveyStatusGrpc;
 import com.craxiom.networksurvey.model.WifiRecordWrapper;
 import com.craxiom.networksurvey.util.IOUtils;
+import com.craxiom.networksurvey.util.LegacyConversionCache;
 import com.craxiom.networksurvey.util.LegacyRecordConversion;
 import com.google.protobuf.Int32Value;
 
@@ -63,20 +70,21 @@ import java.lang.ref.WeakReference;
 import java.net.ConnectException;
 import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import io.grpc.ManagedChannel;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.android.AndroidChannelBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import timber.log.Timber;
 
@@ -85,12 +93,22 @@ import timber.log.Timber;
  *
  * @since 0.0.9
  */
-public class GrpcConnectionService extends Service implements IDeviceStatusListener, ICellularSurveyRecordListener, IWifiSurveyRecordListener
+public class GrpcConnectionService extends Service implements IDeviceStatusListener, ICellularSurveyRecordListener,
+        IWifiSurveyRecordListener, IBluetoothSurveyRecordListener, IGnssSurveyRecordListener
 {
     public static final long RECONNECTION_ATTEMPT_BACKOFF_TIME = 10_000L;
     private static final int DEVICE_STATUS_REFRESH_RATE_MS = 15_000;
-    private static final int NUMBER_OF_QUEUES_TO_PROCESS = 6;
+    private static final int NUMBER_OF_QUEUES_TO_PROCESS = 9;
     private static final int QUEUE_PROCESSING_SLEEP_TIME = 1_000;
+    private static final int FLOW_CONTROL_SLEEP_TIME = 50;
+
+    /**
+     * The maximum number of records that are held for each stream. If the server (or the network) can't keep up then
+     * the oldest records are dropped so that a slow stream can't consume all the memory on the device.
+     *
+     * @since 1.5.0
+     */
+    private static final int MAX_QUEUE_SIZE = 1_000;
 
     private static ConnectionState connectionState = ConnectionState.DISCONNECTED;
 
@@ -100,6 +118,9 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
     private static final String HOST_PARAMETER = "com.craxiom.networksurvey.services.extra.host";
     private static final String PORT_PARAMETER = "com.craxiom.networksurvey.services.extra.port";
     private static final String DEVICE_NAME_PARAMETER = "com.craxiom.networksurvey.services.extra.devicename";
+    private static final String BLUETOOTH_STREAM_PARAMETER = "com.craxiom.networksurvey.services.extra.bluetoothstream";
+    private static final String GNSS_STREAM_PARAMETER = "com.craxiom.networksurvey.services.extra.gnssstream";
+    private static final String DEVICE_STATUS_STREAM_PARAMETER = "com.craxiom.networksurvey.services.extra.devicestatusstream";
 
     private final ConnectionServiceBinder connectionServiceBinder;
     private final Handler uiThreadHandler;
@@ -109,34 +130,42 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
 
     private final ScheduledExecutorService executorService;
 
-    private final ConcurrentLinkedQueue<DeviceStatus> deviceStatusQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<GsmRecord> gsmRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<CdmaRecord> cdmaRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<UmtsRecord> umtsRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<LteRecord> lteRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<WifiBeaconRecord> wifiBeaconRecordQueue = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<DeviceStatus> deviceStatusQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<PhoneState> phoneStateQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<GsmRecord> gsmRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<CdmaRecord> cdmaRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<UmtsRecord> umtsRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<LteRecord> lteRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<WifiBeaconRecord> wifiBeaconRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<BluetoothRecord> bluetoothRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
+    private final BlockingQueue<GnssRecord> gnssRecordQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
 
     private final List<IConnectionStateListener> grpcConnectionListeners = new CopyOnWriteArrayList<>();
 
     // Old connection approach, delete this when we can update all the grpc code
-    private final ConcurrentLinkedQueue<com.craxiom.networksurvey.messaging.DeviceStatus> oldDeviceStatusQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<com.craxiom.networksurvey.messaging.GsmRecord> oldGsmRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<com.craxiom.networksurvey.messaging.CdmaRecord> oldCdmaRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<com.craxiom.networksurvey.messaging.UmtsRecord> oldUmtsRecordQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<com.craxiom.networksurvey.messaging.LteRecord> oldLteRecordQueue = new ConcurrentLinkedQueue<>();
-    private GrpcTask<com.craxiom.networksurvey.messaging.DeviceStatus, com.craxiom.networksurvey.messaging.StatusUpdateReply> oldDeviceStatusGrpcTask;
-    private GrpcTask<com.craxiom.networksurvey.messaging.GsmRecord, com.craxiom.networksurvey.messaging.GsmSurveyResponse> oldGsmRecordGrpcTask;
-    private GrpcTask<com.craxiom.networksurvey.messaging.CdmaRecord, com.craxiom.networksurvey.messaging.CdmaSurveyResponse> oldCdmaRecordGrpcTask;
-    private GrpcTask<com.craxiom.networksurvey.messaging.UmtsRecord, com.craxiom.networksurvey.messaging.UmtsSurveyResponse> oldUmtsRecordGrpcTask;
-    private GrpcTask<com.craxiom.networksurvey.messaging.LteRecord, com.craxiom.networksurvey.messaging.LteSurveyResponse> oldLteRecordGrpcTask;
+    // The old tasks consume the same queues as the new tasks, and the records are only converted to the legacy format
+    // on the sending thread of a stream that was actually opened with a legacy server.
+    private final LegacyConversionCache<DeviceStatus, com.craxiom.networksurvey.messaging.DeviceStatus> deviceStatusConversionCache = new LegacyConversionCache<>(LegacyRecordConversion::convertDeviceStatus);
+    private final LegacyConversionCache<GsmRecord, com.craxiom.networksurvey.messaging.GsmRecord> gsmConversionCache = new LegacyConversionCache<>(LegacyRecordConversion::convertGsmRecord);
+    private final LegacyConversionCache<CdmaRecord, com.craxiom.networksurvey.messaging.CdmaRecord> cdmaConversionCache = new LegacyConversionCache<>(LegacyRecordConversion::convertCdmaRecord);
+    private final LegacyConversionCache<UmtsRecord, com.craxiom.networksurvey.messaging.UmtsRecord> umtsConversionCache = new LegacyConversionCache<>(LegacyRecordConversion::convertUmtsRecord);
+    private final LegacyConversionCache<LteRecord, com.craxiom.networksurvey.messaging.LteRecord> lteConversionCache = new LegacyConversionCache<>(LegacyRecordConversion::convertLteRecord);
+    private GrpcTask<DeviceStatus, com.craxiom.networksurvey.messaging.DeviceStatus, com.craxiom.networksurvey.messaging.StatusUpdateReply> oldDeviceStatusGrpcTask;
+    private GrpcTask<GsmRecord, com.craxiom.networksurvey.messaging.GsmRecord, com.craxiom.networksurvey.messaging.GsmSurveyResponse> oldGsmRecordGrpcTask;
+    private GrpcTask<CdmaRecord, com.craxiom.networksurvey.messaging.CdmaRecord, com.craxiom.networksurvey.messaging.CdmaSurveyResponse> oldCdmaRecordGrpcTask;
+    private GrpcTask<UmtsRecord, com.craxiom.networksurvey.messaging.UmtsRecord, com.craxiom.networksurvey.messaging.UmtsSurveyResponse> oldUmtsRecordGrpcTask;
+    private GrpcTask<LteRecord, com.craxiom.networksurvey.messaging.LteRecord, com.craxiom.networksurvey.messaging.LteSurveyResponse> oldLteRecordGrpcTask;
 
     // New connection approach
-    private GrpcTask<DeviceStatus, StatusUpdateReply> deviceStatusGrpcTask;
-    private GrpcTask<GsmRecord, GsmSurveyResponse> gsmRecordGrpcTask;
-    private GrpcTask<CdmaRecord, CdmaSurveyResponse> cdmaRecordGrpcTask;
-    private GrpcTask<UmtsRecord, UmtsSurveyResponse> umtsRecordGrpcTask;
-    private GrpcTask<LteRecord, LteSurveyResponse> lteRecordGrpcTask;
-    private GrpcTask<WifiBeaconRecord, WifiBeaconSurveyResponse> wifiBeaconRecordGrpcTask;
+    private GrpcTask<DeviceStatus, DeviceStatus, StatusUpdateReply> deviceStatusGrpcTask;
+    private GrpcTask<PhoneState, PhoneState, StatusUpdateReply> phoneStateGrpcTask;
+    private GrpcTask<GsmRecord, GsmRecord, GsmSurveyResponse> gsmRecordGrpcTask;
+    private GrpcTask<CdmaRecord, CdmaRecord, CdmaSurveyResponse> cdmaRecordGrpcTask;
+    private GrpcTask<UmtsRecord, UmtsRecord, UmtsSurveyResponse> umtsRecordGrpcTask;
+    private GrpcTask<LteRecord, LteRecord, LteSurveyResponse> lteRecordGrpcTask;
+    private GrpcTask<WifiBeaconRecord, WifiBeaconRecord, WifiBeaconSurveyResponse> wifiBeaconRecordGrpcTask;
+    private GrpcTask<BluetoothRecord, BluetoothRecord, BluetoothSurveyResponse> bluetoothRecordGrpcTask;
+    private GrpcTask<GnssRecord, GnssRecord, GnssSurveyResponse> gnssRecordGrpcTask;
     private ManagedChannel channel;
     private final AtomicInteger deviceStatusGeneratorTaskId = new AtomicInteger();
 
@@ -153,6 +182,14 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
     private String deviceId = "";
     private Handler deviceStatusReportHandler;
 
+    /**
+     * The optional streams that the user enabled for this connection. Each one requires its own scanning to be started
+     * in the {@link NetworkSurveyService}, so they are only registered for when the user asked for them.
+     */
+    private volatile boolean bluetoothStreamEnabled = false;
+    private volatile boolean gnssStreamEnabled = false;
+    private volatile boolean deviceStatusStreamEnabled = false;
+
     /**
      * To support both the new and old gRPC connections, we keep track of if we were able to use the newer connection
      * setup. Eventually we can get rid of this, but for now we support both.
@@ -191,13 +228,19 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
      * Starts this service to connect to a remote gRPC server with the given parameters. If
      * the service is already performing a task this action will be queued.
      *
-     * @param context    The context to use to create the service intent.
-     * @param host       The Host Name or IP Address of the remote gRPC server.
-     * @param port       The Port Number of the gRPC server.
-     * @param deviceName The name that represents this device to the gRPC server.
+     * @param context                   The context to use to create the service intent.
+     * @param host                      The Host Name or IP Address of the remote gRPC server.
+     * @param port                      The Port Number of the gRPC server.
+     * @param deviceName                The name that represents this device to the gRPC server.
+     * @param bluetoothStreamEnabled    True to stream the Bluetooth records to the server.
+     * @param gnssStreamEnabled         True to stream the GNSS records to the server.
+     * @param deviceStatusStreamEnabled True to stream the device status and phone state messages from the survey
+     *                                  service to the server, in addition to the connection's own device status.
      * @see IntentService
      */
-    public static void connectToGrpcServer(Context context, String host, int port, String deviceName)
+    public static void connectToGrpcServer(Context context, String host, int port, String deviceName,
+                                           boolean bluetoothStreamEnabled, boolean gnssStreamEnabled,
+                                           boolean deviceStatusStreamEnabled)
     {
         Timber.d("Creating the ACTION_CONNECT intent to kick off the gRPC connection");
 
@@ -206,6 +249,9 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
         intent.putExtra(HOST_PARAMETER, host);
         intent.putExtra(PORT_PARAMETER, port);
         intent.putExtra(DEVICE_NAME_PARAMETER, deviceName);
+        intent.putExtra(BLUETOOTH_STREAM_PARAMETER, bluetoothStreamEnabled);
+        intent.putExtra(GNSS_STREAM_PARAMETER, gnssStreamEnabled);
+        intent.putExtra(DEVICE_STATUS_STREAM_PARAMETER, deviceStatusStreamEnabled);
         context.startService(intent);
     }
 
@@ -259,6 +305,10 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
                 } else
                 {
                     userCanceled = false;
+                    bluetoothStreamEnabled = intent.getBooleanExtra(BLUETOOTH_STREAM_PARAMETER, false);
+                    gnssStreamEnabled = intent.getBooleanExtra(GNSS_STREAM_PARAMETER, false);
+                    deviceStatusStreamEnabled = intent.getBooleanExtra(DEVICE_STATUS_STREAM_PARAMETER, false);
+                    registerSurveyRecordListeners();
                     connectToGrpcServer(host, port, deviceName, false);
                 }
             } else if (ACTION_DISCONNECT.equals(action))
@@ -301,91 +351,98 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
     @Override
     public void onDeviceStatus(DeviceStatus deviceStatus)
     {
-        if (isConnected() && deviceStatus != null)
+        if (isConnected() && deviceStatus != null && (isTaskRunning(deviceStatusGrpcTask) || isTaskRunning(oldDeviceStatusGrpcTask)))
         {
-            if (deviceStatusGrpcTask != null && deviceStatusGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
+            // The device status messages from the survey service don't know about the gRPC device name
+            if (!deviceName.equals(deviceStatus.getData().getDeviceName()))
             {
-                deviceStatusQueue.add(deviceStatus);
-            } else if (oldConnectionApproach && oldDeviceStatusGrpcTask != null && oldDeviceStatusGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                oldDeviceStatusQueue.add(LegacyRecordConversion.convertDeviceStatus(deviceStatus));
+                deviceStatus = deviceStatus.toBuilder()
+                        .setData(deviceStatus.getData().toBuilder().setDeviceName(deviceName))
+                        .build();
             }
+
+            enqueue(deviceStatusQueue, deviceStatus);
         }
     }
 
     @Override
     public void onPhoneState(PhoneState phoneState)
     {
-        // No-op... for now
+        if (isConnected() && phoneState != null && isTaskRunning(phoneStateGrpcTask))
+        {
+            enqueue(phoneStateQueue, phoneState);
+        }
     }
 
     @Override
     public void onGsmSurveyRecord(GsmRecord gsmRecord)
     {
-        if (isConnected() && gsmRecord != null)
+        if (isConnected() && gsmRecord != null && (isTaskRunning(gsmRecordGrpcTask) || isTaskRunning(oldGsmRecordGrpcTask)))
         {
-            if (gsmRecordGrpcTask != null && gsmRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                gsmRecordQueue.add(gsmRecord);
-            } else if (oldConnectionApproach && oldGsmRecordGrpcTask != null && oldGsmRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                oldGsmRecordQueue.add(LegacyRecordConversion.convertGsmRecord(gsmRecord));
-            }
+            enqueue(gsmRecordQueue, gsmRecord);
         }
     }
 
     @Override
     public void onCdmaSurveyRecord(CdmaRecord cdmaRecord)
     {
-        if (isConnected() && cdmaRecord != null)
+        if (isConnected() && cdmaRecord != null && (isTaskRunning(cdmaRecordGrpcTask) || isTaskRunning(oldCdmaRecordGrpcTask)))
         {
-            if (cdmaRecordGrpcTask != null && cdmaRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                cdmaRecordQueue.add(cdmaRecord);
-            } else if (oldConnectionApproach && oldCdmaRecordGrpcTask != null && oldCdmaRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                oldCdmaRecordQueue.add(LegacyRecordConversion.convertCdmaRecord(cdmaRecord));
-            }
+            enqueue(cdmaRecordQueue, cdmaRecord);
         }
     }
 
     @Override
     public void onUmtsSurveyRecord(UmtsRecord umtsRecord)
     {
-        if (isConnected() && umtsRecord != null)
+        if (isConnected() && umtsRecord != null && (isTaskRunning(umtsRecordGrpcTask) || isTaskRunning(oldUmtsRecordGrpcTask)))
         {
-            if (umtsRecordGrpcTask != null && umtsRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                umtsRecordQueue.add(umtsRecord);
-            } else if (oldConnectionApproach && oldUmtsRecordGrpcTask != null && oldUmtsRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                oldUmtsRecordQueue.add(LegacyRecordConversion.convertUmtsRecord(umtsRecord));
-            }
+            enqueue(umtsRecordQueue, umtsRecord);
         }
     }
 
     @Override
     public void onLteSurveyRecord(LteRecord lteRecord)
     {
-        if (isConnected() && lteRecord != null)
+        if (isConnected() && lteRecord != null && (isTaskRunning(lteRecordGrpcTask) || isTaskRunning(oldLteRecordGrpcTask)))
         {
-            if (lteRecordGrpcTask != null && lteRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                lteRecordQueue.add(lteRecord);
-            } else if (oldConnectionApproach && oldLteRecordGrpcTask != null && oldLteRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
-            {
-                oldLteRecordQueue.add(LegacyRecordConversion.convertLteRecord(lteRecord));
-            }
+            enqueue(lteRecordQueue, lteRecord);
         }
     }
 
     @Override
     public void onWifiBeaconSurveyRecords(List<WifiRecordWrapper> wifiBeaconRecords)
     {
-        if (isConnected() && wifiBeaconRecordGrpcTask != null && wifiBeaconRecordGrpcTask.getStatus() != AsyncTask.Status.FINISHED)
+        if (isConnected() && isTaskRunning(wifiBeaconRecordGrpcTask))
+        {
+            wifiBeaconRecords.forEach(wifiRecord -> enqueue(wifiBeaconRecordQueue, wifiRecord.getWifiBeaconRecord()));
+        }
+    }
+
+    @Override
+    public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
+    {
+        if (isConnected() && bluetoothRecord != null && isTaskRunning(bluetoothRecordGrpcTask))
         {
-            wifiBeaconRecordQueue.addAll(
-                    wifiBeaconRecords.stream().map(WifiRecordWrapper::getWifiBeaconRecord).collect(Collectors.toList()));
+            enqueue(bluetoothRecordQueue, bluetoothRecord);
+        }
+    }
+
+    @Override
+    public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
+    {
+        if (isConnected() && isTaskRunning(bluetoothRecordGrpcTask))
+        {
+            bluetoothRecords.forEach(bluetoothRecord -> enqueue(bluetoothRecordQueue, bluetoothRecord));
+        }
+    }
+
+    @Override
+    public void onGnssSurveyRecord(GnssRecord gnssRecord)
+    {
+        if (isConnected() && gnssRecord != null && isTaskRunning(gnssRecordGrpcTask))
+        {
+            enqueue(gnssRecordQueue, gnssRecord);
         }
     }
 
@@ -419,6 +476,32 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
         return connectionState == ConnectionState.CONNECTED;
     }
 
+    /**
+     * Adds the record to the provided queue. If the queue is full because the remote server is not keeping up, then
+     * the oldest records are dropped to make room for the new one.
+     *
+     * @param queue  The queue to add the record to.
+     * @param record The record to add.
+     * @since 1.5.0
+     */
+    private static <T> void enqueue(BlockingQueue<T> queue, T record)
+    {
+        while (!queue.offer(record))
+        {
+            queue.poll();
+        }
+    }
+
+    /**
+     * @param grpcTask The task to check, which can be null.
+     * @return True if the task has been created and it has not yet finished, false otherwise.
+     * @since 1.5.0
+     */
+    private static boolean isTaskRunning(GrpcTask<?, ?, ?> grpcTask)
+    {
+        return grpcTask != null && grpcTask.getStatus() != AsyncTask.Status.FINISHED;
+    }
+
     /**
      * Connect to a gRPC server by establishing the {@link ManagedChannel}, and then kick off the appropriate tasks so
      * that streaming is started.
@@ -474,45 +557,64 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
                     if (oldConnectionApproach)
                     {
                         // TODO Delete all this old approach code once we have a chance to update any older gPRC code
-                        oldDeviceStatusGrpcTask = new GrpcTask<>(this, oldDeviceStatusQueue,
+                        oldDeviceStatusGrpcTask = new GrpcTask<>(this, deviceStatusQueue, deviceStatusConversionCache::convert,
                                 statusUpdateReplyStreamObserver -> NetworkSurveyStatusGrpc.newStub(channel).statusUpdate(statusUpdateReplyStreamObserver));
                         oldDeviceStatusGrpcTask.executeOnExecutor(executorService);
 
                         final com.craxiom.networksurvey.messaging.WirelessSurveyGrpc.WirelessSurveyStub wirelessSurveyStub = com.craxiom.networksurvey.messaging.WirelessSurveyGrpc.newStub(channel);
 
-                        oldGsmRecordGrpcTask = new GrpcTask<>(this, oldGsmRecordQueue, wirelessSurveyStub::streamGsmSurvey);
+                        oldGsmRecordGrpcTask = new GrpcTask<>(this, gsmRecordQueue, gsmConversionCache::convert, wirelessSurveyStub::streamGsmSurvey);
                         oldGsmRecordGrpcTask.executeOnExecutor(executorService);
 
-                        oldCdmaRecordGrpcTask = new GrpcTask<>(this, oldCdmaRecordQueue, wirelessSurveyStub::streamCdmaSurvey);
+                        oldCdmaRecordGrpcTask = new GrpcTask<>(this, cdmaRecordQueue, cdmaConversionCache::convert, wirelessSurveyStub::streamCdmaSurvey);
                         oldCdmaRecordGrpcTask.executeOnExecutor(executorService);
 
-                        oldUmtsRecordGrpcTask = new GrpcTask<>(this, oldUmtsRecordQueue, wirelessSurveyStub::streamUmtsSurvey);
+                        oldUmtsRecordGrpcTask = new GrpcTask<>(this, umtsRecordQueue, umtsConversionCache::convert, wirelessSurveyStub::streamUmtsSurvey);
                         oldUmtsRecordGrpcTask.executeOnExecutor(executorService);
 
-                        oldLteRecordGrpcTask = new GrpcTask<>(this, oldLteRecordQueue, wirelessSurveyStub::streamLteSurvey);
+                        oldLteRecordGrpcTask = new GrpcTask<>(this, lteRecordQueue, lteConversionCache::convert, wirelessSurveyStub::streamLteSurvey);
                         oldLteRecordGrpcTask.executeOnExecutor(executorService);
                     } else
                     {
-                        deviceStatusGrpcTask = new GrpcTask<>(this, deviceStatusQueue,
+                        deviceStatusGrpcTask = new GrpcTask<>(this, deviceStatusQueue, Function.identity(),
                                 statusUpdateReplyStreamObserver -> DeviceStatusGrpc.newStub(channel).statusUpdate(statusUpdateReplyStreamObserver));
                         deviceStatusGrpcTask.executeOnExecutor(executorService);
 
+                        if (deviceStatusStreamEnabled)
+                        {
+                            phoneStateGrpcTask = new GrpcTask<>(this, phoneStateQueue, Function.identity(),
+                                    statusUpdateReplyStreamObserver -> DeviceStatusGrpc.newStub(channel).phoneStateUpdate(statusUpdateReplyStreamObserver));
+                            phoneStateGrpcTask.executeOnExecutor(executorService);
+                        }
+
                         final WirelessSurveyGrpc.WirelessSurveyStub wirelessSurveyStub = WirelessSurveyGrpc.newStub(channel);
 
-                        gsmRecordGrpcTask = new GrpcTask<>(this, gsmRecordQueue, wirelessSurveyStub::streamGsmSurvey);
+                        gsmRecordGrpcTask = new GrpcTask<>(this, gsmRecordQueue, Function.identity(), wirelessSurveyStub::streamGsmSurvey);
                         gsmRecordGrpcTask.executeOnExecutor(executorService);
 
-                        cdmaRecordGrpcTask = new GrpcTask<>(this, cdmaRecordQueue, wirelessSurveyStub::streamCdmaSurvey);
+                        cdmaRecordGrpcTask = new GrpcTask<>(this, cdmaRecordQueue, Function.identity(), wirelessSurveyStub::streamCdmaSurvey);
                         cdmaRecordGrpcTask.executeOnExecutor(executorService);
 
-                        umtsRecordGrpcTask = new GrpcTask<>(this, umtsRecordQueue, wirelessSurveyStub::streamUmtsSurvey);
+                        umtsRecordGrpcTask = new GrpcTask<>(this, umtsRecordQueue, Function.identity(), wirelessSurveyStub::streamUmtsSurvey);
                         umtsRecordGrpcTask.executeOnExecutor(executorService);
 
-                        lteRecordGrpcTask = new GrpcTask<>(this, lteRecordQueue, wirelessSurveyStub::streamLteSurvey);
+                        lteRecordGrpcTask = new GrpcTask<>(this, lteRecordQueue, Function.identity(), wirelessSurveyStub::streamLteSurvey);
                         lteRecordGrpcTask.executeOnExecutor(executorService);
 
-                        wifiBeaconRecordGrpcTask = new GrpcTask<>(this, wifiBeaconRecordQueue, wirelessSurveyStub::streamWifiBeaconSurvey);
+                        wifiBeaconRecordGrpcTask = new GrpcTask<>(this, wifiBeaconRecordQueue, Function.identity(), wirelessSurveyStub::streamWifiBeaconSurvey);
                         wifiBeaconRecordGrpcTask.executeOnExecutor(executorService);
+
+                        if (bluetoothStreamEnabled)
+                        {
+                            bluetoothRecordGrpcTask = new GrpcTask<>(this, bluetoothRecordQueue, Function.identity(), wirelessSurveyStub::streamBluetoothSurvey);
+                            bluetoothRecordGrpcTask.executeOnExecutor(executorService);
+                        }
+
+                        if (gnssStreamEnabled)
+                        {
+                            gnssRecordGrpcTask = new GrpcTask<>(this, gnssRecordQueue, Function.identity(), wirelessSurveyStub::streamGnssSurvey);
+                            gnssRecordGrpcTask.executeOnExecutor(executorService);
+                        }
                     }
                 } catch (Throwable t)
                 {
@@ -583,6 +685,11 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
             deviceStatusGrpcTask.cancel(true);
             deviceStatusGrpcTask = null;
         }
+        if (phoneStateGrpcTask != null)
+        {
+            phoneStateGrpcTask.cancel(true);
+            phoneStateGrpcTask = null;
+        }
         if (gsmRecordGrpcTask != null)
         {
             gsmRecordGrpcTask.cancel(true);
@@ -608,6 +715,22 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
             wifiBeaconRecordGrpcTask.cancel(true);
             wifiBeaconRecordGrpcTask = null;
         }
+        if (bluetoothRecordGrpcTask != null)
+        {
+            bluetoothRecordGrpcTask.cancel(true);
+            bluetoothRecordGrpcTask = null;
+        }
+        if (gnssRecordGrpcTask != null)
+        {
+            gnssRecordGrpcTask.cancel(true);
+            gnssRecordGrpcTask = null;
+        }
+
+        deviceStatusConversionCache.clear();
+        gsmConversionCache.clear();
+        cdmaConversionCache.clear();
+        umtsConversionCache.clear();
+        lteConversionCache.clear();
 
         shutdownChannel(!stopService);
 
@@ -848,6 +971,53 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
         if (!willReconnect) notifyConnectionStateChange(ConnectionState.DISCONNECTED);
     }
 
+    /**
+     * Registers this service for the survey records of each stream that is enabled for the connection, and
+     * unregisters it from the streams that are not. The cellular and Wi-Fi records are always streamed, but the
+     * Bluetooth, GNSS, and device status streams are only registered for when enabled since they each start their own
+     * scanning in the survey service.
+     * <p>
+     * This is called both when the connect request comes in and when the survey service is bound, since either can
+     * happen first. A new connect request can also come in while a previous connection is reconnecting, so any
+     * stream that was enabled for that connection but not this one has to be unregistered here, otherwise its
+     * scanning would keep running with nothing streaming the records. Registering or unregistering the same listener
+     * more than once has no effect.
+     *
+     * @since 1.5.0
+     */
+    private void registerSurveyRecordListeners()
+    {
+        final NetworkSurveyService surveyService = networkSurveyService;
+        if (surveyService == null) return;
+
+        surveyService.registerCellularSurveyRecordListener(this);
+        surveyService.registerWifiSurveyRecordListener(this);
+
+        if (bluetoothStreamEnabled)
+        {
+            surveyService.registerBluetoothSurveyRecordListener(this);
+        } else
+        {
+            surveyService.unregisterBluetoothSurveyRecordListener(this);
+        }
+
+        if (gnssStreamEnabled)
+        {
+            surveyService.registerGnssSurveyRecordListener(this);
+        } else
+        {
+            surveyService.unregisterGnssSurveyRecordListener(this);
+        }
+
+        if (deviceStatusStreamEnabled)
+        {
+            surveyService.registerDeviceStatusListener(this);
+        } else
+        {
+            surveyService.unregisterDeviceStatusListener(this);
+        }
+    }
+
     /**
      * Closes the gRPC managed channel, unregisters the location listener, and stops this service.  After calling this
      * method this service should no longer be used.
@@ -858,6 +1028,9 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
         {
             networkSurveyService.unregisterCellularSurveyRecordListener(this);
             networkSurveyService.unregisterWifiSurveyRecordListener(this);
+            networkSurveyService.unregisterBluetoothSurveyRecordListener(this);
+            networkSurveyService.unregisterGnssSurveyRecordListener(this);
+            networkSurveyService.unregisterDeviceStatusListener(this);
         }
 
         Timber.i("About to call stopSelf for the GrpcConnectionService");
@@ -904,24 +1077,32 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
 
     /**
      * A task that can be run for each RPC stream that needs to be opened.
+     * <p>
+     * The queue holds the records as they were produced by the survey service, and the message converter is applied on
+     * this task's thread right before a record is sent. For the current messaging API the converter is the identity
+     * function, and for the legacy API it converts the record to the old protobuf format.
      *
+     * @param <RecordType>  The type of record that is placed on the queue.
      * @param <MessageType> The type of message that will be streamed to the remote gRPC server.
      * @param <Reply>       The reply type that will come back from gRPC server once the stream is complete.
      */
     @SuppressLint("StaticFieldLeak")
-    private class GrpcTask<MessageType, Reply> extends AsyncTask<Void, Void, Boolean>
+    private class GrpcTask<RecordType, MessageType, Reply> extends AsyncTask<Void, Void, Boolean>
     {
         private final WeakReference<GrpcConnectionService> serviceWeakReference;
-        private final ConcurrentLinkedQueue<MessageType> messageQueue;
+        private final BlockingQueue<RecordType> messageQueue;
+        private final Function<RecordType, MessageType> messageConverter;
         private final Function<StreamObserver<Reply>, StreamObserver<MessageType>> asyncStubCall;
 
         private Throwable failed;
 
-        private GrpcTask(GrpcConnectionService serviceWeakReference, ConcurrentLinkedQueue<MessageType> queue,
+        private GrpcTask(GrpcConnectionService serviceWeakReference, BlockingQueue<RecordType> queue,
+                         Function<RecordType, MessageType> messageConverter,
                          Function<StreamObserver<Reply>, StreamObserver<MessageType>> asyncStubCall)
         {
             this.serviceWeakReference = new WeakReference<>(serviceWeakReference);
             messageQueue = queue;
+            this.messageConverter = messageConverter;
             this.asyncStubCall = asyncStubCall;
         }
 
@@ -957,6 +1138,10 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
 
                 final StreamObserver<MessageType> outgoingMessageStream = asyncStubCall.apply(responseObserver);
 
+                // The stubs return a ClientCallStreamObserver, which is what exposes the gRPC flow control
+                final ClientCallStreamObserver<?> flowControlledStream = outgoingMessageStream instanceof ClientCallStreamObserver
+                        ? (ClientCallStreamObserver<?>) outgoingMessageStream : null;
+
                 try
                 {
                     while (finishLatch.getCount() != 0 && !isCancelled())
@@ -968,21 +1153,28 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
                             break;
                         }
 
-                        final MessageType nextMessageToSend = messageQueue.poll();
-
-                        // I know Thread.sleep() is bad, but after working through a couple different solutions using a
-                        // scheduled executor service, I found that solution to be a bit more complicated than I wanted.
-                        // Eventually, we could get away from using an error in the gRPC stream to indicate that the
-                        // remote server is no longer reachable, but when I added a listener for state changes via
-                        // channel.notifyWhenStateChanged(), I seemed to have run into a bug because that call was
-                        // actually changing the channel connection state. Therefore, until we can reliable come up with
-                        // a way to know when the connection drops, this sleep seems like the best approach.
-                        if (nextMessageToSend == null)
+                        // Honor the gRPC flow control. If the transport can't accept any more messages then leave
+                        // the records in the queue (where the oldest ones are dropped once it fills up) instead of
+                        // buffering an unbounded number of messages inside of gRPC.
+                        if (flowControlledStream != null && !flowControlledStream.isReady())
                         {
-                            Thread.sleep(QUEUE_PROCESSING_SLEEP_TIME);
+                            Thread.sleep(FLOW_CONTROL_SLEEP_TIME);
                             continue;
                         }
 
+                        // After working through a couple different solutions using a scheduled executor service, I
+                        // found that solution to be a bit more complicated than I wanted. Eventually, we could get
+                        // away from using an error in the gRPC stream to indicate that the remote server is no longer
+                        // reachable, but when I added a listener for state changes via
+                        // channel.notifyWhenStateChanged(), I seemed to have run into a bug because that call was
+                        // actually changing the channel connection state. Therefore, until we can reliable come up with
+                        // a way to know when the connection drops, waiting on the queue with a timeout seems like the
+                        // best approach.
+                        final RecordType nextRecordToSend = messageQueue.poll(QUEUE_PROCESSING_SLEEP_TIME, TimeUnit.MILLISECONDS);
+                        if (nextRecordToSend == null) continue;
+
+                        final MessageType nextMessageToSend = messageConverter.apply(nextRecordToSend);
+
                         Timber.v("Sending a message to the remote gRPC server: %s", nextMessageToSend);
 
                         outgoingMessageStream.onNext(nextMessageToSend);
@@ -1053,8 +1245,7 @@ public class GrpcConnectionService extends Service implements IDeviceStatusListe
             networkSurveyService = (NetworkSurveyService) binder.getService();
             deviceId = networkSurveyService.getDeviceId();
             gpsListener = networkSurveyService.getGpsListener();
-            networkSurveyService.registerCellularSurveyRecordListener(GrpcConnectionService.this);
-            networkSurveyService.registerWifiSurveyRecordListener(GrpcConnectionService.this);
+            registerSurveyRecordListeners();
         }
 
         @Override
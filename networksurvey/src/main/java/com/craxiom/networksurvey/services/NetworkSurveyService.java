@@ -22,6 +22,7 @@ import android.location.GnssMeasurementsEvent;
 import android.location.GnssStatus;
 import android.location.Location;
 import android.location.LocationManager;
+import android.location.OnNmeaMessageListener;
 import android.net.wifi.ScanResult;
 import android.net.wifi.WifiManager;
 import android.os.BatteryManager;
@@ -67,6 +68,7 @@ import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.IDeviceStatusListener;
 import com.craxiom.networksurvey.listeners.IGnssFailureListener;
 import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IMqttOfflineQueueListener;
 import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
 import com.craxiom.networksurvey.logging.BluetoothSurveyRecordLogger;
 import com.craxiom.networksurvey.logging.CellularSurveyRecordLogger;
@@ -75,17 +77,33 @@ import com.craxiom.networksurvey.logging.PhoneStateRecordLogger;
 import com.craxiom.networksurvey.logging.WifiSurveyRecordLogger;
 import com.craxiom.networksurvey.mqtt.MqttConnection;
 import com.craxiom.networksurvey.mqtt.MqttConnectionInfo;
+import com.craxiom.networksurvey.mqtt.MqttPublisher;
+import com.craxiom.networksurvey.mqtt.MqttRateLimiter;
+import com.craxiom.networksurvey.replay.GeoPackageRecordConverter;
+import com.craxiom.networksurvey.replay.GeoPackageReplaySource;
+import com.craxiom.networksurvey.replay.IReplaySource;
+import com.craxiom.networksurvey.replay.MergedReplaySource;
+import com.craxiom.networksurvey.replay.ReplayStatistics;
+import com.craxiom.networksurvey.replay.SurveyReplayEngine;
+import com.craxiom.networksurvey.replay.SyntheticRadioConfig;
+import com.craxiom.networksurvey.replay.SyntheticRadioEnvironment;
 import com.craxiom.networksurvey.util.IOUtils;
 import com.craxiom.networksurvey.util.PreferenceUtils;
+import com.craxiom.networksurvey.util.UniqueEmitterCounters;
 import com.google.protobuf.Int32Value;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import timber.log.Timber;
 
@@ -120,6 +138,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
     private final AtomicInteger wifiScanningTaskId = new AtomicInteger();
     private final AtomicInteger bluetoothScanningTaskId = new AtomicInteger();
     private final AtomicInteger deviceStatusGeneratorTaskId = new AtomicInteger();
+    private final AtomicReference<SurveyReplayEngine> activeSurveyReplay = new AtomicReference<>();
 
     private final SurveyServiceBinder surveyServiceBinder;
     private final Handler uiThreadHandler;
@@ -154,6 +173,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
     private ScanCallback bluetoothScanCallback;
     private BroadcastReceiver bluetoothBroadcastReceiver;
     private GnssMeasurementsEvent.Callback measurementListener;
+    private OnNmeaMessageListener nmeaListener;
     private PhoneStateListener phoneStateListener;
 
     public NetworkSurveyService()
@@ -189,6 +209,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
         gpsListener = new GpsListener();
 
         surveyRecordProcessor = new SurveyRecordProcessor(gpsListener, deviceId, context, executorService);
+        cellularSurveyRecordLogger.setCellTowerEstimator(surveyRecordProcessor.getCellTowerEstimator());
 
         setScanRateValues();
         PreferenceManager.getDefaultSharedPreferences(context).registerOnSharedPreferenceChangeListener(this);
@@ -208,6 +229,12 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
     @Override
     public int onStartCommand(Intent intent, int flags, int startId)
     {
+        if (BuildConfig.DEBUG && handleReplayIntent(intent))
+        {
+            // Don't redeliver a replay request if the service is restarted, since that would replay the files again
+            return START_NOT_STICKY;
+        }
+
         // If we are started at boot, then that means the NetworkSurveyActivity was never run.  Therefore, to ensure we
         // read and respect the auto start logging user preferences, we need to read them and start logging here.
         final boolean startedAtBoot = intent.getBooleanExtra(NetworkSurveyConstants.EXTRA_STARTED_AT_BOOT, false);
@@ -256,6 +283,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
         {
             unregisterMqttConnectionStateListener(this);
             mqttConnection.disconnect();
+            mqttConnection.shutdownPublishing();
         }
 
         PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).unregisterOnSharedPreferenceChangeListener(this);
@@ -265,6 +293,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
         removeLocationListener();
         stopGnssRecordScanning();
         stopDeviceStatusReport();
+        stopSurveyReplay();
         stopAllLogging();
 
         serviceLooper.quitSafely();
@@ -293,6 +322,22 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
             case NetworkSurveyConstants.PROPERTY_DEVICE_STATUS_SCAN_INTERVAL_SECONDS:
                 setScanRateValues();
                 break;
+            case NetworkSurveyConstants.PROPERTY_MQTT_OFFLINE_REPLAY_RATE:
+                updateMqttOfflineReplayRate();
+                break;
+            case NetworkSurveyConstants.PROPERTY_MQTT_BATCH_PUBLISHING_ENABLED:
+            case NetworkSurveyConstants.PROPERTY_MQTT_BATCH_COMPRESSION_ENABLED:
+                updateMqttBatchPublishing();
+                break;
+            case NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT:
+            case NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT_POLICY:
+            case NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT_SAMPLE_RATE:
+            case NetworkSurveyConstants.PROPERTY_MQTT_RATE_LIMIT_TOPIC_OVERRIDES:
+                if (mqttConnection != null) mqttConnection.configureRateLimiter(getApplicationContext());
+                break;
+            case NetworkSurveyConstants.PROPERTY_MQTT_MAX_IN_FLIGHT:
+                updateMqttMaxInFlight();
+                break;
 
             default:
         }
@@ -305,10 +350,57 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
      */
     public void initializeMqttConnection()
     {
-        mqttConnection = new MqttConnection();
+        mqttConnection = new MqttConnection(getApplicationContext());
         mqttConnection.registerMqttConnectionStateListener(this);
     }
 
+    /**
+     * Reads the max MQTT offline replay rate from MDM or the user preferences and passes it on to the MQTT connection.
+     *
+     * @since 1.5.0
+     */
+    private void updateMqttOfflineReplayRate()
+    {
+        if (mqttConnection == null) return;
+
+        mqttConnection.setMaxReplayRate(PreferenceUtils.getPositiveIntPreference(
+                NetworkSurveyConstants.PROPERTY_MQTT_OFFLINE_REPLAY_RATE,
+                NetworkSurveyConstants.DEFAULT_MQTT_OFFLINE_REPLAY_RATE, getApplicationContext()));
+    }
+
+    /**
+     * Reads the max number of in flight MQTT messages from MDM or the user preferences and passes it on to the MQTT
+     * connection.
+     *
+     * @since 1.5.0
+     */
+    private void updateMqttMaxInFlight()
+    {
+        if (mqttConnection == null) return;
+
+        mqttConnection.setMaxInFlight(PreferenceUtils.getPositiveIntPreference(
+                NetworkSurveyConstants.PROPERTY_MQTT_MAX_IN_FLIGHT,
+                NetworkSurveyConstants.DEFAULT_MQTT_MAX_IN_FLIGHT, getApplicationContext()));
+    }
+
+    /**
+     * Reads the MQTT batch publishing settings from MDM or the user preferences and passes them on to the MQTT
+     * connection.
+     *
+     * @since 1.5.0
+     */
+    private void updateMqttBatchPublishing()
+    {
+        if (mqttConnection == null) return;
+
+        final Context context = getApplicationContext();
+        mqttConnection.setBatchPublishing(
+                PreferenceUtils.getBooleanPreference(NetworkSurveyConstants.PROPERTY_MQTT_BATCH_PUBLISHING_ENABLED,
+                        NetworkSurveyConstants.DEFAULT_MQTT_BATCH_PUBLISHING_SETTING, context),
+                PreferenceUtils.getBooleanPreference(NetworkSurveyConstants.PROPERTY_MQTT_BATCH_COMPRESSION_ENABLED,
+                        NetworkSurveyConstants.DEFAULT_MQTT_BATCH_COMPRESSION_SETTING, context));
+    }
+
     /**
      * Connect to an MQTT broker.
      *
@@ -318,8 +410,9 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
     @Override
     public void connectToMqttBroker(BrokerConnectionInfo connectionInfo)
     {
-        mqttConnection.connect(getApplicationContext(), connectionInfo);
         MqttConnectionInfo networkSurveyConnection = (MqttConnectionInfo) connectionInfo;
+        mqttConnection.setOfflineQueueBroker(networkSurveyConnection.getBrokerId());
+        mqttConnection.connect(getApplicationContext(), connectionInfo);
 
         if (networkSurveyConnection.isCellularStreamEnabled())
         {
@@ -355,6 +448,9 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
 
         mqttConnection.disconnect();
 
+        // The user chose to stop sending to this broker, so don't send the backlog to it (or another broker) later
+        mqttConnection.setOfflineQueueBroker(null);
+
         unregisterCellularSurveyRecordListener(mqttConnection);
         unregisterWifiSurveyRecordListener(mqttConnection);
         unregisterBluetoothSurveyRecordListener(mqttConnection);
@@ -435,6 +531,173 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
         mqttConnection.unregisterMqttConnectionStateListener(connectionStateListener);
     }
 
+    /**
+     * @return The number of messages published, dropped, sampled, and replaced by the MQTT rate limiter for each topic,
+     * or an empty map if the MQTT connection has not been created.
+     * @since 1.5.0
+     */
+    public Map<String, MqttRateLimiter.TopicStatistics> getMqttRateLimiterStatistics()
+    {
+        if (mqttConnection == null) return Collections.emptyMap();
+        return mqttConnection.getRateLimiterStatistics();
+    }
+
+    /**
+     * @return The in flight, published, overflowed, and failed counts for each MQTT topic, or an empty map if the MQTT
+     * connection has not been created.
+     * @since 1.5.0
+     */
+    public Map<String, MqttPublisher.TopicMetrics> getMqttPublishMetrics()
+    {
+        if (mqttConnection == null) return Collections.emptyMap();
+        return mqttConnection.getPublishMetrics();
+    }
+
+    /**
+     * @return The estimated counts of the unique cells, Wi-Fi BSSIDs, and Bluetooth addresses seen during the current
+     * mission, or null if the survey record processor has not been created yet.
+     * @since 1.5.0
+     */
+    @Nullable
+    public UniqueEmitterCounters getUniqueEmitterCounters()
+    {
+        if (surveyRecordProcessor == null) return null;
+        return surveyRecordProcessor.getUniqueEmitterCounters();
+    }
+
+    /**
+     * Replays the survey records from the provided GeoPackage files through the survey record processor, in place of
+     * the radios, so they reach the sinks that are registered for survey records (so start logging or connect to an
+     * MQTT broker first). The throughput and latency of the processor and its sinks are logged when done. Only one
+     * replay can run at a time.
+     *
+     * @param files The GeoPackage files written by the survey record loggers. They are merged by time.
+     * @param speed How many times faster than real time to replay the records, or
+     *              {@link SurveyReplayEngine#MAX_SPEED} to replay them as fast as the sinks can handle them.
+     * @return True if the replay was started, false if a replay is already running or a file could not be opened.
+     * @since 1.5.0
+     */
+    public boolean startSurveyReplay(List<File> files, double speed)
+    {
+        if (surveyRecordProcessor == null || activeSurveyReplay.get() != null) return false;
+
+        // Like the records created by the survey record processor, the device name is left blank for the sinks to set
+        final GeoPackageRecordConverter converter = new GeoPackageRecordConverter(deviceId, "");
+        final List<IReplaySource> sources = new ArrayList<>();
+        try
+        {
+            for (File file : files)
+            {
+                sources.add(new GeoPackageReplaySource(getApplicationContext(), file, converter));
+            }
+        } catch (IOException e)
+        {
+            Timber.e(e, "Unable to start the survey replay");
+            closeReplaySources(sources);
+            return false;
+        }
+
+        final SurveyReplayEngine replayEngine = new SurveyReplayEngine(new MergedReplaySource(sources), speed);
+        if (!activeSurveyReplay.compareAndSet(null, replayEngine))
+        {
+            closeReplaySources(sources);
+            return false;
+        }
+
+        surveyRecordProcessor.registerAsReplayInput(replayEngine);
+
+        Timber.i("Starting the survey replay of %s at %sx speed", files, speed);
+        runSurveyReplay(replayEngine);
+
+        return true;
+    }
+
+    /**
+     * Generates the survey records of a synthetic radio environment and feeds them in to the survey record processor
+     * in place of the radios, so they go through the same steps as real scans before reaching the sinks. This allows
+     * load and soak testing the loggers and MQTT connection with many more emitters than are usually around. This
+     * uses the same slot as {@link #startSurveyReplay(List, double)}, so only one of them can run at a time.
+     *
+     * @param config The emitters and scan rates of the synthetic environment.
+     * @param speed  How many times faster than real time to generate the records, or
+     *               {@link SurveyReplayEngine#MAX_SPEED} to generate them as fast as the sinks can handle them.
+     * @return True if the synthetic survey was started, false if a replay is already running.
+     * @since 1.5.0
+     */
+    public boolean startSyntheticSurvey(SyntheticRadioConfig config, double speed)
+    {
+        if (surveyRecordProcessor == null) return false;
+
+        final SurveyReplayEngine replayEngine = new SurveyReplayEngine(new SyntheticRadioEnvironment(config), speed);
+        if (!activeSurveyReplay.compareAndSet(null, replayEngine)) return false;
+
+        surveyRecordProcessor.registerAsReplayInput(replayEngine);
+
+        Timber.i("Starting a synthetic survey of %d Wi-Fi APs, %d Bluetooth devices, and %d LTE cells at %sx speed",
+                config.getWifiAccessPointCount(), config.getBluetoothDeviceCount(), config.getLteCellCount(), speed);
+        runSurveyReplay(replayEngine);
+
+        return true;
+    }
+
+    /**
+     * Runs the replay engine on its own thread and logs its statistics when it is done.
+     */
+    private void runSurveyReplay(SurveyReplayEngine replayEngine)
+    {
+        new Thread(() -> {
+            try
+            {
+                final ReplayStatistics statistics = replayEngine.run();
+                Timber.i("Finished the survey replay. %s", statistics);
+            } catch (IOException e)
+            {
+                Timber.e(e, "The survey replay failed");
+            } catch (InterruptedException e)
+            {
+                Timber.w("The survey replay was interrupted");
+                Thread.currentThread().interrupt();
+            } finally
+            {
+                activeSurveyReplay.compareAndSet(replayEngine, null);
+            }
+        }, "SurveyReplay").start();
+    }
+
+    /**
+     * Stops the survey replay if one is running.
+     *
+     * @since 1.5.0
+     */
+    public void stopSurveyReplay()
+    {
+        final SurveyReplayEngine replayEngine = activeSurveyReplay.get();
+        if (replayEngine != null) replayEngine.stop();
+    }
+
+    /**
+     * Adds an {@link IMqttOfflineQueueListener} so that it will be notified of the progress of sending the MQTT
+     * messages that were queued while the MQTT broker connection was down.
+     *
+     * @param offlineQueueListener The listener to add.
+     * @since 1.5.0
+     */
+    public void registerMqttOfflineQueueListener(IMqttOfflineQueueListener offlineQueueListener)
+    {
+        if (mqttConnection != null) mqttConnection.registerOfflineQueueListener(offlineQueueListener);
+    }
+
+    /**
+     * Removes an {@link IMqttOfflineQueueListener} so that it will no longer be notified of the offline queue progress.
+     *
+     * @param offlineQueueListener The listener to remove.
+     * @since 1.5.0
+     */
+    public void unregisterMqttOfflineQueueListener(IMqttOfflineQueueListener offlineQueueListener)
+    {
+        if (mqttConnection != null) mqttConnection.unregisterOfflineQueueListener(offlineQueueListener);
+    }
+
     public GpsListener getGpsListener()
     {
         return gpsListener;
@@ -1268,6 +1531,79 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
         }
     }
 
+    /**
+     * Starts or stops a survey replay or synthetic survey if the intent has one of the replay actions. This is only called for debug
+     * builds.
+     *
+     * @param intent The intent the service was started with.
+     * @return True if the intent was a replay request, false otherwise.
+     * @since 1.5.0
+     */
+    private boolean handleReplayIntent(Intent intent)
+    {
+        if (intent == null) return false;
+
+        final String action = intent.getAction();
+        if (NetworkSurveyConstants.ACTION_STOP_SURVEY_REPLAY.equals(action))
+        {
+            stopSurveyReplay();
+            return true;
+        }
+
+        if (NetworkSurveyConstants.ACTION_SYNTHETIC_SURVEY.equals(action))
+        {
+            final int minutes = intent.getIntExtra(NetworkSurveyConstants.EXTRA_SYNTHETIC_SURVEY_MINUTES, 60);
+            final float speed = intent.getFloatExtra(NetworkSurveyConstants.EXTRA_REPLAY_SPEED, (float) SurveyReplayEngine.REAL_TIME);
+            final SyntheticRadioConfig config = SyntheticRadioConfig.stadium()
+                    .setStartTimeMs(System.currentTimeMillis())
+                    .setDurationMs(minutes * 60_000L);
+
+            if (!startSyntheticSurvey(config, speed > 0 ? speed : SurveyReplayEngine.MAX_SPEED))
+            {
+                Timber.w("Unable to start the synthetic survey");
+            }
+
+            return true;
+        }
+
+        if (!NetworkSurveyConstants.ACTION_REPLAY_SURVEY.equals(action)) return false;
+
+        final String[] filePaths = intent.getStringArrayExtra(NetworkSurveyConstants.EXTRA_REPLAY_FILES);
+        if (filePaths == null || filePaths.length == 0)
+        {
+            Timber.w("Ignoring the survey replay request because no files were provided");
+            return true;
+        }
+
+        final float speed = intent.getFloatExtra(NetworkSurveyConstants.EXTRA_REPLAY_SPEED, (float) SurveyReplayEngine.REAL_TIME);
+        final List<File> files = new ArrayList<>();
+        for (String filePath : filePaths)
+        {
+            files.add(new File(filePath));
+        }
+
+        if (!startSurveyReplay(files, speed > 0 ? speed : SurveyReplayEngine.MAX_SPEED))
+        {
+            Timber.w("Unable to start the survey replay of %s", files);
+        }
+
+        return true;
+    }
+
+    private static void closeReplaySources(List<IReplaySource> sources)
+    {
+        for (IReplaySource source : sources)
+        {
+            try
+            {
+                source.close();
+            } catch (IOException e)
+            {
+                Timber.w(e, "Unable to close a survey replay source");
+            }
+        }
+    }
+
     /**
      * Tries to establish an MQTT broker connection after the phone is first started up.
      * <p>
@@ -1479,8 +1815,8 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
     }
 
     /**
-     * Create the callbacks for the {@link GnssMeasurementsEvent} and the {@link GnssStatus} that will be notified of
-     * events from the location manager once {@link #startGnssRecordScanning()} is called.
+     * Create the callbacks for the {@link GnssMeasurementsEvent}, the {@link GnssStatus}, and the NMEA sentences that
+     * will be notified of events from the location manager once {@link #startGnssRecordScanning()} is called.
      *
      * @since 0.3.0
      */
@@ -1495,6 +1831,9 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
                 if (surveyRecordProcessor != null) surveyRecordProcessor.onGnssMeasurements(event);
             }
         };
+
+        // The NMEA sentences are only used for logging, and the GNSS record logger ignores them when it is not logging
+        nmeaListener = (message, timestamp) -> gnssRecordLogger.onNmeaMessage(message, timestamp);
     }
 
     /**
@@ -1920,6 +2259,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
                     {
                         locationManager.registerGnssMeasurementsCallback(measurementListener);
                     }
+                    locationManager.addNmeaListener(nmeaListener, serviceHandler);
                     gpsListener.addGnssTimeoutCallback(this::checkForGnssTimeout);
                     Timber.i("Successfully registered the GNSS listeners");
                 }
@@ -1948,6 +2288,7 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
         if (locationManager != null)
         {
             locationManager.unregisterGnssMeasurementsCallback(measurementListener);
+            locationManager.removeNmeaListener(nmeaListener);
             gpsListener.clearGnssTimeoutCallback();
             locationManager = null;
         }
@@ -1995,6 +2336,10 @@ public class NetworkSurveyService extends Service implements IConnectionStateLis
             {
                 setScanRateValues();
                 attemptMqttConnectWithMdmConfig(true);
+                updateMqttOfflineReplayRate();
+                updateMqttBatchPublishing();
+                if (mqttConnection != null) mqttConnection.configureRateLimiter(getApplicationContext());
+                updateMqttMaxInFlight();
 
                 cellularSurveyRecordLogger.onMdmPreferenceChanged();
                 wifiSurveyRecordLogger.onMdmPreferenceChanged();
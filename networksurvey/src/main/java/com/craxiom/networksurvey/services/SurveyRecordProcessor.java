@@ -24,8 +24,6 @@ import android.telephony.CellSignalStrengthLte;
 import android.telephony.CellSignalStrengthWcdma;
 import android.telephony.ServiceState;
 import android.telephony.TelephonyManager;
-import android.view.View;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 
@@ -55,7 +53,6 @@ import com.craxiom.networksurvey.BuildConfig;
 import com.craxiom.networksurvey.CalculationUtils;
 import com.craxiom.networksurvey.GpsListener;
 import com.craxiom.networksurvey.NetworkSurveyActivity;
-import com.craxiom.networksurvey.R;
 import com.craxiom.networksurvey.constants.BluetoothMessageConstants;
 import com.craxiom.networksurvey.constants.CdmaMessageConstants;
 import com.craxiom.networksurvey.constants.DeviceStatusMessageConstants;
@@ -71,11 +68,17 @@ import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.IDeviceStatusListener;
 import com.craxiom.networksurvey.listeners.IGnssSurveyRecordListener;
 import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
+import com.craxiom.networksurvey.model.WifiCapabilities;
+import com.craxiom.networksurvey.model.WifiChannel;
 import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.replay.SurveyReplayEngine;
+import com.craxiom.networksurvey.util.CellTowerEstimator;
 import com.craxiom.networksurvey.util.IOUtils;
 import com.craxiom.networksurvey.util.ParserUtils;
 import com.craxiom.networksurvey.util.PreferenceUtils;
+import com.craxiom.networksurvey.util.UniqueEmitterCounters;
 import com.craxiom.networksurvey.util.WifiCapabilitiesUtils;
+import com.craxiom.networksurvey.util.WifiChannelUtils;
 import com.google.protobuf.BoolValue;
 import com.google.protobuf.FloatValue;
 import com.google.protobuf.Int32Value;
@@ -88,7 +91,6 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.List;
-import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
@@ -121,6 +123,8 @@ public class SurveyRecordProcessor
     private volatile NetworkSurveyActivity networkSurveyActivity;
 
     private final ExecutorService executorService;
+    private final CellTowerEstimator cellTowerEstimator = new CellTowerEstimator(NetworkSurveyConstants.CELL_TOWER_ESTIMATOR_MAX_CELLS);
+    private final UniqueEmitterCounters uniqueEmitterCounters = new UniqueEmitterCounters(NetworkSurveyConstants.UNIQUE_EMITTER_COUNTER_PRECISION);
     private final String deviceId;
     private final String missionId;
 
@@ -158,6 +162,45 @@ public class SurveyRecordProcessor
                 NetworkSurveyConstants.DEFAULT_GNSS_SCAN_INTERVAL_SECONDS, context);
     }
 
+    /**
+     * @return The estimator of the cell tower positions, which is updated with every GSM, UMTS, and LTE record that
+     * this processor creates.
+     * @since 1.5.0
+     */
+    CellTowerEstimator getCellTowerEstimator()
+    {
+        return cellTowerEstimator;
+    }
+
+    /**
+     * @return The counts of the unique cells, Wi-Fi BSSIDs, and Bluetooth addresses seen since this processor was
+     * created (i.e. during the current mission).
+     * @since 1.5.0
+     */
+    UniqueEmitterCounters getUniqueEmitterCounters()
+    {
+        return uniqueEmitterCounters;
+    }
+
+    /**
+     * Registers this processor as the only sink of the provided replay engine, so that the replayed records take the
+     * same path through this processor as the records it creates from the radios (the unique emitter counts, the cell
+     * tower estimates, the Network Details UI, and then the listeners). The listeners are looked up as each record is
+     * sent, so a sink that is registered or unregistered during the replay is picked up right away. This is used to
+     * feed recorded surveys and synthetic radio environments through the app.
+     *
+     * @param replayEngine The engine to register with.
+     * @since 1.5.0
+     */
+    void registerAsReplayInput(SurveyReplayEngine replayEngine)
+    {
+        final ReplayInput replayInput = new ReplayInput();
+        replayEngine.registerCellularSurveyRecordListener(replayInput);
+        replayEngine.registerWifiSurveyRecordListener(replayInput);
+        replayEngine.registerBluetoothSurveyRecordListener(replayInput);
+        replayEngine.registerGnssSurveyRecordListener(replayInput);
+    }
+
     void registerCellularSurveyRecordListener(ICellularSurveyRecordListener surveyRecordListener)
     {
         cellularSurveyRecordListeners.add(surveyRecordListener);
@@ -549,20 +592,113 @@ public class SurveyRecordProcessor
                     return;
                 }
 
+                updateCellStatistics(lteSurveyRecord.getData());
                 if (isServingCell) updateUi(lteSurveyRecord.getData());
                 notifyLteRecordListeners(lteSurveyRecord);
             } else if (cellInfo instanceof CellInfoGsm)
             {
                 final GsmRecord gsmRecord = generateGsmSurveyRecord((CellInfoGsm) cellInfo);
-                if (gsmRecord != null) notifyGsmRecordListeners(gsmRecord);
+                if (gsmRecord != null)
+                {
+                    updateCellStatistics(gsmRecord.getData());
+                    notifyGsmRecordListeners(gsmRecord);
+                }
             } else if (cellInfo instanceof CellInfoCdma)
             {
                 final CdmaRecord cdmaRecord = generateCdmaSurveyRecord((CellInfoCdma) cellInfo);
-                if (cdmaRecord != null) notifyCdmaRecordListeners(cdmaRecord);
+                if (cdmaRecord != null)
+                {
+                    updateCellStatistics(cdmaRecord.getData());
+                    notifyCdmaRecordListeners(cdmaRecord);
+                }
             } else if (cellInfo instanceof CellInfoWcdma)
             {
                 final UmtsRecord umtsRecord = generateUmtsSurveyRecord((CellInfoWcdma) cellInfo);
-                if (umtsRecord != null) notifyUmtsRecordListeners(umtsRecord);
+                if (umtsRecord != null)
+                {
+                    updateCellStatistics(umtsRecord.getData());
+                    notifyUmtsRecordListeners(umtsRecord);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the LTE cell as a unique emitter if it has the full cell identity, and adds it to the cell tower estimator
+     * if it also has an RSRP value. The neighbor cells usually only have the EARFCN and PCI, so they are skipped.
+     *
+     * @since 1.5.0
+     */
+    private void updateCellStatistics(LteRecordData data)
+    {
+        if (data.hasMcc() && data.hasMnc() && data.hasEci())
+        {
+            final int mcc = data.getMcc().getValue();
+            final int mnc = data.getMnc().getValue();
+            final int eci = data.getEci().getValue();
+            uniqueEmitterCounters.addCell(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, mcc, mnc, eci));
+
+            if (data.hasRsrp())
+            {
+                cellTowerEstimator.addLteSample(mcc, mnc, eci, data.getLatitude(), data.getLongitude(), data.getRsrp().getValue());
+            }
+        }
+    }
+
+    /**
+     * Counts the GSM cell as a unique emitter if it has the full cell identity, and adds it to the cell tower estimator
+     * if it also has a signal strength value.
+     *
+     * @since 1.5.0
+     */
+    private void updateCellStatistics(GsmRecordData data)
+    {
+        if (data.hasMcc() && data.hasMnc() && data.hasLac() && data.hasCi())
+        {
+            final int cellId = CellTowerEstimator.getGsmCellId(data.getLac().getValue(), data.getCi().getValue());
+            final long key = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_GSM,
+                    data.getMcc().getValue(), data.getMnc().getValue(), cellId);
+            uniqueEmitterCounters.addCell(key);
+
+            if (data.hasSignalStrength())
+            {
+                cellTowerEstimator.addSample(key, data.getLatitude(), data.getLongitude(), data.getSignalStrength().getValue());
+            }
+        }
+    }
+
+    /**
+     * Counts the CDMA cell as a unique emitter if it has the full cell identity. CDMA cells are not added to the cell
+     * tower estimator because the CDMA records already have the base station location.
+     *
+     * @since 1.5.0
+     */
+    private void updateCellStatistics(CdmaRecordData data)
+    {
+        if (data.hasSid() && data.hasNid() && data.hasBsid())
+        {
+            uniqueEmitterCounters.addCell(UniqueEmitterCounters.createCdmaCellKey(data.getSid().getValue(),
+                    data.getNid().getValue(), data.getBsid().getValue()));
+        }
+    }
+
+    /**
+     * Counts the UMTS cell as a unique emitter if it has the full cell identity, and adds it to the cell tower
+     * estimator if it also has an RSCP value.
+     *
+     * @since 1.5.0
+     */
+    private void updateCellStatistics(UmtsRecordData data)
+    {
+        if (data.hasMcc() && data.hasMnc() && data.hasCid())
+        {
+            final long key = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS,
+                    data.getMcc().getValue(), data.getMnc().getValue(), data.getCid().getValue());
+            uniqueEmitterCounters.addCell(key);
+
+            if (data.hasRscp())
+            {
+                cellTowerEstimator.addSample(key, data.getLatitude(), data.getLongitude(), data.getRscp().getValue());
             }
         }
     }
@@ -578,7 +714,7 @@ public class SurveyRecordProcessor
         final List<WifiRecordWrapper> wifiBeaconRecords = apScanResults.stream()
                 .map(this::generateWiFiBeaconSurveyRecord)
                 .collect(Collectors.toList());
-        notifyWifiBeaconRecordListeners(wifiBeaconRecords);
+        processWifiBeaconRecords(wifiBeaconRecords);
     }
 
     /**
@@ -590,7 +726,7 @@ public class SurveyRecordProcessor
      */
     private void processBluetoothClassicResult(BluetoothDevice device, int rssi)
     {
-        notifyBluetoothRecordListeners(generateBluetoothSurveyRecord(device, rssi, UNSET_TX_POWER_LEVEL));
+        processBluetoothRecord(generateBluetoothSurveyRecord(device, rssi, UNSET_TX_POWER_LEVEL));
     }
 
     /**
@@ -601,7 +737,7 @@ public class SurveyRecordProcessor
      */
     private void processBluetoothResult(android.bluetooth.le.ScanResult result)
     {
-        notifyBluetoothRecordListeners(generateBluetoothSurveyRecord(result));
+        processBluetoothRecord(generateBluetoothSurveyRecord(result));
     }
 
     /**
@@ -615,6 +751,57 @@ public class SurveyRecordProcessor
         final List<BluetoothRecord> bluetoothRecords = results.stream()
                 .map(this::generateBluetoothSurveyRecord)
                 .collect(Collectors.toList());
+        processBluetoothRecords(bluetoothRecords);
+    }
+
+    /**
+     * Counts the unique BSSIDs in the provided Wi-Fi records and then notifies the listeners. Both the records created
+     * from the Wi-Fi scans and the replayed records go through here.
+     *
+     * @param wifiBeaconRecords The Wi-Fi records, which can contain null entries for the scan results that were not
+     *                          valid.
+     * @since 1.5.0
+     */
+    private void processWifiBeaconRecords(List<WifiRecordWrapper> wifiBeaconRecords)
+    {
+        for (WifiRecordWrapper wifiRecord : wifiBeaconRecords)
+        {
+            if (wifiRecord != null) uniqueEmitterCounters.addWifiBssid(wifiRecord.getWifiBeaconRecord().getData().getBssid());
+        }
+
+        notifyWifiBeaconRecordListeners(wifiBeaconRecords);
+    }
+
+    /**
+     * Counts the unique address of the provided Bluetooth record and then notifies the listeners. Both the records
+     * created from the Bluetooth scans and the replayed records go through here.
+     *
+     * @param bluetoothRecord The Bluetooth record, or null if the scan result was not valid.
+     * @since 1.5.0
+     */
+    private void processBluetoothRecord(BluetoothRecord bluetoothRecord)
+    {
+        if (bluetoothRecord == null) return;
+
+        uniqueEmitterCounters.addBluetoothAddress(bluetoothRecord.getData().getSourceAddress());
+        notifyBluetoothRecordListeners(bluetoothRecord);
+    }
+
+    /**
+     * Counts the unique addresses in the provided Bluetooth records and then notifies the listeners. Both the records
+     * created from the Bluetooth scans and the replayed records go through here.
+     *
+     * @param bluetoothRecords The Bluetooth records, which can contain null entries for the scan results that were not
+     *                         valid.
+     * @since 1.5.0
+     */
+    private void processBluetoothRecords(List<BluetoothRecord> bluetoothRecords)
+    {
+        for (BluetoothRecord bluetoothRecord : bluetoothRecords)
+        {
+            if (bluetoothRecord != null) uniqueEmitterCounters.addBluetoothAddress(bluetoothRecord.getData().getSourceAddress());
+        }
+
         notifyBluetoothRecordListeners(bluetoothRecords);
     }
 
@@ -989,8 +1176,8 @@ public class SurveyRecordProcessor
         final String ssid = apScanResult.SSID;
         if (ssid != null) dataBuilder.setSsid(ssid);
 
-        final short channel = WifiBeaconMessageConstants.convertFrequencyToChannelNumber(apScanResult.frequency);
-        if (channel != -1) dataBuilder.setChannel(Int32Value.newBuilder().setValue(channel).build());
+        final WifiChannel channel = WifiChannelUtils.getChannel(apScanResult.frequency);
+        if (channel != null) dataBuilder.setChannel(Int32Value.newBuilder().setValue(channel.getChannelNumber()).build());
 
         final int frequency = apScanResult.frequency;
         if (frequency != -1 && frequency != 0)
@@ -1001,13 +1188,14 @@ public class SurveyRecordProcessor
         final String capabilities = apScanResult.capabilities;
         if (capabilities != null && !capabilities.isEmpty())
         {
-            // TODO At some point it would be nice to add the Cipher Suites and AKM Suites, but I can't seem to get
-            //  enough information for that.
+            // The Wi-Fi logger gets the AKM suites from the capabilities string in the record wrapper
+            final WifiCapabilities wifiCapabilities = WifiCapabilitiesUtils.parseCapabilities(capabilities);
 
-            final EncryptionType encryptionType = WifiCapabilitiesUtils.getEncryptionType(capabilities);
+            final EncryptionType encryptionType = wifiCapabilities.getEncryptionType();
             if (encryptionType != EncryptionType.UNKNOWN) dataBuilder.setEncryptionType(encryptionType);
 
-            dataBuilder.setWps(BoolValue.newBuilder().setValue(WifiCapabilitiesUtils.supportsWps(capabilities)).build());
+            dataBuilder.setWps(BoolValue.newBuilder().setValue(wifiCapabilities.supportsWps()).build());
+            dataBuilder.addAllCipherSuites(wifiCapabilities.getCipherSuites());
         }
 
         final WifiBeaconRecord.Builder recordBuilder = WifiBeaconRecord.newBuilder();
@@ -1569,126 +1757,102 @@ public class SurveyRecordProcessor
      */
     private void updateCurrentTechnologyUi(String currentTechnology)
     {
-        if (!NetworkDetailsFragment.visible.get())
-        {
-            Timber.v("Skipping updating the Current Technology UI because it is not visible");
-            return;
-        }
-
         // Clear out the UI if the technology is not LTE
         if (!NetworkSurveyConstants.LTE.equals(currentTechnology) && !NetworkSurveyConstants.LTE_CA.equals(currentTechnology))
         {
             updateUi(LteRecord.getDefaultInstance().getData());
         }
 
-        synchronized (activityUpdateLock)
-        {
-            if (networkSurveyActivity != null && NetworkDetailsFragment.visible.get())
-            {
-                networkSurveyActivity.runOnUiThread(() -> setText(R.id.current_technology, R.string.current_technology_label, currentTechnology));
-            }
-        }
+        NetworkDetailsFragment.detailsState.setCurrentTechnology(currentTechnology);
     }
 
     /**
-     * Updates the UI with the information from the latest survey record.
+     * Updates the UI with the information from the latest survey record. The record is only stored as the latest value,
+     * and the UI pulls it at most once per frame, so frequent scans don't queue up redundant UI updates. The latest
+     * value is stored even when the UI is not visible so that it is not stale when the UI is shown again.
      *
      * @param lteSurveyRecord The latest LTE serving cell record.
      */
     private void updateUi(LteRecordData lteSurveyRecord)
     {
-        synchronized (activityUpdateLock)
+        CellTowerEstimator.Estimate cellEstimate = null;
+        CellTowerEstimator.Estimate enodebEstimate = null;
+        if (lteSurveyRecord.hasMcc() && lteSurveyRecord.hasMnc() && lteSurveyRecord.hasEci())
         {
-            if (networkSurveyActivity == null || !NetworkDetailsFragment.visible.get())
-            {
-                Timber.v("Skipping updating the Network Details UI because it is not visible");
-                return;
-            }
-
-            networkSurveyActivity.runOnUiThread(() -> {
-
-                final String provider = lteSurveyRecord.getProvider();
-                setText(R.id.carrier, R.string.carrier_label, provider != null ? provider : "");
-
-                setText(R.id.mcc, R.string.mcc_label, lteSurveyRecord.hasMcc() ? String.valueOf(lteSurveyRecord.getMcc().getValue()) : "");
-                setText(R.id.mnc, R.string.mnc_label, lteSurveyRecord.hasMnc() ? String.valueOf(lteSurveyRecord.getMnc().getValue()) : "");
-                setText(R.id.tac, R.string.tac_label, lteSurveyRecord.hasTac() ? String.valueOf(lteSurveyRecord.getTac().getValue()) : "");
-
-                if (lteSurveyRecord.hasEci())
-                {
-                    final int ci = lteSurveyRecord.getEci().getValue();
-                    setText(R.id.cid, R.string.cid_label, String.valueOf(ci));
-
-                    // The Cell Identity is 28 bits long. The first 20 bits represent the Macro eNodeB ID. The last 8 bits
-                    // represent the sector.  Strip off the last 8 bits to get the Macro eNodeB ID.
-                    int eNodebId = CalculationUtils.getEnodebIdFromCellId(ci);
-                    setText(R.id.enbId, R.string.enb_id_label, String.valueOf(eNodebId));
-
-                    int sectorId = CalculationUtils.getSectorIdFromCellId(ci);
-                    setText(R.id.sectorId, R.string.sector_id_label, String.valueOf(sectorId));
-                } else
-                {
-                    setText(R.id.cid, R.string.cid_label, "");
-                    setText(R.id.enbId, R.string.enb_id_label, "");
-                    setText(R.id.sectorId, R.string.sector_id_label, "");
-                }
-
-                setText(R.id.earfcn, R.string.earfcn_label, lteSurveyRecord.hasEarfcn() ? String.valueOf(lteSurveyRecord.getEarfcn().getValue()) : "");
-
-                if (lteSurveyRecord.hasPci())
-                {
-                    final int pci = lteSurveyRecord.getPci().getValue();
-                    int primarySyncSequence = CalculationUtils.getPrimarySyncSequence(pci);
-                    int secondarySyncSequence = CalculationUtils.getSecondarySyncSequence(pci);
-                    setText(R.id.pci, R.string.pci_label, pci + " (" + primarySyncSequence + "/" + secondarySyncSequence + ")");
-                } else
-                {
-                    setText(R.id.pci, R.string.pci_label, "");
-                }
-
-                setText(R.id.bandwidth, R.string.bandwidth_label, LteMessageConstants.getLteBandwidth(lteSurveyRecord.getLteBandwidth()));
-
-                checkAndSetLocation(lteSurveyRecord);
-
-                setText(R.id.rsrp, R.string.rsrp_label, lteSurveyRecord.hasRsrp() ? String.valueOf(lteSurveyRecord.getRsrp().getValue()) : "");
-                setText(R.id.rsrq, R.string.rsrq_label, lteSurveyRecord.hasRsrq() ? String.valueOf(lteSurveyRecord.getRsrq().getValue()) : "");
-                setText(R.id.ta, R.string.ta_label, lteSurveyRecord.hasTa() ? String.valueOf(lteSurveyRecord.getTa().getValue()) : "");
-            });
+            final int mcc = lteSurveyRecord.getMcc().getValue();
+            final int mnc = lteSurveyRecord.getMnc().getValue();
+            final int eci = lteSurveyRecord.getEci().getValue();
+            cellEstimate = cellTowerEstimator.getEstimate(
+                    CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, mcc, mnc, eci));
+            enodebEstimate = cellTowerEstimator.getEstimate(CellTowerEstimator.createKey(
+                    CellTowerEstimator.TECHNOLOGY_LTE_ENODEB, mcc, mnc, CalculationUtils.getEnodebIdFromCellId(eci)));
         }
+        NetworkDetailsFragment.detailsState.setServingCellEstimates(cellEstimate, enodebEstimate);
+        NetworkDetailsFragment.detailsState.setUniqueCellCount(uniqueEmitterCounters.getCellCount());
+        NetworkDetailsFragment.detailsState.setServingLteRecord(lteSurveyRecord);
     }
 
     /**
-     * Sets the provided text on the TextView with the provided Text View ID.
+     * Takes the records from a replay engine and runs them through the same steps as the records this processor
+     * creates from the radios, after the point where the Android objects have been converted to records.
      *
-     * @param textViewId       The ID that is used to lookup the TextView.
-     * @param stringResourceId The resource ID for the String to populate.
-     * @param text             The text to set on the text view.
+     * @since 1.5.0
      */
-    private void setText(int textViewId, int stringResourceId, String text)
+    private class ReplayInput implements ICellularSurveyRecordListener, IWifiSurveyRecordListener,
+            IBluetoothSurveyRecordListener, IGnssSurveyRecordListener
     {
-        if (networkSurveyActivity == null || !NetworkDetailsFragment.visible.get()) return;
+        @Override
+        public void onGsmSurveyRecord(GsmRecord gsmRecord)
+        {
+            updateCellStatistics(gsmRecord.getData());
+            notifyGsmRecordListeners(gsmRecord);
+        }
 
-        final View viewById = networkSurveyActivity.findViewById(textViewId);
-        if (viewById != null) ((TextView) viewById).setText(networkSurveyActivity.getString(stringResourceId, text));
-    }
+        @Override
+        public void onCdmaSurveyRecord(CdmaRecord cdmaRecord)
+        {
+            updateCellStatistics(cdmaRecord.getData());
+            notifyCdmaRecordListeners(cdmaRecord);
+        }
 
-    /**
-     * Checks to make sure the location is not null, and then updates the appropriate UI elements.
-     *
-     * @param lteRecord The LTE Record to check and see if it has a valid location.
-     */
-    private void checkAndSetLocation(LteRecordData lteRecord)
-    {
-        final double latitude = lteRecord.getLatitude();
-        final double longitude = lteRecord.getLongitude();
-        if (latitude == 0 && longitude == 0)
+        @Override
+        public void onUmtsSurveyRecord(UmtsRecord umtsRecord)
+        {
+            updateCellStatistics(umtsRecord.getData());
+            notifyUmtsRecordListeners(umtsRecord);
+        }
+
+        @Override
+        public void onLteSurveyRecord(LteRecord lteRecord)
         {
-            setText(R.id.latitude, R.string.latitude_label, "");
-            setText(R.id.longitude, R.string.longitude_label, "");
-        } else
+            final LteRecordData data = lteRecord.getData();
+            updateCellStatistics(data);
+            if (data.hasServingCell() && data.getServingCell().getValue()) updateUi(data);
+            notifyLteRecordListeners(lteRecord);
+        }
+
+        @Override
+        public void onWifiBeaconSurveyRecords(List<WifiRecordWrapper> wifiBeaconRecords)
         {
-            setText(R.id.latitude, R.string.latitude_label, String.format(Locale.US, "%.7f", latitude));
-            setText(R.id.longitude, R.string.longitude_label, String.format(Locale.US, "%.7f", longitude));
+            processWifiBeaconRecords(wifiBeaconRecords);
+        }
+
+        @Override
+        public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
+        {
+            processBluetoothRecord(bluetoothRecord);
+        }
+
+        @Override
+        public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
+        {
+            processBluetoothRecords(bluetoothRecords);
+        }
+
+        @Override
+        public void onGnssSurveyRecord(GnssRecord gnssRecord)
+        {
+            notifyGnssRecordListeners(gnssRecord);
         }
     }
 }
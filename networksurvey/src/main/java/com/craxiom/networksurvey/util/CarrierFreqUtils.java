@@ -17,11 +17,96 @@ package com.craxiom.networksurvey.util;
 
 import com.craxiom.networksurvey.model.GnssType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Originally from the GPS Test open source Android app.  https://github.com/barbeau/gpstest
+ * <p>
+ * The carrier frequency bands are held in a sorted table per constellation so that a lookup is a binary search
+ * instead of a chain of comparisons. The table is the single source of truth for the band labels, which are shared
+ * String constants so the UI and the loggers never allocate a new label per satellite.
  */
 public class CarrierFreqUtils
 {
+    private static final double TOLERANCE_MHZ = 1.0;
+
+    private static final BandTable[] TABLES = new BandTable[GnssType.values().length];
+
+    /**
+     * The SBAS bands depend on which satellite is transmitting, so there is one table for the satellites that
+     * transmit on both L1 and L5, and another for the ones that only transmit on L1.
+     */
+    private static final BandTable SBAS_L1_L5_TABLE;
+    private static final BandTable SBAS_L1_TABLE;
+    private static final BandTable EMPTY_TABLE = new BandTableBuilder().build();
+
+    static
+    {
+        // The order that the bands are added in is the priority when two tolerance windows overlap (e.g. GPS L3/L4)
+        TABLES[GnssType.NAVSTAR.ordinal()] = new BandTableBuilder()
+                .addBand(1575.42f, "L1")
+                .addBand(1227.6f, "L2")
+                .addBand(1381.05f, "L3")
+                .addBand(1379.913f, "L4")
+                .addBand(1176.45f, "L5")
+                .build();
+
+        TABLES[GnssType.GLONASS.ordinal()] = new BandTableBuilder()
+                // Actual range is 1598.0625 MHz to 1609.3125, but allow padding for float comparisons - #103
+                .addRange(1598.0000f, 1610.000f, "L1")
+                // Actual range is 1242.9375 - 1251.6875, but allow padding for float comparisons - #103
+                .addRange(1242.0000f, 1252.000f, "L2")
+                // Exact range is unclear - appears to be 1202.025 - 1207.14 - #103
+                .addBand(1207.14f, "L3")
+                .addBand(1176.45f, "L5")
+                .addBand(1575.42f, "L1-C")
+                .build();
+
+        TABLES[GnssType.BEIDOU.ordinal()] = new BandTableBuilder()
+                .addBand(1561.098f, "B1")
+                .addBand(1589.742f, "B1-2")
+                .addBand(1575.42f, "B1C")
+                .addBand(1207.14f, "B2")
+                .addBand(1176.45f, "B2a")
+                .addBand(1268.52f, "B3")
+                .build();
+
+        TABLES[GnssType.QZSS.ordinal()] = new BandTableBuilder()
+                .addBand(1575.42f, "L1")
+                .addBand(1227.6f, "L2")
+                .addBand(1176.45f, "L5")
+                .addBand(1278.75f, "L6")
+                .build();
+
+        TABLES[GnssType.GALILEO.ordinal()] = new BandTableBuilder()
+                .addBand(1575.42f, "E1")
+                .addBand(1191.795f, "E5")
+                .addBand(1176.45f, "E5a")
+                .addBand(1207.14f, "E5b")
+                .addBand(1278.75f, "E6")
+                .build();
+
+        TABLES[GnssType.IRNSS.ordinal()] = new BandTableBuilder()
+                .addBand(1176.45f, "L5")
+                .addBand(2492.028f, "S")
+                .build();
+
+        SBAS_L1_L5_TABLE = new BandTableBuilder()
+                .addBand(1575.42f, "L1")
+                .addBand(1176.45f, "L5")
+                .build();
+
+        SBAS_L1_TABLE = new BandTableBuilder()
+                .addBand(1575.42f, "L1")
+                .build();
+    }
+
+    private CarrierFreqUtils()
+    {
+    }
+
     /**
      * Returns the label that should be displayed for a given GNSS constellation, svid, and carrier
      * frequency in MHz, or null if no carrier frequency label is found
@@ -34,177 +119,165 @@ public class CarrierFreqUtils
      */
     public static String getCarrierFrequencyLabel(GnssType gnssType, int svid, float carrierFrequencyMhz)
     {
-        final float toleranceMhz = 1f;
-        switch (gnssType)
+        return getBandTable(gnssType, svid).find(carrierFrequencyMhz);
+    }
+
+    /**
+     * Same as {@link #getCarrierFrequencyLabel(GnssType, int, float)}, but for a carrier frequency in Hz as it is
+     * reported in the GNSS survey records.
+     *
+     * @since 1.5.0
+     */
+    public static String getCarrierFrequencyLabelFromHz(GnssType gnssType, int svid, long carrierFrequencyHz)
+    {
+        return getCarrierFrequencyLabel(gnssType, svid, MathUtils.toMhz((float) carrierFrequencyHz));
+    }
+
+    private static BandTable getBandTable(GnssType gnssType, int svid)
+    {
+        if (gnssType == null) return EMPTY_TABLE;
+
+        if (gnssType == GnssType.SBAS)
         {
-            case NAVSTAR:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                {
-                    return "L1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1227.6f, toleranceMhz))
-                {
-                    return "L2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1381.05f, toleranceMhz))
-                {
-                    return "L3";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1379.913f, toleranceMhz))
-                {
-                    return "L4";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                {
-                    return "L5";
-                }
-                break;
-            case GLONASS:
-                if (carrierFrequencyMhz >= 1598.0000f && carrierFrequencyMhz <= 1610.000f)
-                {
-                    // Actual range is 1598.0625 MHz to 1609.3125, but allow padding for float comparisons - #103
-                    return "L1";
-                } else if (carrierFrequencyMhz >= 1242.0000f && carrierFrequencyMhz <= 1252.000f)
-                {
-                    // Actual range is 1242.9375 - 1251.6875, but allow padding for float comparisons - #103
-                    return "L2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, toleranceMhz))
-                {
-                    // Exact range is unclear - appears to be 1202.025 - 1207.14 - #103
-                    return "L3";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                {
-                    return "L5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                {
-                    return "L1-C";
-                }
-                break;
-            case BEIDOU:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1561.098f, toleranceMhz))
-                {
-                    return "B1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1589.742f, toleranceMhz))
-                {
-                    return "B1-2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                {
-                    return "B1C";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, toleranceMhz))
-                {
-                    return "B2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                {
-                    return "B2a";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1268.52f, toleranceMhz))
-                {
-                    return "B3";
-                }
-                break;
-            case QZSS:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                {
-                    return "L1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1227.6f, toleranceMhz))
-                {
-                    return "L2";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                {
-                    return "L5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1278.75f, toleranceMhz))
-                {
-                    return "L6";
-                }
-                break;
-            case GALILEO:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                {
-                    return "E1";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1191.795f, toleranceMhz))
-                {
-                    return "E5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                {
-                    return "E5a";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, toleranceMhz))
-                {
-                    return "E5b";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1278.75f, toleranceMhz))
-                {
-                    return "E6";
-                }
-                break;
-            case IRNSS:
-                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                {
-                    return "L5";
-                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 2492.028f, toleranceMhz))
-                {
-                    return "S";
+            switch (svid)
+            {
+                case 120: // EGNOS - https://gssc.esa.int/navipedia/index.php/EGNOS_Space_Segment
+                case 123:
+                case 126:
+                case 136:
+                case 129: // MSAS (Japan) - https://gssc.esa.int/navipedia/index.php/MSAS_Space_Segment
+                case 137:
+                case 133: // INMARSAT_4F3
+                case 135: // GALAXY_15
+                case 138: // ANIK
+                    return SBAS_L1_L5_TABLE;
+
+                case 127: // GAGAN (India)
+                case 128:
+                case 139:
+                    return SBAS_L1_TABLE;
+
+                default:
+                    return EMPTY_TABLE;
+            }
+        }
+
+        final BandTable table = TABLES[gnssType.ordinal()];
+        return table == null ? EMPTY_TABLE : table;
+    }
+
+    /**
+     * A set of disjoint, inclusive frequency windows sorted by their lower bound, each with the label of its band.
+     */
+    private static final class BandTable
+    {
+        private final double[] lows;
+        private final double[] highs;
+        private final String[] labels;
+
+        private BandTable(double[] lows, double[] highs, String[] labels)
+        {
+            this.lows = lows;
+            this.highs = highs;
+            this.labels = labels;
+        }
+
+        /**
+         * @return The label of the window that contains the frequency, or null if there is not one.
+         */
+        String find(double frequencyMhz)
+        {
+            // Find the last window that starts at or before the frequency (NaN never matches)
+            int low = 0;
+            int high = lows.length - 1;
+            int index = -1;
+            while (low <= high)
+            {
+                final int mid = (low + high) >>> 1;
+                if (lows[mid] <= frequencyMhz)
+                {
+                    index = mid;
+                    low = mid + 1;
+                } else
+                {
+                    high = mid - 1;
                 }
-                break;
-            case SBAS:
-                if (svid == 120 || svid == 123 || svid == 126 || svid == 136)
-                {
-                    // EGNOS - https://gssc.esa.int/navipedia/index.php/EGNOS_Space_Segment
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                    {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                    {
-                        return "L5";
-                    }
-                } else if (svid == 129 || svid == 137)
-                {
-                    // MSAS (Japan) - https://gssc.esa.int/navipedia/index.php/MSAS_Space_Segment
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                    {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                    {
-                        return "L5";
-                    }
-                } else if (svid == 127 || svid == 128 || svid == 139)
-                {
-                    // GnssType.GAGAN (India)
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                    {
-                        return "L1";
-                    }
-                } else if (svid == 133)
-                {
-                    // GnssType.INMARSAT_4F3;
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                    {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                    {
-                        return "L5";
-                    }
-                } else if (svid == 135)
-                {
-                    // GnssType.GALAXY_15;
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
-                    {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                    {
-                        return "L5";
-                    }
-                } else if (svid == 138)
+            }
+
+            if (index == -1 || !(frequencyMhz <= highs[index])) return null;
+
+            return labels[index];
+        }
+    }
+
+    /**
+     * Builds a {@link BandTable}. A band that overlaps one that was added earlier is clipped so that the earlier band
+     * takes priority in the overlapping part of the window.
+     */
+    private static final class BandTableBuilder
+    {
+        private final List<double[]> windows = new ArrayList<>();
+        private final List<String> windowLabels = new ArrayList<>();
+
+        /**
+         * Adds a band whose window is the center frequency plus or minus the tolerance.
+         */
+        BandTableBuilder addBand(float centerMhz, String label)
+        {
+            return addRange(centerMhz - TOLERANCE_MHZ, centerMhz + TOLERANCE_MHZ, label);
+        }
+
+        BandTableBuilder addRange(double lowMhz, double highMhz, String label)
+        {
+            List<double[]> pieces = new ArrayList<>();
+            pieces.add(new double[]{lowMhz, highMhz});
+
+            for (double[] existing : windows)
+            {
+                final List<double[]> remaining = new ArrayList<>();
+                for (double[] piece : pieces)
                 {
-                    // GnssType.ANIK;
-                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    if (piece[1] < existing[0] || piece[0] > existing[1])
                     {
-                        return "L1";
-                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
-                    {
-                        return "L5";
+                        remaining.add(piece);
+                        continue;
                     }
+                    if (piece[0] < existing[0]) remaining.add(new double[]{piece[0], Math.nextDown(existing[0])});
+                    if (piece[1] > existing[1]) remaining.add(new double[]{Math.nextUp(existing[1]), piece[1]});
                 }
-                break;
+                pieces = remaining;
+            }
+
+            for (double[] piece : pieces)
+            {
+                windows.add(piece);
+                windowLabels.add(label);
+            }
+
+            return this;
+        }
+
+        BandTable build()
+        {
+            final Integer[] order = new Integer[windows.size()];
+            for (int i = 0; i < order.length; i++)
+            {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(windows.get(a)[0], windows.get(b)[0]));
+
+            final double[] lows = new double[order.length];
+            final double[] highs = new double[order.length];
+            final String[] labels = new String[order.length];
+            for (int i = 0; i < order.length; i++)
+            {
+                final double[] window = windows.get(order[i]);
+                lows[i] = window[0];
+                highs[i] = window[1];
+                labels[i] = windowLabels.get(order[i]);
+            }
 
-            case UNKNOWN:
-            default:
-                break;
+            return new BandTable(lows, highs, labels);
         }
-        // Unknown carrier frequency for given constellation and svid
-        return null;
     }
 }
@@ -0,0 +1,402 @@
+package com.craxiom.networksurvey.util;
+
+import androidx.annotation.Nullable;
+
+import com.craxiom.networksurvey.CalculationUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estimates the position of each cell from the locations where it was measured, using the centroid of the survey
+ * record locations weighted by the received signal power. A spread (the weighted standard distance from the centroid)
+ * is kept as well, which gives a sense of how reliable the estimate is.
+ * <p>
+ * Each sample is applied with a weighted version of Welford's algorithm, so an update is O(1) and the memory use is
+ * fixed per cell. The cells are kept in an open addressing table of packed long keys (see
+ * {@link #createKey(int, int, int, int)}), backed by parallel primitive arrays. Once the max number of cells is reached
+ * the least recently updated cell is evicted to make room for a new one.
+ * <p>
+ * LTE samples are also applied to an entry for the cell's eNodeB (see {@link CalculationUtils#getEnodebIdFromCellId(int)})
+ * so that the sectors of a site can be grouped together.
+ * <p>
+ * This class is thread safe.
+ *
+ * @since 1.5.0
+ */
+public class CellTowerEstimator
+{
+    public static final int TECHNOLOGY_GSM = 1;
+    public static final int TECHNOLOGY_UMTS = 2;
+    public static final int TECHNOLOGY_LTE = 3;
+    public static final int TECHNOLOGY_LTE_ENODEB = 4;
+
+    private static final double METERS_PER_DEGREE_LATITUDE = 111_320;
+
+    /**
+     * The signal values are offset before converting them to linear power so that the weights don't get too small.
+     * The offset does not change the result since only the relative weights matter.
+     */
+    private static final double WEIGHT_OFFSET_DBM = 140;
+
+    private static final int NONE = -1;
+
+    private final int maxCells;
+
+    private final long[] keys;
+    private final int[] counts;
+    private final double[] weightSums;
+    private final double[] meanLatitudes;
+    private final double[] meanLongitudes;
+    private final double[] m2Latitudes;
+    private final double[] m2Longitudes;
+
+    /**
+     * The least recently updated order of the cells, as a doubly linked list of the slot numbers.
+     */
+    private final int[] previous;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+
+    /**
+     * The slot number plus one for each position in the open addressing index, where zero means the position is empty.
+     */
+    private final int[] index;
+    private final int indexMask;
+
+    private int size;
+
+    /**
+     * @param maxCells The max number of cells (and eNodeBs) to keep estimates for.
+     */
+    public CellTowerEstimator(int maxCells)
+    {
+        if (maxCells <= 0) throw new IllegalArgumentException("The max number of cells must be positive: " + maxCells);
+
+        this.maxCells = maxCells;
+        keys = new long[maxCells];
+        counts = new int[maxCells];
+        weightSums = new double[maxCells];
+        meanLatitudes = new double[maxCells];
+        meanLongitudes = new double[maxCells];
+        m2Latitudes = new double[maxCells];
+        m2Longitudes = new double[maxCells];
+        previous = new int[maxCells];
+        next = new int[maxCells];
+
+        final int indexCapacity = Integer.highestOneBit(maxCells * 2 - 1) << 1;
+        index = new int[indexCapacity];
+        indexMask = indexCapacity - 1;
+    }
+
+    /**
+     * Packs the identity of a cell into a long, with the technology in the top 4 bits, then the MCC and MNC in 10 bits
+     * each, and the cell identity in the low 32 bits.
+     *
+     * @param technology One of the TECHNOLOGY constants.
+     * @param mcc        The Mobile Country Code.
+     * @param mnc        The Mobile Network Code.
+     * @param cellId     The cell identity, which must be unique within the PLMN (e.g. the ECI for LTE, or the LAC and
+     *                   CI for GSM, see {@link #getGsmCellId(int, int)}).
+     * @return The key for the cell.
+     */
+    public static long createKey(int technology, int mcc, int mnc, int cellId)
+    {
+        return ((long) (technology & 0xF) << 60) | ((long) (mcc & 0x3FF) << 50) | ((long) (mnc & 0x3FF) << 40)
+                | (cellId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return The GSM CI combined with its LAC, since a GSM CI is only unique within its location area.
+     */
+    public static int getGsmCellId(int lac, int ci)
+    {
+        return (lac << 16) | (ci & 0xFFFF);
+    }
+
+    /**
+     * Adds a sample for an LTE cell, which is also applied to the estimate for the cell's eNodeB.
+     *
+     * @param mcc       The Mobile Country Code.
+     * @param mnc       The Mobile Network Code.
+     * @param eci       The E-UTRAN Cell Identity.
+     * @param latitude  The latitude where the cell was measured.
+     * @param longitude The longitude where the cell was measured.
+     * @param rsrp      The RSRP of the cell.
+     */
+    public synchronized void addLteSample(int mcc, int mnc, int eci, double latitude, double longitude, float rsrp)
+    {
+        if (!CalculationUtils.isLteCellIdValid(eci)) return;
+
+        addSample(createKey(TECHNOLOGY_LTE, mcc, mnc, eci), latitude, longitude, rsrp);
+        addSample(createKey(TECHNOLOGY_LTE_ENODEB, mcc, mnc, CalculationUtils.getEnodebIdFromCellId(eci)),
+                latitude, longitude, rsrp);
+    }
+
+    /**
+     * Adds a sample for the cell with the provided key.
+     *
+     * @param key       The key from {@link #createKey(int, int, int, int)}.
+     * @param latitude  The latitude where the cell was measured.
+     * @param longitude The longitude where the cell was measured.
+     * @param signalDbm The signal strength of the cell (e.g. the RSRP, RSCP, or RSSI).
+     */
+    public synchronized void addSample(long key, double latitude, double longitude, float signalDbm)
+    {
+        // Survey records without a location fix have a location of 0, 0
+        if (latitude == 0 && longitude == 0) return;
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180) || Float.isNaN(signalDbm))
+        {
+            return;
+        }
+
+        int position = (int) hash(key) & indexMask;
+        int slot = NONE;
+        while (index[position] != 0)
+        {
+            if (keys[index[position] - 1] == key)
+            {
+                slot = index[position] - 1;
+                break;
+            }
+            position = (position + 1) & indexMask;
+        }
+
+        if (slot == NONE)
+        {
+            if (size == maxCells)
+            {
+                slot = tail;
+                evict(slot);
+
+                // The eviction can shift entries back, so find the insert position again
+                position = (int) hash(key) & indexMask;
+                while (index[position] != 0)
+                {
+                    position = (position + 1) & indexMask;
+                }
+            } else
+            {
+                slot = size;
+            }
+
+            size++;
+            keys[slot] = key;
+            counts[slot] = 0;
+            weightSums[slot] = 0;
+            meanLatitudes[slot] = 0;
+            meanLongitudes[slot] = 0;
+            m2Latitudes[slot] = 0;
+            m2Longitudes[slot] = 0;
+            index[position] = slot + 1;
+            linkAtHead(slot);
+        } else if (slot != head)
+        {
+            unlink(slot);
+            linkAtHead(slot);
+        }
+
+        // Weighted incremental mean and variance (West's algorithm)
+        final double weight = Math.pow(10, (signalDbm + WEIGHT_OFFSET_DBM) / 10);
+        counts[slot]++;
+        final double weightSum = weightSums[slot] += weight;
+
+        final double latitudeDelta = latitude - meanLatitudes[slot];
+        meanLatitudes[slot] += latitudeDelta * weight / weightSum;
+        m2Latitudes[slot] += weight * latitudeDelta * (latitude - meanLatitudes[slot]);
+
+        final double longitudeDelta = longitude - meanLongitudes[slot];
+        meanLongitudes[slot] += longitudeDelta * weight / weightSum;
+        m2Longitudes[slot] += weight * longitudeDelta * (longitude - meanLongitudes[slot]);
+    }
+
+    /**
+     * @param key The key from {@link #createKey(int, int, int, int)}.
+     * @return The current estimate for the cell, or null if there is not one.
+     */
+    @Nullable
+    public synchronized Estimate getEstimate(long key)
+    {
+        int position = (int) hash(key) & indexMask;
+        while (index[position] != 0)
+        {
+            final int slot = index[position] - 1;
+            if (keys[slot] == key) return createEstimate(slot);
+            position = (position + 1) & indexMask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a snapshot of the estimate for each cell, so the caller can process the estimates without holding the lock
+     * that the sample updates need.
+     *
+     * @return The estimates, from the most to the least recently updated.
+     */
+    public synchronized List<Estimate> getEstimates()
+    {
+        final List<Estimate> estimates = new ArrayList<>(size);
+        for (int slot = head; slot != NONE; slot = next[slot])
+        {
+            estimates.add(createEstimate(slot));
+        }
+        return estimates;
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized void clear()
+    {
+        Arrays.fill(index, 0);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    private Estimate createEstimate(int slot)
+    {
+        final double latitude = meanLatitudes[slot];
+        final double metersPerDegreeLongitude = METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(latitude));
+        final double latitudeVariance = m2Latitudes[slot] / weightSums[slot];
+        final double longitudeVariance = m2Longitudes[slot] / weightSums[slot];
+        final double spreadMeters = Math.sqrt(
+                Math.max(0, latitudeVariance) * METERS_PER_DEGREE_LATITUDE * METERS_PER_DEGREE_LATITUDE
+                        + Math.max(0, longitudeVariance) * metersPerDegreeLongitude * metersPerDegreeLongitude);
+
+        return new Estimate(keys[slot], latitude, meanLongitudes[slot], spreadMeters, counts[slot]);
+    }
+
+    /**
+     * Removes the cell in the provided slot from the index and the LRU list, so the slot can be reused.
+     */
+    private void evict(int slot)
+    {
+        unlink(slot);
+        size--;
+
+        int position = (int) hash(keys[slot]) & indexMask;
+        while (index[position] != slot + 1)
+        {
+            position = (position + 1) & indexMask;
+        }
+
+        // Shift back any of the following entries that would no longer be reachable with the position empty
+        int nextPosition = (position + 1) & indexMask;
+        while (index[nextPosition] != 0)
+        {
+            final int home = (int) hash(keys[index[nextPosition] - 1]) & indexMask;
+            if (((nextPosition - home) & indexMask) >= ((nextPosition - position) & indexMask))
+            {
+                index[position] = index[nextPosition];
+                position = nextPosition;
+            }
+            nextPosition = (nextPosition + 1) & indexMask;
+        }
+        index[position] = 0;
+    }
+
+    private void linkAtHead(int slot)
+    {
+        previous[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) previous[head] = slot;
+        head = slot;
+        if (tail == NONE) tail = slot;
+    }
+
+    private void unlink(int slot)
+    {
+        final int previousSlot = previous[slot];
+        final int nextSlot = next[slot];
+        if (previousSlot == NONE) head = nextSlot;
+        else next[previousSlot] = nextSlot;
+        if (nextSlot == NONE) tail = previousSlot;
+        else previous[nextSlot] = previousSlot;
+    }
+
+    private static long hash(long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * The estimated position of a cell (or eNodeB) at the time the estimate was taken.
+     */
+    public static final class Estimate
+    {
+        private final long key;
+        private final double latitude;
+        private final double longitude;
+        private final double spreadMeters;
+        private final int sampleCount;
+
+        Estimate(long key, double latitude, double longitude, double spreadMeters, int sampleCount)
+        {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.spreadMeters = spreadMeters;
+            this.sampleCount = sampleCount;
+        }
+
+        public long getKey()
+        {
+            return key;
+        }
+
+        /**
+         * @return One of the TECHNOLOGY constants.
+         */
+        public int getTechnology()
+        {
+            return (int) (key >>> 60);
+        }
+
+        public int getMcc()
+        {
+            return (int) (key >>> 50) & 0x3FF;
+        }
+
+        public int getMnc()
+        {
+            return (int) (key >>> 40) & 0x3FF;
+        }
+
+        /**
+         * @return The cell identity that was used to create the key (the eNodeB ID for {@link #TECHNOLOGY_LTE_ENODEB}).
+         */
+        public int getCellId()
+        {
+            return (int) key;
+        }
+
+        public double getLatitude()
+        {
+            return latitude;
+        }
+
+        public double getLongitude()
+        {
+            return longitude;
+        }
+
+        /**
+         * @return The signal weighted standard distance of the samples from the estimated position, in meters.
+         */
+        public double getSpreadMeters()
+        {
+            return spreadMeters;
+        }
+
+        public int getSampleCount()
+        {
+            return sampleCount;
+        }
+    }
+}
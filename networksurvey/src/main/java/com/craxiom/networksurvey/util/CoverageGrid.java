@@ -0,0 +1,324 @@
+package com.craxiom.networksurvey.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Aggregates signal samples into a fixed resolution geographic grid, with one set of statistics per emitter (e.g. a
+ * cell or a BSSID) per tile.
+ * <p>
+ * The grid tiles are a plain latitude/longitude grid, where each tile is {@code tileSizeDegrees} on a side. For each
+ * emitter in each tile the sample count, mean, min, max, and variance are kept as streaming statistics (the variance
+ * uses Welford's algorithm), so the memory use only depends on the number of tiles, and not the number of samples.
+ * <p>
+ * The statistics are held in parallel primitive arrays indexed by the tile number, and the tiles are found using an
+ * open addressing table of the packed (emitter, tile) keys. Once the configured max number of tiles has been
+ * reached, samples for new tiles are dropped (and counted) while the existing tiles continue to be updated.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @since 1.5.0
+ */
+public class CoverageGrid
+{
+    /**
+     * The approximate number of bytes used per tile, which can be used to convert a memory budget to a max tile count.
+     * This includes the statistics arrays and the index table at its worst case load.
+     */
+    public static final int BYTES_PER_TILE = 8 + 4 + 8 + 8 + 4 + 4 + 4 * 4;
+
+    private static final int TILE_BITS = 20;
+    private static final int EMITTER_BITS = 64 - 2 * TILE_BITS;
+    private static final long TILE_MASK = (1L << TILE_BITS) - 1;
+    private static final int MAX_TILES_PER_AXIS = 1 << TILE_BITS;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final double tileSizeDegrees;
+    private final int maxTiles;
+
+    private final Map<String, Integer> emitterIndexes = new HashMap<>();
+    private final List<String> emitterIds = new ArrayList<>();
+
+    private long[] tileKeys;
+    private int[] counts;
+    private double[] means;
+    private double[] m2s;
+    private float[] mins;
+    private float[] maxes;
+    private int tileCount;
+
+    /**
+     * The tile number plus one for each slot in the open addressing index, where zero means the slot is empty.
+     */
+    private int[] index;
+    private int indexMask;
+
+    private long droppedSampleCount;
+
+    private final Tile tile = new Tile();
+
+    /**
+     * @param tileSizeDegrees The size of each side of a tile in degrees of latitude and longitude. It must be large
+     *                        enough that the grid has fewer than 2^20 tiles around the world (about 0.00035 degrees).
+     * @param maxTiles        The max number of emitter tiles to keep, which caps the memory used by this grid (see
+     *                        {@link #BYTES_PER_TILE}).
+     */
+    public CoverageGrid(double tileSizeDegrees, int maxTiles)
+    {
+        if (!(tileSizeDegrees * MAX_TILES_PER_AXIS > 360))
+        {
+            throw new IllegalArgumentException("The tile size is too small: " + tileSizeDegrees);
+        }
+        if (maxTiles <= 0) throw new IllegalArgumentException("The max number of tiles must be positive: " + maxTiles);
+
+        this.tileSizeDegrees = tileSizeDegrees;
+        this.maxTiles = maxTiles;
+
+        allocate(Math.min(INITIAL_CAPACITY, maxTiles));
+    }
+
+    /**
+     * Adds a signal sample to the tile that contains the provided location.
+     *
+     * @param emitterId The identifier of the emitter that the sample is for (e.g. the BSSID).
+     * @param latitude  The latitude of the sample.
+     * @param longitude The longitude of the sample.
+     * @param value     The signal value (e.g. the RSRP or RSSI).
+     * @return True if the sample was added, false if the location or value is invalid, or if the sample was for a
+     * new tile and the grid is full.
+     */
+    public boolean add(String emitterId, double latitude, double longitude, float value)
+    {
+        // Survey records without a location fix have a location of 0, 0
+        if (latitude == 0 && longitude == 0) return false;
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180) || Float.isNaN(value))
+        {
+            return false;
+        }
+
+        final long tileX = Math.min((long) ((longitude + 180) / tileSizeDegrees), MAX_TILES_PER_AXIS - 1);
+        final long tileY = Math.min((long) ((latitude + 90) / tileSizeDegrees), MAX_TILES_PER_AXIS - 1);
+
+        final Integer emitterIndex = emitterIndexes.get(emitterId);
+        final long emitterBits = emitterIndex == null ? emitterIds.size() : emitterIndex;
+        final long key = (emitterBits << (2 * TILE_BITS)) | (tileY << TILE_BITS) | tileX;
+
+        int slot = (int) hash(key) & indexMask;
+        while (index[slot] != 0)
+        {
+            final int tileNumber = index[slot] - 1;
+            if (tileKeys[tileNumber] == key)
+            {
+                update(tileNumber, value);
+                return true;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+
+        if (tileCount == maxTiles || emitterBits >= 1L << EMITTER_BITS)
+        {
+            droppedSampleCount++;
+            return false;
+        }
+
+        if (emitterIndex == null)
+        {
+            emitterIndexes.put(emitterId, emitterIds.size());
+            emitterIds.add(emitterId);
+        }
+
+        if (tileCount == tileKeys.length)
+        {
+            allocate((int) Math.min((long) tileKeys.length << 1, maxTiles));
+            slot = (int) hash(key) & indexMask;
+            while (index[slot] != 0)
+            {
+                slot = (slot + 1) & indexMask;
+            }
+        }
+
+        final int tileNumber = tileCount++;
+        tileKeys[tileNumber] = key;
+        counts[tileNumber] = 1;
+        means[tileNumber] = value;
+        m2s[tileNumber] = 0;
+        mins[tileNumber] = value;
+        maxes[tileNumber] = value;
+        index[slot] = tileNumber + 1;
+        return true;
+    }
+
+    /**
+     * Calls the consumer once for every tile in the order they were first seen. The {@link Tile} passed to the consumer
+     * is reused, so it is only valid for the duration of the call.
+     */
+    public void forEachTile(Consumer<Tile> consumer)
+    {
+        for (int i = 0; i < tileCount; i++)
+        {
+            tile.tileNumber = i;
+            consumer.accept(tile);
+        }
+    }
+
+    /**
+     * @return The number of emitter tiles in this grid.
+     */
+    public int getTileCount()
+    {
+        return tileCount;
+    }
+
+    /**
+     * @return The number of distinct emitters that have at least one tile in this grid.
+     */
+    public int getEmitterCount()
+    {
+        return emitterIds.size();
+    }
+
+    /**
+     * @return The number of samples that were dropped because the grid was full.
+     */
+    public long getDroppedSampleCount()
+    {
+        return droppedSampleCount;
+    }
+
+    public double getTileSizeDegrees()
+    {
+        return tileSizeDegrees;
+    }
+
+    /**
+     * Removes all the tiles, but keeps the allocated arrays for reuse.
+     */
+    public void clear()
+    {
+        emitterIndexes.clear();
+        emitterIds.clear();
+        Arrays.fill(index, 0);
+        tileCount = 0;
+        droppedSampleCount = 0;
+    }
+
+    private void update(int tileNumber, float value)
+    {
+        // Welford's online algorithm for the mean and the sum of the squared differences from the mean
+        final int count = ++counts[tileNumber];
+        final double delta = value - means[tileNumber];
+        means[tileNumber] += delta / count;
+        m2s[tileNumber] += delta * (value - means[tileNumber]);
+
+        if (value < mins[tileNumber]) mins[tileNumber] = value;
+        if (value > maxes[tileNumber]) maxes[tileNumber] = value;
+    }
+
+    /**
+     * Sizes the statistics arrays to hold the provided number of tiles, and rebuilds the index so it is at most half
+     * full.
+     */
+    private void allocate(int capacity)
+    {
+        tileKeys = tileKeys == null ? new long[capacity] : Arrays.copyOf(tileKeys, capacity);
+        counts = counts == null ? new int[capacity] : Arrays.copyOf(counts, capacity);
+        means = means == null ? new double[capacity] : Arrays.copyOf(means, capacity);
+        m2s = m2s == null ? new double[capacity] : Arrays.copyOf(m2s, capacity);
+        mins = mins == null ? new float[capacity] : Arrays.copyOf(mins, capacity);
+        maxes = maxes == null ? new float[capacity] : Arrays.copyOf(maxes, capacity);
+
+        final int indexCapacity = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+        index = new int[indexCapacity];
+        indexMask = indexCapacity - 1;
+        for (int i = 0; i < tileCount; i++)
+        {
+            int slot = (int) hash(tileKeys[i]) & indexMask;
+            while (index[slot] != 0)
+            {
+                slot = (slot + 1) & indexMask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    private static long hash(long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * A view of the statistics for one emitter in one tile of the grid.
+     */
+    public final class Tile
+    {
+        private int tileNumber;
+
+        private Tile()
+        {
+        }
+
+        public String getEmitterId()
+        {
+            return emitterIds.get((int) (tileKeys[tileNumber] >>> (2 * TILE_BITS)));
+        }
+
+        public double getMinLatitude()
+        {
+            return ((tileKeys[tileNumber] >>> TILE_BITS) & TILE_MASK) * tileSizeDegrees - 90;
+        }
+
+        public double getMinLongitude()
+        {
+            return (tileKeys[tileNumber] & TILE_MASK) * tileSizeDegrees - 180;
+        }
+
+        public double getMaxLatitude()
+        {
+            return getMinLatitude() + tileSizeDegrees;
+        }
+
+        public double getMaxLongitude()
+        {
+            return getMinLongitude() + tileSizeDegrees;
+        }
+
+        public int getCount()
+        {
+            return counts[tileNumber];
+        }
+
+        public double getMean()
+        {
+            return means[tileNumber];
+        }
+
+        /**
+         * @return The sample variance, or 0 if there is only one sample.
+         */
+        public double getVariance()
+        {
+            final int count = counts[tileNumber];
+            return count < 2 ? 0 : m2s[tileNumber] / (count - 1);
+        }
+
+        public double getStandardDeviation()
+        {
+            return Math.sqrt(getVariance());
+        }
+
+        public float getMin()
+        {
+            return mins[tileNumber];
+        }
+
+        public float getMax()
+        {
+            return maxes[tileNumber];
+        }
+    }
+}
@@ -31,6 +31,8 @@ import androidx.annotation.RequiresApi;
 import com.craxiom.networksurvey.Application;
 import com.craxiom.networksurvey.model.GnssType;
 import com.craxiom.networksurvey.model.SatelliteName;
+import com.craxiom.networksurvey.model.SatelliteStatus;
+import com.craxiom.networksurvey.model.SatelliteStatusMap;
 import com.craxiom.networksurvey.model.SbasType;
 
 import java.lang.reflect.InvocationTargetException;
@@ -305,14 +307,17 @@ public class GpsTestUtil
 
     /**
      * Creates a unique key to identify this satellite using a combination of both the svid and
-     * constellation type
+     * constellation type.  The key is packed into an int (see {@link SatelliteStatusMap#createKey(GnssType, int, float)})
+     * so that it can be used with a {@link SatelliteStatusMap} without building a String for each satellite.
      *
+     * @param svid              identification number provided by the GnssStatus.getSvid() method
+     * @param constellationType constellation type provided by the GnssStatus.getConstellationType() method
      * @return a unique key to identify this satellite using a combination of both the svid and
      * constellation type
      */
-    public static String createGnssSatelliteKey(int svid, int constellationType)
+    public static int createGnssSatelliteKey(int svid, int constellationType)
     {
-        return svid + " " + constellationType;
+        return SatelliteStatusMap.createKey(getGnssConstellationType(constellationType), svid, SatelliteStatus.NO_DATA);
     }
 
     /**
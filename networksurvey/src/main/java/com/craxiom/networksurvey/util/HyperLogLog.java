@@ -0,0 +1,183 @@
+package com.craxiom.networksurvey.util;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the number of distinct values that have been added to it (e.g. the number of unique BSSIDs seen during a
+ * survey) using a fixed amount of memory, no matter how many values are added.
+ * <p>
+ * This is the HyperLogLog algorithm: each value is hashed to 64 bits, the first {@code precision} bits of the hash
+ * select a register, and the register keeps the max position of the first 1 bit seen in the rest of the hash. The
+ * registers take 2^precision bytes, and the standard error of the estimate is about 1.04 / sqrt(2^precision) (e.g.
+ * 1.6% for a precision of 12). Small counts are estimated with linear counting, so they are close to exact.
+ * <p>
+ * Two counters with the same precision can be merged, and the result is the same as if all the values had been added
+ * to a single counter. This allows, for example, the counts of rolled over log files to be combined.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @since 1.5.0
+ */
+public class HyperLogLog
+{
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision The number of hash bits used to select a register, between {@link #MIN_PRECISION} and
+     *                  {@link #MAX_PRECISION}. Higher values use more memory and give a more accurate estimate.
+     */
+    public HyperLogLog(int precision)
+    {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION)
+        {
+            throw new IllegalArgumentException("The precision must be between " + MIN_PRECISION + " and "
+                    + MAX_PRECISION + ": " + precision);
+        }
+
+        this.precision = precision;
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds the provided value, which is hashed without allocating.
+     *
+     * @param value The value to add (e.g. a BSSID or a Bluetooth source address).
+     */
+    public void add(CharSequence value)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        addHash(mix(hash));
+    }
+
+    /**
+     * Adds the provided value (e.g. a packed cell identity).
+     */
+    public void add(long value)
+    {
+        addHash(mix(value));
+    }
+
+    /**
+     * Adds a value that has already been hashed to 64 well distributed bits.
+     */
+    public void addHash(long hash)
+    {
+        final int register = (int) (hash >>> (64 - precision));
+        final long remaining = hash << precision;
+        final int rank = remaining == 0 ? 64 - precision + 1 : Long.numberOfLeadingZeros(remaining) + 1;
+        if (rank > registers[register]) registers[register] = (byte) rank;
+    }
+
+    /**
+     * @return The estimated number of distinct values that have been added.
+     */
+    public long estimate()
+    {
+        final int registerCount = registers.length;
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers)
+        {
+            sum += Double.longBitsToDouble((1023L - register) << 52); // 2^-register
+            if (register == 0) zeroRegisters++;
+        }
+
+        final double estimate = getAlpha(registerCount) * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeroRegisters != 0)
+        {
+            // Linear counting is more accurate for small counts
+            return Math.round(registerCount * Math.log((double) registerCount / zeroRegisters));
+        }
+
+        return Math.round(estimate);
+    }
+
+    /**
+     * Merges the values of the provided counter into this one.
+     *
+     * @param other The counter to merge, which must have the same precision as this one.
+     */
+    public void merge(HyperLogLog other)
+    {
+        if (other.precision != precision)
+        {
+            throw new IllegalArgumentException("Can't merge a counter with a precision of " + other.precision
+                    + " into one with a precision of " + precision);
+        }
+
+        for (int i = 0; i < registers.length; i++)
+        {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    /**
+     * @return A new counter with the same values as this one.
+     */
+    public HyperLogLog copy()
+    {
+        final HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    public boolean isEmpty()
+    {
+        for (byte register : registers)
+        {
+            if (register != 0) return false;
+        }
+        return true;
+    }
+
+    public int getPrecision()
+    {
+        return precision;
+    }
+
+    private static double getAlpha(int registerCount)
+    {
+        switch (registerCount)
+        {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+
+    /**
+     * The MurmurHash3 finalizer, which spreads the bits of the input over all 64 bits of the output.
+     */
+    private static long mix(long value)
+    {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
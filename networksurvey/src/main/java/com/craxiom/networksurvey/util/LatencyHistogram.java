@@ -0,0 +1,131 @@
+package com.craxiom.networksurvey.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latency values. The buckets double in size starting at 100 microseconds, so the percentile
+ * values are approximate (they are reported as the upper bound of the bucket they fall in), but recording a value is
+ * cheap enough to do for every message.
+ * <p>
+ * This class is thread safe.
+ *
+ * @since 1.5.0
+ */
+public class LatencyHistogram
+{
+    private static final long FIRST_BUCKET_UPPER_BOUND_NANOS = 100_000L;
+    private static final int BUCKET_COUNT = 20; // The last bucket holds everything over ~26 seconds
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Adds a latency value to this histogram.
+     *
+     * @param latencyNanos The latency in nanoseconds.
+     */
+    public void record(long latencyNanos)
+    {
+        final long latency = Math.max(0, latencyNanos);
+
+        bucketCounts.incrementAndGet(getBucketIndex(latency));
+        count.incrementAndGet();
+        totalNanos.addAndGet(latency);
+
+        long currentMax = maxNanos.get();
+        while (latency > currentMax && !maxNanos.compareAndSet(currentMax, latency))
+        {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     * @return The mean latency in milliseconds, or 0 if no values have been recorded.
+     */
+    public double getMeanMs()
+    {
+        final long currentCount = count.get();
+        return currentCount == 0 ? 0 : totalNanos.get() / (double) currentCount / 1_000_000d;
+    }
+
+    /**
+     * @return The largest latency recorded in milliseconds.
+     */
+    public double getMaxMs()
+    {
+        return maxNanos.get() / 1_000_000d;
+    }
+
+    /**
+     * Returns the approximate latency at the provided percentile.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket that the percentile falls in (capped at the max recorded latency) in
+     * milliseconds, or 0 if no values have been recorded.
+     */
+    public double getPercentileMs(double percentile)
+    {
+        long total = 0;
+        final long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts[i] = bucketCounts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        final long target = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100d));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            cumulative += counts[i];
+            if (cumulative >= target)
+            {
+                return Math.min(getBucketUpperBoundNanos(i), maxNanos.get()) / 1_000_000d;
+            }
+        }
+
+        return getMaxMs();
+    }
+
+    /**
+     * Clears all the recorded values.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            bucketCounts.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    static int getBucketIndex(long latencyNanos)
+    {
+        if (latencyNanos <= FIRST_BUCKET_UPPER_BOUND_NANOS) return 0;
+
+        // Each bucket covers twice the range of the one before it
+        final long ratio = (latencyNanos - 1) / FIRST_BUCKET_UPPER_BOUND_NANOS;
+        final int index = 64 - Long.numberOfLeadingZeros(ratio);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    static long getBucketUpperBoundNanos(int bucketIndex)
+    {
+        if (bucketIndex >= BUCKET_COUNT - 1) return Long.MAX_VALUE;
+        return FIRST_BUCKET_UPPER_BOUND_NANOS << bucketIndex;
+    }
+}
@@ -0,0 +1,80 @@
+package com.craxiom.networksurvey.util;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A small, fixed size cache of legacy protobuf conversions keyed by the identity of the source record.
+ * <p>
+ * Converting a record to the legacy messaging API requires building a brand new message and parsing the RFC 3339
+ * device time, so when the same record instance feeds more than one legacy stream (or is offered to the same stream
+ * more than once) we only want to pay for the conversion a single time. The cache is direct mapped on the identity
+ * hash code of the source record; a collision simply overwrites the previous entry, which keeps the lookup cost
+ * constant and the memory footprint bounded.
+ *
+ * @param <S> The newer record type that is the source of the conversion.
+ * @param <T> The legacy record type that is the result of the conversion.
+ * @since 1.5.0
+ */
+public class LegacyConversionCache<S, T>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Function<S, T> converter;
+    private final Object[] sources;
+    private final Object[] results;
+    private final int mask;
+
+    /**
+     * Creates a new cache with the default capacity.
+     *
+     * @param converter The function used to convert a record when it is not found in the cache.
+     */
+    public LegacyConversionCache(Function<S, T> converter)
+    {
+        this(converter, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param converter The function used to convert a record when it is not found in the cache.
+     * @param capacity  The number of entries to hold. It is rounded up to the next power of two.
+     */
+    public LegacyConversionCache(Function<S, T> converter, int capacity)
+    {
+        if (capacity < 1) throw new IllegalArgumentException("The cache capacity must be positive");
+
+        this.converter = converter;
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        sources = new Object[Math.max(size, 1)];
+        results = new Object[sources.length];
+        mask = sources.length - 1;
+    }
+
+    /**
+     * Returns the converted form of the provided record, only running the conversion if this exact record instance
+     * has not been recently converted.
+     *
+     * @param source The record to convert.
+     * @return The legacy version of the record.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T convert(S source)
+    {
+        final int slot = System.identityHashCode(source) & mask;
+        if (sources[slot] == source) return (T) results[slot];
+
+        final T converted = converter.apply(source);
+        sources[slot] = source;
+        results[slot] = converted;
+        return converted;
+    }
+
+    /**
+     * Drops all the cached conversions so that the records can be garbage collected.
+     */
+    public synchronized void clear()
+    {
+        Arrays.fill(sources, null);
+        Arrays.fill(results, null);
+    }
+}
@@ -0,0 +1,1017 @@
+package com.craxiom.networksurvey.util;
+
+import com.craxiom.networksurvey.listeners.INmeaListener;
+
+/**
+ * A streaming parser for the NMEA 0183 sentences reported by {@link android.location.OnNmeaMessageListener}.
+ * <p>
+ * The GGA, GNS, GSA, RMC, GSV, and VTG sentences are supported, from any talker (e.g. $GPGGA, $GNGGA, or $GLGSV).
+ * Each sentence is checked against its checksum, and then its fields are read by index directly from the original
+ * {@link CharSequence}. Numbers are parsed in place, without creating substrings, and the results are written to one
+ * reusable event object per sentence type, so parsing a sentence does not allocate any memory.
+ * <p>
+ * Since the events are reused, they are only valid for the duration of the {@link INmeaListener} callback. Any values
+ * that are needed afterwards must be copied out of the event.
+ * <p>
+ * This class is not thread safe. Each thread that parses NMEA sentences should use its own instance.
+ *
+ * @since 1.5.0
+ */
+public class NmeaParser
+{
+    /**
+     * The most fields that any of the supported sentences have, plus some room for proprietary additions.
+     */
+    private static final int MAX_FIELDS = 32;
+    private static final int ADDRESS_LENGTH = 5;
+    private static final int CHECKSUM_LENGTH = 2;
+    private static final int MAX_MANTISSA_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15};
+
+    private final INmeaListener listener;
+
+    /**
+     * The index of the first character of each field, where field 0 is the address (e.g. "GPGGA").
+     */
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private int fieldCount;
+    private int checksumIndex;
+    private CharSequence sentence;
+
+    private final GgaEvent ggaEvent = new GgaEvent();
+    private final GnsEvent gnsEvent = new GnsEvent();
+    private final GsaEvent gsaEvent = new GsaEvent();
+    private final RmcEvent rmcEvent = new RmcEvent();
+    private final GsvEvent gsvEvent = new GsvEvent();
+    private final VtgEvent vtgEvent = new VtgEvent();
+
+    private long invalidSentenceCount;
+
+    /**
+     * @param listener The listener that is notified of each sentence that is successfully parsed.
+     */
+    public NmeaParser(INmeaListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Parses the provided NMEA sentence, and if it is valid and one of the supported sentence types, notifies the
+     * listener with the typed event.
+     *
+     * @param nmeaSentence The NMEA sentence, including the leading '$' and the checksum (e.g.
+     *                     "$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*38"). Trailing line endings are ignored.
+     * @param timestamp    The timestamp of the sentence in milliseconds since the epoch.
+     * @return True if the sentence was parsed and the listener was notified, false if the sentence is malformed, has
+     * an invalid checksum, or is not a supported sentence type.
+     */
+    public boolean parse(CharSequence nmeaSentence, long timestamp)
+    {
+        if (!splitFields(nmeaSentence))
+        {
+            invalidSentenceCount++;
+            return false;
+        }
+
+        // The address is the talker ID (e.g. "GP") followed by the sentence type (e.g. "GGA")
+        if (getFieldEnd(0) - fieldStarts[0] != ADDRESS_LENGTH) return false;
+        final int addressStart = fieldStarts[0];
+        final char talker1 = sentence.charAt(addressStart);
+        final char talker2 = sentence.charAt(addressStart + 1);
+        final char type1 = sentence.charAt(addressStart + 2);
+        final char type2 = sentence.charAt(addressStart + 3);
+        final char type3 = sentence.charAt(addressStart + 4);
+
+        if (type1 == 'G' && type2 == 'G' && type3 == 'A')
+        {
+            parseGga(ggaEvent);
+            initialize(ggaEvent, talker1, talker2, timestamp);
+            listener.onGga(ggaEvent);
+        } else if (type1 == 'G' && type2 == 'N' && type3 == 'S')
+        {
+            parseGns(gnsEvent);
+            initialize(gnsEvent, talker1, talker2, timestamp);
+            listener.onGns(gnsEvent);
+        } else if (type1 == 'G' && type2 == 'S' && type3 == 'A')
+        {
+            parseGsa(gsaEvent);
+            initialize(gsaEvent, talker1, talker2, timestamp);
+            listener.onGsa(gsaEvent);
+        } else if (type1 == 'R' && type2 == 'M' && type3 == 'C')
+        {
+            parseRmc(rmcEvent);
+            initialize(rmcEvent, talker1, talker2, timestamp);
+            listener.onRmc(rmcEvent);
+        } else if (type1 == 'G' && type2 == 'S' && type3 == 'V')
+        {
+            parseGsv(gsvEvent);
+            initialize(gsvEvent, talker1, talker2, timestamp);
+            listener.onGsv(gsvEvent);
+        } else if (type1 == 'V' && type2 == 'T' && type3 == 'G')
+        {
+            parseVtg(vtgEvent);
+            initialize(vtgEvent, talker1, talker2, timestamp);
+            listener.onVtg(vtgEvent);
+        } else
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of sentences that were rejected because they were malformed or had an invalid checksum.
+     */
+    public long getInvalidSentenceCount()
+    {
+        return invalidSentenceCount;
+    }
+
+    /**
+     * Validates the checksum of the provided sentence and records where each of its fields start.
+     *
+     * @return True if the sentence is well formed and its checksum is valid.
+     */
+    private boolean splitFields(CharSequence nmeaSentence)
+    {
+        sentence = nmeaSentence;
+        fieldCount = 0;
+
+        int end = nmeaSentence.length();
+        while (end > 0 && nmeaSentence.charAt(end - 1) <= ' ') end--;
+
+        if (end == 0 || nmeaSentence.charAt(0) != '$') return false;
+
+        int checksum = 0;
+        int index = 1;
+        fieldStarts[fieldCount++] = index;
+        for (; index < end; index++)
+        {
+            final char c = nmeaSentence.charAt(index);
+            if (c == '*') break;
+
+            checksum ^= c;
+            if (c == ',')
+            {
+                if (fieldCount == MAX_FIELDS) return false;
+                fieldStarts[fieldCount++] = index + 1;
+            }
+        }
+
+        if (index + 1 + CHECKSUM_LENGTH != end) return false;
+        checksumIndex = index;
+
+        final int expectedChecksum = (hexValue(nmeaSentence.charAt(index + 1)) << 4) | hexValue(nmeaSentence.charAt(index + 2));
+        return expectedChecksum == checksum;
+    }
+
+    private void parseGga(GgaEvent event)
+    {
+        event.utcTimeMs = getUtcTimeMs(1);
+        event.latitude = getCoordinate(2, 3);
+        event.longitude = getCoordinate(4, 5);
+        event.fixQuality = getInt(6);
+        event.satellitesUsed = getInt(7);
+        event.hdop = getDouble(8);
+        event.altitudeMsl = getDouble(9);
+        event.geoidSeparation = getDouble(11);
+    }
+
+    private void parseGns(GnsEvent event)
+    {
+        event.utcTimeMs = getUtcTimeMs(1);
+        event.latitude = getCoordinate(2, 3);
+        event.longitude = getCoordinate(4, 5);
+
+        event.modeIndicatorCount = 0;
+        if (fieldCount > 6)
+        {
+            final int modeEnd = getFieldEnd(6);
+            for (int i = fieldStarts[6]; i < modeEnd && event.modeIndicatorCount < event.modeIndicators.length; i++)
+            {
+                event.modeIndicators[event.modeIndicatorCount++] = sentence.charAt(i);
+            }
+        }
+
+        event.satellitesUsed = getInt(7);
+        event.hdop = getDouble(8);
+        event.altitudeMsl = getDouble(9);
+        event.geoidSeparation = getDouble(10);
+    }
+
+    private void parseGsa(GsaEvent event)
+    {
+        event.selectionMode = getChar(1);
+        event.fixType = getInt(2);
+
+        event.satelliteCount = 0;
+        for (int field = 3; field < 3 + GsaEvent.MAX_SATELLITES; field++)
+        {
+            final int svid = getInt(field);
+            if (svid != -1) event.svids[event.satelliteCount++] = svid;
+        }
+
+        event.pdop = getDouble(15);
+        event.hdop = getDouble(16);
+        event.vdop = getDouble(17);
+        event.systemId = getInt(18); // Only present in NMEA 4.10 and later
+    }
+
+    private void parseRmc(RmcEvent event)
+    {
+        event.utcTimeMs = getUtcTimeMs(1);
+        event.valid = getChar(2) == 'A';
+        event.latitude = getCoordinate(3, 4);
+        event.longitude = getCoordinate(5, 6);
+        event.speedKnots = getDouble(7);
+        event.courseDegrees = getDouble(8);
+        event.date = getInt(9);
+
+        final double magneticVariation = getDouble(10);
+        event.magneticVariation = getChar(11) == 'W' ? -magneticVariation : magneticVariation;
+
+        event.modeIndicator = getChar(12);
+    }
+
+    private void parseGsv(GsvEvent event)
+    {
+        event.totalMessages = getInt(1);
+        event.messageNumber = getInt(2);
+        event.satellitesInView = getInt(3);
+
+        // Each satellite has four fields, and NMEA 4.10 and later adds a signal ID at the end
+        final int satelliteFields = Math.max(0, fieldCount - 4);
+        final int satelliteCount = Math.min(GsvEvent.MAX_SATELLITES, satelliteFields / 4);
+        event.signalId = satelliteFields % 4 == 1 ? getInt(fieldCount - 1) : -1;
+
+        event.satelliteCount = 0;
+        for (int i = 0; i < satelliteCount; i++)
+        {
+            final int field = 4 + i * 4;
+            final int svid = getInt(field);
+            if (svid == -1) continue;
+
+            final int index = event.satelliteCount++;
+            event.svids[index] = svid;
+            event.elevations[index] = getInt(field + 1);
+            event.azimuths[index] = getInt(field + 2);
+            event.cn0s[index] = getInt(field + 3);
+        }
+    }
+
+    private void parseVtg(VtgEvent event)
+    {
+        event.courseTrue = getDouble(1);
+        event.courseMagnetic = getDouble(3);
+        event.speedKnots = getDouble(5);
+        event.speedKmh = getDouble(7);
+        event.modeIndicator = getChar(9);
+    }
+
+    private void initialize(NmeaEvent event, char talker1, char talker2, long timestamp)
+    {
+        event.sentence = sentence;
+        event.talker1 = talker1;
+        event.talker2 = talker2;
+        event.timestamp = timestamp;
+    }
+
+    /**
+     * @return The index after the last character of the provided field.
+     */
+    private int getFieldEnd(int field)
+    {
+        return field + 1 < fieldCount ? fieldStarts[field + 1] - 1 : checksumIndex;
+    }
+
+    /**
+     * @return The value of the field, or {@link Double#NaN} if the field is missing, empty, or not a number.
+     */
+    private double getDouble(int field)
+    {
+        if (field >= fieldCount) return Double.NaN;
+        return parseDouble(sentence, fieldStarts[field], getFieldEnd(field));
+    }
+
+    /**
+     * @return The value of the field, or -1 if the field is missing, empty, or not a non-negative integer.
+     */
+    private int getInt(int field)
+    {
+        if (field >= fieldCount) return -1;
+        return parseUnsignedInt(sentence, fieldStarts[field], getFieldEnd(field));
+    }
+
+    /**
+     * @return The first character of the field, or 0 if the field is missing or empty.
+     */
+    private char getChar(int field)
+    {
+        if (field >= fieldCount || fieldStarts[field] == getFieldEnd(field)) return 0;
+        return sentence.charAt(fieldStarts[field]);
+    }
+
+    /**
+     * Converts a latitude (ddmm.mmmm) or longitude (dddmm.mmmm) field and its hemisphere field to decimal degrees.
+     *
+     * @return The coordinate in decimal degrees, negative for the southern and western hemispheres, or
+     * {@link Double#NaN} if it is missing.
+     */
+    private double getCoordinate(int valueField, int hemisphereField)
+    {
+        final double value = getDouble(valueField);
+        if (Double.isNaN(value)) return Double.NaN;
+
+        final int degrees = (int) (value / 100);
+        final double coordinate = degrees + (value - degrees * 100) / 60;
+
+        final char hemisphere = getChar(hemisphereField);
+        return hemisphere == 'S' || hemisphere == 'W' ? -coordinate : coordinate;
+    }
+
+    /**
+     * Converts a time field (hhmmss.ss) to milliseconds since midnight UTC.
+     *
+     * @return The time in milliseconds since midnight UTC, or -1 if it is missing.
+     */
+    private long getUtcTimeMs(int field)
+    {
+        final double value = getDouble(field);
+        if (Double.isNaN(value) || value < 0) return -1;
+
+        final int hours = (int) (value / 10_000);
+        final int minutes = (int) (value / 100) % 100;
+        final double seconds = value - hours * 10_000 - minutes * 100;
+        return hours * 3_600_000L + minutes * 60_000L + Math.round(seconds * 1000);
+    }
+
+    /**
+     * Parses a decimal number (e.g. "-24.05") from the provided range of characters without allocating any memory.
+     *
+     * @param chars The characters to parse from.
+     * @param start The index of the first character of the number.
+     * @param end   The index after the last character of the number.
+     * @return The parsed number, or {@link Double#NaN} if the range is empty or is not a decimal number.
+     */
+    public static double parseDouble(CharSequence chars, int start, int end)
+    {
+        if (start >= end) return Double.NaN;
+
+        int index = start;
+        final char first = chars.charAt(index);
+        final boolean negative = first == '-';
+        if (negative || first == '+') index++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean decimalPoint = false;
+        boolean hasDigit = false;
+        for (; index < end; index++)
+        {
+            final char c = chars.charAt(index);
+            if (c >= '0' && c <= '9')
+            {
+                if (digits == MAX_MANTISSA_DIGITS)
+                {
+                    // Too many digits to parse exactly, which should never happen for NMEA values
+                    return parseDoubleSlow(chars, start, end);
+                }
+
+                mantissa = mantissa * 10 + (c - '0');
+                hasDigit = true;
+                if (mantissa != 0) digits++;
+                if (decimalPoint) fractionDigits++;
+            } else if (c == '.' && !decimalPoint)
+            {
+                decimalPoint = true;
+            } else
+            {
+                return Double.NaN;
+            }
+        }
+
+        if (!hasDigit) return Double.NaN;
+        if (fractionDigits >= POWERS_OF_TEN.length) return parseDoubleSlow(chars, start, end);
+
+        // Both values are exact, so the division is correctly rounded just like Double.parseDouble
+        final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a non-negative integer from the provided range of characters without allocating any memory.
+     *
+     * @param chars The characters to parse from.
+     * @param start The index of the first character of the number.
+     * @param end   The index after the last character of the number.
+     * @return The parsed number, or -1 if the range is empty or is not a non-negative integer that fits in an int.
+     */
+    public static int parseUnsignedInt(CharSequence chars, int start, int end)
+    {
+        if (start >= end || end - start > 9) return -1;
+
+        int value = 0;
+        for (int index = start; index < end; index++)
+        {
+            final char c = chars.charAt(index);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private static double parseDoubleSlow(CharSequence chars, int start, int end)
+    {
+        try
+        {
+            return Double.parseDouble(chars.subSequence(start, end).toString());
+        } catch (NumberFormatException e)
+        {
+            return Double.NaN;
+        }
+    }
+
+    private static int hexValue(char c)
+    {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1 << 8; // Guarantees a mismatch with any checksum
+    }
+
+    /**
+     * The values that are common to all the NMEA sentence events.
+     */
+    public abstract static class NmeaEvent
+    {
+        private CharSequence sentence;
+        private char talker1;
+        private char talker2;
+        private long timestamp;
+
+        /**
+         * @return The original NMEA sentence that this event was parsed from.
+         */
+        public CharSequence getSentence()
+        {
+            return sentence;
+        }
+
+        /**
+         * @return The talker ID of the sentence (e.g. "GP" for GPS, "GL" for GLONASS, or "GN" for a combined
+         * solution).
+         */
+        public String getTalkerId()
+        {
+            return String.valueOf(new char[]{talker1, talker2});
+        }
+
+        /**
+         * @return True if the talker ID of the sentence matches the provided one.
+         */
+        public boolean isTalker(char first, char second)
+        {
+            return talker1 == first && talker2 == second;
+        }
+
+        /**
+         * @return The timestamp of the sentence in milliseconds since the epoch.
+         */
+        public long getTimestamp()
+        {
+            return timestamp;
+        }
+
+        /**
+         * @return The sentence type (e.g. "GGA").
+         */
+        public abstract String getSentenceType();
+    }
+
+    /**
+     * The GGA sentence, which contains the time, position, and fix data.
+     */
+    public static class GgaEvent extends NmeaEvent
+    {
+        private long utcTimeMs;
+        private double latitude;
+        private double longitude;
+        private int fixQuality;
+        private int satellitesUsed;
+        private double hdop;
+        private double altitudeMsl;
+        private double geoidSeparation;
+
+        @Override
+        public String getSentenceType()
+        {
+            return "GGA";
+        }
+
+        /**
+         * @return The time of the fix in milliseconds since midnight UTC, or -1 if it is missing.
+         */
+        public long getUtcTimeMs()
+        {
+            return utcTimeMs;
+        }
+
+        /**
+         * @return The latitude in decimal degrees, or NaN if it is missing.
+         */
+        public double getLatitude()
+        {
+            return latitude;
+        }
+
+        /**
+         * @return The longitude in decimal degrees, or NaN if it is missing.
+         */
+        public double getLongitude()
+        {
+            return longitude;
+        }
+
+        /**
+         * @return The fix quality (0 for no fix, 1 for GPS, 2 for DGPS, etc), or -1 if it is missing.
+         */
+        public int getFixQuality()
+        {
+            return fixQuality;
+        }
+
+        /**
+         * @return The number of satellites used in the fix, or -1 if it is missing.
+         */
+        public int getSatellitesUsed()
+        {
+            return satellitesUsed;
+        }
+
+        /**
+         * @return The horizontal dilution of precision, or NaN if it is missing.
+         */
+        public double getHdop()
+        {
+            return hdop;
+        }
+
+        /**
+         * @return The altitude above mean sea level (geoid altitude) in meters, or NaN if it is missing.
+         */
+        public double getAltitudeMsl()
+        {
+            return altitudeMsl;
+        }
+
+        /**
+         * @return The height of the geoid above the WGS84 ellipsoid in meters, or NaN if it is missing.
+         */
+        public double getGeoidSeparation()
+        {
+            return geoidSeparation;
+        }
+    }
+
+    /**
+     * The GNS sentence, which contains the time, position, and fix data for one or more constellations.
+     */
+    public static class GnsEvent extends NmeaEvent
+    {
+        private long utcTimeMs;
+        private double latitude;
+        private double longitude;
+        private final char[] modeIndicators = new char[8];
+        private int modeIndicatorCount;
+        private int satellitesUsed;
+        private double hdop;
+        private double altitudeMsl;
+        private double geoidSeparation;
+
+        @Override
+        public String getSentenceType()
+        {
+            return "GNS";
+        }
+
+        /**
+         * @return The time of the fix in milliseconds since midnight UTC, or -1 if it is missing.
+         */
+        public long getUtcTimeMs()
+        {
+            return utcTimeMs;
+        }
+
+        /**
+         * @return The latitude in decimal degrees, or NaN if it is missing.
+         */
+        public double getLatitude()
+        {
+            return latitude;
+        }
+
+        /**
+         * @return The longitude in decimal degrees, or NaN if it is missing.
+         */
+        public double getLongitude()
+        {
+            return longitude;
+        }
+
+        /**
+         * @return The number of mode indicators, which is one per constellation (GPS, GLONASS, Galileo, BeiDou, ...).
+         */
+        public int getModeIndicatorCount()
+        {
+            return modeIndicatorCount;
+        }
+
+        /**
+         * @param index The index of the constellation, which must be less than {@link #getModeIndicatorCount()}.
+         * @return The mode indicator (e.g. 'A' for autonomous or 'N' for no fix) for the constellation.
+         */
+        public char getModeIndicator(int index)
+        {
+            return modeIndicators[index];
+        }
+
+        /**
+         * @return The number of satellites used in the fix, or -1 if it is missing.
+         */
+        public int getSatellitesUsed()
+        {
+            return satellitesUsed;
+        }
+
+        /**
+         * @return The horizontal dilution of precision, or NaN if it is missing.
+         */
+        public double getHdop()
+        {
+            return hdop;
+        }
+
+        /**
+         * @return The altitude above mean sea level (geoid altitude) in meters, or NaN if it is missing.
+         */
+        public double getAltitudeMsl()
+        {
+            return altitudeMsl;
+        }
+
+        /**
+         * @return The height of the geoid above the WGS84 ellipsoid in meters, or NaN if it is missing.
+         */
+        public double getGeoidSeparation()
+        {
+            return geoidSeparation;
+        }
+    }
+
+    /**
+     * The GSA sentence, which contains the dilution of precision and the satellites used in the fix.
+     */
+    public static class GsaEvent extends NmeaEvent
+    {
+        static final int MAX_SATELLITES = 12;
+
+        private char selectionMode;
+        private int fixType;
+        private final int[] svids = new int[MAX_SATELLITES];
+        private int satelliteCount;
+        private double pdop;
+        private double hdop;
+        private double vdop;
+        private int systemId;
+
+        @Override
+        public String getSentenceType()
+        {
+            return "GSA";
+        }
+
+        /**
+         * @return 'A' for automatic or 'M' for manual 2D/3D selection, or 0 if it is missing.
+         */
+        public char getSelectionMode()
+        {
+            return selectionMode;
+        }
+
+        /**
+         * @return The fix type (1 for no fix, 2 for a 2D fix, 3 for a 3D fix), or -1 if it is missing.
+         */
+        public int getFixType()
+        {
+            return fixType;
+        }
+
+        /**
+         * @return The number of satellites used in the fix that are listed in this sentence.
+         */
+        public int getSatelliteCount()
+        {
+            return satelliteCount;
+        }
+
+        /**
+         * @param index The index of the satellite, which must be less than {@link #getSatelliteCount()}.
+         * @return The ID of the satellite.
+         */
+        public int getSvid(int index)
+        {
+            return svids[index];
+        }
+
+        /**
+         * @return The position dilution of precision, or NaN if it is missing.
+         */
+        public double getPdop()
+        {
+            return pdop;
+        }
+
+        /**
+         * @return The horizontal dilution of precision, or NaN if it is missing.
+         */
+        public double getHdop()
+        {
+            return hdop;
+        }
+
+        /**
+         * @return The vertical dilution of precision, or NaN if it is missing.
+         */
+        public double getVdop()
+        {
+            return vdop;
+        }
+
+        /**
+         * @return The GNSS system ID (1 for GPS, 2 for GLONASS, 3 for Galileo, 4 for BeiDou, ...), or -1 if the
+         * sentence is older than NMEA 4.10.
+         */
+        public int getSystemId()
+        {
+            return systemId;
+        }
+    }
+
+    /**
+     * The RMC sentence, which contains the recommended minimum position, velocity, and time data.
+     */
+    public static class RmcEvent extends NmeaEvent
+    {
+        private long utcTimeMs;
+        private boolean valid;
+        private double latitude;
+        private double longitude;
+        private double speedKnots;
+        private double courseDegrees;
+        private int date;
+        private double magneticVariation;
+        private char modeIndicator;
+
+        @Override
+        public String getSentenceType()
+        {
+            return "RMC";
+        }
+
+        /**
+         * @return The time of the fix in milliseconds since midnight UTC, or -1 if it is missing.
+         */
+        public long getUtcTimeMs()
+        {
+            return utcTimeMs;
+        }
+
+        /**
+         * @return True if the status is 'A' (valid), false if it is 'V' (warning) or missing.
+         */
+        public boolean isValid()
+        {
+            return valid;
+        }
+
+        /**
+         * @return The latitude in decimal degrees, or NaN if it is missing.
+         */
+        public double getLatitude()
+        {
+            return latitude;
+        }
+
+        /**
+         * @return The longitude in decimal degrees, or NaN if it is missing.
+         */
+        public double getLongitude()
+        {
+            return longitude;
+        }
+
+        /**
+         * @return The speed over ground in knots, or NaN if it is missing.
+         */
+        public double getSpeedKnots()
+        {
+            return speedKnots;
+        }
+
+        /**
+         * @return The course over ground in degrees from true north, or NaN if it is missing.
+         */
+        public double getCourseDegrees()
+        {
+            return courseDegrees;
+        }
+
+        /**
+         * @return The date as the digits ddmmyy (e.g. 230394 for March 23rd, 1994), or -1 if it is missing.
+         */
+        public int getDate()
+        {
+            return date;
+        }
+
+        /**
+         * @return The magnetic variation in degrees, negative when it is to the west, or NaN if it is missing.
+         */
+        public double getMagneticVariation()
+        {
+            return magneticVariation;
+        }
+
+        /**
+         * @return The mode indicator (e.g. 'A' for autonomous or 'N' for no fix), or 0 if it is missing.
+         */
+        public char getModeIndicator()
+        {
+            return modeIndicator;
+        }
+    }
+
+    /**
+     * The GSV sentence, which contains the satellites in view. The satellites are split across several sentences, with
+     * up to four satellites in each one.
+     */
+    public static class GsvEvent extends NmeaEvent
+    {
+        static final int MAX_SATELLITES = 4;
+
+        private int totalMessages;
+        private int messageNumber;
+        private int satellitesInView;
+        private int satelliteCount;
+        private final int[] svids = new int[MAX_SATELLITES];
+        private final int[] elevations = new int[MAX_SATELLITES];
+        private final int[] azimuths = new int[MAX_SATELLITES];
+        private final int[] cn0s = new int[MAX_SATELLITES];
+        private int signalId;
+
+        @Override
+        public String getSentenceType()
+        {
+            return "GSV";
+        }
+
+        /**
+         * @return The number of GSV sentences in this group, or -1 if it is missing.
+         */
+        public int getTotalMessages()
+        {
+            return totalMessages;
+        }
+
+        /**
+         * @return The number of this sentence within its group, starting at 1, or -1 if it is missing.
+         */
+        public int getMessageNumber()
+        {
+            return messageNumber;
+        }
+
+        /**
+         * @return The total number of satellites in view, or -1 if it is missing.
+         */
+        public int getSatellitesInView()
+        {
+            return satellitesInView;
+        }
+
+        /**
+         * @return The number of satellites in this sentence.
+         */
+        public int getSatelliteCount()
+        {
+            return satelliteCount;
+        }
+
+        /**
+         * @param index The index of the satellite, which must be less than {@link #getSatelliteCount()}.
+         * @return The ID of the satellite.
+         */
+        public int getSvid(int index)
+        {
+            return svids[index];
+        }
+
+        /**
+         * @param index The index of the satellite, which must be less than {@link #getSatelliteCount()}.
+         * @return The elevation of the satellite in degrees, or -1 if it is missing.
+         */
+        public int getElevation(int index)
+        {
+            return elevations[index];
+        }
+
+        /**
+         * @param index The index of the satellite, which must be less than {@link #getSatelliteCount()}.
+         * @return The azimuth of the satellite in degrees from true north, or -1 if it is missing.
+         */
+        public int getAzimuth(int index)
+        {
+            return azimuths[index];
+        }
+
+        /**
+         * @param index The index of the satellite, which must be less than {@link #getSatelliteCount()}.
+         * @return The carrier to noise density of the satellite in dB-Hz, or -1 if it is not being tracked.
+         */
+        public int getCn0(int index)
+        {
+            return cn0s[index];
+        }
+
+        /**
+         * @return The signal ID (e.g. the GPS L1 C/A or L5 signal), or -1 if the sentence is older than NMEA 4.10.
+         */
+        public int getSignalId()
+        {
+            return signalId;
+        }
+    }
+
+    /**
+     * The VTG sentence, which contains the course and speed over ground.
+     */
+    public static class VtgEvent extends NmeaEvent
+    {
+        private double courseTrue;
+        private double courseMagnetic;
+        private double speedKnots;
+        private double speedKmh;
+        private char modeIndicator;
+
+        @Override
+        public String getSentenceType()
+        {
+            return "VTG";
+        }
+
+        /**
+         * @return The course over ground in degrees from true north, or NaN if it is missing.
+         */
+        public double getCourseTrue()
+        {
+            return courseTrue;
+        }
+
+        /**
+         * @return The course over ground in degrees from magnetic north, or NaN if it is missing.
+         */
+        public double getCourseMagnetic()
+        {
+            return courseMagnetic;
+        }
+
+        /**
+         * @return The speed over ground in knots, or NaN if it is missing.
+         */
+        public double getSpeedKnots()
+        {
+            return speedKnots;
+        }
+
+        /**
+         * @return The speed over ground in kilometers per hour, or NaN if it is missing.
+         */
+        public double getSpeedKmh()
+        {
+            return speedKmh;
+        }
+
+        /**
+         * @return The mode indicator (e.g. 'A' for autonomous or 'N' for no fix), or 0 if it is missing.
+         */
+        public char getModeIndicator()
+        {
+            return modeIndicator;
+        }
+    }
+}
@@ -89,6 +89,98 @@ public class PreferenceUtils
         }
     }
 
+    /**
+     * Gets a positive integer preference associated with the provided preference key.
+     * <p>
+     * First, this method tries to pull the MDM provided value. If it is not set (either because the device is not
+     * under MDM control, or if that specific value is not set by the MDM administrator) then the value is pulled from
+     * the Android Shared Preferences (aka from the user settings). If it is not set there then the provided default
+     * value is used.
+     * <p>
+     * The only exception to this sequence is that if the user has toggled the MDM override switch in user settings,
+     * then the user preference value will be used instead of the MDM value.
+     *
+     * @param preferenceKey The preference key to use when pulling the value from MDM and Shared Preferences.
+     * @param defaultValue  The default value to fall back on if a positive value could not be found.
+     * @param context       The context to use when getting the Shared Preferences and Restriction Manager.
+     * @return The value to use.
+     * @since 1.5.0
+     */
+    public static int getPositiveIntPreference(String preferenceKey, int defaultValue, Context context)
+    {
+        final RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
+
+        final boolean mdmOverride = PreferenceManager.getDefaultSharedPreferences(context).getBoolean(NetworkSurveyConstants.PROPERTY_MDM_OVERRIDE_KEY, false);
+
+        // First try to use the MDM provided value.
+        if (restrictionsManager != null && !mdmOverride)
+        {
+            final Bundle mdmProperties = restrictionsManager.getApplicationRestrictions();
+
+            final int mdmValue = mdmProperties.getInt(preferenceKey);
+            if (mdmValue > 0) return mdmValue;
+        }
+
+        final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        // Next, try to use the value from user preferences.
+        final String preferenceString = preferences.getString(preferenceKey, String.valueOf(defaultValue));
+        try
+        {
+            final int value = Integer.parseInt(preferenceString);
+            return value > 0 ? value : defaultValue;
+        } catch (Exception e)
+        {
+            Timber.e(e, "Could not convert the %s user preference (%s) to an int", preferenceKey, preferenceString);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a non-negative integer preference associated with the provided preference key. This follows the same MDM,
+     * then user preference, then default value sequence as {@link #getPositiveIntPreference(String, int, Context)},
+     * except that 0 is a valid value (e.g. to mean unlimited), so an MDM value of 0 is used if the MDM administrator
+     * set it.
+     *
+     * @param preferenceKey The preference key to use when pulling the value from MDM and Shared Preferences.
+     * @param defaultValue  The default value to fall back on if a non-negative value could not be found.
+     * @param context       The context to use when getting the Shared Preferences and Restriction Manager.
+     * @return The value to use.
+     * @since 1.5.0
+     */
+    public static int getNonNegativeIntPreference(String preferenceKey, int defaultValue, Context context)
+    {
+        final RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
+
+        final boolean mdmOverride = PreferenceManager.getDefaultSharedPreferences(context).getBoolean(NetworkSurveyConstants.PROPERTY_MDM_OVERRIDE_KEY, false);
+
+        // First try to use the MDM provided value.
+        if (restrictionsManager != null && !mdmOverride)
+        {
+            final Bundle mdmProperties = restrictionsManager.getApplicationRestrictions();
+
+            if (mdmProperties.containsKey(preferenceKey))
+            {
+                final int mdmValue = mdmProperties.getInt(preferenceKey);
+                if (mdmValue >= 0) return mdmValue;
+            }
+        }
+
+        final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        // Next, try to use the value from user preferences.
+        final String preferenceString = preferences.getString(preferenceKey, String.valueOf(defaultValue));
+        try
+        {
+            final int value = Integer.parseInt(preferenceString);
+            return value >= 0 ? value : defaultValue;
+        } catch (Exception e)
+        {
+            Timber.e(e, "Could not convert the %s user preference (%s) to an int", preferenceKey, preferenceString);
+            return defaultValue;
+        }
+    }
+
     /**
      * Gets the auto start preference associated with the provide preference key.
      * <p>
@@ -107,6 +199,28 @@ public class PreferenceUtils
      * @since 0.4.0
      */
     public static boolean getAutoStartPreference(String autoStartPreferenceKey, boolean defaultAutoStart, Context context)
+    {
+        return getBooleanPreference(autoStartPreferenceKey, defaultAutoStart, context);
+    }
+
+    /**
+     * Gets a boolean preference.
+     * <p>
+     * First, this method tries to pull the MDM provided value. If it is not set (either because the device is not under
+     * MDM control, or if that specific value is not set by the MDM administrator) then the value is pulled from the
+     * Android Shared Preferences (aka from the user settings). If it is not set there then the provided default value
+     * is used.
+     * <p>
+     * The only exception to this sequence is that if the user has toggled the MDM override switch in user settings,
+     * then the user preference value will be used instead of the MDM value.
+     *
+     * @param preferenceKey The preference key to use when pulling the value from MDM and Shared Preferences.
+     * @param defaultValue  The default value to fall back on if it could not be found.
+     * @param context       The context to use when getting the Shared Preferences and Restriction Manager.
+     * @return The preference value to use.
+     * @since 1.5.0
+     */
+    public static boolean getBooleanPreference(String preferenceKey, boolean defaultValue, Context context)
     {
         final RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
 
@@ -117,16 +231,47 @@ public class PreferenceUtils
         {
             final Bundle mdmProperties = restrictionsManager.getApplicationRestrictions();
 
-            if (mdmProperties.containsKey(autoStartPreferenceKey))
+            if (mdmProperties.containsKey(preferenceKey))
             {
-                return mdmProperties.getBoolean(autoStartPreferenceKey);
+                return mdmProperties.getBoolean(preferenceKey);
             }
         }
 
         final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
 
         // Next, try to use the value from user preferences, with a default fallback
-        return preferences.getBoolean(autoStartPreferenceKey, defaultAutoStart);
+        return preferences.getBoolean(preferenceKey, defaultValue);
+    }
+
+    /**
+     * Gets a string preference, following the same MDM, then user preference, then default sequence as
+     * {@link #getBooleanPreference(String, boolean, Context)}. An empty MDM value is treated as not set.
+     *
+     * @param preferenceKey The preference key to use when pulling the value from MDM and Shared Preferences.
+     * @param defaultValue  The default value to fall back on if it could not be found.
+     * @param context       The context to use when getting the Shared Preferences and Restriction Manager.
+     * @return The preference value to use.
+     * @since 1.5.0
+     */
+    public static String getStringPreference(String preferenceKey, String defaultValue, Context context)
+    {
+        final RestrictionsManager restrictionsManager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
+
+        final boolean mdmOverride = PreferenceManager.getDefaultSharedPreferences(context).getBoolean(NetworkSurveyConstants.PROPERTY_MDM_OVERRIDE_KEY, false);
+
+        // First try to use the MDM provided value.
+        if (restrictionsManager != null && !mdmOverride)
+        {
+            final Bundle mdmProperties = restrictionsManager.getApplicationRestrictions();
+
+            final String mdmValue = mdmProperties.getString(preferenceKey);
+            if (mdmValue != null && !mdmValue.isEmpty()) return mdmValue;
+        }
+
+        final SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        // Next, try to use the value from user preferences, with a default fallback
+        return preferences.getString(preferenceKey, defaultValue);
     }
 
     /**
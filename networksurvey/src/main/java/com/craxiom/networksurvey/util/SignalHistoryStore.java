@@ -0,0 +1,346 @@
+package com.craxiom.networksurvey.util;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A memory bounded store of the recent signal values for each emitter (e.g. a Wi-Fi BSSID, a Bluetooth source address,
+ * or a cell identity).
+ * <p>
+ * Each emitter gets a fixed size ring buffer of values and timestamps. All the ring buffers are allocated up front as
+ * slices of one {@code float} array and one {@code long} array, and the emitters are found using an open addressing
+ * hash table of primitive arrays, so recording a value does not allocate or box anything. The number of emitters is
+ * derived from the memory cap, and once it is reached the least recently updated emitter is evicted to make room for a
+ * new one. Emitters that have not been updated in a while can also be evicted using {@link #evictIdle(long)}.
+ * <p>
+ * This class is thread safe.
+ *
+ * @since 1.5.0
+ */
+public class SignalHistoryStore
+{
+    private static final int NO_SLOT = -1;
+    private static final int ESTIMATED_KEY_BYTES = 64;
+    private static final int SAMPLE_BYTES = 4 + 8;
+
+    /**
+     * The bytes used for each emitter in addition to its samples: the key reference, the ring buffer head and count,
+     * the two LRU links, the free slot entry, up to four hash table entries (the table is kept at most half full), and
+     * the key string itself (assuming a short key such as a MAC address).
+     */
+    private static final int EMITTER_OVERHEAD_BYTES = 6 * 4 + 4 * (4 + 4) + ESTIMATED_KEY_BYTES;
+
+    private final int historyLength;
+    private final int maxEmitters;
+
+    // The ring buffer for the emitter in slot s is at [s * historyLength, (s + 1) * historyLength)
+    private final float[] values;
+    private final long[] timestamps;
+    private final int[] heads;
+    private final int[] counts;
+    private final String[] slotKeys;
+
+    // The doubly linked LRU list of the used slots, from the most recently updated to the least recently updated
+    private final int[] newer;
+    private final int[] older;
+    private int newestSlot = NO_SLOT;
+    private int oldestSlot = NO_SLOT;
+
+    private final int[] freeSlots;
+    private int freeSlotCount;
+
+    // The linear probing hash table from key to slot
+    private final String[] tableKeys;
+    private final int[] tableSlots;
+    private final int tableMask;
+
+    /**
+     * @param historyLength  The number of values to keep for each emitter.
+     * @param maxMemoryBytes The maximum number of bytes to use for the history of all the emitters. At least one
+     *                       emitter is always kept.
+     */
+    public SignalHistoryStore(int historyLength, long maxMemoryBytes)
+    {
+        if (historyLength <= 0) throw new IllegalArgumentException("The history length must be positive");
+
+        this.historyLength = historyLength;
+        final long bytesPerEmitter = (long) historyLength * SAMPLE_BYTES + EMITTER_OVERHEAD_BYTES;
+        maxEmitters = (int) Math.max(1, Math.min(maxMemoryBytes / bytesPerEmitter, (1 << 29) / historyLength));
+
+        values = new float[maxEmitters * historyLength];
+        timestamps = new long[maxEmitters * historyLength];
+        heads = new int[maxEmitters];
+        counts = new int[maxEmitters];
+        slotKeys = new String[maxEmitters];
+        newer = new int[maxEmitters];
+        older = new int[maxEmitters];
+
+        freeSlots = new int[maxEmitters];
+        for (int i = 0; i < maxEmitters; i++)
+        {
+            freeSlots[i] = maxEmitters - 1 - i;
+        }
+        freeSlotCount = maxEmitters;
+
+        final int tableSize = Integer.highestOneBit(maxEmitters) << 2;
+        tableKeys = new String[tableSize];
+        tableSlots = new int[tableSize];
+        tableMask = tableSize - 1;
+    }
+
+    /**
+     * @return The number of values that are kept for each emitter.
+     */
+    public int getHistoryLength()
+    {
+        return historyLength;
+    }
+
+    /**
+     * @return The maximum number of emitters that fit within the memory cap.
+     */
+    public int getMaxEmitters()
+    {
+        return maxEmitters;
+    }
+
+    /**
+     * @return The approximate number of bytes used by this store when it is full.
+     */
+    public long getEstimatedBytes()
+    {
+        return (long) values.length * SAMPLE_BYTES + (long) maxEmitters * (6 * 4 + ESTIMATED_KEY_BYTES)
+                + (long) tableKeys.length * (4 + 4);
+    }
+
+    /**
+     * Adds a value to the history of the provided emitter, evicting the least recently updated emitter if this is a new
+     * emitter and the store is full.
+     *
+     * @param key         The key that identifies the emitter.
+     * @param timestampMs The time of the value in milliseconds.
+     * @param value       The signal value (e.g. the RSSI in dBm).
+     */
+    public synchronized void record(String key, long timestampMs, float value)
+    {
+        final int tableIndex = findTableIndex(key);
+        int slot = tableIndex == NO_SLOT ? NO_SLOT : tableSlots[tableIndex];
+
+        if (slot == NO_SLOT)
+        {
+            if (freeSlotCount == 0) removeSlot(oldestSlot);
+
+            slot = freeSlots[--freeSlotCount];
+            slotKeys[slot] = key;
+            heads[slot] = 0;
+            counts[slot] = 0;
+            insertIntoTable(key, slot);
+            linkAsNewest(slot);
+        } else if (slot != newestSlot)
+        {
+            unlink(slot);
+            linkAsNewest(slot);
+        }
+
+        final int index = slot * historyLength + heads[slot];
+        values[index] = value;
+        timestamps[index] = timestampMs;
+        heads[slot] = heads[slot] + 1 == historyLength ? 0 : heads[slot] + 1;
+        if (counts[slot] < historyLength) counts[slot]++;
+    }
+
+    /**
+     * Copies the history of the provided emitter, from the oldest value to the newest value. If the output arrays are
+     * shorter than the history, then only the newest values are copied.
+     *
+     * @param key           The key that identifies the emitter.
+     * @param valuesOut     The array to copy the values into.
+     * @param timestampsOut The array to copy the timestamps into, or null if they are not needed.
+     * @return The number of values that were copied, which is 0 if there is no history for the emitter.
+     */
+    public synchronized int getHistory(String key, float[] valuesOut, @Nullable long[] timestampsOut)
+    {
+        final int tableIndex = findTableIndex(key);
+        if (tableIndex == NO_SLOT) return 0;
+
+        final int slot = tableSlots[tableIndex];
+        int copyCount = Math.min(counts[slot], valuesOut.length);
+        if (timestampsOut != null) copyCount = Math.min(copyCount, timestampsOut.length);
+
+        final int base = slot * historyLength;
+        int ringIndex = heads[slot] - copyCount;
+        if (ringIndex < 0) ringIndex += historyLength;
+        for (int i = 0; i < copyCount; i++)
+        {
+            valuesOut[i] = values[base + ringIndex];
+            if (timestampsOut != null) timestampsOut[i] = timestamps[base + ringIndex];
+            if (++ringIndex == historyLength) ringIndex = 0;
+        }
+
+        return copyCount;
+    }
+
+    /**
+     * @return True if there is history for the provided emitter.
+     */
+    public synchronized boolean contains(String key)
+    {
+        return findTableIndex(key) != NO_SLOT;
+    }
+
+    /**
+     * @return The number of emitters that have history in this store.
+     */
+    public synchronized int size()
+    {
+        return maxEmitters - freeSlotCount;
+    }
+
+    /**
+     * Removes the history of the provided emitter.
+     *
+     * @return True if the emitter was removed, false if there was no history for it.
+     */
+    public synchronized boolean remove(String key)
+    {
+        final int tableIndex = findTableIndex(key);
+        if (tableIndex == NO_SLOT) return false;
+
+        removeSlot(tableSlots[tableIndex]);
+        return true;
+    }
+
+    /**
+     * Removes the history of all the emitters that have not been updated since the provided time.
+     *
+     * @param cutoffMs Emitters whose latest value is older than this time are removed.
+     * @return The number of emitters that were removed.
+     */
+    public synchronized int evictIdle(long cutoffMs)
+    {
+        int evictedCount = 0;
+
+        // The LRU list is in the order of the updates, so stop at the first emitter that is not idle
+        while (oldestSlot != NO_SLOT && getLatestTimestamp(oldestSlot) < cutoffMs)
+        {
+            removeSlot(oldestSlot);
+            evictedCount++;
+        }
+
+        return evictedCount;
+    }
+
+    /**
+     * Removes the history of all the emitters.
+     */
+    public synchronized void clear()
+    {
+        while (oldestSlot != NO_SLOT)
+        {
+            removeSlot(oldestSlot);
+        }
+    }
+
+    private long getLatestTimestamp(int slot)
+    {
+        final int latestIndex = heads[slot] == 0 ? historyLength - 1 : heads[slot] - 1;
+        return timestamps[slot * historyLength + latestIndex];
+    }
+
+    private void removeSlot(int slot)
+    {
+        removeFromTable(findTableIndex(slotKeys[slot]));
+        unlink(slot);
+        slotKeys[slot] = null;
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private void linkAsNewest(int slot)
+    {
+        newer[slot] = NO_SLOT;
+        older[slot] = newestSlot;
+        if (newestSlot != NO_SLOT) newer[newestSlot] = slot;
+        newestSlot = slot;
+        if (oldestSlot == NO_SLOT) oldestSlot = slot;
+    }
+
+    private void unlink(int slot)
+    {
+        final int newerSlot = newer[slot];
+        final int olderSlot = older[slot];
+
+        if (newerSlot == NO_SLOT)
+        {
+            newestSlot = olderSlot;
+        } else
+        {
+            older[newerSlot] = olderSlot;
+        }
+
+        if (olderSlot == NO_SLOT)
+        {
+            oldestSlot = newerSlot;
+        } else
+        {
+            newer[olderSlot] = newerSlot;
+        }
+    }
+
+    private int getBucket(String key)
+    {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & tableMask;
+    }
+
+    /**
+     * @return The index of the key in the hash table, or {@link #NO_SLOT} if it is not present.
+     */
+    private int findTableIndex(String key)
+    {
+        int index = getBucket(key);
+        while (tableKeys[index] != null)
+        {
+            if (tableKeys[index].equals(key)) return index;
+            index = (index + 1) & tableMask;
+        }
+        return NO_SLOT;
+    }
+
+    private void insertIntoTable(String key, int slot)
+    {
+        int index = getBucket(key);
+        while (tableKeys[index] != null)
+        {
+            index = (index + 1) & tableMask;
+        }
+        tableKeys[index] = key;
+        tableSlots[index] = slot;
+    }
+
+    /**
+     * Removes the entry at the provided index, and shifts back any following entries in the same probe run so that
+     * lookups never stop early at the gap.
+     */
+    private void removeFromTable(int index)
+    {
+        int gap = index;
+        int next = index;
+        while (true)
+        {
+            next = (next + 1) & tableMask;
+            final String nextKey = tableKeys[next];
+            if (nextKey == null) break;
+
+            // The entry can only move back into the gap if its home bucket is not between the gap and where it is now
+            final int bucket = getBucket(nextKey);
+            final boolean bucketInRange = gap <= next ? (gap < bucket && bucket <= next) : (gap < bucket || bucket <= next);
+            if (!bucketInRange)
+            {
+                tableKeys[gap] = nextKey;
+                tableSlots[gap] = tableSlots[next];
+                gap = next;
+            }
+        }
+
+        tableKeys[gap] = null;
+    }
+}
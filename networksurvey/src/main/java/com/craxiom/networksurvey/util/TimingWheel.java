@@ -0,0 +1,169 @@
+package com.craxiom.networksurvey.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hashed timing wheel that tracks when each key expires.
+ * <p>
+ * Each key is placed in the slot for the tick that its deadline falls in, so touching a key is a couple of hash
+ * operations, and advancing the wheel only looks at the slots for the ticks that have passed. Deadlines that are
+ * further out than one revolution of the wheel share a slot with nearer deadlines, and are skipped until their
+ * deadline is actually reached.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <K> The type of the keys being tracked.
+ * @since 1.5.0
+ */
+public class TimingWheel<K>
+{
+    private final long tickMs;
+    private final List<Set<K>> slots;
+    private final Map<K, Deadline> deadlines = new HashMap<>();
+
+    /**
+     * The tick that has been processed up to, or -1 if the wheel has not been advanced yet.
+     */
+    private long currentTick = -1;
+
+    /**
+     * @param tickMs    The duration of each tick in milliseconds. Keys are expired at the granularity of a tick.
+     * @param slotCount The number of slots in the wheel. Ideally the slot count multiplied by the tick duration is
+     *                  longer than the usual timeout so that each slot only holds keys that expire in that tick.
+     */
+    public TimingWheel(long tickMs, int slotCount)
+    {
+        if (tickMs <= 0) throw new IllegalArgumentException("The tick duration must be positive");
+        if (slotCount <= 0) throw new IllegalArgumentException("The slot count must be positive");
+
+        this.tickMs = tickMs;
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++)
+        {
+            slots.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Sets (or moves) the deadline for the provided key.
+     *
+     * @param key        The key to track.
+     * @param deadlineMs The time in milliseconds after which the key is expired.
+     */
+    public void touch(K key, long deadlineMs)
+    {
+        // A deadline in a tick that has already been processed goes in the current slot so it is checked next time
+        final int slotIndex = getSlotIndex(Math.max(getTick(deadlineMs), currentTick));
+
+        Deadline deadline = deadlines.get(key);
+        if (deadline == null)
+        {
+            deadline = new Deadline();
+            deadlines.put(key, deadline);
+        } else if (deadline.slotIndex != slotIndex)
+        {
+            slots.get(deadline.slotIndex).remove(key);
+        }
+
+        deadline.deadlineMs = deadlineMs;
+        deadline.slotIndex = slotIndex;
+        slots.get(slotIndex).add(key);
+    }
+
+    /**
+     * Stops tracking the provided key.
+     *
+     * @param key The key to remove.
+     */
+    public void remove(K key)
+    {
+        final Deadline deadline = deadlines.remove(key);
+        if (deadline != null) slots.get(deadline.slotIndex).remove(key);
+    }
+
+    /**
+     * Advances the wheel to the provided time, and removes and returns all the keys whose deadline is before it.
+     * <p>
+     * Only the slots for the ticks that have passed since the last call are checked, so the work done is proportional
+     * to the number of elapsed ticks and the keys in their slots, not to the total number of keys being tracked.
+     *
+     * @param nowMs The current time in milliseconds.
+     * @return The keys that have expired, which is empty if none have.
+     */
+    public List<K> advance(long nowMs)
+    {
+        final List<K> expiredKeys = new ArrayList<>();
+        if (deadlines.isEmpty())
+        {
+            currentTick = getTick(nowMs);
+            return expiredKeys;
+        }
+
+        final long nowTick = getTick(nowMs);
+        // After a long gap every slot needs to be checked, but there is no need to check any slot more than once
+        final long firstTick = currentTick < 0 ? nowTick - slots.size() + 1 : Math.max(currentTick, nowTick - slots.size() + 1);
+
+        for (long tick = firstTick; tick <= nowTick; tick++)
+        {
+            final Iterator<K> iterator = slots.get(getSlotIndex(tick)).iterator();
+            while (iterator.hasNext())
+            {
+                final K key = iterator.next();
+                if (deadlines.get(key).deadlineMs < nowMs)
+                {
+                    iterator.remove();
+                    deadlines.remove(key);
+                    expiredKeys.add(key);
+                }
+            }
+        }
+
+        currentTick = nowTick;
+        return expiredKeys;
+    }
+
+    /**
+     * @return The number of keys being tracked.
+     */
+    public int size()
+    {
+        return deadlines.size();
+    }
+
+    /**
+     * Stops tracking all the keys.
+     */
+    public void clear()
+    {
+        for (Set<K> slot : slots)
+        {
+            slot.clear();
+        }
+        deadlines.clear();
+    }
+
+    private long getTick(long timeMs)
+    {
+        return Math.floorDiv(timeMs, tickMs);
+    }
+
+    private int getSlotIndex(long tick)
+    {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+
+    /**
+     * The deadline for a key, and the slot that the key is in.
+     */
+    private static final class Deadline
+    {
+        long deadlineMs;
+        int slotIndex;
+    }
+}
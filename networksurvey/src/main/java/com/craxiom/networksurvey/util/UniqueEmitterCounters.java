@@ -0,0 +1,100 @@
+package com.craxiom.networksurvey.util;
+
+/**
+ * Counts the unique cells, Wi-Fi BSSIDs, and Bluetooth addresses seen during a survey, using a {@link HyperLogLog}
+ * per technology so the memory use stays constant no matter how long the survey runs.
+ * <p>
+ * This class is thread safe.
+ *
+ * @since 1.5.0
+ */
+public class UniqueEmitterCounters
+{
+    private final HyperLogLog cells;
+    private final HyperLogLog wifiBssids;
+    private final HyperLogLog bluetoothAddresses;
+
+    /**
+     * @param precision The precision of each {@link HyperLogLog}.
+     */
+    public UniqueEmitterCounters(int precision)
+    {
+        cells = new HyperLogLog(precision);
+        wifiBssids = new HyperLogLog(precision);
+        bluetoothAddresses = new HyperLogLog(precision);
+    }
+
+    /**
+     * Packs the identity of a CDMA cell into a long that does not overlap with the keys from
+     * {@link CellTowerEstimator#createKey(int, int, int, int)}, so both can be passed to {@link #addCell(long)}.
+     */
+    public static long createCdmaCellKey(int sid, int nid, int bsid)
+    {
+        return (0xFL << 60) | ((long) (sid & 0x7FFF) << 32) | ((long) (nid & 0xFFFF) << 16) | (bsid & 0xFFFF);
+    }
+
+    /**
+     * @param cellKey The packed identity of the cell (see {@link CellTowerEstimator#createKey(int, int, int, int)}
+     *                and {@link #createCdmaCellKey(int, int, int)}).
+     */
+    public synchronized void addCell(long cellKey)
+    {
+        cells.add(cellKey);
+    }
+
+    public synchronized void addWifiBssid(String bssid)
+    {
+        if (bssid != null && !bssid.isEmpty()) wifiBssids.add(bssid);
+    }
+
+    public synchronized void addBluetoothAddress(String address)
+    {
+        if (address != null && !address.isEmpty()) bluetoothAddresses.add(address);
+    }
+
+    public synchronized long getCellCount()
+    {
+        return cells.estimate();
+    }
+
+    public synchronized long getWifiBssidCount()
+    {
+        return wifiBssids.estimate();
+    }
+
+    public synchronized long getBluetoothAddressCount()
+    {
+        return bluetoothAddresses.estimate();
+    }
+
+    /**
+     * Merges the counts from the provided counters into these ones.
+     */
+    public void merge(UniqueEmitterCounters other)
+    {
+        // Copy the other counters first so that the two objects are never locked at the same time
+        final HyperLogLog otherCells;
+        final HyperLogLog otherWifiBssids;
+        final HyperLogLog otherBluetoothAddresses;
+        synchronized (other)
+        {
+            otherCells = other.cells.copy();
+            otherWifiBssids = other.wifiBssids.copy();
+            otherBluetoothAddresses = other.bluetoothAddresses.copy();
+        }
+
+        synchronized (this)
+        {
+            cells.merge(otherCells);
+            wifiBssids.merge(otherWifiBssids);
+            bluetoothAddresses.merge(otherBluetoothAddresses);
+        }
+    }
+
+    public synchronized void clear()
+    {
+        cells.clear();
+        wifiBssids.clear();
+        bluetoothAddresses.clear();
+    }
+}
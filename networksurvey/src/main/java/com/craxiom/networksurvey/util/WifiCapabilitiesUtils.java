@@ -1,15 +1,49 @@
 package com.craxiom.networksurvey.util;
 
+import com.craxiom.messaging.wifi.CipherSuite;
 import com.craxiom.messaging.wifi.EncryptionType;
+import com.craxiom.networksurvey.model.WifiCapabilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A few pieces of information come packaged in the {@link android.net.wifi.ScanResult#capabilities} string.  This class
  * offers utility methods to extract the relevant information from that capabilities string.
+ * <p>
+ * The capabilities string is a list of bracketed groups, such as "[WPA2-PSK-CCMP+TKIP][RSN-PSK+SAE-CCMP][ESS][WPS]".
+ * Each security group is made up of the protocol, the key management suites, and the cipher suites, separated by
+ * dashes. The string is parsed in a single pass over the groups, and the results are cached because the same few
+ * capabilities strings are shared by most of the access points in a scan.
  *
  * @since 0.1.2
  */
 public class WifiCapabilitiesUtils
 {
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * The protocols whose groups include key management and cipher suites.
+     */
+    private static final String[] SECURITY_PROTOCOLS = {"WPA", "WPA2", "WPA3", "RSN", "OSEN", "WAPI"};
+
+    /**
+     * The parts that follow a dash but belong to the previous part (e.g. "PSK-SHA256", "WEP-40", or "GCMP-256").
+     */
+    private static final String[] SUFFIX_PARTS = {"SHA256", "SHA384", "40", "104", "128", "256"};
+    private static final String PREAUTH_PART = "preauth";
+
+    private static final Map<String, WifiCapabilities> cache = new LinkedHashMap<String, WifiCapabilities>(CACHE_SIZE, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WifiCapabilities> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     /**
      * Given the {@link android.net.wifi.ScanResult#capabilities} string, return the appropriate {@link EncryptionType}.
      * <p>
@@ -20,43 +54,228 @@ public class WifiCapabilitiesUtils
      */
     public static EncryptionType getEncryptionType(String capabilities)
     {
-        if (capabilities.contains("WEP"))
+        return parseCapabilities(capabilities).getEncryptionType();
+    }
+
+    /**
+     * @param capabilities The capabilities string from {@link android.net.wifi.ScanResult#capabilities}.
+     * @return True if the capabilities string contains "WPS", false otherwise.
+     */
+    public static boolean supportsWps(String capabilities)
+    {
+        return parseCapabilities(capabilities).supportsWps();
+    }
+
+    /**
+     * Returns the encryption type, WPS support, cipher suites, and AKM suites from the provided capabilities string.
+     * The results are cached, so repeated calls for the same capabilities string are a hash lookup.
+     *
+     * @param capabilities The capabilities string from {@link android.net.wifi.ScanResult#capabilities}.
+     * @return The parsed capabilities.
+     * @since 1.5.0
+     */
+    public static WifiCapabilities parseCapabilities(String capabilities)
+    {
+        synchronized (cache)
         {
-            return EncryptionType.WEP;
+            final WifiCapabilities cachedCapabilities = cache.get(capabilities);
+            if (cachedCapabilities != null) return cachedCapabilities;
         }
-        if (capabilities.contains("WPA3"))
+
+        // Parsing outside the lock means two threads might parse the same string, but the result is the same
+        final WifiCapabilities parsedCapabilities = parseCapabilitiesUncached(capabilities);
+        synchronized (cache)
         {
-            return EncryptionType.WPA3;
-        } else
+            cache.put(capabilities, parsedCapabilities);
+        }
+
+        return parsedCapabilities;
+    }
+
+    /**
+     * Parses the capabilities string without using the cache.
+     *
+     * @param capabilities The capabilities string from {@link android.net.wifi.ScanResult#capabilities}.
+     * @return The parsed capabilities.
+     * @since 1.5.0
+     */
+    static WifiCapabilities parseCapabilitiesUncached(String capabilities)
+    {
+        boolean wep = false;
+        boolean wpa = false;
+        boolean wpa2 = false;
+        boolean wpa3 = false;
+        boolean rsn = false;
+        boolean wps = false;
+        final List<CipherSuite> cipherSuites = new ArrayList<>(2);
+        final List<String> akmSuites = new ArrayList<>(2);
+
+        final int length = capabilities.length();
+        int groupStart = capabilities.indexOf('[');
+        while (groupStart != -1)
         {
-            final boolean containsWpa = capabilities.contains("WPA]") || capabilities.contains("WPA-");
-            final boolean containsWpa2 = capabilities.contains("WPA2");
-            if (containsWpa && containsWpa2)
-            {
-                return EncryptionType.WPA_WPA2;
-            } else if (containsWpa2)
+            int groupEnd = capabilities.indexOf(']', groupStart + 1);
+            if (groupEnd == -1) groupEnd = length;
+
+            final int contentStart = groupStart + 1;
+            int protocolEnd = capabilities.indexOf('-', contentStart);
+            if (protocolEnd == -1 || protocolEnd > groupEnd) protocolEnd = groupEnd;
+            final String protocol = capabilities.substring(contentStart, protocolEnd);
+
+            switch (protocol)
             {
-                return EncryptionType.WPA2;
-            } else if (containsWpa)
+                case "WEP":
+                    wep = true;
+                    addDistinct(cipherSuites, CipherSuite.WEP);
+                    break;
+                case "WPA":
+                    wpa = true;
+                    break;
+                case "WPA2":
+                    wpa2 = true;
+                    break;
+                case "WPA3":
+                    wpa3 = true;
+                    break;
+                case "RSN":
+                    rsn = true;
+                    break;
+                case "WPS":
+                    wps = true;
+                    break;
+            }
+
+            if (protocolEnd < groupEnd && isSecurityProtocol(protocol))
             {
-                return EncryptionType.WPA;
-            } else if (!capabilities.contains("RSN"))
+                parseSuites(capabilities.substring(protocolEnd + 1, groupEnd), akmSuites, cipherSuites);
+            }
+
+            groupStart = groupEnd == length ? -1 : capabilities.indexOf('[', groupEnd + 1);
+        }
+
+        final EncryptionType encryptionType;
+        if (wep)
+        {
+            encryptionType = EncryptionType.WEP;
+        } else if (wpa3)
+        {
+            encryptionType = EncryptionType.WPA3;
+        } else if (wpa && wpa2)
+        {
+            encryptionType = EncryptionType.WPA_WPA2;
+        } else if (wpa2)
+        {
+            encryptionType = EncryptionType.WPA2;
+        } else if (wpa)
+        {
+            encryptionType = EncryptionType.WPA;
+        } else if (!rsn)
+        {
+            // If RSN is not present then the network is open
+            encryptionType = EncryptionType.OPEN;
+        } else
+        {
+            encryptionType = EncryptionType.UNKNOWN;
+        }
+
+        if (encryptionType == EncryptionType.OPEN && cipherSuites.isEmpty()) cipherSuites.add(CipherSuite.OPEN);
+
+        return new WifiCapabilities(encryptionType, wps, cipherSuites, akmSuites);
+    }
+
+    /**
+     * Parses the part of a security group after the protocol (e.g. "PSK+FT/PSK-CCMP+TKIP" or "PSK-SHA256-GCMP-256"),
+     * which is made up of the key management suites and then the cipher suites.
+     */
+    private static void parseSuites(String suites, List<String> akmSuites, List<CipherSuite> cipherSuites)
+    {
+        // Split on the dashes, but keep the dashes that are part of a suite name
+        final List<String> parts = new ArrayList<>(3);
+        int partStart = 0;
+        for (int i = 0; i <= suites.length(); i++)
+        {
+            if (i != suites.length() && suites.charAt(i) != '-') continue;
+
+            final String part = suites.substring(partStart, i);
+            partStart = i + 1;
+            if (part.isEmpty() || part.equals(PREAUTH_PART)) continue;
+
+            if (!parts.isEmpty() && isSuffixPart(part))
             {
-                // If RSN is not present then the network is open
-                return EncryptionType.OPEN;
+                parts.set(parts.size() - 1, parts.get(parts.size() - 1) + "-" + part);
             } else
             {
-                return EncryptionType.UNKNOWN;
+                parts.add(part);
+            }
+        }
+
+        if (!parts.isEmpty())
+        {
+            for (String akmSuite : parts.get(0).split("\\+"))
+            {
+                if (!akmSuite.isEmpty()) addDistinct(akmSuites, akmSuite);
+            }
+        }
+
+        if (parts.size() > 1)
+        {
+            for (String cipher : parts.get(1).split("\\+"))
+            {
+                if (!cipher.isEmpty()) addDistinct(cipherSuites, getCipherSuite(cipher));
             }
         }
     }
 
     /**
-     * @param capabilities The capabilities string from {@link android.net.wifi.ScanResult#capabilities}.
-     * @return True if the capabilities string contains "WPS", false otherwise.
+     * @return The cipher suite enum for the cipher name used in the capabilities string, or {@link CipherSuite#UNKNOWN}
+     * for the ciphers that don't have an enum value (e.g. GCMP-256).
      */
-    public static boolean supportsWps(String capabilities)
+    private static CipherSuite getCipherSuite(String cipher)
+    {
+        switch (cipher)
+        {
+            case "CCMP":
+                return CipherSuite.CCMP;
+            case "TKIP":
+                return CipherSuite.TKIP;
+            case "WEP40":
+            case "WEP-40":
+                return CipherSuite.WEP_40;
+            case "WEP104":
+            case "WEP-104":
+                return CipherSuite.WEP_104;
+            default:
+                return CipherSuite.UNKNOWN;
+        }
+    }
+
+    private static boolean isSecurityProtocol(String protocol)
+    {
+        for (String securityProtocol : SECURITY_PROTOCOLS)
+        {
+            if (securityProtocol.equals(protocol)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the part starts with one of the {@link #SUFFIX_PARTS}, either on its own or followed by the next
+     * suite in the list (e.g. "SHA256+SAE" in "PSK-SHA256+SAE").
+     */
+    private static boolean isSuffixPart(String part)
+    {
+        for (String suffixPart : SUFFIX_PARTS)
+        {
+            if (part.startsWith(suffixPart) && (part.length() == suffixPart.length() || part.charAt(suffixPart.length()) == '+'))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> void addDistinct(List<T> list, T item)
     {
-        return capabilities.contains("WPS");
+        if (!list.contains(item)) list.add(item);
     }
 }
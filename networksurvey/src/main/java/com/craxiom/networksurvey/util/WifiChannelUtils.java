@@ -0,0 +1,152 @@
+package com.craxiom.networksurvey.util;
+
+import androidx.annotation.Nullable;
+
+import com.craxiom.networksurvey.model.WifiChannel;
+
+/**
+ * Maps Wi-Fi frequencies to their 802.11 channels in the 2.4, 5, and 6 GHz bands.
+ * <p>
+ * All the channels are computed once into a table that is indexed by the frequency in MHz, so a lookup is a single
+ * array access. This was developed using IEEE Std 802.11-2020.
+ *
+ * @since 1.5.0
+ */
+public class WifiChannelUtils
+{
+    static final int MIN_FREQUENCY_MHZ = 2412;
+    static final int MAX_FREQUENCY_MHZ = 7115;
+
+    private static final int BAND_2_4_GHZ_CHANNEL_1_MHZ = 2412;
+    private static final int BAND_2_4_GHZ_CHANNEL_13_MHZ = 2472;
+    private static final int BAND_2_4_GHZ_CHANNEL_14_MHZ = 2484;
+
+    private static final int BAND_5_GHZ_START_MHZ = 5000;
+    private static final int BAND_5_GHZ_FIRST_CHANNEL = 32;
+    private static final int BAND_5_GHZ_LAST_CHANNEL = 177;
+
+    private static final int BAND_6_GHZ_START_MHZ = 5950;
+    private static final int BAND_6_GHZ_CHANNEL_2_MHZ = 5935;
+    private static final int BAND_6_GHZ_LAST_CHANNEL = 233;
+    private static final int BAND_6_GHZ_LAST_320_MHZ_CHANNEL = 191;
+
+    /**
+     * The 5 GHz channel numbers that are the center of a 40 MHz, 80 MHz, or 160 MHz wide channel.
+     */
+    private static final int[] BAND_5_GHZ_40_MHZ_CHANNELS = {38, 46, 54, 62, 102, 110, 118, 126, 134, 142, 151, 159, 167, 175};
+    private static final int[] BAND_5_GHZ_80_MHZ_CHANNELS = {42, 58, 106, 122, 138, 155, 171};
+    private static final int[] BAND_5_GHZ_160_MHZ_CHANNELS = {50, 114, 163};
+
+    /**
+     * The channel for each frequency, indexed by the frequency minus {@link #MIN_FREQUENCY_MHZ}. Frequencies that are
+     * not the center of a channel are null.
+     */
+    private static final WifiChannel[] CHANNELS = new WifiChannel[MAX_FREQUENCY_MHZ - MIN_FREQUENCY_MHZ + 1];
+
+    static
+    {
+        // 2.4 GHz channels 1 to 13 are 5 MHz apart, and channel 14 is a special case
+        for (int frequency = BAND_2_4_GHZ_CHANNEL_1_MHZ; frequency <= BAND_2_4_GHZ_CHANNEL_13_MHZ; frequency += 5)
+        {
+            addChannel((frequency - 2407) / 5, frequency, WifiChannel.Band.BAND_2_4_GHZ, 20);
+        }
+        addChannel(14, BAND_2_4_GHZ_CHANNEL_14_MHZ, WifiChannel.Band.BAND_2_4_GHZ, 20);
+
+        // Every channel number is included for 5 GHz since some regions allow channels that are not in the common plan
+        for (int channel = BAND_5_GHZ_FIRST_CHANNEL; channel <= BAND_5_GHZ_LAST_CHANNEL; channel++)
+        {
+            addChannel(channel, BAND_5_GHZ_START_MHZ + channel * 5, WifiChannel.Band.BAND_5_GHZ, get5GhzChannelWidth(channel));
+        }
+
+        // 6 GHz channel 2 is a special case, and the rest are the odd channels from 1 to 233
+        addChannel(2, BAND_6_GHZ_CHANNEL_2_MHZ, WifiChannel.Band.BAND_6_GHZ, 20);
+        for (int channel = 1; channel <= BAND_6_GHZ_LAST_CHANNEL; channel += 2)
+        {
+            final int width = get6GhzChannelWidth(channel);
+            if (width != -1) addChannel(channel, BAND_6_GHZ_START_MHZ + channel * 5, WifiChannel.Band.BAND_6_GHZ, width);
+        }
+    }
+
+    private WifiChannelUtils()
+    {
+    }
+
+    /**
+     * Returns the channel that is centered on the provided frequency.
+     *
+     * @param frequencyMhz The frequency in MHz (e.g. from {@link android.net.wifi.ScanResult#frequency}).
+     * @return The channel, or null if the frequency is not the center of a 2.4, 5, or 6 GHz channel.
+     */
+    @Nullable
+    public static WifiChannel getChannel(int frequencyMhz)
+    {
+        if (frequencyMhz < MIN_FREQUENCY_MHZ || frequencyMhz > MAX_FREQUENCY_MHZ) return null;
+
+        return CHANNELS[frequencyMhz - MIN_FREQUENCY_MHZ];
+    }
+
+    /**
+     * @param frequencyMhz The frequency in MHz.
+     * @return The channel number that is centered on the provided frequency, or -1 if the frequency is not the center
+     * of a 2.4, 5, or 6 GHz channel.
+     */
+    public static int getChannelNumber(int frequencyMhz)
+    {
+        final WifiChannel channel = getChannel(frequencyMhz);
+        return channel == null ? -1 : channel.getChannelNumber();
+    }
+
+    /**
+     * @param frequencyMhz The frequency in MHz.
+     * @return The band that the frequency is in, or null if the frequency is not the center of a 2.4, 5, or 6 GHz
+     * channel.
+     */
+    @Nullable
+    public static WifiChannel.Band getBand(int frequencyMhz)
+    {
+        final WifiChannel channel = getChannel(frequencyMhz);
+        return channel == null ? null : channel.getBand();
+    }
+
+    private static void addChannel(int channelNumber, int frequencyMhz, WifiChannel.Band band, int widthMhz)
+    {
+        CHANNELS[frequencyMhz - MIN_FREQUENCY_MHZ] = new WifiChannel(channelNumber, frequencyMhz, band, widthMhz);
+    }
+
+    /**
+     * @return The widest channel width in MHz that is centered on the provided 5 GHz channel number.
+     */
+    private static int get5GhzChannelWidth(int channel)
+    {
+        if (contains(BAND_5_GHZ_160_MHZ_CHANNELS, channel)) return 160;
+        if (contains(BAND_5_GHZ_80_MHZ_CHANNELS, channel)) return 80;
+        if (contains(BAND_5_GHZ_40_MHZ_CHANNELS, channel)) return 40;
+        return 20;
+    }
+
+    /**
+     * The 6 GHz channels follow a regular pattern, where the 20 MHz channels are 1, 5, 9, ..., the 40 MHz channels are
+     * 3, 11, 19, ..., the 80 MHz channels are 7, 23, 39, ..., the 160 MHz channels are 15, 47, 79, ..., and the 320 MHz
+     * channels are 31, 63, 95, ..., 191.
+     *
+     * @return The widest channel width in MHz that is centered on the provided odd 6 GHz channel number, or -1 if no
+     * channel is centered on it (channel 223 would be a 320 MHz channel that does not fit in the band).
+     */
+    private static int get6GhzChannelWidth(int channel)
+    {
+        if (channel % 4 == 1) return 20;
+        if (channel % 8 == 3) return 40;
+        if (channel % 16 == 7) return 80;
+        if (channel % 32 == 15) return 160;
+        return channel <= BAND_6_GHZ_LAST_320_MHZ_CHANNEL ? 320 : -1;
+    }
+
+    private static boolean contains(int[] values, int value)
+    {
+        for (int v : values)
+        {
+            if (v == value) return true;
+        }
+        return false;
+    }
+}
@@ -1,9 +1,9 @@
 package com.craxiom.networksurvey.view;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.RectF;
@@ -28,6 +28,12 @@ import com.craxiom.networksurvey.util.UIUtils;
 
 /**
  * View that shows satellite positions on a circle representing the sky
+ * <p>
+ * To keep drawing cheap enough to run every frame, the static parts of the sky plot (the horizon, grid, and north
+ * indicator) are rendered once into a bitmap that is only rebuilt when the size of the view changes, and then drawn
+ * rotated to match the device orientation. The satellite positions and colors are calculated when a new GNSS status
+ * is received rather than on every draw, and the paths used to draw the satellite shapes are reused, so drawing does
+ * not allocate any objects once the bitmap is built.
  */
 public class GnssSkyView extends View implements IGnssListener
 {
@@ -68,8 +74,26 @@ public class GnssSkyView extends View implements IGnssListener
     private Paint northFillPaint;
     private Paint prnIdPaint;
     private Paint notInViewPaint;
+    private Paint staticLayerPaint;
+
+    private final Path shapePath = new Path();
+    private final RectF ovalRect = new RectF();
+
+    /**
+     * The horizon, grid, and north indicator drawn with north at the top of the view.
+     */
+    private Bitmap staticLayer;
+    private int staticLayerSize;
+    private boolean staticLayerStarted;
+
+    /**
+     * The PRN labels, cached so that a new String is not created for each satellite on every draw.
+     */
+    private final String[] prnLabels = new String[256];
 
     private double orientation = 0.0;
+    private float orientationSin = 0.0f;
+    private float orientationCos = 1.0f;
 
     private boolean started;
 
@@ -86,6 +110,12 @@ public class GnssSkyView extends View implements IGnssListener
     private int[] prns;
     private int[] constellationType;
 
+    // Calculated when the GNSS status is received so the satellite positions don't need any trig on each draw
+    private float[] satRadiusScales;
+    private float[] satAzimSins;
+    private float[] satAzimCoss;
+    private int[] satColors;
+
     private int svCount;
 
     private boolean useLegacyGnssApi = false;
@@ -185,6 +215,8 @@ public class GnssSkyView extends View implements IGnssListener
         notInViewPaint.setStrokeWidth(4.0f);
         notInViewPaint.setAntiAlias(true);
 
+        staticLayerPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
+
         setFocusable(true);
 
         // Get the proper height and width of view before drawing
@@ -228,6 +260,10 @@ public class GnssSkyView extends View implements IGnssListener
             azims = new float[maxLength];
             constellationType = new int[maxLength];
             usedInFix = new boolean[maxLength];
+            satRadiusScales = new float[maxLength];
+            satAzimSins = new float[maxLength];
+            satAzimCoss = new float[maxLength];
+            satColors = new int[maxLength];
         }
 
         int length = status.getSatelliteCount();
@@ -246,6 +282,13 @@ public class GnssSkyView extends View implements IGnssListener
             prns[svCount] = status.getSvid(svCount);
             constellationType[svCount] = status.getConstellationType(svCount);
             usedInFix[svCount] = status.usedInFix(svCount);
+
+            final double azimRadians = Math.toRadians(azims[svCount]);
+            satRadiusScales[svCount] = 1.0f - (elevs[svCount] / 90.0f);
+            satAzimSins[svCount] = (float) Math.sin(azimRadians);
+            satAzimCoss[svCount] = (float) Math.cos(azimRadians);
+            satColors[svCount] = snrCn0s[svCount] == 0.0f ? notInViewPaint.getColor() : getSatelliteColor(snrCn0s[svCount]);
+
             // If satellite is in view, add signal to calculate avg
             if (status.getCn0DbHz(svCount) != 0.0f)
             {
@@ -273,42 +316,54 @@ public class GnssSkyView extends View implements IGnssListener
         invalidate();
     }
 
-    private void drawLine(Canvas c, float x1, float y1, float x2, float y2)
+    /**
+     * Draws the static layer, rotated so that north on the layer lines up with north based on the device orientation.
+     * The layer is rebuilt first if the size of the view or the started state has changed.
+     */
+    private void drawStaticLayer(Canvas c, int s)
     {
-        // rotate the line based on orientation
-        double angle = Math.toRadians(-orientation);
-        float cos = (float) Math.cos(angle);
-        float sin = (float) Math.sin(angle);
+        if (s <= 0) return;
 
-        float centerX = (x1 + x2) / 2.0f;
-        float centerY = (y1 + y2) / 2.0f;
-        x1 -= centerX;
-        y1 = centerY - y1;
-        x2 -= centerX;
-        y2 = centerY - y2;
+        if (staticLayer == null || staticLayerSize != s || staticLayerStarted != started)
+        {
+            if (staticLayer != null) staticLayer.recycle();
 
-        float X1 = cos * x1 + sin * y1 + centerX;
-        float Y1 = -(-sin * x1 + cos * y1) + centerY;
-        float X2 = cos * x2 + sin * y2 + centerX;
-        float Y2 = -(-sin * x2 + cos * y2) + centerY;
+            staticLayer = Bitmap.createBitmap(s, s, Bitmap.Config.ARGB_8888);
+            staticLayerSize = s;
+            staticLayerStarted = started;
+
+            final Canvas layerCanvas = new Canvas(staticLayer);
+            drawHorizon(layerCanvas, s);
+            drawNorthIndicator(layerCanvas, s);
+        }
 
-        c.drawLine(X1, Y1, X2, Y2, gridStrokePaint);
+        final float radius = s / 2f;
+        c.save();
+        c.rotate((float) -orientation, radius, radius);
+        c.drawBitmap(staticLayer, 0, 0, staticLayerPaint);
+        c.restore();
     }
 
+    /**
+     * Draws the horizon and grid with north at the top of the view. Only used to build the static layer.
+     */
     private void drawHorizon(Canvas c, int s)
     {
         float radius = s / 2f;
 
         c.drawCircle(radius, radius, radius,
                 started ? horizonActiveFillPaint : horizonInactiveFillPaint);
-        drawLine(c, 0, radius, 2 * radius, radius);
-        drawLine(c, radius, 0, radius, 2 * radius);
+        c.drawLine(0, radius, 2 * radius, radius, gridStrokePaint);
+        c.drawLine(radius, 0, radius, 2 * radius, gridStrokePaint);
         c.drawCircle(radius, radius, elevationToRadius(s, 60.0f), gridStrokePaint);
         c.drawCircle(radius, radius, elevationToRadius(s, 30.0f), gridStrokePaint);
         c.drawCircle(radius, radius, elevationToRadius(s, 0.0f), gridStrokePaint);
         c.drawCircle(radius, radius, radius, horizonStrokePaint);
     }
 
+    /**
+     * Draws the north arrow at the top of the view. Only used to build the static layer.
+     */
     private void drawNorthIndicator(Canvas c, int s)
     {
         float radius = s / 2f;
@@ -325,7 +380,8 @@ public class GnssSkyView extends View implements IGnssListener
         float x3 = x1 - radius * arrowHeightScale;
         float y3 = y1 + radius * arrowWidthScale;
 
-        Path path = new Path();
+        final Path path = shapePath;
+        path.rewind();
         path.setFillType(Path.FillType.EVEN_ODD);
         path.moveTo(x1, y1);
         path.lineTo(x2, y2);
@@ -333,35 +389,21 @@ public class GnssSkyView extends View implements IGnssListener
         path.lineTo(x1, y1);
         path.close();
 
-        // Rotate arrow around center point
-        Matrix matrix = new Matrix();
-        matrix.postRotate((float) -orientation, radius, radius);
-        path.transform(matrix);
-
         c.drawPath(path, northPaint);
         c.drawPath(path, northFillPaint);
     }
 
-    private void drawSatellite(Canvas c, int s, float elev, float azim, float snrCn0, int prn,
-                               int constellationType, boolean usedInFix)
+    private void drawSatellite(Canvas c, int s, int index)
     {
         // Place PRN text slightly below drawn satellite
         final double prnXScale = 1.4;
         final double prnYScale = 3.8;
 
-        Paint fillPaint;
-        if (snrCn0 == 0.0f)
-        {
-            // Satellite can't be seen
-            fillPaint = notInViewPaint;
-        } else
-        {
-            // Calculate fill color based on signal strength
-            fillPaint = getSatellitePaint(satelliteFillPaint, snrCn0);
-        }
+        final Paint fillPaint = satelliteFillPaint;
+        fillPaint.setColor(satColors[index]);
 
         Paint strokePaint;
-        if (usedInFix)
+        if (usedInFix[index])
         {
             strokePaint = satelliteUsedStrokePaint;
         } else
@@ -369,15 +411,16 @@ public class GnssSkyView extends View implements IGnssListener
             strokePaint = satelliteStrokePaint;
         }
 
-        final double radius = elevationToRadius(s, elev);
-        azim -= orientation;
-        final double angle = (float) Math.toRadians(azim);
+        // Rotate the precalculated azimuth by the orientation using the angle difference identities
+        final float radius = ((s / 2f) - satRadius) * satRadiusScales[index];
+        final float sin = satAzimSins[index] * orientationCos - satAzimCoss[index] * orientationSin;
+        final float cos = satAzimCoss[index] * orientationCos + satAzimSins[index] * orientationSin;
 
-        final float x = (float) ((s / 2) + (radius * Math.sin(angle)));
-        final float y = (float) ((s / 2) - (radius * Math.cos(angle)));
+        final float x = (s / 2) + (radius * sin);
+        final float y = (s / 2) - (radius * cos);
 
         // Change shape based on satellite operator
-        final GnssType operator = GpsTestUtil.getGnssConstellationType(constellationType);
+        final GnssType operator = GpsTestUtil.getGnssConstellationType(constellationType[index]);
 
         switch (operator)
         {
@@ -437,10 +480,23 @@ public class GnssSkyView extends View implements IGnssListener
 //                break;
         }
 
-        c.drawText(String.valueOf(prn), x - (int) (satRadius * prnXScale),
+        c.drawText(getPrnLabel(prns[index]), x - (int) (satRadius * prnXScale),
                 y + (int) (satRadius * prnYScale), prnIdPaint);
     }
 
+    private String getPrnLabel(int prn)
+    {
+        if (prn < 0 || prn >= prnLabels.length) return String.valueOf(prn);
+
+        String label = prnLabels[prn];
+        if (label == null)
+        {
+            label = String.valueOf(prn);
+            prnLabels[prn] = label;
+        }
+        return label;
+    }
+
     private float elevationToRadius(int s, float elev)
     {
         return ((s / 2f) - satRadius) * (1.0f - (elev / 90.0f));
@@ -460,7 +516,8 @@ public class GnssSkyView extends View implements IGnssListener
         float x3 = x + satRadius;
         float y3 = y + satRadius;
 
-        Path path = new Path();
+        final Path path = shapePath;
+        path.rewind();
         path.setFillType(Path.FillType.EVEN_ODD);
         path.moveTo(x1, y1);
         path.lineTo(x2, y2);
@@ -474,7 +531,8 @@ public class GnssSkyView extends View implements IGnssListener
 
     private void drawDiamond(Canvas c, float x, float y, Paint fillPaint, Paint strokePaint)
     {
-        Path path = new Path();
+        final Path path = shapePath;
+        path.rewind();
         path.moveTo(x, y - satRadius);
         path.lineTo(x - satRadius * 1.5f, y);
         path.lineTo(x, y + satRadius);
@@ -487,7 +545,8 @@ public class GnssSkyView extends View implements IGnssListener
 
     private void drawPentagon(Canvas c, float x, float y, Paint fillPaint, Paint strokePaint)
     {
-        Path path = new Path();
+        final Path path = shapePath;
+        path.rewind();
         path.moveTo(x, y - satRadius);
         path.lineTo(x - satRadius, y - (satRadius / 3f));
         path.lineTo(x - 2 * (satRadius / 3f), y + satRadius);
@@ -503,7 +562,8 @@ public class GnssSkyView extends View implements IGnssListener
     {
         final float multiplier = 0.6f;
         final float sideMultiplier = 1.4f;
-        Path path = new Path();
+        final Path path = shapePath;
+        path.rewind();
         // Top-left
         path.moveTo(x - satRadius * multiplier, y - satRadius);
         // Left
@@ -523,19 +583,13 @@ public class GnssSkyView extends View implements IGnssListener
 
     private void drawOval(Canvas c, float x, float y, Paint fillPaint, Paint strokePaint)
     {
-        RectF rect = new RectF(x - satRadius * 1.5f, y - satRadius, x + satRadius * 1.5f, y + satRadius);
+        final RectF rect = ovalRect;
+        rect.set(x - satRadius * 1.5f, y - satRadius, x + satRadius * 1.5f, y + satRadius);
 
         c.drawOval(rect, fillPaint);
         c.drawOval(rect, strokePaint);
     }
 
-    private Paint getSatellitePaint(Paint base, float snrCn0)
-    {
-        final Paint newPaint = new Paint(base);
-        newPaint.setColor(getSatelliteColor(snrCn0));
-        return newPaint;
-    }
-
     /**
      * Gets the paint color for a satellite based on provided SNR or C/N0 and the thresholds defined in this class
      *
@@ -606,9 +660,7 @@ public class GnssSkyView extends View implements IGnssListener
     {
         int minScreenDimen = Math.min(width, height);
 
-        drawHorizon(canvas, minScreenDimen);
-
-        drawNorthIndicator(canvas, minScreenDimen);
+        drawStaticLayer(canvas, minScreenDimen);
 
         if (elevs != null)
         {
@@ -618,8 +670,7 @@ public class GnssSkyView extends View implements IGnssListener
             {
                 if (elevs[i] != 0.0f || azims[i] != 0.0f)
                 {
-                    drawSatellite(canvas, minScreenDimen, elevs[i], azims[i], snrCn0s[i],
-                            prns[i], constellationType[i], usedInFix[i]);
+                    drawSatellite(canvas, minScreenDimen, i);
                 }
             }
         }
@@ -634,10 +685,26 @@ public class GnssSkyView extends View implements IGnssListener
         setMeasuredDimension(specSize, specSize);
     }
 
+    @Override
+    protected void onDetachedFromWindow()
+    {
+        super.onDetachedFromWindow();
+
+        // Free the static layer bitmap, it is rebuilt on the next draw if this view is attached again
+        if (staticLayer != null)
+        {
+            staticLayer.recycle();
+            staticLayer = null;
+        }
+    }
+
     @Override
     public void onOrientationChanged(double orientation, double tilt)
     {
         this.orientation = orientation;
+        final double angle = Math.toRadians(orientation);
+        orientationSin = (float) Math.sin(angle);
+        orientationCos = (float) Math.cos(angle);
         invalidate();
     }
 
@@ -0,0 +1,141 @@
+package com.craxiom.networksurvey.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.craxiom.networksurvey.R;
+
+/**
+ * A small line chart of the recent signal values for an emitter, without any axes or labels.
+ * <p>
+ * The values are scaled to fit the height of the view, but the range is never smaller than {@link #MIN_RANGE_DB} so
+ * that a steady signal shows as a mostly flat line instead of exaggerating the noise. The line is drawn from arrays
+ * that are only reallocated when more values are shown than before, so updating and drawing the chart does not
+ * allocate.
+ *
+ * @since 1.5.0
+ */
+public class SparklineView extends View
+{
+    private static final float MIN_RANGE_DB = 10f;
+    private static final float LINE_WIDTH_DP = 1.5f;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private float[] values = new float[0];
+    private int valueCount;
+
+    /**
+     * The start and end points of each line segment, in the format expected by {@link Canvas#drawLines(float[], int, int, Paint)}.
+     */
+    private float[] linePoints = new float[0];
+
+    public SparklineView(Context context)
+    {
+        super(context);
+        init(context);
+    }
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs)
+    {
+        super(context, attrs);
+        init(context);
+    }
+
+    private void init(Context context)
+    {
+        linePaint.setColor(context.getResources().getColor(R.color.colorAccent, null));
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        linePaint.setStrokeWidth(LINE_WIDTH_DP * context.getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Sets the values to chart, from the oldest to the newest. The values are copied, so the provided array can be
+     * reused by the caller.
+     *
+     * @param newValues The values to chart.
+     * @param count     The number of values to use from the start of the array.
+     */
+    public void setValues(float[] newValues, int count)
+    {
+        if (values.length < count) values = new float[count];
+        System.arraycopy(newValues, 0, values, 0, count);
+        valueCount = count;
+
+        invalidate();
+    }
+
+    /**
+     * Removes all the values from the chart.
+     */
+    public void clear()
+    {
+        valueCount = 0;
+        invalidate();
+    }
+
+    /**
+     * @param color The color of the line.
+     */
+    public void setLineColor(int color)
+    {
+        if (linePaint.getColor() == color) return;
+
+        linePaint.setColor(color);
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas)
+    {
+        if (valueCount < 2) return;
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (int i = 0; i < valueCount; i++)
+        {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+
+        // Center the values when they span less than the minimum range
+        final float range = Math.max(max - min, MIN_RANGE_DB);
+        final float bottom = (min + max - range) / 2f;
+
+        final float inset = linePaint.getStrokeWidth() / 2f;
+        final float left = getPaddingLeft() + inset;
+        final float top = getPaddingTop() + inset;
+        final float drawWidth = getWidth() - getPaddingRight() - inset - left;
+        final float drawHeight = getHeight() - getPaddingBottom() - inset - top;
+        if (drawWidth <= 0 || drawHeight <= 0) return;
+
+        final int pointCount = (valueCount - 1) * 4;
+        if (linePoints.length < pointCount) linePoints = new float[pointCount];
+
+        final float xStep = drawWidth / (valueCount - 1);
+        float previousX = left;
+        float previousY = top + drawHeight - (values[0] - bottom) / range * drawHeight;
+        for (int i = 1; i < valueCount; i++)
+        {
+            final float x = left + i * xStep;
+            final float y = top + drawHeight - (values[i] - bottom) / range * drawHeight;
+
+            final int pointIndex = (i - 1) * 4;
+            linePoints[pointIndex] = previousX;
+            linePoints[pointIndex + 1] = previousY;
+            linePoints[pointIndex + 2] = x;
+            linePoints[pointIndex + 3] = y;
+
+            previousX = x;
+            previousY = y;
+        }
+
+        canvas.drawLines(linePoints, 0, pointCount, linePaint);
+    }
+}
@@ -10,11 +10,14 @@ import com.craxiom.networksurvey.util.IOUtils;
 import com.google.protobuf.FloatValue;
 import com.google.protobuf.Int32Value;
 
+import androidx.recyclerview.widget.SortedList;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
 import java.time.ZonedDateTime;
+import java.util.Objects;
 
 /**
  * Test for the custom {@link com.craxiom.networksurvey.model.SortedSet} class.
@@ -77,6 +80,107 @@ public class SortedSetTest
         Assert.assertEquals(4, bluetoothRecordSortedSet.size());
     }
 
+    @Test
+    public void validateKeyedReplaceAndLookup()
+    {
+        final SortedSet<Device> sortedSet = new SortedSet<>(Device.class, new KeyedDeviceCallback());
+
+        sortedSet.add(new Device("A", -50f));
+        sortedSet.add(new Device("B", -60f));
+        sortedSet.add(new Device("C", -70f));
+        Assert.assertEquals(3, sortedSet.size());
+
+        // Replacing A with a weaker signal moves it to the end and removes the old item
+        final Device weakerA = new Device("A", -80f);
+        sortedSet.add(weakerA);
+        Assert.assertEquals(3, sortedSet.size());
+        Assert.assertSame(weakerA, sortedSet.getByKey("A"));
+        Assert.assertEquals("B", sortedSet.get(0).address);
+        Assert.assertEquals("C", sortedSet.get(1).address);
+        Assert.assertSame(weakerA, sortedSet.get(2));
+
+        // Replacing with the same signal strength still replaces the item
+        final Device sameB = new Device("B", -60f);
+        sortedSet.add(sameB);
+        Assert.assertEquals(3, sortedSet.size());
+        Assert.assertSame(sameB, sortedSet.getByKey("B"));
+        Assert.assertSame(sameB, sortedSet.get(0));
+
+        Assert.assertNull(sortedSet.getByKey("D"));
+    }
+
+    @Test
+    public void validateKeyedRemove()
+    {
+        final SortedSet<Device> sortedSet = new SortedSet<>(Device.class, new KeyedDeviceCallback());
+        sortedSet.add(new Device("A", -50f));
+        sortedSet.add(new Device("B", -60f));
+        sortedSet.add(new Device("C", -70f));
+
+        Assert.assertTrue(sortedSet.removeByKey("B"));
+        Assert.assertFalse(sortedSet.removeByKey("B"));
+        Assert.assertNull(sortedSet.getByKey("B"));
+        Assert.assertEquals(2, sortedSet.size());
+        Assert.assertEquals("A", sortedSet.get(0).address);
+        Assert.assertEquals("C", sortedSet.get(1).address);
+
+        final Device removedItem = sortedSet.removeItemAt(0);
+        Assert.assertEquals("A", removedItem.address);
+        Assert.assertNull(sortedSet.getByKey("A"));
+
+        Assert.assertTrue(sortedSet.remove(sortedSet.getByKey("C")));
+        Assert.assertNull(sortedSet.getByKey("C"));
+        Assert.assertEquals(0, sortedSet.size());
+
+        // A removed key can be added again
+        sortedSet.add(new Device("B", -40f));
+        Assert.assertEquals(1, sortedSet.size());
+        Assert.assertEquals(-40f, sortedSet.getByKey("B").rssi, FLOAT_TOLERANCE);
+    }
+
+    @Test
+    public void validateKeyedIndexAfterBulkChanges()
+    {
+        final SortedSet<Device> sortedSet = new SortedSet<>(Device.class, new KeyedDeviceCallback());
+        sortedSet.add(new Device("A", -50f));
+        sortedSet.add(new Device("B", -60f));
+
+        // The bulk methods are used when the sort order changes, and the index must be rebuilt from the result
+        final Device[] devices = {new Device("C", -55f), new Device("D", -65f), new Device("E", -75f)};
+        sortedSet.replaceAll(devices, false);
+        Assert.assertEquals(3, sortedSet.size());
+        Assert.assertNull(sortedSet.getByKey("A"));
+        Assert.assertSame(devices[1], sortedSet.getByKey("D"));
+
+        sortedSet.clear();
+        Assert.assertNull(sortedSet.getByKey("C"));
+
+        sortedSet.addAll(devices, false);
+        final Device newerC = new Device("C", -90f);
+        sortedSet.add(newerC);
+        Assert.assertEquals(3, sortedSet.size());
+        Assert.assertSame(newerC, sortedSet.get(2));
+        Assert.assertSame(newerC, sortedSet.getByKey("C"));
+    }
+
+    @Test
+    public void validateGetByKeyRequiresKeyedCallback()
+    {
+        final SortedSet<Device> sortedSet = new SortedSet<>(Device.class, new DeviceCallback());
+        sortedSet.add(new Device("A", -50f));
+        sortedSet.add(new Device("A", -60f));
+        Assert.assertEquals(1, sortedSet.size());
+
+        try
+        {
+            sortedSet.getByKey("A");
+            Assert.fail("Getting by key should fail without a KeyedCallback");
+        } catch (IllegalStateException e)
+        {
+            // Expected
+        }
+    }
+
     /**
      * Create a fake BluetoothRecord that can be used for testing.
      * <p>
@@ -114,4 +218,109 @@ public class SortedSetTest
 
         return recordBuilder.build();
     }
+
+    private static final class Device
+    {
+        final String address;
+        final float rssi;
+
+        Device(String address, float rssi)
+        {
+            this.address = address;
+            this.rssi = rssi;
+        }
+    }
+
+    /**
+     * Sorts the devices by signal strength, strongest first, and treats devices with the same address as the same item.
+     */
+    private static class DeviceCallback extends SortedList.Callback<Device>
+    {
+        @Override
+        public int compare(Device device1, Device device2)
+        {
+            return Float.compare(device2.rssi, device1.rssi);
+        }
+
+        @Override
+        public void onChanged(int position, int count)
+        {
+        }
+
+        @Override
+        public boolean areContentsTheSame(Device oldDevice, Device newDevice)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean areItemsTheSame(Device device1, Device device2)
+        {
+            return Objects.equals(device1.address, device2.address);
+        }
+
+        @Override
+        public void onInserted(int position, int count)
+        {
+        }
+
+        @Override
+        public void onRemoved(int position, int count)
+        {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition)
+        {
+        }
+    }
+
+    private static final class KeyedDeviceCallback extends SortedSet.KeyedCallback<Device>
+    {
+        private final DeviceCallback delegate = new DeviceCallback();
+
+        @Override
+        public Object getItemKey(Device device)
+        {
+            return device.address;
+        }
+
+        @Override
+        public int compare(Device device1, Device device2)
+        {
+            return delegate.compare(device1, device2);
+        }
+
+        @Override
+        public void onChanged(int position, int count)
+        {
+        }
+
+        @Override
+        public boolean areContentsTheSame(Device oldDevice, Device newDevice)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean areItemsTheSame(Device device1, Device device2)
+        {
+            return delegate.areItemsTheSame(device1, device2);
+        }
+
+        @Override
+        public void onInserted(int position, int count)
+        {
+        }
+
+        @Override
+        public void onRemoved(int position, int count)
+        {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition)
+        {
+        }
+    }
 }
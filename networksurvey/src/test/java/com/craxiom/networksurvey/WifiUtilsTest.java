@@ -3,12 +3,18 @@ package com.craxiom.networksurvey;
 import com.craxiom.messaging.wifi.CipherSuite;
 import com.craxiom.messaging.wifi.EncryptionType;
 import com.craxiom.networksurvey.constants.WifiBeaconMessageConstants;
+import com.craxiom.networksurvey.model.WifiCapabilities;
 import com.craxiom.networksurvey.util.WifiCapabilitiesUtils;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -81,6 +87,85 @@ public class WifiUtilsTest
         assertFalse(WifiCapabilitiesUtils.supportsWps(capabilities));
     }
 
+    @Test
+    public void validateCipherAndAkmSuites()
+    {
+        final WifiCapabilities capabilities = WifiCapabilitiesUtils.parseCapabilities("[WPA-PSK-CCMP+TKIP][WPA2-PSK+FT/PSK-CCMP+TKIP-preauth][RSN-PSK+FT/PSK-CCMP+TKIP][ESS][WPS]");
+
+        assertEquals(EncryptionType.WPA_WPA2, capabilities.getEncryptionType());
+        assertTrue(capabilities.supportsWps());
+        assertEquals(Arrays.asList(CipherSuite.CCMP, CipherSuite.TKIP), capabilities.getCipherSuites());
+        assertEquals(Arrays.asList("PSK", "FT/PSK"), capabilities.getAkmSuites());
+        assertEquals("PSK;FT/PSK", capabilities.getAkmSuitesString());
+    }
+
+    @Test
+    public void validateSuitesWithDashes()
+    {
+        final WifiCapabilities capabilities = WifiCapabilitiesUtils.parseCapabilities("[RSN-PSK-SHA256+SAE-CCMP+GCMP-256][RSN-EAP/SHA1-CCMP][MFPC][ESS]");
+
+        assertEquals(EncryptionType.UNKNOWN, capabilities.getEncryptionType());
+        assertFalse(capabilities.supportsWps());
+        assertEquals(Arrays.asList(CipherSuite.CCMP, CipherSuite.UNKNOWN), capabilities.getCipherSuites());
+        assertEquals(Arrays.asList("PSK-SHA256", "SAE", "EAP/SHA1"), capabilities.getAkmSuites());
+    }
+
+    @Test
+    public void validateWepAndOpenCipherSuites()
+    {
+        final WifiCapabilities wep = WifiCapabilitiesUtils.parseCapabilities("[WEP][ESS]");
+        assertEquals(EncryptionType.WEP, wep.getEncryptionType());
+        assertEquals(Collections.singletonList(CipherSuite.WEP), wep.getCipherSuites());
+        assertTrue(wep.getAkmSuites().isEmpty());
+        assertEquals("", wep.getAkmSuitesString());
+
+        final WifiCapabilities open = WifiCapabilitiesUtils.parseCapabilities("[ESS]");
+        assertEquals(EncryptionType.OPEN, open.getEncryptionType());
+        assertEquals(Collections.singletonList(CipherSuite.OPEN), open.getCipherSuites());
+
+        final WifiCapabilities empty = WifiCapabilitiesUtils.parseCapabilities("");
+        assertEquals(EncryptionType.OPEN, empty.getEncryptionType());
+        assertFalse(empty.supportsWps());
+    }
+
+    @Test
+    public void validateCapabilitiesAreCached()
+    {
+        final String capabilities = "[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]";
+        assertSame(WifiCapabilitiesUtils.parseCapabilities(capabilities), WifiCapabilitiesUtils.parseCapabilities(new String(capabilities)));
+    }
+
+    @Test
+    public void validateCommonCapabilitiesStrings()
+    {
+        assertCapabilities("[ESS]", EncryptionType.OPEN, false,
+                Collections.singletonList(CipherSuite.OPEN), Collections.emptyList());
+        assertCapabilities("[IBSS]", EncryptionType.OPEN, false,
+                Collections.singletonList(CipherSuite.OPEN), Collections.emptyList());
+        assertCapabilities("[WEP][ESS]", EncryptionType.WEP, false,
+                Collections.singletonList(CipherSuite.WEP), Collections.emptyList());
+        assertCapabilities("[WPA-PSK-TKIP][ESS]", EncryptionType.WPA, false,
+                Collections.singletonList(CipherSuite.TKIP), Collections.singletonList("PSK"));
+        assertCapabilities("[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS]", EncryptionType.WPA2, false,
+                Collections.singletonList(CipherSuite.CCMP), Collections.singletonList("PSK"));
+        assertCapabilities("[WPA2-PSK-CCMP][RSN-PSK-CCMP][ESS][WPS]", EncryptionType.WPA2, true,
+                Collections.singletonList(CipherSuite.CCMP), Collections.singletonList("PSK"));
+        assertCapabilities("[WPA-PSK-CCMP+TKIP][WPA2-PSK-CCMP+TKIP][RSN-PSK-CCMP+TKIP][ESS][WPS]", EncryptionType.WPA_WPA2, true,
+                Arrays.asList(CipherSuite.CCMP, CipherSuite.TKIP), Collections.singletonList("PSK"));
+        assertCapabilities("[WPA2-EAP/SHA1-CCMP][RSN-EAP/SHA1-CCMP][ESS]", EncryptionType.WPA2, false,
+                Collections.singletonList(CipherSuite.CCMP), Collections.singletonList("EAP/SHA1"));
+        assertCapabilities("[WPA2-PSK+FT/PSK-CCMP][RSN-PSK+FT/PSK-CCMP][ESS]", EncryptionType.WPA2, false,
+                Collections.singletonList(CipherSuite.CCMP), Arrays.asList("PSK", "FT/PSK"));
+        assertCapabilities("[WPA3-SAE-CCMP][ESS]", EncryptionType.WPA3, false,
+                Collections.singletonList(CipherSuite.CCMP), Collections.singletonList("SAE"));
+        assertCapabilities("[RSN-PSK+SAE-CCMP][MFPC][ESS]", EncryptionType.UNKNOWN, false,
+                Collections.singletonList(CipherSuite.CCMP), Arrays.asList("PSK", "SAE"));
+        assertCapabilities("[RSN-SAE-CCMP][MFPR][MFPC][ESS]", EncryptionType.UNKNOWN, false,
+                Collections.singletonList(CipherSuite.CCMP), Collections.singletonList("SAE"));
+        assertCapabilities("[RSN-OWE-CCMP][MFPR][MFPC][ESS]", EncryptionType.UNKNOWN, false,
+                Collections.singletonList(CipherSuite.CCMP), Collections.singletonList("OWE"));
+    }
+
     @Test
     public void validateEncryptionTypeString()
     {
@@ -129,4 +214,15 @@ public class WifiUtilsTest
         assertEquals(157, WifiBeaconMessageConstants.convertFrequencyToChannelNumber(5785));
         assertEquals(165, WifiBeaconMessageConstants.convertFrequencyToChannelNumber(5825));
     }
+
+    private static void assertCapabilities(String capabilitiesString, EncryptionType encryptionType, boolean wps,
+                                           List<CipherSuite> cipherSuites, List<String> akmSuites)
+    {
+        final WifiCapabilities capabilities = WifiCapabilitiesUtils.parseCapabilities(capabilitiesString);
+
+        assertEquals(capabilitiesString, encryptionType, capabilities.getEncryptionType());
+        assertEquals(capabilitiesString, wps, capabilities.supportsWps());
+        assertEquals(capabilitiesString, cipherSuites, capabilities.getCipherSuites());
+        assertEquals(capabilitiesString, akmSuites, capabilities.getAkmSuites());
+    }
 }
@@ -0,0 +1,99 @@
+package com.craxiom.networksurvey.model;
+
+import com.craxiom.messaging.LteRecordData;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link CellularDetailsState} class.
+ *
+ * @since 1.5.0
+ */
+public class CellularDetailsStateTest
+{
+    @Test
+    public void validateChangesAreCoalesced()
+    {
+        final CellularDetailsState state = new CellularDetailsState();
+        final AtomicInteger notificationCount = new AtomicInteger();
+        state.setChangeListener(notificationCount::incrementAndGet);
+
+        assertNull(state.getCurrentTechnology());
+        assertNull(state.getServingLteRecord());
+        assertFalse(state.consumeChange());
+
+        for (int i = 0; i < 100; i++)
+        {
+            state.setCurrentTechnology("LTE " + i);
+        }
+        final LteRecordData lteRecord = LteRecordData.getDefaultInstance();
+        state.setServingLteRecord(lteRecord);
+
+        // Only the first change notifies the listener, and the latest values are kept
+        assertEquals(1, notificationCount.get());
+        assertEquals("LTE 99", state.getCurrentTechnology());
+        assertSame(lteRecord, state.getServingLteRecord());
+
+        assertTrue(state.consumeChange());
+        assertFalse(state.consumeChange());
+
+        // Once consumed, the next change notifies the listener again
+        state.setCurrentTechnology("NR");
+        assertEquals(2, notificationCount.get());
+    }
+
+    @Test
+    public void validateChangesWithoutListener()
+    {
+        final CellularDetailsState state = new CellularDetailsState();
+        state.setCurrentTechnology("LTE");
+
+        // A listener that is set later is only notified after the pending change is consumed
+        final AtomicInteger notificationCount = new AtomicInteger();
+        state.setChangeListener(notificationCount::incrementAndGet);
+        state.setCurrentTechnology("LTE-CA");
+        assertEquals(0, notificationCount.get());
+
+        assertTrue(state.consumeChange());
+        assertEquals("LTE-CA", state.getCurrentTechnology());
+
+        state.setChangeListener(null);
+        state.setCurrentTechnology("UMTS");
+        assertEquals(0, notificationCount.get());
+    }
+
+    @Test
+    public void validateNoChangeIsLostAcrossThreads() throws InterruptedException
+    {
+        final CellularDetailsState state = new CellularDetailsState();
+        final int updateCount = 100_000;
+
+        final Thread writer = new Thread(() -> {
+            for (int i = 1; i <= updateCount; i++)
+            {
+                state.setCurrentTechnology(String.valueOf(i));
+            }
+        });
+        writer.start();
+
+        // Emulates the UI, which consumes the change before reading the value
+        String lastSeen = null;
+        while (writer.isAlive())
+        {
+            if (state.consumeChange()) lastSeen = state.getCurrentTechnology();
+        }
+        writer.join();
+
+        // The final value must either have been seen already, or still be flagged as changed
+        if (state.consumeChange()) lastSeen = state.getCurrentTechnology();
+        assertEquals(String.valueOf(updateCount), lastSeen);
+    }
+}
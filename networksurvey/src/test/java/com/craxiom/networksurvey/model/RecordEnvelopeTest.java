@@ -0,0 +1,49 @@
+package com.craxiom.networksurvey.model;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link RecordEnvelope} class.
+ *
+ * @since 1.5.0
+ */
+public class RecordEnvelopeTest
+{
+    @Test
+    public void validateEncodingIsMemoized()
+    {
+        final BluetoothRecord record = createRecord();
+        final RecordEnvelope<BluetoothRecord> envelope = new RecordEnvelope<>(record);
+
+        final byte[] bytes = envelope.toByteArray();
+
+        assertArrayEquals(record.toByteArray(), bytes);
+        assertSame(bytes, envelope.toByteArray());
+    }
+
+    @Test
+    public void validateKnownEncodingIsReused()
+    {
+        final BluetoothRecord record = createRecord();
+        final byte[] parsedFrom = record.toByteArray();
+        final RecordEnvelope<BluetoothRecord> envelope = new RecordEnvelope<>(record, parsedFrom);
+
+        assertSame(record, envelope.getRecord());
+        assertSame(parsedFrom, envelope.toByteArray());
+    }
+
+    private static BluetoothRecord createRecord()
+    {
+        return BluetoothRecord.newBuilder()
+                .setData(BluetoothRecordData.newBuilder()
+                        .setSourceAddress("00:00:00:00:00:01")
+                        .setRecordNumber(1))
+                .build();
+    }
+}
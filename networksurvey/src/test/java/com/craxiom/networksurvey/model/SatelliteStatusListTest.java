@@ -0,0 +1,224 @@
+package com.craxiom.networksurvey.model;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link SatelliteStatusList} class.
+ *
+ * @since 1.5.0
+ */
+public class SatelliteStatusListTest
+{
+    private static final float L1_HZ = 1_575_420_000f;
+    private static final float L5_HZ = 1_176_450_000f;
+
+    @Test
+    public void validateIncrementalUpdatesMatchFullSort()
+    {
+        final Random random = new Random(3);
+
+        for (int sortOrder = SatelliteStatusList.SORT_BY_CONSTELLATION; sortOrder <= SatelliteStatusList.SORT_BY_CONSTELLATION_USED_IN_FIX; sortOrder++)
+        {
+            final SatelliteStatusList list = new SatelliteStatusList(false);
+            list.setSortOrder(sortOrder);
+            final MirrorListUpdateCallback mirror = new MirrorListUpdateCallback(list);
+            list.setListUpdateCallback(mirror);
+
+            for (int update = 0; update < 200; update++)
+            {
+                final List<SatelliteStatus> statuses = createRandomStatuses(random);
+                list.update(statuses);
+
+                final List<SatelliteStatus> expected = new ArrayList<>(statuses);
+                expected.sort(SatelliteStatusList.getComparator(sortOrder, false));
+
+                assertEquals(expected.size(), list.size());
+                for (int i = 0; i < expected.size(); i++)
+                {
+                    assertSame(expected.get(i), list.get(i));
+                }
+
+                mirror.assertMatches();
+            }
+        }
+    }
+
+    @Test
+    public void validateOnlyChangedRowsAreDispatched()
+    {
+        final SatelliteStatusList list = new SatelliteStatusList(false);
+        list.setSortOrder(SatelliteStatusList.SORT_BY_CONSTELLATION);
+        final MirrorListUpdateCallback mirror = new MirrorListUpdateCallback(list);
+        list.setListUpdateCallback(mirror);
+
+        final List<SatelliteStatus> statuses = new ArrayList<>();
+        for (int svid = 1; svid <= 10; svid++)
+        {
+            statuses.add(createStatus(svid, GnssType.NAVSTAR, 30f, L1_HZ));
+        }
+        list.update(statuses);
+        mirror.eventCount = 0;
+
+        // The same values again should not dispatch anything
+        final List<SatelliteStatus> sameStatuses = new ArrayList<>();
+        for (int svid = 1; svid <= 10; svid++)
+        {
+            sameStatuses.add(createStatus(svid, GnssType.NAVSTAR, 30f, L1_HZ));
+        }
+        list.update(sameStatuses);
+        assertEquals(0, mirror.eventCount);
+
+        // One satellite with a new C/N0 should only dispatch one change. New instances are used for every satellite
+        // because that is what each GNSS status produces, and the sorted list always treats the same instance as changed.
+        final List<SatelliteStatus> changedStatuses = new ArrayList<>();
+        for (int svid = 1; svid <= 10; svid++)
+        {
+            changedStatuses.add(createStatus(svid, GnssType.NAVSTAR, svid == 5 ? 35f : 30f, L1_HZ));
+        }
+        list.update(changedStatuses);
+        assertEquals(1, mirror.eventCount);
+        assertEquals(35f, list.get(4).getCn0DbHz(), 0.0001);
+    }
+
+    @Test
+    public void validateSortOrderChange()
+    {
+        final SatelliteStatusList list = new SatelliteStatusList(false);
+        final MirrorListUpdateCallback mirror = new MirrorListUpdateCallback(list);
+        list.setListUpdateCallback(mirror);
+
+        final List<SatelliteStatus> statuses = new ArrayList<>();
+        statuses.add(createStatus(1, GnssType.NAVSTAR, 20f, L1_HZ));
+        statuses.add(createStatus(2, GnssType.GLONASS, 40f, L1_HZ));
+        statuses.add(createStatus(3, GnssType.GALILEO, 30f, L1_HZ));
+        list.update(statuses);
+        assertEquals(1, list.get(0).getSvid());
+
+        list.setSortOrder(SatelliteStatusList.SORT_BY_SIGNAL_STRENGTH);
+        assertEquals(2, list.get(0).getSvid());
+        assertEquals(3, list.get(1).getSvid());
+        assertEquals(1, list.get(2).getSvid());
+        mirror.assertMatches();
+    }
+
+    @Test
+    public void validateSatelliteKeys()
+    {
+        final SatelliteStatus l1 = createStatus(10, GnssType.NAVSTAR, 30f, L1_HZ);
+        final SatelliteStatus l5 = createStatus(10, GnssType.NAVSTAR, 30f, L5_HZ);
+        final SatelliteStatus galileo = createStatus(10, GnssType.GALILEO, 30f, L1_HZ);
+
+        assertEquals(SatelliteStatusList.getSatelliteKey(l1), SatelliteStatusList.getSatelliteKey(createStatus(10, GnssType.NAVSTAR, 45f, L1_HZ)));
+        assertNotEquals(SatelliteStatusList.getSatelliteKey(l1), SatelliteStatusList.getSatelliteKey(l5));
+        assertNotEquals(SatelliteStatusList.getSatelliteKey(l1), SatelliteStatusList.getSatelliteKey(galileo));
+    }
+
+    private static List<SatelliteStatus> createRandomStatuses(Random random)
+    {
+        final GnssType[] types = {GnssType.NAVSTAR, GnssType.GLONASS, GnssType.GALILEO, GnssType.BEIDOU};
+        final List<SatelliteStatus> statuses = new ArrayList<>();
+        for (GnssType type : types)
+        {
+            for (int svid = 1; svid <= 12; svid++)
+            {
+                // Satellites come and go between updates
+                if (random.nextInt(5) == 0) continue;
+
+                statuses.add(createStatus(svid, type, random.nextInt(4) * 10f, random.nextBoolean() ? L1_HZ : L5_HZ));
+            }
+        }
+        return statuses;
+    }
+
+    private static SatelliteStatus createStatus(int svid, GnssType gnssType, float cn0DbHz, float carrierFrequencyHz)
+    {
+        final SatelliteStatus status = new SatelliteStatus(svid, gnssType, cn0DbHz, true, true, cn0DbHz > 25f, 45f, 90f);
+        status.setHasCarrierFrequency(true);
+        status.setCarrierFrequencyHz(carrierFrequencyHz);
+        return status;
+    }
+
+    /**
+     * Applies the dispatched changes to a separate list, the same way a recycler view would, so the test can check that
+     * they are correct. Inserted and changed rows are marked as needing to be bound, and are then bound from the source
+     * list when {@link #assertMatches()} is called. Any row that was not marked must still show the right satellite
+     * with the right values.
+     */
+    private static final class MirrorListUpdateCallback implements ListUpdateCallback
+    {
+        private final SatelliteStatusList source;
+        private final List<SatelliteStatus> items = new ArrayList<>();
+        private int eventCount;
+
+        MirrorListUpdateCallback(SatelliteStatusList source)
+        {
+            this.source = source;
+        }
+
+        void assertMatches()
+        {
+            assertEquals(source.size(), items.size());
+            for (int i = 0; i < items.size(); i++)
+            {
+                final SatelliteStatus expected = source.get(i);
+                final SatelliteStatus actual = items.get(i);
+                if (actual == null)
+                {
+                    items.set(i, expected);
+                } else
+                {
+                    assertEquals(SatelliteStatusList.getSatelliteKey(expected), SatelliteStatusList.getSatelliteKey(actual));
+                    assertEquals(expected, actual);
+                }
+            }
+        }
+
+        @Override
+        public void onInserted(int position, int count)
+        {
+            eventCount++;
+            for (int i = 0; i < count; i++)
+            {
+                items.add(position, null);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count)
+        {
+            eventCount++;
+            for (int i = 0; i < count; i++)
+            {
+                items.remove(position);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition)
+        {
+            eventCount++;
+            items.add(toPosition, items.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload)
+        {
+            eventCount++;
+            for (int i = 0; i < count; i++)
+            {
+                items.set(position + i, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.craxiom.networksurvey.model;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the packed satellite keys and the open addressing {@link SatelliteStatusMap}.
+ *
+ * @since 1.5.0
+ */
+public class SatelliteStatusMapTest
+{
+    private static final float L1_HZ = 1575.42e6f;
+    private static final float L5_HZ = 1176.45e6f;
+
+    @Test
+    public void validateKeysAreUnique()
+    {
+        final Set<Integer> keys = new HashSet<>();
+        int count = 0;
+        for (GnssType gnssType : GnssType.values())
+        {
+            for (int svid = 0; svid <= 400; svid++)
+            {
+                for (float carrier : new float[]{SatelliteStatus.NO_DATA, L1_HZ, L5_HZ, 1561.098e6f, 2492.028e6f})
+                {
+                    final int key = SatelliteStatusMap.createKey(gnssType, svid, carrier);
+                    assertTrue(key >= 0);
+                    assertEquals(svid, SatelliteStatusMap.getSvid(key));
+                    assertSame(gnssType, SatelliteStatusMap.getGnssType(key));
+                    keys.add(key);
+                    count++;
+                }
+            }
+        }
+
+        assertEquals(count, keys.size());
+    }
+
+    @Test
+    public void validateCarrierFrequencyRounding()
+    {
+        // The key only changes when the carrier frequency changes by more than 0.1 MHz
+        assertEquals(SatelliteStatusMap.createKey(GnssType.NAVSTAR, 5, L1_HZ),
+                SatelliteStatusMap.createKey(GnssType.NAVSTAR, 5, L1_HZ + 20_000f));
+        assertTrue(SatelliteStatusMap.createKey(GnssType.NAVSTAR, 5, L1_HZ)
+                != SatelliteStatusMap.createKey(GnssType.NAVSTAR, 5, L1_HZ + 200_000f));
+    }
+
+    @Test
+    public void validatePutGetRemove()
+    {
+        final SatelliteStatusMap map = new SatelliteStatusMap();
+        final SatelliteStatus l1 = createStatus(10, GnssType.NAVSTAR, L1_HZ);
+        final SatelliteStatus l5 = createStatus(10, GnssType.NAVSTAR, L5_HZ);
+        final int l1Key = SatelliteStatusMap.createKey(l1);
+        final int l5Key = SatelliteStatusMap.createKey(l5);
+
+        assertNull(map.put(l1Key, l1));
+        assertNull(map.put(l5Key, l5));
+        assertEquals(2, map.size());
+        assertSame(l1, map.get(l1Key));
+        assertSame(l5, map.get(l5Key));
+
+        final SatelliteStatus updatedL1 = createStatus(10, GnssType.NAVSTAR, L1_HZ);
+        assertSame(l1, map.put(l1Key, updatedL1));
+        assertEquals(2, map.size());
+
+        assertSame(updatedL1, map.remove(l1Key));
+        assertNull(map.remove(l1Key));
+        assertNull(map.get(l1Key));
+        assertSame(l5, map.get(l5Key));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(l5Key));
+    }
+
+    @Test
+    public void validateAgainstHashMap()
+    {
+        // Random operations over a small key space so that there are plenty of collisions, growth, and removals
+        final Random random = new Random(45);
+        final SatelliteStatusMap map = new SatelliteStatusMap(4);
+        final Map<Integer, SatelliteStatus> expected = new HashMap<>();
+        final GnssType[] gnssTypes = GnssType.values();
+
+        for (int i = 0; i < 200_000; i++)
+        {
+            final GnssType gnssType = gnssTypes[random.nextInt(gnssTypes.length)];
+            final int svid = random.nextInt(64);
+            final float carrier = random.nextBoolean() ? L1_HZ : L5_HZ;
+            final int key = SatelliteStatusMap.createKey(gnssType, svid, carrier);
+
+            switch (random.nextInt(4))
+            {
+                case 0:
+                case 1:
+                    final SatelliteStatus status = createStatus(svid, gnssType, carrier);
+                    assertSame(expected.put(key, status), map.put(key, status));
+                    break;
+                case 2:
+                    assertSame(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertSame(expected.get(key), map.get(key));
+                    break;
+            }
+
+            assertEquals(expected.size(), map.size());
+
+            if (i % 50_000 == 0)
+            {
+                map.clear();
+                expected.clear();
+            }
+        }
+
+        for (Map.Entry<Integer, SatelliteStatus> entry : expected.entrySet())
+        {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    private static SatelliteStatus createStatus(int svid, GnssType gnssType, float carrierFrequencyHz)
+    {
+        final SatelliteStatus status = new SatelliteStatus(svid, gnssType, 30f, true, true, true, 45f, 90f);
+        status.setHasCarrierFrequency(true);
+        status.setCarrierFrequencyHz(carrierFrequencyHz);
+        return status;
+    }
+}
@@ -0,0 +1,92 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link MqttBatchEnvelope} class.
+ *
+ * @since 1.5.0
+ */
+public class MqttBatchEnvelopeTest
+{
+    @Test
+    public void validateBatchHoldsAllRecords() throws Exception
+    {
+        final List<BluetoothRecord> records = createBluetoothRecords(400);
+
+        final Message batch = MqttBatchEnvelope.createBluetoothRecordBatch(records, false);
+        final Descriptors.Descriptor descriptor = batch.getDescriptorForType();
+        assertEquals(MqttBatchEnvelope.BLUETOOTH_RECORD_BATCH_MESSAGE_TYPE, descriptor.getName());
+        assertEquals(MqttBatchEnvelope.BLUETOOTH_RECORD_BATCH_MESSAGE_TYPE, batch.getField(descriptor.findFieldByName("message_type")));
+
+        final DynamicMessage parsedBatch = MqttBatchEnvelope.getParser(descriptor).parseFrom(batch.toByteArray());
+        final Descriptors.FieldDescriptor recordsField = descriptor.findFieldByName("records");
+        assertEquals(records.size(), parsedBatch.getRepeatedFieldCount(recordsField));
+        for (int i = 0; i < records.size(); i++)
+        {
+            final Message parsedRecord = (Message) parsedBatch.getRepeatedField(recordsField, i);
+            assertEquals(records.get(i), BluetoothRecord.parseFrom(parsedRecord.toByteString()));
+        }
+    }
+
+    @Test
+    public void validateCompressedBatchInflatesToTheBatch() throws Exception
+    {
+        final List<BluetoothRecord> records = createBluetoothRecords(400);
+        final Message batch = MqttBatchEnvelope.createBluetoothRecordBatch(records, false);
+
+        final Message compressedBatch = MqttBatchEnvelope.createBluetoothRecordBatch(records, true);
+        final Descriptors.Descriptor descriptor = compressedBatch.getDescriptorForType();
+        assertEquals(MqttBatchEnvelope.COMPRESSED_RECORD_BATCH_MESSAGE_TYPE, descriptor.getName());
+        assertEquals(MqttBatchEnvelope.BLUETOOTH_RECORD_BATCH_MESSAGE_TYPE, compressedBatch.getField(descriptor.findFieldByName("batch_message_type")));
+        assertEquals(MqttBatchEnvelope.DEFLATE_ENCODING, compressedBatch.getField(descriptor.findFieldByName("encoding")));
+        assertEquals(records.size(), compressedBatch.getField(descriptor.findFieldByName("record_count")));
+
+        final ByteString payload = (ByteString) compressedBatch.getField(descriptor.findFieldByName("payload"));
+        final byte[] batchBytes = batch.toByteArray();
+        assertTrue("The compressed batch should be smaller than the batch", payload.size() < batchBytes.length);
+
+        final Inflater inflater = new Inflater();
+        inflater.setInput(payload.toByteArray());
+        final byte[] inflatedBytes = new byte[batchBytes.length];
+        assertEquals(batchBytes.length, inflater.inflate(inflatedBytes));
+        inflater.end();
+
+        assertEquals(ByteString.copyFrom(batchBytes), ByteString.copyFrom(inflatedBytes));
+    }
+
+    private static List<BluetoothRecord> createBluetoothRecords(int count)
+    {
+        final List<BluetoothRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            records.add(BluetoothRecord.newBuilder()
+                    .setMessageType("BluetoothRecord")
+                    .setVersion("0.6.1")
+                    .setData(BluetoothRecordData.newBuilder()
+                            .setDeviceSerialNumber("353627081234567")
+                            .setDeviceTime("2021-09-01T12:00:00.000-04:00")
+                            .setLatitude(39.0)
+                            .setLongitude(-77.0)
+                            .setMissionId("NS 353627081234567 20210901-120000")
+                            .setRecordNumber(i)
+                            .setSourceAddress(String.format("00:11:22:33:%02X:%02X", i >> 8, i & 0xFF)))
+                    .build());
+        }
+        return records;
+    }
+}
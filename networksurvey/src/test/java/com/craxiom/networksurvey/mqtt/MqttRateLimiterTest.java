@@ -0,0 +1,196 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
+import com.craxiom.networksurvey.model.RecordEnvelope;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Unit tests for the {@link MqttRateLimiter} class.
+ *
+ * @since 1.5.0
+ */
+public class MqttRateLimiterTest
+{
+    private static final String TOPIC = "bluetooth_message";
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    public void validateNoLimitPublishesEverything()
+    {
+        final MqttRateLimiter rateLimiter = new MqttRateLimiter(nanoTime::get);
+        final List<RecordEnvelope<?>> published = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++)
+        {
+            rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01"), (topic, message) -> published.add(message));
+        }
+
+        assertEquals(1000, published.size());
+        assertEquals(1000, rateLimiter.getStatistics().get(TOPIC).published);
+    }
+
+    @Test
+    public void validateDropPolicy()
+    {
+        final MqttRateLimiter rateLimiter = new MqttRateLimiter(nanoTime::get);
+        rateLimiter.configure(5, MqttRateLimiter.OverflowPolicy.DROP, 1, null);
+        final List<RecordEnvelope<?>> published = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01"), (topic, message) -> published.add(message));
+        }
+
+        MqttRateLimiter.TopicStatistics statistics = rateLimiter.getStatistics().get(TOPIC);
+        assertEquals(5, published.size());
+        assertEquals(5, statistics.published);
+        assertEquals(95, statistics.dropped);
+        assertEquals(0, statistics.sampled);
+
+        // Half a second refills half of the tokens
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        for (int i = 0; i < 10; i++)
+        {
+            rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01"), (topic, message) -> published.add(message));
+        }
+
+        statistics = rateLimiter.getStatistics().get(TOPIC);
+        assertEquals(7, published.size());
+        assertEquals(103, statistics.dropped);
+    }
+
+    @Test
+    public void validateSamplePolicy()
+    {
+        final MqttRateLimiter rateLimiter = new MqttRateLimiter(nanoTime::get);
+        rateLimiter.configure(1, MqttRateLimiter.OverflowPolicy.SAMPLE, 10, null);
+        final List<RecordEnvelope<?>> published = new ArrayList<>();
+
+        for (int i = 0; i < 101; i++)
+        {
+            rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01"), (topic, message) -> published.add(message));
+        }
+
+        // The first message uses the single token, then 1 in 10 of the remaining 100 are sampled
+        final MqttRateLimiter.TopicStatistics statistics = rateLimiter.getStatistics().get(TOPIC);
+        assertEquals(10, statistics.sampled);
+        assertEquals(90, statistics.dropped);
+        assertEquals(11, published.size());
+    }
+
+    @Test
+    public void validateKeepLatestPolicy()
+    {
+        final MqttRateLimiter rateLimiter = new MqttRateLimiter(nanoTime::get);
+        rateLimiter.configure(2, MqttRateLimiter.OverflowPolicy.KEEP_LATEST, 1, null);
+        final List<RecordEnvelope<?>> published = new ArrayList<>();
+
+        // Use up the tokens, then send several updates for the same two devices
+        rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01"), (topic, message) -> published.add(message));
+        rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:02"), (topic, message) -> published.add(message));
+        for (int i = 0; i < 10; i++)
+        {
+            rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01", i), (topic, message) -> published.add(message));
+            rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:02", i), (topic, message) -> published.add(message));
+        }
+
+        MqttRateLimiter.TopicStatistics statistics = rateLimiter.getStatistics().get(TOPIC);
+        assertEquals(2, statistics.held);
+        assertEquals(18, statistics.replaced);
+
+        // Once tokens are available only the latest record for each device is published
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        rateLimiter.drainHeld((topic, message) -> published.add(message));
+
+        assertEquals(4, published.size());
+        assertEquals(9, ((BluetoothRecord) published.get(2).getRecord()).getData().getRecordNumber());
+        assertEquals(9, ((BluetoothRecord) published.get(3).getRecord()).getData().getRecordNumber());
+        statistics = rateLimiter.getStatistics().get(TOPIC);
+        assertEquals(0, statistics.held);
+        assertEquals(4, statistics.published);
+    }
+
+    @Test
+    public void validateHeldMessagesArePublishedOutsideTheLock()
+    {
+        final MqttRateLimiter rateLimiter = new MqttRateLimiter(nanoTime::get);
+        rateLimiter.configure(1, MqttRateLimiter.OverflowPolicy.KEEP_LATEST, 1, null);
+        final List<RecordEnvelope<?>> published = new ArrayList<>();
+
+        rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:01"), (topic, message) -> published.add(message));
+        rateLimiter.submit(TOPIC, createRecord("00:00:00:00:00:02"), (topic, message) -> published.add(message));
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // A publisher that waits on another thread using the same topic would deadlock if it was called under the lock
+        rateLimiter.drainHeld((topic, message) -> {
+            final Thread otherThread = new Thread(() -> rateLimiter.getStatistics());
+            otherThread.start();
+            try
+            {
+                otherThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(otherThread.isAlive());
+            published.add(message);
+        });
+
+        assertEquals(2, published.size());
+        assertEquals("00:00:00:00:00:02", ((BluetoothRecord) published.get(1).getRecord()).getData().getSourceAddress());
+    }
+
+    @Test
+    public void validateTopicOverrides()
+    {
+        final MqttRateLimiter.TopicConfig defaultConfig = new MqttRateLimiter.TopicConfig(100, MqttRateLimiter.OverflowPolicy.DROP, 10);
+
+        final Map<String, MqttRateLimiter.TopicConfig> overrides = MqttRateLimiter.parseTopicOverrides(
+                " bluetooth_message=20:latest, 80211_beacon_message=50:sample:5,lte_message=0,bad_entry,gsm_message=abc",
+                defaultConfig);
+
+        assertEquals(3, overrides.size());
+
+        final MqttRateLimiter.TopicConfig bluetooth = overrides.get("bluetooth_message");
+        assertEquals(20, bluetooth.messagesPerSecond);
+        assertEquals(MqttRateLimiter.OverflowPolicy.KEEP_LATEST, bluetooth.policy);
+        assertEquals(10, bluetooth.sampleRate);
+
+        final MqttRateLimiter.TopicConfig wifi = overrides.get("80211_beacon_message");
+        assertEquals(50, wifi.messagesPerSecond);
+        assertEquals(MqttRateLimiter.OverflowPolicy.SAMPLE, wifi.policy);
+        assertEquals(5, wifi.sampleRate);
+
+        final MqttRateLimiter.TopicConfig lte = overrides.get("lte_message");
+        assertEquals(0, lte.messagesPerSecond);
+        assertEquals(MqttRateLimiter.OverflowPolicy.DROP, lte.policy);
+    }
+
+    private static RecordEnvelope<BluetoothRecord> createRecord(String sourceAddress)
+    {
+        return createRecord(sourceAddress, 0);
+    }
+
+    private static RecordEnvelope<BluetoothRecord> createRecord(String sourceAddress, int recordNumber)
+    {
+        return new RecordEnvelope<>(BluetoothRecord.newBuilder()
+                .setMessageType("BluetoothRecord")
+                .setVersion("0.6.1")
+                .setData(BluetoothRecordData.newBuilder()
+                        .setSourceAddress(sourceAddress)
+                        .setRecordNumber(recordNumber))
+                .build());
+    }
+}
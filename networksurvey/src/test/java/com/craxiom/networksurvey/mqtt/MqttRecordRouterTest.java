@@ -0,0 +1,178 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.BluetoothRecordData;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.networksurvey.model.RecordEnvelope;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link MqttRecordRouter} class. The broker is never connected in these tests, so every record the
+ * rate limiter lets through goes to the offline queue, where it is captured.
+ *
+ * @since 1.5.0
+ */
+public class MqttRecordRouterTest
+{
+    private static final String DEVICE_NAME = "Survey Phone";
+    private static final int RECORD_COUNT = 20_000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<RecordEnvelope<?>> queued = new ArrayList<>();
+    private volatile String deviceName = DEVICE_NAME;
+
+    @Test
+    public void validateDeviceNameIsSetOnSentRecords() throws Exception
+    {
+        final LteRecord lteRecord = createLteRecord("");
+
+        runWithRouter(new MqttRateLimiter(() -> 0), router -> router.onLteSurveyRecord(lteRecord));
+
+        assertEquals(1, queued.size());
+        assertEquals(DEVICE_NAME, ((LteRecord) queued.get(0).getRecord()).getData().getDeviceName());
+        assertEquals(1, ((LteRecord) queued.get(0).getRecord()).getData().getRecordNumber());
+        assertEquals("", lteRecord.getData().getDeviceName());
+    }
+
+    @Test
+    public void validateRecordIsNotCopiedWhenAlreadyNamed() throws Exception
+    {
+        final LteRecord lteRecord = createLteRecord(DEVICE_NAME);
+
+        runWithRouter(new MqttRateLimiter(() -> 0), router -> router.onLteSurveyRecord(lteRecord));
+
+        assertEquals(1, queued.size());
+        assertSame(lteRecord, queued.get(0).getRecord());
+    }
+
+    @Test
+    public void validateRecordIsNotCopiedWithoutDeviceName() throws Exception
+    {
+        deviceName = null;
+        final LteRecord lteRecord = createLteRecord("");
+
+        runWithRouter(new MqttRateLimiter(() -> 0), router -> router.onLteSurveyRecord(lteRecord));
+
+        assertEquals(1, queued.size());
+        assertSame(lteRecord, queued.get(0).getRecord());
+    }
+
+    /**
+     * Measures the memory allocated on the record thread while a busy topic is routed through a rate limiter that
+     * drops almost everything. The device name copy is only made for the records that are sent, so naming the records
+     * should cost next to nothing compared to not naming them. Copying every record up front costs hundreds of bytes
+     * per record, which this would catch.
+     */
+    @Test
+    public void validateDroppedRecordsAreNotCopied() throws Exception
+    {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        final List<BluetoothRecord> records = new ArrayList<>(RECORD_COUNT);
+        for (int i = 0; i < RECORD_COUNT; i++)
+        {
+            records.add(createBluetoothRecord(i));
+        }
+
+        final MqttRateLimiter rateLimiter = new MqttRateLimiter(() -> 0);
+        rateLimiter.configure(1, MqttRateLimiter.OverflowPolicy.DROP, 1, null);
+
+        runWithRouter(rateLimiter, router -> {
+            // Warm up both paths so that the measured runs are compiled code
+            routeAll(router, records, DEVICE_NAME);
+            routeAll(router, records, null);
+
+            final long threadId = Thread.currentThread().getId();
+            long allocatedBytes = allocationBean.getThreadAllocatedBytes(threadId);
+            routeAll(router, records, null);
+            final long unnamedBytes = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+            allocatedBytes = allocationBean.getThreadAllocatedBytes(threadId);
+            routeAll(router, records, DEVICE_NAME);
+            final long namedBytes = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+            assertTrue("Naming the records allocated " + namedBytes + " bytes, without names " + unnamedBytes,
+                    namedBytes - unnamedBytes < RECORD_COUNT * 16L);
+        });
+
+        // Only the one second burst got through, and that was the first record of the first run
+        assertEquals(1, queued.size());
+        assertEquals(4L * RECORD_COUNT - 1, rateLimiter.getStatistics().get(MqttRecordRouter.MQTT_BLUETOOTH_MESSAGE_TOPIC).dropped);
+    }
+
+    private void routeAll(MqttRecordRouter router, List<BluetoothRecord> records, String name)
+    {
+        deviceName = name;
+        for (BluetoothRecord record : records)
+        {
+            router.onBluetoothSurveyRecord(record);
+        }
+    }
+
+    private void runWithRouter(MqttRateLimiter rateLimiter, RouterTest test) throws Exception
+    {
+        final MqttOfflineQueue offlineQueue = new MqttOfflineQueue(temporaryFolder.newFolder(), 1_000, () -> false,
+                (topic, message) -> {
+                })
+        {
+            @Override
+            public void add(String topic, RecordEnvelope<?> message)
+            {
+                queued.add(message);
+            }
+        };
+        final MqttPublisher publisher = new MqttPublisher(64, () -> false, (topic, message) -> {
+        }, offlineQueue::add);
+
+        try
+        {
+            test.run(new MqttRecordRouter(rateLimiter, publisher, offlineQueue, () -> false, () -> deviceName));
+        } finally
+        {
+            publisher.shutdown();
+            offlineQueue.shutdown();
+        }
+    }
+
+    private static LteRecord createLteRecord(String deviceName)
+    {
+        return LteRecord.newBuilder()
+                .setData(LteRecordData.newBuilder()
+                        .setDeviceName(deviceName)
+                        .setRecordNumber(1))
+                .build();
+    }
+
+    private static BluetoothRecord createBluetoothRecord(int recordNumber)
+    {
+        return BluetoothRecord.newBuilder()
+                .setData(BluetoothRecordData.newBuilder()
+                        .setSourceAddress("00:00:00:00:00:01")
+                        .setRecordNumber(recordNumber))
+                .build();
+    }
+
+    private interface RouterTest
+    {
+        void run(MqttRecordRouter router) throws Exception;
+    }
+}
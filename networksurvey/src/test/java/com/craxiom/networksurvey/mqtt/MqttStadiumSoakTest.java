@@ -0,0 +1,266 @@
+package com.craxiom.networksurvey.mqtt;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.CdmaRecord;
+import com.craxiom.messaging.GsmRecord;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.UmtsRecord;
+import com.craxiom.networksurvey.listeners.IBluetoothSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.IWifiSurveyRecordListener;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+import com.craxiom.networksurvey.replay.IReplayClock;
+import com.craxiom.networksurvey.replay.ReplayStatistics;
+import com.craxiom.networksurvey.replay.SurveyReplayEngine;
+import com.craxiom.networksurvey.replay.SyntheticRadioConfig;
+import com.craxiom.networksurvey.replay.SyntheticRadioEnvironment;
+import com.google.protobuf.Message;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A soak test that replays a stadium sized synthetic radio environment through the MQTT publish path: the
+ * {@link MqttRecordRouter} that {@link MqttConnection} uses, the per topic {@link MqttRateLimiter}, the
+ * {@link MqttPublisher} and its in flight window, and the {@link MqttOfflineQueue}. A fake transport stands in for the
+ * MQTT client, and the replay runs on a fake clock so the rate limits are applied to the simulated time.
+ *
+ * @since 1.5.0
+ */
+public class MqttStadiumSoakTest
+{
+    private static final long TEN_MINUTES_MS = 10 * 60_000L;
+    private static final int MAX_IN_FLIGHT = 64;
+    private static final int WIFI_MESSAGES_PER_SECOND = 50;
+    private static final int BLUETOOTH_MESSAGES_PER_SECOND = 100;
+
+    private static final String LTE_TOPIC = MqttRecordRouter.MQTT_LTE_MESSAGE_TOPIC;
+    private static final String WIFI_TOPIC = MqttRecordRouter.MQTT_WIFI_BEACON_MESSAGE_TOPIC;
+    private static final String BLUETOOTH_TOPIC = MqttRecordRouter.MQTT_BLUETOOTH_MESSAGE_TOPIC;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FakeClock clock = new FakeClock();
+    private final Map<String, AtomicLong> transportCounts = new ConcurrentHashMap<>();
+    private final AtomicLong replayedCount = new AtomicLong();
+
+    private MqttRateLimiter rateLimiter;
+    private MqttPublisher publisher;
+    private MqttOfflineQueue offlineQueue;
+    private MqttRecordRouter router;
+
+    @Test
+    public void validateStadiumSoak() throws Exception
+    {
+        rateLimiter = new MqttRateLimiter(clock::nanoTime);
+        rateLimiter.configure(0, MqttRateLimiter.OverflowPolicy.DROP, 1,
+                WIFI_TOPIC + "=" + WIFI_MESSAGES_PER_SECOND + ":latest," + BLUETOOTH_TOPIC + "=" + BLUETOOTH_MESSAGES_PER_SECOND + ":latest");
+
+        // The offline queue never replays, so anything that overflows the in flight window stays in it
+        offlineQueue = new MqttOfflineQueue(temporaryFolder.newFolder(), 1_000, () -> false,
+                (topic, message) -> replayedCount.incrementAndGet());
+        offlineQueue.setBroker("localhost:1883");
+        publisher = new MqttPublisher(MAX_IN_FLIGHT, () -> true, this::transport, offlineQueue::add);
+
+        final SyntheticRadioConfig config = SyntheticRadioConfig.stadium().setDurationMs(TEN_MINUTES_MS);
+        final SyntheticRadioEnvironment environment = new SyntheticRadioEnvironment(config);
+        final SurveyReplayEngine engine = new SurveyReplayEngine(environment, SurveyReplayEngine.REAL_TIME, clock);
+        router = new MqttRecordRouter(rateLimiter, publisher, offlineQueue, () -> true, () -> null);
+        engine.registerCellularSurveyRecordListener(router);
+        engine.registerWifiSurveyRecordListener(router);
+        engine.registerBluetoothSurveyRecordListener(router);
+
+        final QueueDepthMonitor monitor = new QueueDepthMonitor();
+        engine.registerCellularSurveyRecordListener(monitor);
+        engine.registerWifiSurveyRecordListener(monitor);
+        engine.registerBluetoothSurveyRecordListener(monitor);
+
+        try
+        {
+            runSoak(environment, engine, monitor);
+        } finally
+        {
+            publisher.shutdown();
+            offlineQueue.shutdown();
+        }
+    }
+
+    private void runSoak(SyntheticRadioEnvironment environment, SurveyReplayEngine engine, QueueDepthMonitor monitor) throws Exception
+    {
+        final ReplayStatistics statistics = engine.run();
+
+        final long wifiSubmitted = monitor.getSubmitted(WIFI_TOPIC);
+        final long bluetoothSubmitted = monitor.getSubmitted(BLUETOOTH_TOPIC);
+        final long lteSubmitted = monitor.getSubmitted(LTE_TOPIC);
+        assertEquals(wifiSubmitted + bluetoothSubmitted + lteSubmitted, statistics.getRecordCount());
+
+        // The LTE topic is not limited, and the busy topics are held to their rate (plus the one second burst)
+        final Map<String, MqttRateLimiter.TopicStatistics> limiterStatistics = rateLimiter.getStatistics();
+        final double simulatedSeconds = clock.nanoTime() / (double) TimeUnit.SECONDS.toNanos(1);
+        assertEquals(lteSubmitted, limiterStatistics.get(LTE_TOPIC).published);
+        assertTrue(limiterStatistics.get(WIFI_TOPIC).published <= WIFI_MESSAGES_PER_SECOND * (simulatedSeconds + 1));
+        assertTrue(limiterStatistics.get(BLUETOOTH_TOPIC).published <= BLUETOOTH_MESSAGES_PER_SECOND * (simulatedSeconds + 1));
+
+        // Keep latest holds one message per BSSID or address, and every submitted message is accounted for
+        final MqttRateLimiter.TopicStatistics wifiStatistics = limiterStatistics.get(WIFI_TOPIC);
+        final MqttRateLimiter.TopicStatistics bluetoothStatistics = limiterStatistics.get(BLUETOOTH_TOPIC);
+        assertTrue(wifiStatistics.held > 0);
+        assertTrue(wifiStatistics.held <= environment.getWifiAccessPointsCreated());
+        assertTrue(bluetoothStatistics.held > 0);
+        assertTrue(bluetoothStatistics.held <= environment.getBluetoothDevicesCreated());
+        assertEquals(wifiSubmitted, wifiStatistics.published + wifiStatistics.dropped + wifiStatistics.replaced + wifiStatistics.held);
+        assertEquals(bluetoothSubmitted, bluetoothStatistics.published + bluetoothStatistics.dropped + bluetoothStatistics.replaced + bluetoothStatistics.held);
+
+        // The memory held by the publish path stays bounded no matter how many records the stadium produces: the in
+        // flight window never grows past its limit, and keep latest never holds more than one message per emitter
+        assertTrue(monitor.maxInFlight <= MAX_IN_FLIGHT);
+        assertTrue(monitor.maxHeld <= environment.getWifiAccessPointsCreated() + environment.getBluetoothDevicesCreated());
+
+        // Once the simulated time moves on, the held messages drain at the topic rates
+        int drainSeconds = 0;
+        while (getTotalHeld() > 0)
+        {
+            clock.sleepNanos(TimeUnit.SECONDS.toNanos(1));
+            router.drainHeld();
+            assertTrue("The held messages did not drain", ++drainSeconds <= 600);
+        }
+
+        // Any messages that have not been sent yet go to the offline queue when the publisher shuts down
+        publisher.shutdown();
+        assertEquals(0, publisher.getTotalInFlight());
+
+        long rateLimiterPublished = 0;
+        for (MqttRateLimiter.TopicStatistics topicStatistics : rateLimiter.getStatistics().values())
+        {
+            rateLimiterPublished += topicStatistics.published;
+        }
+
+        long transportPublished = 0;
+        for (Map.Entry<String, MqttPublisher.TopicMetrics> entry : publisher.getTopicMetrics().entrySet())
+        {
+            final MqttPublisher.TopicMetrics metrics = entry.getValue();
+            assertEquals(0, metrics.getInFlight());
+            assertEquals(0, metrics.getFailed());
+            assertEquals(getTransportCount(entry.getKey()), metrics.getPublished());
+            transportPublished += metrics.getPublished();
+        }
+
+        // Everything the rate limiter let through was either sent or is waiting in the offline queue
+        assertEquals(rateLimiterPublished, transportPublished + offlineQueue.getPendingCount());
+        assertEquals(0, replayedCount.get());
+    }
+
+    private void transport(String topic, Message message)
+    {
+        transportCounts.computeIfAbsent(topic, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private long getTransportCount(String topic)
+    {
+        final AtomicLong count = transportCounts.get(topic);
+        return count == null ? 0 : count.get();
+    }
+
+    private int getTotalHeld()
+    {
+        int held = 0;
+        for (MqttRateLimiter.TopicStatistics topicStatistics : rateLimiter.getStatistics().values())
+        {
+            held += topicStatistics.held;
+        }
+        return held;
+    }
+
+    /**
+     * Counts the records submitted on each MQTT topic, and tracks the most messages that were waiting in the rate
+     * limiter and the in flight window at any point during the replay. It is registered after the router so that it
+     * sees the queues after each scan has been routed.
+     */
+    private final class QueueDepthMonitor implements ICellularSurveyRecordListener, IWifiSurveyRecordListener,
+            IBluetoothSurveyRecordListener
+    {
+        private final Map<String, Long> submittedCounts = new HashMap<>();
+        private int maxHeld;
+        private int maxInFlight;
+
+        long getSubmitted(String topic)
+        {
+            return submittedCounts.getOrDefault(topic, 0L);
+        }
+
+        private void onSubmitted(String topic, int count)
+        {
+            submittedCounts.merge(topic, (long) count, Long::sum);
+            maxHeld = Math.max(maxHeld, getTotalHeld());
+            maxInFlight = Math.max(maxInFlight, publisher.getTotalInFlight());
+        }
+
+        @Override
+        public void onGsmSurveyRecord(GsmRecord gsmRecord)
+        {
+        }
+
+        @Override
+        public void onCdmaSurveyRecord(CdmaRecord cdmaRecord)
+        {
+        }
+
+        @Override
+        public void onUmtsSurveyRecord(UmtsRecord umtsRecord)
+        {
+        }
+
+        @Override
+        public void onLteSurveyRecord(LteRecord lteRecord)
+        {
+            onSubmitted(LTE_TOPIC, 1);
+        }
+
+        @Override
+        public void onWifiBeaconSurveyRecords(List<WifiRecordWrapper> wifiBeaconRecords)
+        {
+            onSubmitted(WIFI_TOPIC, wifiBeaconRecords.size());
+        }
+
+        @Override
+        public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
+        {
+            onSubmitted(BLUETOOTH_TOPIC, 1);
+        }
+
+        @Override
+        public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
+        {
+            onSubmitted(BLUETOOTH_TOPIC, bluetoothRecords.size());
+        }
+    }
+
+    private static final class FakeClock implements IReplayClock
+    {
+        private long nowNanos = 0;
+
+        @Override
+        public long nanoTime()
+        {
+            return nowNanos;
+        }
+
+        @Override
+        public void sleepNanos(long nanos)
+        {
+            nowNanos += nanos;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.craxiom.networksurvey.mqtt;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link PersistentMessageQueue} class.
+ *
+ * @since 1.5.0
+ */
+public class PersistentMessageQueueTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void validateOrderAcrossMemoryAndDisk() throws IOException
+    {
+        final PersistentMessageQueue queue = new PersistentMessageQueue(temporaryFolder.newFolder(), 4, 64);
+
+        for (int i = 0; i < 100; i++)
+        {
+            if (queue.add(toBytes(i))) queue.flush();
+        }
+        assertEquals(100, queue.size());
+
+        // Interleave adds with polls to make sure the reader and writer can share segments
+        for (int i = 0; i < 50; i++)
+        {
+            assertEquals(i, fromBytes(queue.poll()));
+        }
+        for (int i = 100; i < 120; i++)
+        {
+            if (queue.add(toBytes(i))) queue.flush();
+        }
+        for (int i = 50; i < 120; i++)
+        {
+            assertEquals(i, fromBytes(queue.poll()));
+        }
+
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void validateMessagesSurviveReopening() throws IOException
+    {
+        final File directory = temporaryFolder.newFolder();
+
+        final PersistentMessageQueue queue = new PersistentMessageQueue(directory, 8, 128);
+        for (int i = 0; i < 30; i++)
+        {
+            if (queue.add(toBytes(i))) queue.flush();
+        }
+        queue.close();
+
+        final PersistentMessageQueue reopenedQueue = new PersistentMessageQueue(directory, 8, 128);
+        assertEquals(30, reopenedQueue.size());
+        for (int i = 0; i < 30; i++)
+        {
+            assertEquals(i, fromBytes(reopenedQueue.poll()));
+        }
+        assertNull(reopenedQueue.poll());
+    }
+
+    @Test
+    public void validateAddOnlyWritesToMemory() throws IOException
+    {
+        final File directory = temporaryFolder.newFolder();
+
+        final PersistentMessageQueue queue = new PersistentMessageQueue(directory, 4, 64);
+        for (int i = 0; i < 3; i++)
+        {
+            assertFalse(queue.add(toBytes(i)));
+        }
+        assertTrue(queue.add(toBytes(3)));
+        assertFalse(queue.add(toBytes(4)));
+
+        File[] files = directory.listFiles();
+        assertEquals(0, files == null ? 0 : files.length);
+
+        queue.flush();
+        files = directory.listFiles();
+        assertEquals(1, files == null ? 0 : files.length);
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(i, fromBytes(queue.poll()));
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void validateClearRemovesSegments() throws IOException
+    {
+        final File directory = temporaryFolder.newFolder();
+
+        final PersistentMessageQueue queue = new PersistentMessageQueue(directory, 2, 32);
+        for (int i = 0; i < 20; i++)
+        {
+            if (queue.add(toBytes(i))) queue.flush();
+        }
+        queue.flush();
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        final File[] remainingFiles = directory.listFiles();
+        assertEquals(0, remainingFiles == null ? 0 : remainingFiles.length);
+    }
+
+    private static byte[] toBytes(int value)
+    {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+    }
+
+    private static int fromBytes(byte[] bytes)
+    {
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+}
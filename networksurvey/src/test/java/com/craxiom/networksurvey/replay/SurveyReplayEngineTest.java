@@ -0,0 +1,327 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.messaging.BluetoothRecord;
+import com.craxiom.messaging.CdmaRecord;
+import com.craxiom.messaging.GsmRecord;
+import com.craxiom.messaging.LteRecord;
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.messaging.UmtsRecord;
+import com.craxiom.messaging.WifiBeaconRecord;
+import com.craxiom.networksurvey.constants.LteMessageConstants;
+import com.craxiom.networksurvey.listeners.IBluetoothSurveyRecordListener;
+import com.craxiom.networksurvey.listeners.ICellularSurveyRecordListener;
+import com.craxiom.networksurvey.model.WifiRecordWrapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the pacing, batching, and sink statistics of the {@link SurveyReplayEngine}.
+ *
+ * @since 1.5.0
+ */
+public class SurveyReplayEngineTest
+{
+    private static final long START_TIME_MS = 1_600_000_000_000L;
+
+    @Test
+    public void validateRecordsArePacedAtTheReplaySpeed() throws Exception
+    {
+        final FakeClock clock = new FakeClock();
+        final SurveyReplayEngine engine = new SurveyReplayEngine(new ListReplaySource(Arrays.asList(
+                lteRecord(START_TIME_MS),
+                lteRecord(START_TIME_MS + 1_000),
+                lteRecord(START_TIME_MS + 3_000))), 2.0, clock);
+
+        final List<Long> callTimesNanos = new ArrayList<>();
+        engine.registerCellularSurveyRecordListener(new CellularListener()
+        {
+            @Override
+            public void onLteSurveyRecord(LteRecord lteRecord)
+            {
+                callTimesNanos.add(clock.nowNanos);
+            }
+        });
+
+        final ReplayStatistics statistics = engine.run();
+
+        // At twice the speed, the records 1 and 3 seconds in are sent after half a second and a second and a half
+        assertEquals(Arrays.asList(0L, 500_000_000L, 1_500_000_000L), callTimesNanos);
+        assertEquals(3, statistics.getRecordCount());
+        assertEquals(3, statistics.getRecordCount(ReplayRecord.Type.LTE));
+        assertEquals(3, statistics.getScheduleLag().getCount());
+        assertEquals(0, statistics.getScheduleLag().getMaxMs(), 0);
+        assertEquals(1_500, statistics.getElapsedMs(), 0);
+        assertEquals(2, statistics.getRecordsPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void validateMaxSpeedDoesNotWait() throws Exception
+    {
+        final FakeClock clock = new FakeClock();
+        final List<ReplayRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++)
+        {
+            records.add(lteRecord(START_TIME_MS + i * 1_000L));
+        }
+
+        final SurveyReplayEngine engine = new SurveyReplayEngine(new ListReplaySource(records), SurveyReplayEngine.MAX_SPEED, clock);
+        final CountingCellularListener listener = new CountingCellularListener();
+        engine.registerCellularSurveyRecordListener(listener);
+
+        final ReplayStatistics statistics = engine.run();
+
+        assertEquals(1_000, listener.lteCount);
+        assertEquals(0, clock.nowNanos);
+        assertEquals(0, statistics.getScheduleLag().getCount());
+    }
+
+    @Test
+    public void validateScansAreBatched() throws Exception
+    {
+        final List<ReplayRecord> records = Arrays.asList(
+                wifiRecord(START_TIME_MS),
+                wifiRecord(START_TIME_MS + 2),
+                wifiRecord(START_TIME_MS + SurveyReplayEngine.BATCH_WINDOW_MS),
+                wifiRecord(START_TIME_MS + SurveyReplayEngine.BATCH_WINDOW_MS + 1), // A new scan
+                bluetoothRecord(START_TIME_MS + 1_000),
+                bluetoothRecord(START_TIME_MS + 1_001),
+                lteRecord(START_TIME_MS + 1_002),
+                bluetoothRecord(START_TIME_MS + 1_003)); // Separated from the others by the LTE record
+
+        final SurveyReplayEngine engine = new SurveyReplayEngine(new ListReplaySource(records), SurveyReplayEngine.MAX_SPEED, new FakeClock());
+
+        final List<Integer> wifiBatchSizes = new ArrayList<>();
+        engine.registerWifiSurveyRecordListener(wifiRecords -> wifiBatchSizes.add(wifiRecords.size()));
+
+        final List<Integer> bluetoothBatchSizes = new ArrayList<>();
+        engine.registerBluetoothSurveyRecordListener(new IBluetoothSurveyRecordListener()
+        {
+            @Override
+            public void onBluetoothSurveyRecord(BluetoothRecord bluetoothRecord)
+            {
+                bluetoothBatchSizes.add(1);
+            }
+
+            @Override
+            public void onBluetoothSurveyRecords(List<BluetoothRecord> bluetoothRecords)
+            {
+                bluetoothBatchSizes.add(bluetoothRecords.size());
+            }
+        });
+
+        final ReplayStatistics statistics = engine.run();
+
+        assertEquals(Arrays.asList(3, 1), wifiBatchSizes);
+        assertEquals(Arrays.asList(2, 1), bluetoothBatchSizes);
+        assertEquals(4, statistics.getRecordCount(ReplayRecord.Type.WIFI));
+        assertEquals(3, statistics.getRecordCount(ReplayRecord.Type.BLUETOOTH));
+        assertEquals(8, statistics.getRecordCount());
+    }
+
+    @Test
+    public void validateSinksAreTimedSeparately() throws Exception
+    {
+        final FakeClock clock = new FakeClock();
+        final SurveyReplayEngine engine = new SurveyReplayEngine(new ListReplaySource(Arrays.asList(
+                lteRecord(START_TIME_MS), lteRecord(START_TIME_MS))), SurveyReplayEngine.MAX_SPEED, clock);
+
+        engine.registerCellularSurveyRecordListener(new CellularListener()
+        {
+            @Override
+            public void onLteSurveyRecord(LteRecord lteRecord)
+            {
+                clock.nowNanos += 5_000_000L;
+            }
+        });
+        engine.registerCellularSurveyRecordListener(new CellularListener()
+        {
+            @Override
+            public void onLteSurveyRecord(LteRecord lteRecord)
+            {
+                throw new IllegalStateException("A failing sink");
+            }
+        });
+        final CountingCellularListener countingListener = new CountingCellularListener();
+        engine.registerCellularSurveyRecordListener(countingListener);
+
+        final List<ReplayStatistics.SinkStatistics> sinks = engine.run().getSinkStatistics();
+
+        assertEquals(3, sinks.size());
+        assertEquals(2, sinks.get(0).getCallLatency().getCount());
+        assertEquals(5, sinks.get(0).getCallLatency().getMeanMs(), 1e-9);
+        assertEquals(0, sinks.get(0).getErrorCount());
+        assertEquals(2, sinks.get(1).getErrorCount());
+        assertEquals(0, sinks.get(2).getCallLatency().getMaxMs(), 0);
+        assertTrue(sinks.get(2).getName().startsWith("CountingCellularListener"));
+
+        // A failing sink does not stop the others from getting the records
+        assertEquals(2, countingListener.lteCount);
+    }
+
+    @Test
+    public void validateStop() throws Exception
+    {
+        final FakeClock clock = new FakeClock();
+        final SurveyReplayEngine engine = new SurveyReplayEngine(new ListReplaySource(Arrays.asList(
+                lteRecord(START_TIME_MS),
+                lteRecord(START_TIME_MS + 1_000),
+                lteRecord(START_TIME_MS + 2_000))), SurveyReplayEngine.REAL_TIME, clock);
+
+        final CountingCellularListener listener = new CountingCellularListener()
+        {
+            @Override
+            public void onLteSurveyRecord(LteRecord lteRecord)
+            {
+                super.onLteSurveyRecord(lteRecord);
+                if (lteCount == 2) engine.stop();
+            }
+        };
+        engine.registerCellularSurveyRecordListener(listener);
+
+        assertEquals(2, engine.run().getRecordCount());
+        assertEquals(2, listener.lteCount);
+    }
+
+    @Test
+    public void validateMergedSourceIsInTimeOrder() throws Exception
+    {
+        final MergedReplaySource source = new MergedReplaySource(Arrays.asList(
+                new ListReplaySource(Arrays.asList(lteRecord(10), lteRecord(20), lteRecord(40))),
+                new ListReplaySource(new ArrayList<>()),
+                new ListReplaySource(Arrays.asList(wifiRecord(5), wifiRecord(20), wifiRecord(50)))));
+
+        final List<String> order = new ArrayList<>();
+        ReplayRecord record;
+        while ((record = source.next()) != null)
+        {
+            order.add(record.getType() + "@" + record.getTimeMs());
+        }
+        source.close();
+
+        // Records with the same time keep the order of their sources
+        assertEquals(Arrays.asList("WIFI@5", "LTE@10", "LTE@20", "WIFI@20", "LTE@40", "WIFI@50"), order);
+        assertNull(source.next());
+    }
+
+    @Test
+    public void validateLteRowConversion()
+    {
+        final Map<String, Object> row = new HashMap<>();
+        row.put(LteMessageConstants.TIME_COLUMN, START_TIME_MS);
+        row.put(LteMessageConstants.MISSION_ID_COLUMN, "NS 1234 20200913-123000");
+        row.put(LteMessageConstants.RECORD_NUMBER_COLUMN, 7);
+        row.put(LteMessageConstants.GROUP_NUMBER_COLUMN, 3);
+        row.put(LteMessageConstants.SERVING_CELL_COLUMN, 1);
+        row.put(LteMessageConstants.MCC_COLUMN, (short) 310);
+        row.put(LteMessageConstants.MNC_COLUMN, (short) 260);
+        row.put(LteMessageConstants.CI_COLUMN, 0x1234567);
+        row.put(LteMessageConstants.PCI_COLUMN, (short) 123);
+        row.put(LteMessageConstants.RSRP_COLUMN, -95.0);
+        row.put(LteMessageConstants.BANDWIDTH_COLUMN, "10");
+
+        final GeoPackageRecordConverter converter = new GeoPackageRecordConverter("1234", "Replay");
+        final ReplayRecord record = converter.convert(LteMessageConstants.LTE_RECORDS_TABLE_NAME, row::get, 35.5, -75.25, 12f);
+
+        assertEquals(START_TIME_MS, record.getTimeMs());
+        assertEquals(ReplayRecord.Type.LTE, record.getType());
+
+        final LteRecordData data = record.getLteRecord().getData();
+        assertEquals(LteMessageConstants.LTE_RECORD_MESSAGE_TYPE, record.getLteRecord().getMessageType());
+        assertEquals("1234", data.getDeviceSerialNumber());
+        assertEquals(35.5, data.getLatitude(), 0);
+        assertEquals(-75.25, data.getLongitude(), 0);
+        assertEquals(7, data.getRecordNumber());
+        assertEquals(3, data.getGroupNumber());
+        assertTrue(data.getServingCell().getValue());
+        assertEquals(310, data.getMcc().getValue());
+        assertEquals(260, data.getMnc().getValue());
+        assertEquals(0x1234567, data.getEci().getValue());
+        assertEquals(123, data.getPci().getValue());
+        assertEquals(-95f, data.getRsrp().getValue(), 0);
+        assertFalse(data.hasTac());
+        assertFalse(data.hasRsrq());
+        assertEquals("10", LteMessageConstants.getLteBandwidth(data.getLteBandwidth()));
+
+        assertNull(converter.convert("UNKNOWN_TABLE", row::get, 0, 0, 0));
+    }
+
+    private static ReplayRecord lteRecord(long timeMs)
+    {
+        return ReplayRecord.of(timeMs, LteRecord.getDefaultInstance());
+    }
+
+    private static ReplayRecord wifiRecord(long timeMs)
+    {
+        return ReplayRecord.of(timeMs, new WifiRecordWrapper(WifiBeaconRecord.getDefaultInstance(), null));
+    }
+
+    private static ReplayRecord bluetoothRecord(long timeMs)
+    {
+        return ReplayRecord.of(timeMs, BluetoothRecord.getDefaultInstance());
+    }
+
+    /**
+     * A clock that only moves when the engine sleeps or a test listener advances it.
+     */
+    private static final class FakeClock implements IReplayClock
+    {
+        private long nowNanos = 0;
+
+        @Override
+        public long nanoTime()
+        {
+            return nowNanos;
+        }
+
+        @Override
+        public void sleepNanos(long nanos)
+        {
+            nowNanos += nanos;
+        }
+    }
+
+    private static class CellularListener implements ICellularSurveyRecordListener
+    {
+        @Override
+        public void onGsmSurveyRecord(GsmRecord gsmRecord)
+        {
+        }
+
+        @Override
+        public void onCdmaSurveyRecord(CdmaRecord cdmaRecord)
+        {
+        }
+
+        @Override
+        public void onUmtsSurveyRecord(UmtsRecord umtsRecord)
+        {
+        }
+
+        @Override
+        public void onLteSurveyRecord(LteRecord lteRecord)
+        {
+        }
+    }
+
+    private static class CountingCellularListener extends CellularListener
+    {
+        int lteCount = 0;
+
+        @Override
+        public void onLteSurveyRecord(LteRecord lteRecord)
+        {
+            lteCount++;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.craxiom.networksurvey.replay;
+
+import com.craxiom.messaging.LteRecordData;
+import com.craxiom.messaging.WifiBeaconRecordData;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link SyntheticRadioEnvironment}.
+ *
+ * @since 1.5.0
+ */
+public class SyntheticRadioEnvironmentTest
+{
+    private static final long TEN_MINUTES_MS = 10 * 60_000L;
+
+    @Test
+    public void validateTheSameSeedGeneratesTheSameRecords()
+    {
+        final SyntheticRadioConfig config = new SyntheticRadioConfig().setDurationMs(TEN_MINUTES_MS).setSeed(42);
+        final SyntheticRadioEnvironment first = new SyntheticRadioEnvironment(config);
+        final SyntheticRadioEnvironment second = new SyntheticRadioEnvironment(config);
+
+        int count = 0;
+        ReplayRecord record;
+        while ((record = first.next()) != null)
+        {
+            final ReplayRecord other = second.next();
+            if (other == null) fail("The second environment ended early after " + count + " records");
+
+            assertEquals(record.getTimeMs(), other.getTimeMs());
+            assertEquals(record.getType(), other.getType());
+            assertEquals(getMessage(record), getMessage(other));
+            count++;
+        }
+
+        assertNull(second.next());
+        assertTrue(count > 0);
+
+        final ReplayRecord otherSeedRecord = new SyntheticRadioEnvironment(config.setSeed(43)).next();
+        assertNotEquals(getMessage(new SyntheticRadioEnvironment(config.setSeed(42)).next()), getMessage(otherSeedRecord));
+    }
+
+    @Test
+    public void validateStadiumRecordCounts()
+    {
+        final SyntheticRadioConfig config = SyntheticRadioConfig.stadium().setDurationMs(TEN_MINUTES_MS);
+        final SyntheticRadioEnvironment environment = new SyntheticRadioEnvironment(config);
+
+        long wifiRecordCount = 0;
+        long bluetoothRecordCount = 0;
+        long lteRecordCount = 0;
+        long servingCellCount = 0;
+        ReplayRecord record;
+        while ((record = environment.next()) != null)
+        {
+            switch (record.getType())
+            {
+                case WIFI:
+                    wifiRecordCount++;
+                    break;
+                case BLUETOOTH:
+                    bluetoothRecordCount++;
+                    break;
+                case LTE:
+                    lteRecordCount++;
+                    if (record.getLteRecord().getData().getServingCell().getValue()) servingCellCount++;
+                    break;
+                default:
+                    fail("Unexpected record type " + record.getType());
+            }
+        }
+
+        // Each scan reports every emitter in view, and the first scan of each radio is at the start time
+        final long wifiScans = TEN_MINUTES_MS / config.getWifiScanIntervalMs();
+        final long bluetoothScans = TEN_MINUTES_MS / config.getBluetoothScanIntervalMs();
+        final long cellularScans = TEN_MINUTES_MS / config.getCellularScanIntervalMs();
+        assertEquals(wifiScans * 500, wifiRecordCount);
+        assertEquals(bluetoothScans * 2_000, bluetoothRecordCount);
+        assertEquals(cellularScans * 20, lteRecordCount);
+        assertEquals(cellularScans, servingCellCount);
+
+        // A fifth of the Wi-Fi APs and Bluetooth devices churn every minute, so about three times as many are seen
+        assertTrue(environment.getWifiAccessPointsCreated() > 1_400 && environment.getWifiAccessPointsCreated() < 1_800);
+        assertTrue(environment.getBluetoothDevicesCreated() > 5_600 && environment.getBluetoothDevicesCreated() < 6_800);
+    }
+
+    @Test
+    public void validateSignalsTakeBoundedSteps()
+    {
+        final SyntheticRadioConfig config = new SyntheticRadioConfig().setDurationMs(TEN_MINUTES_MS).setSignalStepDb(3f);
+        final SyntheticRadioEnvironment environment = new SyntheticRadioEnvironment(config);
+
+        final Map<String, Float> lastWifiSignals = new HashMap<>();
+        final Map<Integer, Float> lastLteSignals = new HashMap<>();
+        ReplayRecord record;
+        while ((record = environment.next()) != null)
+        {
+            switch (record.getType())
+            {
+                case WIFI:
+                    final WifiBeaconRecordData wifiData = record.getWifiRecord().getWifiBeaconRecord().getData();
+                    final float signal = wifiData.getSignalStrength().getValue();
+                    assertTrue(signal >= SyntheticRadioEnvironment.WIFI_MIN_DBM && signal <= SyntheticRadioEnvironment.WIFI_MAX_DBM);
+
+                    // The records are rounded to a whole dB, so allow for that on top of the step
+                    final Float lastSignal = lastWifiSignals.put(wifiData.getBssid(), signal);
+                    if (lastSignal != null) assertEquals(lastSignal, signal, 3f + 1f);
+                    break;
+
+                case LTE:
+                    final LteRecordData lteData = record.getLteRecord().getData();
+                    final float rsrp = lteData.getRsrp().getValue();
+                    assertTrue(rsrp >= SyntheticRadioEnvironment.LTE_MIN_RSRP && rsrp <= SyntheticRadioEnvironment.LTE_MAX_RSRP);
+
+                    final Float lastRsrp = lastLteSignals.put(lteData.getPci().getValue(), rsrp);
+                    if (lastRsrp != null) assertEquals(lastRsrp, rsrp, 3f + 1f);
+                    break;
+
+                case BLUETOOTH:
+                    final float rssi = record.getBluetoothRecord().getData().getSignalStrength().getValue();
+                    assertTrue(rssi >= SyntheticRadioEnvironment.BLUETOOTH_MIN_DBM && rssi <= SyntheticRadioEnvironment.BLUETOOTH_MAX_DBM);
+                    break;
+
+                default:
+                    fail("Unexpected record type " + record.getType());
+            }
+        }
+
+        assertEquals(config.getLteCellCount(), lastLteSignals.size());
+        assertTrue(lastWifiSignals.size() > config.getWifiAccessPointCount());
+    }
+
+    @Test
+    public void validateAddresses()
+    {
+        assertEquals("02:00:00:00:00:00", SyntheticRadioEnvironment.getWifiBssid(0));
+        assertEquals("02:00:00:00:01:2C", SyntheticRadioEnvironment.getWifiBssid(300));
+        assertEquals("C0:00:00:00:07:D0", SyntheticRadioEnvironment.getBluetoothAddress(2_000));
+    }
+
+    private static Object getMessage(ReplayRecord record)
+    {
+        switch (record.getType())
+        {
+            case WIFI:
+                return record.getWifiRecord().getWifiBeaconRecord();
+            case BLUETOOTH:
+                return record.getBluetoothRecord();
+            case LTE:
+                return record.getLteRecord();
+            default:
+                fail("Unexpected record type " + record.getType());
+                return null;
+        }
+    }
+}
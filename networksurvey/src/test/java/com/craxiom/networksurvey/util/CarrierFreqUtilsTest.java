@@ -0,0 +1,314 @@
+package com.craxiom.networksurvey.util;
+
+import com.craxiom.networksurvey.model.GnssType;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Property tests that check the table driven {@link CarrierFreqUtils} against the chain of comparisons it replaced.
+ *
+ * @since 1.5.0
+ */
+public class CarrierFreqUtilsTest
+{
+    private static final float[] EDGE_FREQUENCIES_MHZ = {1575.42f, 1227.6f, 1381.05f, 1379.913f, 1176.45f, 1598.0f,
+            1610.0f, 1242.0f, 1252.0f, 1207.14f, 1561.098f, 1589.742f, 1268.52f, 1278.75f, 1191.795f, 2492.028f};
+
+    @Test
+    public void validateFrequencySweepMatchesLegacy()
+    {
+        // Sweep the entire L and S band area in 5 kHz steps
+        for (GnssType gnssType : GnssType.values())
+        {
+            for (int svid : getSvids(gnssType))
+            {
+                for (int khz = 1_100_000; khz <= 2_600_000; khz += 5)
+                {
+                    assertMatchesLegacy(gnssType, svid, khz / 1000f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void validateWindowEdgesMatchLegacy()
+    {
+        // Check the floats on either side of every window edge, which is where a table would be most likely to differ
+        for (GnssType gnssType : GnssType.values())
+        {
+            for (int svid : getSvids(gnssType))
+            {
+                for (float center : EDGE_FREQUENCIES_MHZ)
+                {
+                    for (float edge : new float[]{center - 1f, center, center + 1f})
+                    {
+                        float frequency = edge;
+                        for (int i = 0; i < 64; i++)
+                        {
+                            frequency = Math.nextDown(frequency);
+                        }
+                        for (int i = 0; i < 128; i++)
+                        {
+                            assertMatchesLegacy(gnssType, svid, frequency);
+                            frequency = Math.nextUp(frequency);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void validateRandomInputsMatchLegacy()
+    {
+        final Random random = new Random(44);
+        final GnssType[] gnssTypes = GnssType.values();
+        for (int i = 0; i < 1_000_000; i++)
+        {
+            final GnssType gnssType = gnssTypes[random.nextInt(gnssTypes.length)];
+            final int svid = random.nextInt(400);
+            final float frequency = i % 2 == 0 ? random.nextFloat() * 3000f : Float.intBitsToFloat(random.nextInt());
+            assertMatchesLegacy(gnssType, svid, frequency);
+        }
+    }
+
+    @Test
+    public void validateSpecialValues()
+    {
+        for (GnssType gnssType : GnssType.values())
+        {
+            assertNull(CarrierFreqUtils.getCarrierFrequencyLabel(gnssType, 1, Float.NaN));
+            assertNull(CarrierFreqUtils.getCarrierFrequencyLabel(gnssType, 1, Float.POSITIVE_INFINITY));
+            assertNull(CarrierFreqUtils.getCarrierFrequencyLabel(gnssType, 1, Float.NEGATIVE_INFINITY));
+            assertNull(CarrierFreqUtils.getCarrierFrequencyLabel(gnssType, 1, 0f));
+        }
+        assertNull(CarrierFreqUtils.getCarrierFrequencyLabel(null, 1, 1575.42f));
+    }
+
+    @Test
+    public void validateOverlappingBandsKeepPriority()
+    {
+        // The GPS L3 and L4 windows overlap, and L3 was always checked first
+        assertEquals("L3", CarrierFreqUtils.getCarrierFrequencyLabel(GnssType.NAVSTAR, 1, 1380.5f));
+        assertEquals("L4", CarrierFreqUtils.getCarrierFrequencyLabel(GnssType.NAVSTAR, 1, 1379.0f));
+    }
+
+    @Test
+    public void validateLabelFromHz()
+    {
+        assertEquals("L1", CarrierFreqUtils.getCarrierFrequencyLabelFromHz(GnssType.NAVSTAR, 5, 1_575_420_000L));
+        assertEquals("E5a", CarrierFreqUtils.getCarrierFrequencyLabelFromHz(GnssType.GALILEO, 5, 1_176_450_000L));
+        assertEquals("L5", CarrierFreqUtils.getCarrierFrequencyLabelFromHz(GnssType.SBAS, 138, 1_176_450_000L));
+        assertNull(CarrierFreqUtils.getCarrierFrequencyLabelFromHz(GnssType.SBAS, 127, 1_176_450_000L));
+    }
+
+    @Test
+    public void validateLabelsAreShared()
+    {
+        assertSame(CarrierFreqUtils.getCarrierFrequencyLabel(GnssType.NAVSTAR, 1, 1575.42f),
+                CarrierFreqUtils.getCarrierFrequencyLabel(GnssType.QZSS, 1, 1575.0f));
+    }
+
+    private static void assertMatchesLegacy(GnssType gnssType, int svid, float frequency)
+    {
+        assertEquals(gnssType + " " + svid + " " + frequency, getCarrierFrequencyLabelLegacy(gnssType, svid, frequency),
+                CarrierFreqUtils.getCarrierFrequencyLabel(gnssType, svid, frequency));
+    }
+
+    private static int[] getSvids(GnssType gnssType)
+    {
+        if (gnssType != GnssType.SBAS) return new int[]{1};
+
+        final int[] svids = new int[30];
+        for (int i = 0; i < svids.length; i++)
+        {
+            svids[i] = 115 + i;
+        }
+        return svids;
+    }
+
+    /**
+     * The previous implementation of {@link CarrierFreqUtils#getCarrierFrequencyLabel(GnssType, int, float)}.
+     */
+    private static String getCarrierFrequencyLabelLegacy(GnssType gnssType, int svid, float carrierFrequencyMhz)
+    {
+        final float toleranceMhz = 1f;
+        switch (gnssType)
+        {
+            case NAVSTAR:
+                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                {
+                    return "L1";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1227.6f, toleranceMhz))
+                {
+                    return "L2";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1381.05f, toleranceMhz))
+                {
+                    return "L3";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1379.913f, toleranceMhz))
+                {
+                    return "L4";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                {
+                    return "L5";
+                }
+                break;
+            case GLONASS:
+                if (carrierFrequencyMhz >= 1598.0000f && carrierFrequencyMhz <= 1610.000f)
+                {
+                    // Actual range is 1598.0625 MHz to 1609.3125, but allow padding for float comparisons - #103
+                    return "L1";
+                } else if (carrierFrequencyMhz >= 1242.0000f && carrierFrequencyMhz <= 1252.000f)
+                {
+                    // Actual range is 1242.9375 - 1251.6875, but allow padding for float comparisons - #103
+                    return "L2";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, toleranceMhz))
+                {
+                    // Exact range is unclear - appears to be 1202.025 - 1207.14 - #103
+                    return "L3";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                {
+                    return "L5";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                {
+                    return "L1-C";
+                }
+                break;
+            case BEIDOU:
+                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1561.098f, toleranceMhz))
+                {
+                    return "B1";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1589.742f, toleranceMhz))
+                {
+                    return "B1-2";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                {
+                    return "B1C";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, toleranceMhz))
+                {
+                    return "B2";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                {
+                    return "B2a";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1268.52f, toleranceMhz))
+                {
+                    return "B3";
+                }
+                break;
+            case QZSS:
+                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                {
+                    return "L1";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1227.6f, toleranceMhz))
+                {
+                    return "L2";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                {
+                    return "L5";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1278.75f, toleranceMhz))
+                {
+                    return "L6";
+                }
+                break;
+            case GALILEO:
+                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                {
+                    return "E1";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1191.795f, toleranceMhz))
+                {
+                    return "E5";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                {
+                    return "E5a";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1207.14f, toleranceMhz))
+                {
+                    return "E5b";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1278.75f, toleranceMhz))
+                {
+                    return "E6";
+                }
+                break;
+            case IRNSS:
+                if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                {
+                    return "L5";
+                } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 2492.028f, toleranceMhz))
+                {
+                    return "S";
+                }
+                break;
+            case SBAS:
+                if (svid == 120 || svid == 123 || svid == 126 || svid == 136)
+                {
+                    // EGNOS - https://gssc.esa.int/navipedia/index.php/EGNOS_Space_Segment
+                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    {
+                        return "L1";
+                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                    {
+                        return "L5";
+                    }
+                } else if (svid == 129 || svid == 137)
+                {
+                    // MSAS (Japan) - https://gssc.esa.int/navipedia/index.php/MSAS_Space_Segment
+                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    {
+                        return "L1";
+                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                    {
+                        return "L5";
+                    }
+                } else if (svid == 127 || svid == 128 || svid == 139)
+                {
+                    // GnssType.GAGAN (India)
+                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    {
+                        return "L1";
+                    }
+                } else if (svid == 133)
+                {
+                    // GnssType.INMARSAT_4F3;
+                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    {
+                        return "L1";
+                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                    {
+                        return "L5";
+                    }
+                } else if (svid == 135)
+                {
+                    // GnssType.GALAXY_15;
+                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    {
+                        return "L1";
+                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                    {
+                        return "L5";
+                    }
+                } else if (svid == 138)
+                {
+                    // GnssType.ANIK;
+                    if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1575.42f, toleranceMhz))
+                    {
+                        return "L1";
+                    } else if (MathUtils.fuzzyEquals(carrierFrequencyMhz, 1176.45f, toleranceMhz))
+                    {
+                        return "L5";
+                    }
+                }
+                break;
+
+            case UNKNOWN:
+            default:
+                break;
+        }
+        // Unknown carrier frequency for given constellation and svid
+        return null;
+    }
+}
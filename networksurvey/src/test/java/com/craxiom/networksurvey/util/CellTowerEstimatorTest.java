@@ -0,0 +1,179 @@
+package com.craxiom.networksurvey.util;
+
+import com.craxiom.networksurvey.CalculationUtils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the signal weighted cell position estimates in the {@link CellTowerEstimator}.
+ *
+ * @since 1.5.0
+ */
+public class CellTowerEstimatorTest
+{
+    private static final int MCC = 310;
+    private static final int MNC = 260;
+    private static final int ECI = 0x1234567;
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void validateKeyPacking()
+    {
+        final long key = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_GSM, 999, 999,
+                CellTowerEstimator.getGsmCellId(65535, 65535));
+
+        final CellTowerEstimator estimator = new CellTowerEstimator(10);
+        estimator.addSample(key, 10, 20, -80f);
+        final CellTowerEstimator.Estimate estimate = estimator.getEstimate(key);
+
+        assertNotNull(estimate);
+        assertEquals(key, estimate.getKey());
+        assertEquals(CellTowerEstimator.TECHNOLOGY_GSM, estimate.getTechnology());
+        assertEquals(999, estimate.getMcc());
+        assertEquals(999, estimate.getMnc());
+        assertEquals(0xFFFFFFFF, estimate.getCellId());
+
+        assertTrue(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, MCC, MNC, ECI)
+                != CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, ECI));
+        assertTrue(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, MCC, MNC, ECI)
+                != CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, MCC, 26, ECI));
+    }
+
+    @Test
+    public void validateWeightedCentroid()
+    {
+        final CellTowerEstimator estimator = new CellTowerEstimator(10);
+        final long key = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, 1000);
+
+        // A sample that is 10 dB stronger has 10 times the weight
+        estimator.addSample(key, 40.0, -100.0, -70f);
+        estimator.addSample(key, 40.11, -100.11, -80f);
+
+        final CellTowerEstimator.Estimate estimate = estimator.getEstimate(key);
+        assertNotNull(estimate);
+        assertEquals(2, estimate.getSampleCount());
+        assertEquals(40.01, estimate.getLatitude(), DELTA);
+        assertEquals(-100.01, estimate.getLongitude(), DELTA);
+    }
+
+    @Test
+    public void validateSpread()
+    {
+        final CellTowerEstimator estimator = new CellTowerEstimator(10);
+        final long key = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, 1000);
+
+        estimator.addSample(key, 0.001, 0.5, -80f);
+        assertEquals(0, estimator.getEstimate(key).getSpreadMeters(), DELTA);
+
+        // Two equally weighted samples 0.002 degrees of latitude apart are each about 111 m from the centroid
+        estimator.addSample(key, -0.001, 0.5, -80f);
+        final CellTowerEstimator.Estimate estimate = estimator.getEstimate(key);
+        assertEquals(0, estimate.getLatitude(), DELTA);
+        assertEquals(111.32, estimate.getSpreadMeters(), 0.01);
+    }
+
+    @Test
+    public void validateSectorsAreGroupedByEnodeb()
+    {
+        final CellTowerEstimator estimator = new CellTowerEstimator(10);
+        final int enodebId = CalculationUtils.getEnodebIdFromCellId(ECI);
+        final int otherSectorEci = (enodebId << 8) | 0x02;
+
+        estimator.addLteSample(MCC, MNC, ECI, 35.0, -75.0, -90f);
+        estimator.addLteSample(MCC, MNC, otherSectorEci, 35.002, -75.002, -90f);
+
+        assertEquals(3, estimator.size());
+        assertEquals(35.0, estimator.getEstimate(
+                CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, MCC, MNC, ECI)).getLatitude(), DELTA);
+
+        final CellTowerEstimator.Estimate enodebEstimate = estimator.getEstimate(
+                CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE_ENODEB, MCC, MNC, enodebId));
+        assertNotNull(enodebEstimate);
+        assertEquals(enodebId, enodebEstimate.getCellId());
+        assertEquals(2, enodebEstimate.getSampleCount());
+        assertEquals(35.001, enodebEstimate.getLatitude(), DELTA);
+        assertEquals(-75.001, enodebEstimate.getLongitude(), DELTA);
+    }
+
+    @Test
+    public void validateInvalidSamplesAreIgnored()
+    {
+        final CellTowerEstimator estimator = new CellTowerEstimator(10);
+        final long key = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_GSM, MCC, MNC, 1);
+
+        estimator.addSample(key, 0, 0, -80f); // No location fix
+        estimator.addSample(key, 91, 0, -80f);
+        estimator.addSample(key, Double.NaN, 0, -80f);
+        estimator.addSample(key, 10, 10, Float.NaN);
+        estimator.addLteSample(MCC, MNC, Integer.MAX_VALUE, 10, 10, -80f); // Invalid ECI
+
+        assertEquals(0, estimator.size());
+        assertNull(estimator.getEstimate(key));
+    }
+
+    @Test
+    public void validateLeastRecentlyUpdatedEviction()
+    {
+        final CellTowerEstimator estimator = new CellTowerEstimator(3);
+        final long[] keys = new long[5];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_GSM, MCC, MNC, i);
+        }
+
+        estimator.addSample(keys[0], 10, 10, -80f);
+        estimator.addSample(keys[1], 10, 10, -80f);
+        estimator.addSample(keys[2], 10, 10, -80f);
+        estimator.addSample(keys[0], 10, 10, -80f); // Cell 0 is now the most recently updated
+        estimator.addSample(keys[3], 10, 10, -80f); // Evicts cell 1
+
+        assertEquals(3, estimator.size());
+        assertNotNull(estimator.getEstimate(keys[0]));
+        assertNull(estimator.getEstimate(keys[1]));
+        assertNotNull(estimator.getEstimate(keys[2]));
+        assertNotNull(estimator.getEstimate(keys[3]));
+
+        estimator.addSample(keys[4], 10, 10, -80f); // Evicts cell 2
+        assertNull(estimator.getEstimate(keys[2]));
+
+        // The evicted cell starts over, and evicts cell 0
+        estimator.addSample(keys[1], 10, 10, -80f);
+        assertEquals(1, estimator.getEstimate(keys[1]).getSampleCount());
+
+        final List<CellTowerEstimator.Estimate> estimates = estimator.getEstimates();
+        assertEquals(3, estimates.size());
+        assertEquals(1, estimates.get(0).getCellId());
+        assertEquals(4, estimates.get(1).getCellId());
+        assertEquals(3, estimates.get(2).getCellId());
+    }
+
+    @Test
+    public void validateManyCellsWithEviction()
+    {
+        // Enough cells that the index has plenty of collisions and evictions that shift entries back
+        final CellTowerEstimator estimator = new CellTowerEstimator(64);
+        for (int i = 0; i < 10_000; i++)
+        {
+            estimator.addSample(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, i), 10, 10, -80f);
+        }
+
+        assertEquals(64, estimator.size());
+        for (int i = 10_000 - 64; i < 10_000; i++)
+        {
+            assertNotNull(estimator.getEstimate(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, i)));
+        }
+        assertNull(estimator.getEstimate(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, 10_000 - 65)));
+
+        estimator.clear();
+        assertEquals(0, estimator.size());
+        estimator.addSample(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_UMTS, MCC, MNC, 1), 10, 10, -80f);
+        assertEquals(1, estimator.size());
+    }
+}
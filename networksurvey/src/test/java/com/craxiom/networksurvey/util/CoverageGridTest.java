@@ -0,0 +1,175 @@
+package com.craxiom.networksurvey.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the tile statistics in the {@link CoverageGrid}.
+ *
+ * @since 1.5.0
+ */
+public class CoverageGridTest
+{
+    private static final double TILE_SIZE = 0.001;
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void validateStatistics()
+    {
+        final CoverageGrid grid = new CoverageGrid(TILE_SIZE, 100);
+        final float[] values = {-80f, -90f, -85f, -100f, -70f};
+        for (float value : values)
+        {
+            assertTrue(grid.add("LTE 310-260-1234", 35.00012, -75.00034, value));
+        }
+
+        assertEquals(1, grid.getTileCount());
+        assertEquals(1, grid.getEmitterCount());
+
+        final List<Object[]> tiles = collect(grid);
+        final Object[] tile = tiles.get(0);
+        assertEquals("LTE 310-260-1234", tile[0]);
+        assertEquals(5, tile[1]);
+        assertEquals(-85.0, (double) tile[2], DELTA);
+        assertEquals(125.0, (double) tile[3], DELTA); // Sample variance of the values above
+        assertEquals(-100f, (float) tile[4], 0f);
+        assertEquals(-70f, (float) tile[5], 0f);
+
+        // The tile bounds contain the sample location
+        assertTrue((double) tile[6] <= 35.00012 && 35.00012 < (double) tile[6] + TILE_SIZE);
+        assertTrue((double) tile[7] <= -75.00034 && -75.00034 < (double) tile[7] + TILE_SIZE);
+    }
+
+    @Test
+    public void validateTilesAreSplitByEmitterAndLocation()
+    {
+        final CoverageGrid grid = new CoverageGrid(TILE_SIZE, 100);
+        grid.add("a", 10.0001, 20.0001, -50f);
+        grid.add("a", 10.0002, 20.0002, -60f); // Same tile
+        grid.add("a", 10.0021, 20.0001, -60f); // Different tile
+        grid.add("b", 10.0001, 20.0001, -70f); // Different emitter
+
+        assertEquals(3, grid.getTileCount());
+        assertEquals(2, grid.getEmitterCount());
+    }
+
+    @Test
+    public void validateInvalidSamplesAreIgnored()
+    {
+        final CoverageGrid grid = new CoverageGrid(TILE_SIZE, 100);
+        assertFalse(grid.add("a", 0, 0, -50f)); // No location fix
+        assertFalse(grid.add("a", 91, 0, -50f));
+        assertFalse(grid.add("a", 10, -181, -50f));
+        assertFalse(grid.add("a", Double.NaN, 10, -50f));
+        assertFalse(grid.add("a", 10, 10, Float.NaN));
+        assertEquals(0, grid.getTileCount());
+
+        assertTrue(grid.add("a", 90, 180, -50f));
+        assertTrue(grid.add("a", -90, -180, -50f));
+        assertEquals(2, grid.getTileCount());
+    }
+
+    @Test
+    public void validateMemoryCap()
+    {
+        final CoverageGrid grid = new CoverageGrid(TILE_SIZE, 10);
+        for (int i = 0; i < 20; i++)
+        {
+            grid.add("a", 10 + i * TILE_SIZE * 2, 20, -50f);
+        }
+        assertEquals(10, grid.getTileCount());
+        assertEquals(10, grid.getDroppedSampleCount());
+
+        // Existing tiles are still updated, and a new emitter is not registered when its tile is dropped
+        assertTrue(grid.add("a", 10, 20, -60f));
+        assertFalse(grid.add("b", 10, 20, -60f));
+        assertEquals(1, grid.getEmitterCount());
+
+        grid.clear();
+        assertEquals(0, grid.getTileCount());
+        assertEquals(0, grid.getDroppedSampleCount());
+        assertTrue(grid.add("b", 10, 20, -60f));
+    }
+
+    @Test
+    public void validateAgainstSimpleAggregation()
+    {
+        final Random random = new Random(46);
+        final CoverageGrid grid = new CoverageGrid(TILE_SIZE, 1_000_000);
+        final Map<String, List<Float>> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++)
+        {
+            final String emitter = "emitter" + random.nextInt(50);
+            final int tileX = random.nextInt(40);
+            final int tileY = random.nextInt(40);
+            final double latitude = 40 + (tileY + 0.5) * TILE_SIZE;
+            final double longitude = -100 + (tileX + 0.5) * TILE_SIZE;
+            final float value = -120 + random.nextFloat() * 80;
+
+            assertTrue(grid.add(emitter, latitude, longitude, value));
+            expected.computeIfAbsent(emitter + " " + tileX + " " + tileY, k -> new ArrayList<>()).add(value);
+        }
+
+        assertEquals(expected.size(), grid.getTileCount());
+
+        grid.forEachTile(tile -> {
+            final int tileX = (int) Math.round((tile.getMinLongitude() + 100) / TILE_SIZE);
+            final int tileY = (int) Math.round((tile.getMinLatitude() - 40) / TILE_SIZE);
+            final List<Float> values = expected.get(tile.getEmitterId() + " " + tileX + " " + tileY);
+
+            double sum = 0;
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (float value : values)
+            {
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            final double mean = sum / values.size();
+            double squares = 0;
+            for (float value : values)
+            {
+                squares += (value - mean) * (value - mean);
+            }
+
+            assertEquals(values.size(), tile.getCount());
+            assertEquals(mean, tile.getMean(), 1e-3);
+            assertEquals(values.size() < 2 ? 0 : squares / (values.size() - 1), tile.getVariance(), 1e-2);
+            assertEquals(min, tile.getMin(), 0f);
+            assertEquals(max, tile.getMax(), 0f);
+        });
+    }
+
+    @Test
+    public void validateTileSizeLimit()
+    {
+        try
+        {
+            new CoverageGrid(0.0001, 100);
+            fail("A tile size that needs more than 2^20 tiles around the world should be rejected");
+        } catch (IllegalArgumentException expected)
+        {
+            // Expected
+        }
+    }
+
+    private static List<Object[]> collect(CoverageGrid grid)
+    {
+        final List<Object[]> tiles = new ArrayList<>();
+        grid.forEachTile(tile -> tiles.add(new Object[]{tile.getEmitterId(), tile.getCount(), tile.getMean(),
+                tile.getVariance(), tile.getMin(), tile.getMax(), tile.getMinLatitude(), tile.getMinLongitude()}));
+        return tiles;
+    }
+}
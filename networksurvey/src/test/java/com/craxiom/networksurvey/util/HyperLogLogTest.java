@@ -0,0 +1,140 @@
+package com.craxiom.networksurvey.util;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the unique value estimates of the {@link HyperLogLog}.
+ *
+ * @since 1.5.0
+ */
+public class HyperLogLogTest
+{
+    private static final int PRECISION = 12;
+
+    /**
+     * A generous bound of four times the standard error so that the tests are not flaky.
+     */
+    private static final double MAX_RELATIVE_ERROR = 4 * 1.04 / Math.sqrt(1 << PRECISION);
+
+    @Test
+    public void validateSmallCountsAreNearlyExact()
+    {
+        final HyperLogLog counter = new HyperLogLog(PRECISION);
+        assertTrue(counter.isEmpty());
+        assertEquals(0, counter.estimate());
+
+        for (int i = 0; i < 100; i++)
+        {
+            counter.add(createBssid(i));
+            counter.add(createBssid(i)); // Duplicates are not counted again
+        }
+
+        assertFalse(counter.isEmpty());
+        assertEquals(100, counter.estimate(), 2);
+    }
+
+    @Test
+    public void validateLargeCountAccuracy()
+    {
+        for (int count : new int[]{1_000, 10_000, 100_000, 1_000_000})
+        {
+            final HyperLogLog counter = new HyperLogLog(PRECISION);
+            for (long i = 0; i < count; i++)
+            {
+                counter.add(i);
+            }
+
+            final double relativeError = Math.abs(counter.estimate() - count) / (double) count;
+            assertTrue("The error for " + count + " values was " + relativeError, relativeError < MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    public void validateMergeIsTheUnion()
+    {
+        final HyperLogLog first = new HyperLogLog(PRECISION);
+        final HyperLogLog second = new HyperLogLog(PRECISION);
+        final HyperLogLog all = new HyperLogLog(PRECISION);
+
+        // The two halves overlap by 10,000 values
+        for (int i = 0; i < 30_000; i++)
+        {
+            first.add(createBssid(i));
+            all.add(createBssid(i));
+        }
+        for (int i = 20_000; i < 50_000; i++)
+        {
+            second.add(createBssid(i));
+            all.add(createBssid(i));
+        }
+
+        final HyperLogLog merged = first.copy();
+        merged.merge(second);
+        assertEquals(all.estimate(), merged.estimate());
+        assertTrue(Math.abs(merged.estimate() - 50_000) / 50_000d < MAX_RELATIVE_ERROR);
+
+        // The copy is independent of the original
+        assertTrue(first.estimate() < merged.estimate());
+
+        merged.clear();
+        assertTrue(merged.isEmpty());
+    }
+
+    @Test
+    public void validatePrecisionMismatch()
+    {
+        try
+        {
+            new HyperLogLog(PRECISION).merge(new HyperLogLog(PRECISION + 1));
+            fail("Counters with different precisions should not be merged");
+        } catch (IllegalArgumentException expected)
+        {
+            // Expected
+        }
+
+        try
+        {
+            new HyperLogLog(HyperLogLog.MAX_PRECISION + 1);
+            fail("A precision above the max should be rejected");
+        } catch (IllegalArgumentException expected)
+        {
+            // Expected
+        }
+    }
+
+    @Test
+    public void validateUniqueEmitterCounters()
+    {
+        final UniqueEmitterCounters counters = new UniqueEmitterCounters(PRECISION);
+        counters.addWifiBssid("00:11:22:33:44:55");
+        counters.addWifiBssid("00:11:22:33:44:55");
+        counters.addWifiBssid("");
+        counters.addBluetoothAddress("AA:BB:CC:DD:EE:FF");
+        counters.addCell(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, 310, 260, 1));
+        counters.addCell(UniqueEmitterCounters.createCdmaCellKey(1, 1, 1));
+
+        final UniqueEmitterCounters other = new UniqueEmitterCounters(PRECISION);
+        other.addWifiBssid("00:11:22:33:44:66");
+        other.addCell(CellTowerEstimator.createKey(CellTowerEstimator.TECHNOLOGY_LTE, 310, 260, 1));
+        counters.merge(other);
+
+        assertEquals(2, counters.getWifiBssidCount());
+        assertEquals(1, counters.getBluetoothAddressCount());
+        assertEquals(2, counters.getCellCount());
+
+        counters.clear();
+        assertEquals(0, counters.getCellCount());
+    }
+
+    private static String createBssid(int i)
+    {
+        return String.format(Locale.US, "02:00:00:%02x:%02x:%02x", (i >> 16) & 0xFF, (i >> 8) & 0xFF, i & 0xFF);
+    }
+}
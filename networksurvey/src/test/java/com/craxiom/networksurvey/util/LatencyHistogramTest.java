@@ -0,0 +1,62 @@
+package com.craxiom.networksurvey.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link LatencyHistogram} class.
+ *
+ * @since 1.5.0
+ */
+public class LatencyHistogramTest
+{
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void validateBucketIndexes()
+    {
+        assertEquals(0, LatencyHistogram.getBucketIndex(0));
+        assertEquals(0, LatencyHistogram.getBucketIndex(100_000));
+        assertEquals(1, LatencyHistogram.getBucketIndex(100_001));
+        assertEquals(1, LatencyHistogram.getBucketIndex(200_000));
+        assertEquals(2, LatencyHistogram.getBucketIndex(200_001));
+        assertEquals(19, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+
+        // Every value must be less than or equal to the upper bound of its bucket
+        for (long latency = 1; latency < 60_000_000_000L; latency *= 3)
+        {
+            final int index = LatencyHistogram.getBucketIndex(latency);
+            assertTrue(latency <= LatencyHistogram.getBucketUpperBoundNanos(index));
+            if (index > 0) assertTrue(latency > LatencyHistogram.getBucketUpperBoundNanos(index - 1));
+        }
+    }
+
+    @Test
+    public void validatePercentiles()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMs(50), DELTA);
+
+        for (int i = 0; i < 90; i++)
+        {
+            histogram.record(50_000); // 0.05 ms
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            histogram.record(30_000_000); // 30 ms
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(0.1, histogram.getPercentileMs(50), DELTA); // The upper bound of the first bucket
+        assertEquals(0.1, histogram.getPercentileMs(90), DELTA);
+        assertEquals(30, histogram.getPercentileMs(99), DELTA); // Capped at the max rather than the bucket upper bound
+        assertEquals(30, histogram.getMaxMs(), DELTA);
+        assertEquals(3.045, histogram.getMeanMs(), DELTA);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMs(), DELTA);
+    }
+}
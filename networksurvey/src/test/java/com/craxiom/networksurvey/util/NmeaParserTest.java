@@ -0,0 +1,276 @@
+package com.craxiom.networksurvey.util;
+
+import com.craxiom.networksurvey.listeners.INmeaListener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link NmeaParser}.
+ *
+ * @since 1.5.0
+ */
+public class NmeaParserTest
+{
+    private static final double DELTA = 1e-9;
+
+    private static final String GGA = "$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5B";
+    private static final String GNS = "$GNGNS,015002.0,2804.733672,N,08224.631117,W,AAN,09,1.1,78.9,-24.0,,*23";
+    private static final String GSA = "$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3B";
+    private static final String RMC = "$GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*6A";
+    private static final String GSV = "$GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00*74";
+    private static final String VTG = "$GPVTG,054.7,T,034.4,M,005.5,N,010.2,K*48";
+
+    private final RecordingListener listener = new RecordingListener();
+    private final NmeaParser parser = new NmeaParser(listener);
+
+    @Test
+    public void validateGga()
+    {
+        assertTrue(parser.parse(GGA, 1000L));
+
+        final NmeaParser.GgaEvent event = listener.gga;
+        assertEquals("GP", event.getTalkerId());
+        assertEquals("GGA", event.getSentenceType());
+        assertEquals(1000L, event.getTimestamp());
+        assertEquals(((3 * 60 + 27) * 60 + 39) * 1000L, event.getUtcTimeMs());
+        assertEquals(28 + 4.732835 / 60, event.getLatitude(), DELTA);
+        assertEquals(-(82 + 24.639709 / 60), event.getLongitude(), DELTA);
+        assertEquals(1, event.getFixQuality());
+        assertEquals(8, event.getSatellitesUsed());
+        assertEquals(0.8, event.getHdop(), 0);
+        assertEquals(19.2, event.getAltitudeMsl(), 0);
+        assertEquals(-24.0, event.getGeoidSeparation(), 0);
+    }
+
+    @Test
+    public void validateGns()
+    {
+        assertTrue(parser.parse(GNS, 0));
+
+        final NmeaParser.GnsEvent event = listener.gns;
+        assertEquals("GN", event.getTalkerId());
+        assertEquals(3, event.getModeIndicatorCount());
+        assertEquals('A', event.getModeIndicator(0));
+        assertEquals('N', event.getModeIndicator(2));
+        assertEquals(9, event.getSatellitesUsed());
+        assertEquals(1.1, event.getHdop(), 0);
+        assertEquals(78.9, event.getAltitudeMsl(), 0);
+        assertEquals(-24.0, event.getGeoidSeparation(), 0);
+    }
+
+    @Test
+    public void validateGsa()
+    {
+        assertTrue(parser.parse(GSA, 0));
+
+        final NmeaParser.GsaEvent event = listener.gsa;
+        assertEquals('A', event.getSelectionMode());
+        assertEquals(3, event.getFixType());
+        assertEquals(6, event.getSatelliteCount());
+        assertEquals(3, event.getSvid(0));
+        assertEquals(26, event.getSvid(5));
+        assertEquals(3.6, event.getPdop(), 0);
+        assertEquals(1.8, event.getHdop(), 0);
+        assertEquals(3.1, event.getVdop(), 0);
+        assertEquals(1, event.getSystemId());
+
+        assertTrue(parser.parse("$GPGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1*38", 0));
+        assertEquals(3.1, listener.gsa.getVdop(), 0);
+        assertEquals(-1, listener.gsa.getSystemId());
+    }
+
+    @Test
+    public void validateRmc()
+    {
+        assertTrue(parser.parse(RMC, 0));
+
+        final NmeaParser.RmcEvent event = listener.rmc;
+        assertEquals(((12 * 60 + 35) * 60 + 19) * 1000L, event.getUtcTimeMs());
+        assertTrue(event.isValid());
+        assertEquals(48 + 7.038 / 60, event.getLatitude(), DELTA);
+        assertEquals(11 + 31.0 / 60, event.getLongitude(), DELTA);
+        assertEquals(22.4, event.getSpeedKnots(), 0);
+        assertEquals(84.4, event.getCourseDegrees(), 0);
+        assertEquals(230394, event.getDate());
+        assertEquals(-3.1, event.getMagneticVariation(), 0);
+        assertEquals(0, event.getModeIndicator());
+    }
+
+    @Test
+    public void validateGsv()
+    {
+        assertTrue(parser.parse(GSV, 0));
+
+        final NmeaParser.GsvEvent event = listener.gsv;
+        assertEquals(3, event.getTotalMessages());
+        assertEquals(1, event.getMessageNumber());
+        assertEquals(11, event.getSatellitesInView());
+        assertEquals(4, event.getSatelliteCount());
+        assertEquals(3, event.getSvid(0));
+        assertEquals(3, event.getElevation(0));
+        assertEquals(111, event.getAzimuth(0));
+        assertEquals(0, event.getCn0(0));
+        assertEquals(13, event.getSvid(3));
+        assertEquals(292, event.getAzimuth(3));
+        assertEquals(-1, event.getSignalId());
+
+        // NMEA 4.10 adds the signal ID, and the last sentence in a group can have fewer satellites
+        assertTrue(parser.parse(withChecksum("GLGSV,3,3,09,88,12,040,,1"), 0));
+        assertEquals(1, listener.gsv.getSatelliteCount());
+        assertEquals(88, listener.gsv.getSvid(0));
+        assertEquals(-1, listener.gsv.getCn0(0));
+        assertEquals(1, listener.gsv.getSignalId());
+    }
+
+    @Test
+    public void validateVtg()
+    {
+        assertTrue(parser.parse(VTG, 0));
+
+        final NmeaParser.VtgEvent event = listener.vtg;
+        assertEquals(54.7, event.getCourseTrue(), 0);
+        assertEquals(34.4, event.getCourseMagnetic(), 0);
+        assertEquals(5.5, event.getSpeedKnots(), 0);
+        assertEquals(10.2, event.getSpeedKmh(), 0);
+    }
+
+    @Test
+    public void validateEmptyFields()
+    {
+        assertTrue(parser.parse(withChecksum("GPGGA,,,,,,0,,,,,,,,"), 0));
+
+        final NmeaParser.GgaEvent event = listener.gga;
+        assertEquals(-1, event.getUtcTimeMs());
+        assertTrue(Double.isNaN(event.getLatitude()));
+        assertTrue(Double.isNaN(event.getLongitude()));
+        assertEquals(0, event.getFixQuality());
+        assertEquals(-1, event.getSatellitesUsed());
+        assertTrue(Double.isNaN(event.getAltitudeMsl()));
+    }
+
+    @Test
+    public void validateInvalidSentencesAreRejected()
+    {
+        // Wrong checksum
+        assertFalse(parser.parse("$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5C", 0));
+        // Corrupted value with the original checksum
+        assertFalse(parser.parse("$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.3,M,-24.0,M,,*5B", 0));
+        // Missing checksum
+        assertFalse(parser.parse("$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,", 0));
+        // Truncated checksum
+        assertFalse(parser.parse("$GPGGA,032739.0,2804.732835,N,08224.639709,W,1,08,0.8,19.2,M,-24.0,M,,*5", 0));
+        assertFalse(parser.parse("GPGGA,032739.0*5B", 0));
+        assertFalse(parser.parse("", 0));
+
+        assertEquals(6, parser.getInvalidSentenceCount());
+        assertEquals(0, listener.eventCount);
+
+        // Valid, but not a supported sentence type
+        assertFalse(parser.parse(withChecksum("GPZDA,201530.00,04,07,2002,00,00"), 0));
+        assertFalse(parser.parse(withChecksum("PGLOR,1,FIX,1.0"), 0));
+        assertEquals(6, parser.getInvalidSentenceCount());
+        assertEquals(0, listener.eventCount);
+    }
+
+    @Test
+    public void validateLineEndingsAndLowerCaseChecksum()
+    {
+        assertTrue(parser.parse(GGA + "\r\n", 0));
+        assertTrue(parser.parse("$GNGSA,A,3,03,14,16,22,23,26,,,,,,,3.6,1.8,3.1,1*3b", 0));
+    }
+
+    @Test
+    public void validateParseDouble()
+    {
+        final String[] values = {"0", "0.0", "19.2", "-24.0", "+3.5", "2804.732835", "08224.639709", "172814.00",
+                "-19.7", ".5", "5.", "123456789012345", "0.000000000000001"};
+        for (String value : values)
+        {
+            assertEquals(value, Double.parseDouble(value), NmeaParser.parseDouble(value, 0, value.length()), 0);
+        }
+
+        // Parsing a field out of the middle of a sentence
+        assertEquals(19.2, NmeaParser.parseDouble(GGA, GGA.indexOf("19.2"), GGA.indexOf("19.2") + 4), 0);
+
+        assertTrue(Double.isNaN(NmeaParser.parseDouble("", 0, 0)));
+        assertTrue(Double.isNaN(NmeaParser.parseDouble("-", 0, 1)));
+        assertTrue(Double.isNaN(NmeaParser.parseDouble(".", 0, 1)));
+        assertTrue(Double.isNaN(NmeaParser.parseDouble("1.2.3", 0, 5)));
+        assertTrue(Double.isNaN(NmeaParser.parseDouble("12a", 0, 3)));
+
+        assertEquals(42, NmeaParser.parseUnsignedInt("042", 0, 3));
+        assertEquals(-1, NmeaParser.parseUnsignedInt("", 0, 0));
+        assertEquals(-1, NmeaParser.parseUnsignedInt("-4", 0, 2));
+        assertEquals(-1, NmeaParser.parseUnsignedInt("1.5", 0, 3));
+    }
+
+    /**
+     * @return The full NMEA sentence for the provided body (the part between the '$' and the '*').
+     */
+    private static String withChecksum(String body)
+    {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++)
+        {
+            checksum ^= body.charAt(i);
+        }
+        return String.format("$%s*%02X", body, checksum);
+    }
+
+    private static class RecordingListener implements INmeaListener
+    {
+        private int eventCount;
+        private NmeaParser.GgaEvent gga;
+        private NmeaParser.GnsEvent gns;
+        private NmeaParser.GsaEvent gsa;
+        private NmeaParser.RmcEvent rmc;
+        private NmeaParser.GsvEvent gsv;
+        private NmeaParser.VtgEvent vtg;
+
+        @Override
+        public void onGga(NmeaParser.GgaEvent event)
+        {
+            gga = record(event);
+        }
+
+        @Override
+        public void onGns(NmeaParser.GnsEvent event)
+        {
+            gns = record(event);
+        }
+
+        @Override
+        public void onGsa(NmeaParser.GsaEvent event)
+        {
+            gsa = record(event);
+        }
+
+        @Override
+        public void onRmc(NmeaParser.RmcEvent event)
+        {
+            rmc = record(event);
+        }
+
+        @Override
+        public void onGsv(NmeaParser.GsvEvent event)
+        {
+            gsv = record(event);
+        }
+
+        @Override
+        public void onVtg(NmeaParser.VtgEvent event)
+        {
+            vtg = record(event);
+        }
+
+        private <T extends NmeaParser.NmeaEvent> T record(T event)
+        {
+            eventCount++;
+            return event;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.craxiom.networksurvey.util;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link SignalHistoryStore} class.
+ *
+ * @since 1.5.0
+ */
+public class SignalHistoryStoreTest
+{
+    private static final long START_MS = 1_600_000_000_000L;
+
+    @Test
+    public void validateRingBufferWrapsAround()
+    {
+        final SignalHistoryStore store = new SignalHistoryStore(4, 1_000_000);
+
+        for (int i = 0; i < 6; i++)
+        {
+            store.record("AA:BB:CC:DD:EE:FF", START_MS + i, -60f - i);
+        }
+
+        final float[] values = new float[10];
+        final long[] timestamps = new long[10];
+        assertEquals(4, store.getHistory("AA:BB:CC:DD:EE:FF", values, timestamps));
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(-62f - i, values[i], 0f);
+            assertEquals(START_MS + 2 + i, timestamps[i]);
+        }
+
+        // A shorter output array only gets the newest values
+        final float[] newestValues = new float[2];
+        assertEquals(2, store.getHistory("AA:BB:CC:DD:EE:FF", newestValues, null));
+        assertEquals(-64f, newestValues[0], 0f);
+        assertEquals(-65f, newestValues[1], 0f);
+
+        assertEquals(0, store.getHistory("unknown", values, timestamps));
+    }
+
+    @Test
+    public void validateLeastRecentlyUpdatedIsEvicted()
+    {
+        final SignalHistoryStore store = new SignalHistoryStore(8, 1);
+        assertEquals(1, store.getMaxEmitters());
+
+        final SignalHistoryStore threeEmitterStore = new SignalHistoryStore(8, 3 * getBytesPerEmitter(8));
+        assertEquals(3, threeEmitterStore.getMaxEmitters());
+
+        threeEmitterStore.record("a", START_MS, -50f);
+        threeEmitterStore.record("b", START_MS + 1, -60f);
+        threeEmitterStore.record("c", START_MS + 2, -70f);
+        threeEmitterStore.record("a", START_MS + 3, -51f);
+        threeEmitterStore.record("d", START_MS + 4, -80f);
+
+        assertEquals(3, threeEmitterStore.size());
+        assertFalse(threeEmitterStore.contains("b"));
+        assertTrue(threeEmitterStore.contains("a"));
+        assertTrue(threeEmitterStore.contains("c"));
+        assertTrue(threeEmitterStore.contains("d"));
+
+        // An evicted emitter starts over with an empty history
+        threeEmitterStore.record("b", START_MS + 5, -61f);
+        final float[] values = new float[8];
+        assertEquals(1, threeEmitterStore.getHistory("b", values, null));
+        assertEquals(-61f, values[0], 0f);
+        assertFalse(threeEmitterStore.contains("c"));
+    }
+
+    @Test
+    public void validateEvictIdle()
+    {
+        final SignalHistoryStore store = new SignalHistoryStore(8, 1_000_000);
+        store.record("a", START_MS, -50f);
+        store.record("b", START_MS + 1_000, -60f);
+        store.record("c", START_MS + 2_000, -70f);
+        store.record("a", START_MS + 3_000, -51f);
+
+        assertEquals(1, store.evictIdle(START_MS + 1_500));
+        assertFalse(store.contains("b"));
+        assertEquals(2, store.size());
+
+        assertEquals(2, store.evictIdle(START_MS + 10_000));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void validateMemoryCap()
+    {
+        final long maxBytes = 2 * 1024 * 1024;
+        final SignalHistoryStore store = new SignalHistoryStore(60, maxBytes);
+
+        assertTrue("Thousands of emitters should fit in 2 MB", store.getMaxEmitters() > 2_000);
+        assertTrue(store.getEstimatedBytes() <= maxBytes);
+
+        for (int i = 0; i < store.getMaxEmitters() * 3; i++)
+        {
+            store.record("emitter " + i, START_MS + i, -70f);
+        }
+        assertEquals(store.getMaxEmitters(), store.size());
+    }
+
+    @Test
+    public void validateAgainstReferenceImplementation()
+    {
+        final int historyLength = 5;
+        final SignalHistoryStore store = new SignalHistoryStore(historyLength, 50 * getBytesPerEmitter(historyLength));
+        final int maxEmitters = store.getMaxEmitters();
+
+        // An access ordered LinkedHashMap is an LRU list
+        final Map<String, Deque<Float>> reference = new LinkedHashMap<>(16, 0.75f, true);
+        final Random random = new Random(17);
+        final float[] values = new float[historyLength];
+
+        for (int i = 0; i < 50_000; i++)
+        {
+            final String key = "key " + random.nextInt(120);
+            final int operation = random.nextInt(10);
+            if (operation == 0)
+            {
+                assertEquals(reference.remove(key) != null, store.remove(key));
+            } else
+            {
+                final float value = random.nextInt(100);
+                Deque<Float> history = reference.get(key);
+                if (history == null)
+                {
+                    if (reference.size() == maxEmitters)
+                    {
+                        final Iterator<String> iterator = reference.keySet().iterator();
+                        iterator.next();
+                        iterator.remove();
+                    }
+                    history = new ArrayDeque<>();
+                    reference.put(key, history);
+                }
+                history.addLast(value);
+                if (history.size() > historyLength) history.removeFirst();
+
+                store.record(key, START_MS + i, value);
+            }
+
+            assertEquals(reference.size(), store.size());
+
+            final Deque<Float> expected = reference.get(key);
+            final int count = store.getHistory(key, values, null);
+            if (expected == null)
+            {
+                assertEquals(0, count);
+            } else
+            {
+                final List<Float> actual = new ArrayList<>();
+                for (int j = 0; j < count; j++)
+                {
+                    actual.add(values[j]);
+                }
+                assertEquals(new ArrayList<>(expected), actual);
+            }
+        }
+
+        for (String key : reference.keySet())
+        {
+            assertTrue(store.contains(key));
+        }
+    }
+
+    private static long getBytesPerEmitter(int historyLength)
+    {
+        return (long) historyLength * (4 + 8) + 6 * 4 + 4 * (4 + 4) + 64;
+    }
+}
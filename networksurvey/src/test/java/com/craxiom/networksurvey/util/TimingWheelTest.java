@@ -0,0 +1,111 @@
+package com.craxiom.networksurvey.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link TimingWheel} class.
+ *
+ * @since 1.5.0
+ */
+public class TimingWheelTest
+{
+    private static final long START_MS = 1_600_000_000_000L;
+
+    @Test
+    public void validateExpiration()
+    {
+        final TimingWheel<String> wheel = new TimingWheel<>(1_000, 8);
+
+        wheel.touch("a", START_MS + 2_500);
+        wheel.touch("b", START_MS + 4_000);
+        assertEquals(2, wheel.size());
+
+        assertTrue(wheel.advance(START_MS).isEmpty());
+        assertTrue(wheel.advance(START_MS + 2_500).isEmpty()); // The deadline itself is not expired yet
+        assertEquals(Collections.singletonList("a"), wheel.advance(START_MS + 2_501));
+
+        // Touching a key moves its deadline
+        wheel.touch("b", START_MS + 6_000);
+        assertTrue(wheel.advance(START_MS + 5_000).isEmpty());
+        assertEquals(Collections.singletonList("b"), wheel.advance(START_MS + 6_001));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void validateDeadlinesBeyondOneRevolution()
+    {
+        final TimingWheel<String> wheel = new TimingWheel<>(1_000, 4);
+
+        wheel.touch("far", START_MS + 10_000);
+        for (long time = START_MS; time <= START_MS + 10_000; time += 500)
+        {
+            assertTrue(wheel.advance(time).isEmpty());
+        }
+        assertEquals(Collections.singletonList("far"), wheel.advance(START_MS + 10_001));
+    }
+
+    @Test
+    public void validateDeadlinesInThePast()
+    {
+        final TimingWheel<String> wheel = new TimingWheel<>(1_000, 8);
+        wheel.advance(START_MS + 5_000);
+
+        // A deadline in a tick that was already processed must still be expired on the next advance
+        wheel.touch("late", START_MS + 1_000);
+        assertEquals(Collections.singletonList("late"), wheel.advance(START_MS + 5_100));
+    }
+
+    @Test
+    public void validateRemove()
+    {
+        final TimingWheel<String> wheel = new TimingWheel<>(1_000, 8);
+        wheel.touch("a", START_MS + 1_000);
+        wheel.remove("a");
+        wheel.remove("unknown");
+
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advance(START_MS + 10_000).isEmpty());
+    }
+
+    @Test
+    public void validateAgainstFullScan()
+    {
+        final TimingWheel<Integer> wheel = new TimingWheel<>(1_000, 16);
+        final Map<Integer, Long> deadlines = new HashMap<>();
+        final Random random = new Random(11);
+
+        for (long time = START_MS; time < START_MS + 120_000; time += 250)
+        {
+            for (int i = 0; i < 20; i++)
+            {
+                final int key = random.nextInt(500);
+                final long deadline = time + random.nextInt(30_000);
+                wheel.touch(key, deadline);
+                deadlines.put(key, deadline);
+            }
+
+            final long now = time;
+            final List<Integer> expected = new ArrayList<>();
+            deadlines.forEach((key, deadline) -> {
+                if (deadline < now) expected.add(key);
+            });
+            expected.forEach(deadlines::remove);
+
+            final List<Integer> expired = wheel.advance(now);
+            Collections.sort(expected);
+            Collections.sort(expired);
+            assertEquals(expected, expired);
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.craxiom.networksurvey.util;
+
+import com.craxiom.networksurvey.constants.WifiBeaconMessageConstants;
+import com.craxiom.networksurvey.model.WifiChannel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the Wi-Fi frequency to channel lookup table in {@link WifiChannelUtils}.
+ *
+ * @since 1.5.0
+ */
+public class WifiChannelUtilsTest
+{
+    @Test
+    public void validateEveryFrequency()
+    {
+        for (int frequency = -1; frequency <= 8000; frequency++)
+        {
+            final WifiChannel channel = WifiChannelUtils.getChannel(frequency);
+            final int expectedChannelNumber = getExpectedChannelNumber(frequency);
+            if (expectedChannelNumber == -1)
+            {
+                assertNull("Frequency " + frequency, channel);
+                assertEquals(-1, WifiChannelUtils.getChannelNumber(frequency));
+                assertNull(WifiChannelUtils.getBand(frequency));
+                continue;
+            }
+
+            assertNotNull("Frequency " + frequency, channel);
+            assertEquals("Frequency " + frequency, expectedChannelNumber, channel.getChannelNumber());
+            assertEquals(frequency, channel.getCenterFrequencyMhz());
+            assertEquals(getExpectedBand(frequency), channel.getBand());
+            assertEquals(expectedChannelNumber, WifiChannelUtils.getChannelNumber(frequency));
+            assertEquals(expectedChannelNumber, WifiBeaconMessageConstants.convertFrequencyToChannelNumber(frequency));
+        }
+    }
+
+    @Test
+    public void validateLegacyConversionIsUnchanged()
+    {
+        for (int frequency = 0; frequency <= 8000; frequency++)
+        {
+            final short legacyChannel = convertFrequencyToChannelNumberLegacy(frequency);
+            if (legacyChannel != -1)
+            {
+                assertEquals("Frequency " + frequency, legacyChannel, WifiBeaconMessageConstants.convertFrequencyToChannelNumber(frequency));
+            }
+        }
+    }
+
+    @Test
+    public void validateChannelCounts()
+    {
+        int count24 = 0;
+        int count5 = 0;
+        int count6 = 0;
+        for (int frequency = WifiChannelUtils.MIN_FREQUENCY_MHZ; frequency <= WifiChannelUtils.MAX_FREQUENCY_MHZ; frequency++)
+        {
+            final WifiChannel.Band band = WifiChannelUtils.getBand(frequency);
+            if (band == null) continue;
+            switch (band)
+            {
+                case BAND_2_4_GHZ:
+                    count24++;
+                    break;
+                case BAND_5_GHZ:
+                    count5++;
+                    break;
+                case BAND_6_GHZ:
+                    count6++;
+                    break;
+            }
+        }
+
+        assertEquals(14, count24);
+        assertEquals(146, count5); // Channels 32 to 177
+        assertEquals(117, count6); // Channel 2 and the odd channels 1 to 233, minus channel 223
+    }
+
+    @Test
+    public void validate6GhzChannels()
+    {
+        assertChannel(5935, 2, WifiChannel.Band.BAND_6_GHZ, 20);
+        assertChannel(5955, 1, WifiChannel.Band.BAND_6_GHZ, 20);
+        assertChannel(5965, 3, WifiChannel.Band.BAND_6_GHZ, 40);
+        assertChannel(5985, 7, WifiChannel.Band.BAND_6_GHZ, 80);
+        assertChannel(6025, 15, WifiChannel.Band.BAND_6_GHZ, 160);
+        assertChannel(6105, 31, WifiChannel.Band.BAND_6_GHZ, 320);
+        assertChannel(6135, 37, WifiChannel.Band.BAND_6_GHZ, 20);
+        assertChannel(6985, 207, WifiChannel.Band.BAND_6_GHZ, 160);
+        assertChannel(7115, 233, WifiChannel.Band.BAND_6_GHZ, 20);
+
+        assertNull(WifiChannelUtils.getChannel(5960)); // Even channels other than 2 are not used
+        assertNull(WifiChannelUtils.getChannel(7065)); // Channel 223
+        assertNull(WifiChannelUtils.getChannel(7120));
+    }
+
+    @Test
+    public void validate5GhzChannels()
+    {
+        assertChannel(5160, 32, WifiChannel.Band.BAND_5_GHZ, 20);
+        assertChannel(5180, 36, WifiChannel.Band.BAND_5_GHZ, 20);
+        assertChannel(5190, 38, WifiChannel.Band.BAND_5_GHZ, 40);
+        assertChannel(5210, 42, WifiChannel.Band.BAND_5_GHZ, 80);
+        assertChannel(5250, 50, WifiChannel.Band.BAND_5_GHZ, 160);
+        assertChannel(5775, 155, WifiChannel.Band.BAND_5_GHZ, 80);
+        assertChannel(5815, 163, WifiChannel.Band.BAND_5_GHZ, 160);
+        assertChannel(5865, 173, WifiChannel.Band.BAND_5_GHZ, 20);
+        assertChannel(5885, 177, WifiChannel.Band.BAND_5_GHZ, 20);
+
+        assertNull(WifiChannelUtils.getChannel(5182));
+        assertNull(WifiChannelUtils.getChannel(5890));
+    }
+
+    @Test
+    public void validate24GhzChannels()
+    {
+        assertChannel(2412, 1, WifiChannel.Band.BAND_2_4_GHZ, 20);
+        assertChannel(2472, 13, WifiChannel.Band.BAND_2_4_GHZ, 20);
+        assertChannel(2484, 14, WifiChannel.Band.BAND_2_4_GHZ, 20);
+
+        assertNull(WifiChannelUtils.getChannel(2407));
+        assertNull(WifiChannelUtils.getChannel(2413));
+        assertNull(WifiChannelUtils.getChannel(2477));
+    }
+
+    @Test
+    public void validateInstancesAreShared()
+    {
+        assertSame(WifiChannelUtils.getChannel(5180), WifiChannelUtils.getChannel(5180));
+    }
+
+    private static void assertChannel(int frequency, int channelNumber, WifiChannel.Band band, int widthMhz)
+    {
+        final WifiChannel channel = WifiChannelUtils.getChannel(frequency);
+        assertNotNull("Frequency " + frequency, channel);
+        assertEquals(channelNumber, channel.getChannelNumber());
+        assertEquals(band, channel.getBand());
+        assertEquals(widthMhz, channel.getWidthMhz());
+    }
+
+    /**
+     * An independent definition of the channel numbers, written using the channel starting frequencies from the
+     * 802.11 specification.
+     */
+    private static int getExpectedChannelNumber(int frequency)
+    {
+        if (frequency == 2484) return 14;
+        if (frequency >= 2412 && frequency <= 2472 && (frequency - 2407) % 5 == 0) return (frequency - 2407) / 5;
+
+        if (frequency >= 5160 && frequency <= 5885 && frequency % 5 == 0) return (frequency - 5000) / 5;
+
+        if (frequency == 5935) return 2;
+        if (frequency >= 5955 && frequency <= 7115 && (frequency - 5950) % 10 == 5)
+        {
+            final int channel = (frequency - 5950) / 5;
+            return channel == 223 ? -1 : channel;
+        }
+
+        return -1;
+    }
+
+    private static WifiChannel.Band getExpectedBand(int frequency)
+    {
+        if (frequency < 3000) return WifiChannel.Band.BAND_2_4_GHZ;
+        if (frequency < 5925) return WifiChannel.Band.BAND_5_GHZ;
+        return WifiChannel.Band.BAND_6_GHZ;
+    }
+
+    /**
+     * The previous implementation of {@link WifiBeaconMessageConstants#convertFrequencyToChannelNumber(int)}, which only
+     * covered part of the 5 GHz band.
+     */
+    private static short convertFrequencyToChannelNumberLegacy(int frequency)
+    {
+        if (frequency >= 2412 && frequency <= 2472)
+        {
+            if ((frequency - 2407) % 5 != 0) return -1;
+            return (short) ((frequency - 2407) / 5);
+        }
+
+        if (frequency == 2484) return 14;
+
+        if (frequency >= 5170 && frequency <= 5825)
+        {
+            if (frequency % 5 != 0) return -1;
+            return (short) ((frequency - 5000) / 5);
+        }
+
+        return -1;
+    }
+}